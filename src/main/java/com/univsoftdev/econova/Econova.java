@@ -9,8 +9,10 @@ import com.univsoftdev.econova.core.FileUtils;
 import com.univsoftdev.econova.core.Injector;
 import com.univsoftdev.econova.core.JavaFxInitializer;
 import com.univsoftdev.econova.core.LookAndFeelUtils;
+import com.univsoftdev.econova.core.StartupTimer;
 import com.univsoftdev.econova.core.module.ModuleInitializationException;
 import com.univsoftdev.econova.ebean.config.EbeanMigrator;
+import com.univsoftdev.econova.ebean.config.TenantMigrationService;
 import com.univsoftdev.econova.security.SecurityContext;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -33,26 +35,34 @@ public class Econova {
 
         System.setProperty("config.encryption.password", "HWEUIE4684685GE445878678567866574$&%*");
 
-        LookAndFeelUtils.setupLookAndFeel();
+        StartupTimer.fase("Look and feel", LookAndFeelUtils::setupLookAndFeel);
 
-        Injector.init();
+        StartupTimer.fase("Contenedor de dependencias", Injector::init);
 
-        EbeanMigrator migrator = Injector.get(EbeanMigrator.class);
-        migrator.runInitMigration();
+        StartupTimer.fase("Migración inicial", () -> {
+            EbeanMigrator migrator = Injector.get(EbeanMigrator.class);
+            migrator.runInitMigration();
 
-        AppContext appContext = Injector.get(AppContext.class);
-        appContext.addModule(new ContabilidadModule());
-        try {
-            appContext.initializeAllModules();
-        } catch (ModuleInitializationException ex) {
-            log.error(ex.getMessage());
-        }
+            // Los tenants se migran en segundo plano; cada inicio de sesión
+            // espera solo por el esquema de su empresa
+            Injector.get(TenantMigrationService.class).migrarTodos();
+        });
+
+        StartupTimer.fase("Módulos", () -> {
+            AppContext appContext = Injector.get(AppContext.class);
+            appContext.addModule(new ContabilidadModule());
+            try {
+                appContext.initializeAllModules();
+            } catch (ModuleInitializationException ex) {
+                log.error(ex.getMessage());
+            }
+        });
 
         // Arranque seguro de la aplicación en el hilo de eventos de Swing
         javax.swing.SwingUtilities.invokeLater(() -> {
             try {
-                setupSecurity();
-                initializeJavaFxToolkit();
+                StartupTimer.fase("Seguridad", Econova::setupSecurity);
+                StartupTimer.fase("JavaFX", Econova::initializeJavaFxToolkit);
                 showSplashScreen();
                 init(args);
             } catch (Exception e) {
@@ -73,19 +83,21 @@ public class Econova {
     }
 
     private static void init(String[] args) {
-        // Initialize all application directories
-        FileUtils.initializeAppDirectories();
+        StartupTimer.fase("Directorios de la aplicación", () -> {
+            // Initialize all application directories
+            FileUtils.initializeAppDirectories();
 
-        // Display storage usage
-        log.info(FileUtils.getStorageUsageReport());
+            // Display storage usage
+            log.info(FileUtils.getStorageUsageReport());
 
-        // Create a backup
-        FileUtils.createBackup();
+            // Create a backup
+            FileUtils.createBackup();
 
-        // Clean temporary files
-        FileUtils.cleanTempDirectory();
+            // Clean temporary files
+            FileUtils.cleanTempDirectory();
+        });
 
-        boolean valid = LicenseUtils.loadAndValidateTrialLicense();
+        boolean valid = StartupTimer.medir("Licencia", LicenseUtils::loadAndValidateTrialLicense);
 
         SwingUtilities.invokeLater(() -> {
 
@@ -95,6 +107,7 @@ public class Econova {
                 CompanyService empresaService = Injector.get(CompanyService.class);
                 if (empresaService != null && empresaService.findAll().isEmpty()) {
                     log.info("Iniciando wizard de configuración inicial");
+                    StartupTimer.registrarInforme();
                     Wizard wizard = new Wizard(null);
                     wizard.setLocationRelativeTo(null);
                     wizard.setVisible(true);
@@ -163,8 +176,9 @@ public class Econova {
 
     private static void startMainApplication(String[] args) {
         try {
-            MainFormApp mainFormApp = Injector.get(MainFormApp.class);
+            MainFormApp mainFormApp = StartupTimer.medir("Ventana principal", () -> Injector.get(MainFormApp.class));
             mainFormApp.start();
+            StartupTimer.registrarInforme();
         } catch (Exception e) {
             log.error("Error starting main application: {}", e.getMessage(), e);
             JOptionPane.showMessageDialog(null, "Error starting main application: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
@@ -149,12 +149,16 @@ public class EconovaDrawerBuilder extends SimpleDrawerBuilder {
             try {
                 @SuppressWarnings("unchecked")
                 Class<? extends Form> formClass = (Class<? extends Form>) itemClass;
+                // El módulo del formulario se inicializa la primera vez que se abre
+                Injector.get(AppContext.class).getModuleFor(formClass);
                 //FormManager.showForm(AllForms.getForm(formClass));
                 Form form = formClass.getDeclaredConstructor().newInstance();
                 FormManager.showForm(form);
             } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
                 log.error(ex.getMessage());
                 ex.printStackTrace();
+            } catch (RuntimeException ex) {
+                log.error("No se pudo abrir {}: {}", itemClass.getSimpleName(), ex.getMessage(), ex);
             }
         });
         simpleMenuOption.setMenus(items)
@@ -22,6 +22,7 @@ public class MenuFactory {
             new Item("Contabilidad", "forms.svg", FormContabilidad.class)
                     .subMenu("Comprobantes", FormComprobantes.class)
                     .subMenu("Clasificador de Cuentas", FormClasificador.class)
+                    .subMenu("Libro Mayor", FormLibroMayor.class)
                     .subMenu("Balance de Comprobación", FormBalanceComprobacion.class)
                     .subMenu("Estado de Rendimiento", FormEstadoResultado.class),
             new Item("Costos y Procesos", "components.svg", FormCostosProcesos.class),
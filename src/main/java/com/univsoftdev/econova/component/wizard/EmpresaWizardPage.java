@@ -6,6 +6,7 @@ import com.github.cjwizard.WizardSettings;
 import com.univsoftdev.econova.config.model.Company;
 import com.univsoftdev.econova.core.Validations;
 import com.univsoftdev.econova.core.utils.DialogUtils;
+import io.avaje.inject.Lazy;
 import jakarta.inject.Singleton;
 import java.awt.HeadlessException;
 import java.util.ArrayList;
@@ -13,6 +14,7 @@ import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.table.DefaultTableModel;
 
+@Lazy
 @Singleton
 public class EmpresaWizardPage extends WizardPage {
 
@@ -4,6 +4,8 @@ import com.univsoftdev.econova.config.finder.UnidadFinder;
 import com.univsoftdev.econova.contabilidad.model.AccountingEntry;
 import com.univsoftdev.econova.contabilidad.model.Transaction;
 import com.univsoftdev.econova.core.model.BaseModel;
+import io.ebean.annotation.Cache;
+import io.ebean.annotation.CacheBeanTuning;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
@@ -13,6 +15,8 @@ import java.util.List;
 import lombok.EqualsAndHashCode;
 
 @EqualsAndHashCode(callSuper = true)
+@Cache(naturalKey = "code")
+@CacheBeanTuning(maxSize = 500, maxSecsToLive = 3600)
 @Entity
 @Table(name = "sys_units")
 public class Unit extends BaseModel {
@@ -38,11 +38,18 @@ public class MonedaRepository extends BaseRepository<Currency> {
     
     // Métodos adicionales específicos para Currency
     public Optional<Currency> findBySimbolo(String symbol) {
-        return Optional.ofNullable(database.find(Currency.class)
-                .where()
-                .eq("symbol", symbol)
-                .findOne()
-        );
+        return findByNaturalKey("symbol", symbol);
+    }
+
+    /**
+     * Moneda base (tasa de cambio igual a 1), resuelta sobre la lista de
+     * monedas en caché.
+     */
+    public Optional<Currency> findMonedaBase() {
+        return findAllCached("symbol asc").stream()
+                .filter(moneda -> moneda.getTasaCambio() != null
+                && moneda.getTasaCambio().compareTo(BigDecimal.ONE) == 0)
+                .findFirst();
     }
     
     public Optional<Currency> findByDisplayName(String displayName) {
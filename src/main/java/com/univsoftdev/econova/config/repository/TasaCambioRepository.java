@@ -0,0 +1,101 @@
+package com.univsoftdev.econova.config.repository;
+
+import com.univsoftdev.econova.contabilidad.model.ExchangeRate;
+import com.univsoftdev.econova.core.repository.BaseRepository;
+import io.ebean.Database;
+import io.ebean.SqlRow;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Singleton
+public class TasaCambioRepository extends BaseRepository<ExchangeRate> {
+
+    // Misma fórmula que el cálculo anterior fila a fila: la tasa relativa a
+    // la referencia, redondeada a 6 decimales, por la nueva tasa de referencia
+    private static final String SQL_RECALCULAR_TASAS
+            = "UPDATE cont_currency SET tasa_cambio = CASE"
+            + " WHEN symbol = :referencia THEN :nuevaTasa"
+            + " ELSE ROUND(tasa_cambio / :tasaActual, 6) * :nuevaTasa END"
+            + " WHERE deleted = false";
+
+    private static final String SQL_REGISTRAR_TASAS_VIGENTES
+            = "INSERT INTO cont_exchange_rates"
+            + " (currency_id, effective_date, rate, tenant_id, version, when_created, when_modified, deleted)"
+            + " SELECT c.id, :fecha, c.tasa_cambio, c.tenant_id, 1, now(), now(), false"
+            + " FROM cont_currency c"
+            + " WHERE c.deleted = false AND c.tasa_cambio IS NOT NULL"
+            + " ON CONFLICT (currency_id, effective_date)"
+            + " DO UPDATE SET rate = EXCLUDED.rate, when_modified = now(),"
+            + " version = cont_exchange_rates.version + 1";
+
+    private static final String SQL_HISTORICO
+            = "SELECT c.symbol, r.effective_date, r.rate"
+            + " FROM cont_exchange_rates r"
+            + " JOIN cont_currency c ON c.id = r.currency_id"
+            + " WHERE r.deleted = false AND c.deleted = false"
+            + " ORDER BY r.effective_date, c.symbol";
+
+    @Inject
+    public TasaCambioRepository(Database database) {
+        super(database);
+    }
+
+    @Override
+    protected Class<ExchangeRate> getEntityType() {
+        return ExchangeRate.class;
+    }
+
+    @Override
+    public List<ExchangeRate> findByCriteria(String criteria) {
+        return database.find(ExchangeRate.class)
+                .where()
+                .ilike("currency.symbol", criteria + "%")
+                .orderBy("effectiveDate desc")
+                .findList();
+    }
+
+    /**
+     * Recalcula las tasas de todas las monedas respecto a una nueva tasa de
+     * la moneda de referencia en una sola sentencia.
+     *
+     * @param referencia Símbolo de la moneda de referencia.
+     * @param tasaActual Tasa actual de la moneda de referencia.
+     * @param nuevaTasa Nueva tasa de la moneda de referencia.
+     * @return Cantidad de monedas actualizadas.
+     */
+    public int recalcularTasas(String referencia, BigDecimal tasaActual, BigDecimal nuevaTasa) {
+        return database.sqlUpdate(SQL_RECALCULAR_TASAS)
+                .setParameter("referencia", referencia)
+                .setParameter("tasaActual", tasaActual)
+                .setParameter("nuevaTasa", nuevaTasa)
+                .execute();
+    }
+
+    /**
+     * Copia las tasas actuales de todas las monedas al histórico con una
+     * fecha de vigencia. Si ya había tasas en esa fecha, se sustituyen.
+     *
+     * @param fecha Fecha de vigencia.
+     * @return Cantidad de tasas registradas.
+     */
+    public int registrarTasasVigentes(LocalDate fecha) {
+        return database.sqlUpdate(SQL_REGISTRAR_TASAS_VIGENTES)
+                .setParameter("fecha", fecha)
+                .execute();
+    }
+
+    /**
+     * Histórico completo de tasas ordenado por fecha de vigencia, con las
+     * columnas {@code symbol}, {@code effective_date} y {@code rate}.
+     *
+     * @return Filas del histórico.
+     */
+    public List<SqlRow> findHistorico() {
+        return database.sqlQuery(SQL_HISTORICO).findList();
+    }
+}
@@ -36,11 +36,7 @@ public class UnitRepository extends BaseRepository<Unit> {
     }
 
     public Optional<Unit> findByCodigo(String codigo) {
-        return Optional.ofNullable(database.find(Unit.class)
-                        .where()
-                        .eq("codigo", codigo)
-                        .findOne()
-        );
+        return findByNaturalKey("code", codigo);
     }
 
     public Optional<Unit> findByNombre(String nombre) {
@@ -1,13 +1,15 @@
 package com.univsoftdev.econova.config.service;
 
 import com.univsoftdev.econova.config.repository.MonedaRepository;
+import com.univsoftdev.econova.config.repository.TasaCambioRepository;
 import com.univsoftdev.econova.contabilidad.model.Currency;
 import com.univsoftdev.econova.core.exception.BusinessLogicException;
 import com.univsoftdev.econova.core.service.BaseService;
+import io.ebean.annotation.Transactional;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
@@ -20,9 +22,15 @@ import lombok.extern.slf4j.Slf4j;
 @Singleton
 public class CurrencyService extends BaseService<Currency, MonedaRepository> {
 
+    private final TasaCambioService tasaCambioService;
+    private final TasaCambioRepository tasaCambioRepository;
+
     @Inject
-    public CurrencyService(MonedaRepository database) {
+    public CurrencyService(MonedaRepository database, TasaCambioService tasaCambioService,
+            TasaCambioRepository tasaCambioRepository) {
         super(database);
+        this.tasaCambioService = tasaCambioService;
+        this.tasaCambioRepository = tasaCambioRepository;
     }
 
     /**
@@ -47,6 +55,7 @@ public class CurrencyService extends BaseService<Currency, MonedaRepository> {
         nuevaMoneda.setPorDefecto(porDefecto);
 
         repository.save(nuevaMoneda);
+        registrarTasasVigentes();
         log.info("Nueva moneda creada: {} ({})", nombre, symbol);
         return nuevaMoneda;
     }
@@ -65,6 +74,7 @@ public class CurrencyService extends BaseService<Currency, MonedaRepository> {
         nuevaMoneda.setPorDefecto(porDefecto);
 
         repository.save(nuevaMoneda);
+        registrarTasasVigentes();
         log.info("Nueva moneda creada: {} ({})", nombre, symbol);
         return nuevaMoneda;
     }
@@ -89,6 +99,7 @@ public class CurrencyService extends BaseService<Currency, MonedaRepository> {
         moneda.setPorDefecto(porDefecto);
 
         repository.update(moneda);
+        registrarTasasVigentes();
         log.info("Moneda actualizada: {}", monedaId);
         return moneda;
     }
@@ -97,10 +108,7 @@ public class CurrencyService extends BaseService<Currency, MonedaRepository> {
      * Obtiene una moneda por su símbolo (código)
      */
     public Optional<Currency> obtenerMonedaPorSymbol(String symbol) {
-        return repository.createQuery(Currency.class)
-                .where()
-                .eq("symbol", symbol)
-                .findOneOrEmpty();
+        return repository.findBySimbolo(symbol);
     }
 
     /**
@@ -108,7 +116,7 @@ public class CurrencyService extends BaseService<Currency, MonedaRepository> {
      */
     public List<Currency> obtenerTodasLasMonedas() {
         return repository.createQuery(Currency.class)
-                .orderBy("nombre asc")
+                .orderBy("displayName asc")
                 .findList();
     }
 
@@ -143,38 +151,24 @@ public class CurrencyService extends BaseService<Currency, MonedaRepository> {
     }
 
     /**
-     * Convierte un monto entre dos monedas
+     * Convierte un monto entre dos monedas con las tasas vigentes hoy
      */
     public BigDecimal convertirMoneda(BigDecimal monto, String monedaOrigen, String monedaDestino) {
-        if (monedaOrigen.equals(monedaDestino)) {
-            return monto;
-        }
-
-        Currency origen = obtenerMonedaPorSymbol(monedaOrigen)
-                .orElseThrow(() -> new BusinessLogicException("Moneda origen no encontrada: " + monedaOrigen));
-
-        Currency destino = obtenerMonedaPorSymbol(monedaDestino)
-                .orElseThrow(() -> new BusinessLogicException("Moneda destino no encontrada: " + monedaDestino));
-
-        // Convertir a moneda base primero (si es necesario)
-        BigDecimal montoEnBase = monedaOrigen.equals(getMonedaBase().getSymbol())
-                ? monto
-                : monto.divide(origen.getTasaCambio(), 6, RoundingMode.HALF_UP);
+        return tasaCambioService.convertir(monto, monedaOrigen, monedaDestino);
+    }
 
-        // Convertir a moneda destino
-        return monedaDestino.equals(getMonedaBase().getSymbol())
-                ? montoEnBase
-                : montoEnBase.multiply(destino.getTasaCambio());
+    /**
+     * Convierte un monto entre dos monedas con las tasas vigentes en una fecha
+     */
+    public BigDecimal convertirMoneda(BigDecimal monto, String monedaOrigen, String monedaDestino, LocalDate fecha) {
+        return tasaCambioService.convertir(monto, monedaOrigen, monedaDestino, fecha);
     }
 
     /**
      * Obtiene la moneda base del sistema (la que tiene tasa de cambio = 1)
      */
     public Currency getMonedaBase() {
-        return repository.createQuery(Currency.class)
-                .where()
-                .eq("tazaCambio", BigDecimal.ONE)
-                .findOneOrEmpty()
+        return repository.findMonedaBase()
                 .orElseThrow(() -> new BusinessLogicException("No hay moneda base configurada (tasa = 1)"));
     }
 
@@ -235,12 +229,16 @@ public class CurrencyService extends BaseService<Currency, MonedaRepository> {
         }
 
         repository.delete(moneda);
+        tasaCambioService.recargar();
         log.info("Moneda eliminada: {}", monedaId);
     }
 
     /**
-     * Actualiza las tasas de cambio basado en una moneda de referencia
+     * Actualiza las tasas de cambio basado en una moneda de referencia. Todas
+     * las tasas se recalculan con una sola sentencia y quedan registradas en
+     * el histórico con vigencia desde hoy.
      */
+    @Transactional
     public void actualizarTasasCambio(String monedaReferencia, BigDecimal nuevaTasaReferencia) {
         Currency referencia = obtenerMonedaPorSymbol(monedaReferencia)
                 .orElseThrow(() -> new BusinessLogicException("Moneda referencia no encontrada"));
@@ -249,26 +247,20 @@ public class CurrencyService extends BaseService<Currency, MonedaRepository> {
             throw new BusinessLogicException("La tasa de referencia debe ser positiva");
         }
 
-        // Obtener todas las monedas excepto la de referencia
-        List<Currency> monedas = repository.createQuery(Currency.class)
-                .where()
-                .ne("symbol", monedaReferencia)
-                .findList();
-
-        // Actualizar tasas relativas a la nueva tasa de referencia
-        for (Currency moneda : monedas) {
-            BigDecimal nuevaTasa = moneda.getTasaCambio()
-                    .divide(referencia.getTasaCambio(), 6, RoundingMode.HALF_UP)
-                    .multiply(nuevaTasaReferencia);
-            moneda.setTasaCambio(nuevaTasa);
-            repository.update(moneda);
-        }
+        int actualizadas = tasaCambioRepository.recalcularTasas(
+                monedaReferencia, referencia.getTasaCambio(), nuevaTasaReferencia);
+        registrarTasasVigentes();
 
-        // Actualizar la tasa de referencia
-        referencia.setTasaCambio(nuevaTasaReferencia);
-        repository.update(referencia);
+        log.info("Tasas de cambio actualizadas respecto a {}: {} monedas", monedaReferencia, actualizadas);
+    }
 
-        log.info("Tasas de cambio actualizadas respecto a {}", monedaReferencia);
+    /**
+     * Copia las tasas actuales al histórico con vigencia desde hoy y
+     * recalcula la matriz de conversión al confirmar.
+     */
+    private void registrarTasasVigentes() {
+        tasaCambioRepository.registrarTasasVigentes(LocalDate.now());
+        tasaCambioService.recargarAlConfirmar();
     }
 
     public Optional<Currency> findByDisplayName(String name) {
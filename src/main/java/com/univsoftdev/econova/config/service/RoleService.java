@@ -7,6 +7,7 @@ import com.univsoftdev.econova.contabilidad.model.Permission;
 import com.univsoftdev.econova.core.exception.BusinessLogicException;
 import com.univsoftdev.econova.core.service.BaseService;
 import com.univsoftdev.econova.security.Roles;
+import com.univsoftdev.econova.security.shiro.AutorizacionCache;
 import io.ebean.annotation.Transactional;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
@@ -23,10 +24,14 @@ import lombok.extern.slf4j.Slf4j;
 public class RoleService extends BaseService<Role, RoleRepository> {
 
     private final PermissionService permissionService;
+    private final AutorizacionCache autorizacionCache;
+
     @Inject
-    public RoleService(RoleRepository repository, PermissionService permissionService) {
+    public RoleService(RoleRepository repository, PermissionService permissionService,
+            AutorizacionCache autorizacionCache) {
         super(repository);
         this.permissionService = permissionService;
+        this.autorizacionCache = autorizacionCache;
     }
 
     /**
@@ -72,6 +77,7 @@ public class RoleService extends BaseService<Role, RoleRepository> {
         }
 
         save(role);
+        autorizacionCache.invalidarTodos();
         log.info("Permissions updated for role: {}", role.getName());
         return role;
     }
@@ -130,6 +136,7 @@ public class RoleService extends BaseService<Role, RoleRepository> {
         save(role);
 
         repository.delete(role);
+        autorizacionCache.invalidarTodos();
         log.info("Role deleted: {}", role.getName());
     }
 
@@ -177,6 +184,7 @@ public class RoleService extends BaseService<Role, RoleRepository> {
         if (permission != null) {
             role.removePermission(permission);
             save(role);
+            autorizacionCache.invalidarTodos();
             log.info("Permission removed from role: {}", role.getName());
         }
 
@@ -231,5 +239,6 @@ public class RoleService extends BaseService<Role, RoleRepository> {
 
         role.addPermission(permission);
         save(role);
+        autorizacionCache.invalidarTodos();
     }
 }
@@ -0,0 +1,285 @@
+package com.univsoftdev.econova.config.service;
+
+import com.univsoftdev.econova.config.repository.MonedaRepository;
+import com.univsoftdev.econova.config.repository.TasaCambioRepository;
+import com.univsoftdev.econova.contabilidad.model.Currency;
+import com.univsoftdev.econova.core.UserContext;
+import com.univsoftdev.econova.core.exception.BusinessLogicException;
+import io.ebean.DB;
+import io.ebean.SqlRow;
+import io.ebean.Transaction;
+import io.ebean.TransactionCallbackAdapter;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Conversión entre monedas a partir de una matriz de tasas cruzadas en
+ * memoria.
+ * <p>
+ * Cada tenant tiene su propia matriz, calculada a partir de sus tasas la
+ * primera vez que se usa. La matriz es inmutable y se publica completa: las
+ * conversiones solo leen la del tenant actual, sin bloqueos ni consultas, y
+ * {@link #recargar()} la sustituye de forma atómica cuando cambian las tasas.
+ */
+@Slf4j
+@Singleton
+public class TasaCambioService {
+
+    private static final MathContext PRECISION_FACTOR = MathContext.DECIMAL64;
+    // Clave de las sesiones sin tenant, ya que el mapa no admite nulos
+    private static final String SIN_TENANT = "";
+
+    private final MonedaRepository monedaRepository;
+    private final TasaCambioRepository tasaCambioRepository;
+    private final Map<String, Matriz> matrices = new ConcurrentHashMap<>();
+
+    @Inject
+    public TasaCambioService(MonedaRepository monedaRepository, TasaCambioRepository tasaCambioRepository) {
+        this.monedaRepository = monedaRepository;
+        this.tasaCambioRepository = tasaCambioRepository;
+    }
+
+    /**
+     * Convierte un importe con las tasas vigentes hoy.
+     *
+     * @param monto Importe en la moneda de origen.
+     * @param origen Símbolo de la moneda de origen.
+     * @param destino Símbolo de la moneda de destino.
+     * @return Importe en la moneda de destino.
+     */
+    public BigDecimal convertir(BigDecimal monto, String origen, String destino) {
+        return convertir(monto, origen, destino, LocalDate.now());
+    }
+
+    /**
+     * Convierte un importe con las tasas vigentes en una fecha. El resultado
+     * no se redondea: conserva la precisión del factor y quien lo guarde lo
+     * ajusta a la escala de su moneda.
+     *
+     * @param monto Importe en la moneda de origen.
+     * @param origen Símbolo de la moneda de origen.
+     * @param destino Símbolo de la moneda de destino.
+     * @param fecha Fecha de las tasas a aplicar.
+     * @return Importe en la moneda de destino.
+     */
+    public BigDecimal convertir(BigDecimal monto, String origen, String destino, LocalDate fecha) {
+        if (monto == null || origen.equals(destino)) {
+            return monto;
+        }
+        return monto.multiply(getFactor(origen, destino, fecha));
+    }
+
+    /**
+     * Factor por el que se multiplica un importe en la moneda de origen para
+     * expresarlo en la de destino. Los procesos que convierten muchos importes
+     * del mismo par pueden obtenerlo una vez y reutilizarlo.
+     *
+     * @param origen Símbolo de la moneda de origen.
+     * @param destino Símbolo de la moneda de destino.
+     * @param fecha Fecha de las tasas a aplicar.
+     * @return Factor de conversión.
+     */
+    public BigDecimal getFactor(String origen, String destino, LocalDate fecha) {
+        Matriz actual = getMatriz();
+        if (!actual.contiene(origen)) {
+            throw new BusinessLogicException("Moneda origen no encontrada: " + origen);
+        }
+        if (!actual.contiene(destino)) {
+            throw new BusinessLogicException("Moneda destino no encontrada: " + destino);
+        }
+        BigDecimal factor = actual.factor(origen, destino, fecha);
+        if (factor == null) {
+            throw new BusinessLogicException("No hay tasa de cambio de " + origen + " a " + destino + " al " + fecha);
+        }
+        return factor;
+    }
+
+    /**
+     * Tasa de una moneda respecto a la moneda base vigente en una fecha.
+     *
+     * @param simbolo Símbolo de la moneda.
+     * @param fecha Fecha de vigencia.
+     * @return Unidades de la moneda por unidad de la moneda base.
+     */
+    public BigDecimal getTasa(String simbolo, LocalDate fecha) {
+        BigDecimal tasa = getMatriz().tasa(simbolo, fecha);
+        if (tasa == null) {
+            throw new BusinessLogicException("No hay tasa de cambio para " + simbolo + " al " + fecha);
+        }
+        return tasa;
+    }
+
+    /**
+     * Vuelve a calcular la matriz del tenant actual a partir de sus tasas
+     * guardadas y la publica. Las conversiones en curso terminan con la
+     * matriz anterior.
+     */
+    public void recargar() {
+        Matriz nueva = construir(cargarTasas());
+        matrices.put(tenantActual(), nueva);
+        log.debug("Matriz de tasas de cambio recalculada: {} monedas, {} fechas",
+                nueva.monedas(), nueva.fechas());
+    }
+
+    /**
+     * Descarta la matriz del tenant actual cuando se confirme la transacción
+     * en curso, para no publicar tasas que podrían revertirse; se vuelve a
+     * calcular en la siguiente conversión. Sin transacción activa la descarta
+     * en el momento.
+     */
+    public void recargarAlConfirmar() {
+        // El tenant se toma ahora, en el hilo que modifica las tasas
+        String tenant = tenantActual();
+        Transaction transaccion = DB.currentTransaction();
+        if (transaccion == null || !transaccion.isActive()) {
+            matrices.remove(tenant);
+            return;
+        }
+        transaccion.register(new TransactionCallbackAdapter() {
+            @Override
+            public void postCommit() {
+                matrices.remove(tenant);
+            }
+        });
+    }
+
+    private Matriz getMatriz() {
+        return matrices.computeIfAbsent(tenantActual(), tenant -> construir(cargarTasas()));
+    }
+
+    private static String tenantActual() {
+        return Objects.requireNonNullElse(UserContext.get().getTenantId(), SIN_TENANT);
+    }
+
+    /**
+     * Tasas respecto a la moneda base con su fecha de vigencia. La primera
+     * tasa registrada de cada moneda se aplica también a las fechas
+     * anteriores, y las monedas sin histórico usan su tasa actual.
+     */
+    protected List<TasaVigente> cargarTasas() {
+        List<TasaVigente> tasas = new ArrayList<>();
+        Set<String> conHistorico = new HashSet<>();
+        for (SqlRow fila : tasaCambioRepository.findHistorico()) {
+            String simbolo = fila.getString("symbol");
+            BigDecimal tasa = fila.getBigDecimal("rate");
+            if (conHistorico.add(simbolo)) {
+                tasas.add(new TasaVigente(simbolo, LocalDate.MIN, tasa));
+            }
+            tasas.add(new TasaVigente(simbolo, fila.getDate("effective_date").toLocalDate(), tasa));
+        }
+        for (Currency moneda : monedaRepository.findAll()) {
+            if (moneda.getSymbol() != null && moneda.getTasaCambio() != null
+                    && !conHistorico.contains(moneda.getSymbol())) {
+                tasas.add(new TasaVigente(moneda.getSymbol(), LocalDate.MIN, moneda.getTasaCambio()));
+            }
+        }
+        return tasas;
+    }
+
+    static Matriz construir(List<TasaVigente> tasas) {
+        Map<String, Integer> indices = new HashMap<>();
+        TreeMap<LocalDate, Map<String, BigDecimal>> cambios = new TreeMap<>();
+        for (TasaVigente tasa : tasas) {
+            if (tasa.tasa().signum() <= 0) {
+                continue;
+            }
+            indices.putIfAbsent(tasa.simbolo(), indices.size());
+            cambios.computeIfAbsent(tasa.desde(), fecha -> new HashMap<>()).put(tasa.simbolo(), tasa.tasa());
+        }
+
+        int n = indices.size();
+        BigDecimal[] vigentes = new BigDecimal[n];
+        TreeMap<LocalDate, BigDecimal[][]> factores = new TreeMap<>();
+        TreeMap<LocalDate, BigDecimal[]> tasasPorFecha = new TreeMap<>();
+        for (Map.Entry<LocalDate, Map<String, BigDecimal>> cambio : cambios.entrySet()) {
+            // Cada fecha arrastra las tasas de las monedas que no cambian en ella
+            cambio.getValue().forEach((simbolo, tasa) -> vigentes[indices.get(simbolo)] = tasa);
+            BigDecimal[][] tabla = new BigDecimal[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (vigentes[i] != null && vigentes[j] != null) {
+                        tabla[i][j] = i == j ? BigDecimal.ONE : vigentes[j].divide(vigentes[i], PRECISION_FACTOR);
+                    }
+                }
+            }
+            factores.put(cambio.getKey(), tabla);
+            tasasPorFecha.put(cambio.getKey(), vigentes.clone());
+        }
+        return new Matriz(Map.copyOf(indices),
+                Collections.unmodifiableNavigableMap(factores),
+                Collections.unmodifiableNavigableMap(tasasPorFecha));
+    }
+
+    /**
+     * Tasa de una moneda respecto a la base a partir de una fecha.
+     */
+    protected record TasaVigente(String simbolo, LocalDate desde, BigDecimal tasa) {
+    }
+
+    /**
+     * Factores cruzados y tasas por fecha de vigencia. Los arreglos no salen
+     * de la clase, de modo que la matriz no cambia una vez construida y puede
+     * compartirse entre hilos sin copiarla.
+     */
+    static final class Matriz {
+
+        private final Map<String, Integer> indices;
+        private final NavigableMap<LocalDate, BigDecimal[][]> factores;
+        private final NavigableMap<LocalDate, BigDecimal[]> tasas;
+
+        private Matriz(Map<String, Integer> indices, NavigableMap<LocalDate, BigDecimal[][]> factores,
+                NavigableMap<LocalDate, BigDecimal[]> tasas) {
+            this.indices = indices;
+            this.factores = factores;
+            this.tasas = tasas;
+        }
+
+        boolean contiene(String simbolo) {
+            return indices.containsKey(simbolo);
+        }
+
+        int monedas() {
+            return indices.size();
+        }
+
+        int fechas() {
+            return factores.size();
+        }
+
+        /**
+         * @return El factor de origen a destino vigente en la fecha, o
+         * {@code null} si alguna de las dos no tiene tasa.
+         */
+        BigDecimal factor(String origen, String destino, LocalDate fecha) {
+            Integer i = indices.get(origen);
+            Integer j = indices.get(destino);
+            Map.Entry<LocalDate, BigDecimal[][]> vigente = factores.floorEntry(fecha);
+            return i != null && j != null && vigente != null ? vigente.getValue()[i][j] : null;
+        }
+
+        /**
+         * @return La tasa de la moneda vigente en la fecha, o {@code null} si
+         * no la tiene.
+         */
+        BigDecimal tasa(String simbolo, LocalDate fecha) {
+            Integer i = indices.get(simbolo);
+            Map.Entry<LocalDate, BigDecimal[]> vigente = tasas.floorEntry(fecha);
+            return i != null && vigente != null ? vigente.getValue()[i] : null;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import com.univsoftdev.econova.security.Roles;
 import com.univsoftdev.econova.security.argon2.PasswordHasher;
 import com.univsoftdev.econova.security.shiro.annotations.RequiresPermissions;
 import com.univsoftdev.econova.security.shiro.annotations.RequiresRoles;
+import com.univsoftdev.econova.security.shiro.AutorizacionCache;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.util.HashSet;
@@ -30,12 +31,15 @@ public class UserService extends BaseService<User, UserRepository> {
 
     private final PasswordHasher passwordHasher;
     private final RoleService roleService;
+    private final AutorizacionCache autorizacionCache;
 
     @Inject
-    public UserService(UserRepository database, RoleService roleService, PasswordHasher passwordHasher) {
+    public UserService(UserRepository database, RoleService roleService, PasswordHasher passwordHasher,
+            AutorizacionCache autorizacionCache) {
         super(database);
         this.roleService = roleService;
         this.passwordHasher = passwordHasher;
+        this.autorizacionCache = autorizacionCache;
     }
 
     public List<User> findByActivos() {
@@ -187,6 +191,7 @@ public class UserService extends BaseService<User, UserRepository> {
 
         usuario.setRoles(roles);
         repository.update(usuario);
+        autorizacionCache.invalidar(usuarioId);
         log.info("Roles actualizados para usuario: {}", usuario.getUserName());
         return usuario;
     }
@@ -364,5 +369,6 @@ public class UserService extends BaseService<User, UserRepository> {
 
         user.addRole(role);
         save(user);
+        autorizacionCache.invalidar(userId);
     }
 }
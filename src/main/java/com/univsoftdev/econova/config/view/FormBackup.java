@@ -1,20 +1,166 @@
-/*
- * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
- * Click nbfs://nbhost/SystemFileSystem/Templates/GUIForms/JPanel.java to edit this template
- */
 package com.univsoftdev.econova.config.view;
 
+import com.univsoftdev.econova.core.FileUtils;
+import com.univsoftdev.econova.core.Injector;
+import com.univsoftdev.econova.core.config.AppConfig;
+import com.univsoftdev.econova.core.system.TaskManager;
+import com.univsoftdev.econova.core.utils.DialogUtils;
+import com.univsoftdev.econova.db.postgres.PostgreSQLBackup;
+import com.univsoftdev.econova.db.postgres.PostgreSQLBackup.ResultadoRespaldo;
+import com.univsoftdev.econova.db.postgres.PostgreSQLDatabaseLister;
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.DefaultListModel;
+import javax.swing.JFileChooser;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import lombok.extern.slf4j.Slf4j;
+import raven.modal.component.SimpleModalBorder;
+
 /**
+ * Backup de una base de datos completa o de los esquemas de algunos tenants,
+ * con {@code pg_dump} en paralelo y cifrado opcional. Muestra el avance y el
+ * rendimiento de cada etapa.
  *
  * @author CNA
  */
+@Slf4j
 public class FormBackup extends javax.swing.JPanel {
 
+    private static final long serialVersionUID = 1L;
+
+    private final transient PostgreSQLDatabaseLister databaseLister = Injector.get(PostgreSQLDatabaseLister.class);
+    private final DefaultListModel<String> esquemas = new DefaultListModel<>();
+
     /**
      * Creates new form FormBackup
      */
     public FormBackup() {
         initComponents();
+        listEsquemas.setModel(esquemas);
+        txtUsuario.setText(AppConfig.getDatabaseUser());
+        txtPassword.setText(AppConfig.getDatabasePassword());
+        cargarBasesDatos();
+    }
+
+    private void cargarBasesDatos() {
+        TaskManager.ejecutar(cboxBaseDatos, "Cargando bases de datos", progreso -> databaseLister.getAvailableDatabases(),
+                basesDatos -> {
+                    cboxBaseDatos.setModel(new DefaultComboBoxModel<>(basesDatos.toArray(String[]::new)));
+                    cboxBaseDatos.setSelectedItem(AppConfig.getDefaultDatabase());
+                    baseDatosSeleccionada();
+                });
+    }
+
+    private void baseDatosSeleccionada() {
+        proponerArchivo();
+        cargarEsquemas();
+    }
+
+    /**
+     * Carga los esquemas de tenants de la base de datos seleccionada, que no
+     * tiene por qué ser la de la conexión actual.
+     */
+    private void cargarEsquemas() {
+        esquemas.clear();
+        if (cboxBaseDatos.getSelectedItem() == null) {
+            return;
+        }
+        String baseDatos = cboxBaseDatos.getSelectedItem().toString();
+        TaskManager.ejecutar(listEsquemas, "Cargando esquemas de " + baseDatos,
+                progreso -> databaseLister.getTenantSchemas(baseDatos),
+                lista -> {
+                    // Se descarta si mientras tanto se eligió otra base de datos
+                    if (baseDatos.equals(cboxBaseDatos.getSelectedItem())) {
+                        esquemas.clear();
+                        esquemas.addAll(lista);
+                    }
+                });
+    }
+
+    private void proponerArchivo() {
+        if (cboxBaseDatos.getSelectedItem() != null) {
+            txtArchivo.setText(Paths.get(FileUtils.BACKUP_PATH,
+                    PostgreSQLBackup.nombreArchivo(cboxBaseDatos.getSelectedItem().toString())).toString());
+        }
+    }
+
+    private void seleccionarArchivo() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Backups de Econova", PostgreSQLBackup.EXTENSION.substring(1)));
+        if (!txtArchivo.getText().isBlank()) {
+            chooser.setSelectedFile(new File(txtArchivo.getText()));
+        }
+        if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            String ruta = chooser.getSelectedFile().getAbsolutePath();
+            txtArchivo.setText(ruta.endsWith(PostgreSQLBackup.EXTENSION) ? ruta : ruta + PostgreSQLBackup.EXTENSION);
+        }
+    }
+
+    private void respaldar() {
+        if (cboxBaseDatos.getSelectedItem() == null || txtArchivo.getText().isBlank() || txtUsuario.getText().isBlank()) {
+            DialogUtils.showWarningDialog(this, "Indique la base de datos, el usuario y el archivo.",
+                    "Backup", SimpleModalBorder.CLOSE_OPTION);
+            return;
+        }
+        String baseDatos = cboxBaseDatos.getSelectedItem().toString();
+        List<String> seleccionados = listEsquemas.getSelectedValuesList();
+        Path destino = Paths.get(txtArchivo.getText().trim());
+        String clave = new String(txtClave.getPassword());
+        var backup = new PostgreSQLBackup(txtUsuario.getText().trim(), new String(txtPassword.getPassword()),
+                baseDatos, destino.toString());
+
+        btnRespaldar.setEnabled(false);
+        btnCancelar.setEnabled(true);
+        progressBar.setIndeterminate(true);
+        lblEstado.setText("Iniciando pg_dump...");
+        TaskManager.ejecutar(btnRespaldar, "Backup de " + baseDatos,
+                progreso -> backup.backup(baseDatos, seleccionados, destino, clave, new TaskManager.Progreso() {
+                    @Override
+                    public void actualizar(int porcentaje, String mensaje) {
+                        progreso.actualizar(porcentaje, mensaje);
+                        SwingUtilities.invokeLater(() -> mostrarProgreso(porcentaje, mensaje));
+                    }
+
+                    @Override
+                    public boolean isCancelado() {
+                        return progreso.isCancelado();
+                    }
+                }),
+                this::mostrarResultado,
+                error -> {
+                    lblEstado.setText(" ");
+                    log.error("No se pudo respaldar {}", baseDatos, error);
+                    DialogUtils.showErrorDialog(this, error.getMessage(), "Backup", SimpleModalBorder.CLOSE_OPTION);
+                },
+                this::terminar);
+    }
+
+    private void mostrarProgreso(int porcentaje, String mensaje) {
+        progressBar.setIndeterminate(porcentaje < 0);
+        if (porcentaje >= 0) {
+            progressBar.setValue(porcentaje);
+        }
+        lblEstado.setText(mensaje);
+    }
+
+    private void mostrarResultado(ResultadoRespaldo resultado) {
+        progressBar.setValue(100);
+        String mensaje = String.format("%d tablas, %.1f MB en %d s (%.1f MB/s)", resultado.tablas(),
+                resultado.bytesArchivo() / (1024.0 * 1024.0), resultado.duracion().toSeconds(),
+                resultado.getMegabytesPorSegundo());
+        lblEstado.setText(mensaje);
+        DialogUtils.showSuccessDialog(this, "Backup creado en " + resultado.archivo() + "\n" + mensaje,
+                "Backup", SimpleModalBorder.CLOSE_OPTION);
+    }
+
+    private void terminar() {
+        btnRespaldar.setEnabled(true);
+        btnCancelar.setEnabled(false);
+        progressBar.setIndeterminate(false);
     }
 
     /**
@@ -26,19 +172,183 @@ public class FormBackup extends javax.swing.JPanel {
     // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
     private void initComponents() {
 
+        jLabel1 = new javax.swing.JLabel();
+        cboxBaseDatos = new javax.swing.JComboBox<>();
+        jLabel2 = new javax.swing.JLabel();
+        txtUsuario = new javax.swing.JTextField();
+        jLabel3 = new javax.swing.JLabel();
+        txtPassword = new javax.swing.JPasswordField();
+        jLabel4 = new javax.swing.JLabel();
+        jScrollPane1 = new javax.swing.JScrollPane();
+        listEsquemas = new javax.swing.JList<>();
+        jLabel5 = new javax.swing.JLabel();
+        txtArchivo = new javax.swing.JTextField();
+        btnArchivo = new javax.swing.JButton();
+        jLabel6 = new javax.swing.JLabel();
+        txtClave = new javax.swing.JPasswordField();
+        progressBar = new javax.swing.JProgressBar();
+        lblEstado = new javax.swing.JLabel();
+        btnRespaldar = new javax.swing.JButton();
+        btnCancelar = new javax.swing.JButton();
+
+        jLabel1.setText("Base de datos");
+
+        cboxBaseDatos.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                cboxBaseDatosActionPerformed(evt);
+            }
+        });
+
+        jLabel2.setText("Usuario");
+
+        jLabel3.setText("Password");
+
+        jLabel4.setText("Esquemas (ninguno = todos)");
+
+        jScrollPane1.setViewportView(listEsquemas);
+
+        jLabel5.setText("Archivo");
+
+        btnArchivo.setText("...");
+        btnArchivo.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnArchivoActionPerformed(evt);
+            }
+        });
+
+        jLabel6.setText("Contraseña de cifrado");
+
+        progressBar.setStringPainted(true);
+
+        lblEstado.setText(" ");
+
+        btnRespaldar.setText("Respaldar");
+        btnRespaldar.setCursor(new java.awt.Cursor(java.awt.Cursor.HAND_CURSOR));
+        btnRespaldar.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnRespaldarActionPerformed(evt);
+            }
+        });
+
+        btnCancelar.setText("Cancelar");
+        btnCancelar.setCursor(new java.awt.Cursor(java.awt.Cursor.HAND_CURSOR));
+        btnCancelar.setEnabled(false);
+        btnCancelar.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnCancelarActionPerformed(evt);
+            }
+        });
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
             layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-            .addGap(0, 400, Short.MAX_VALUE)
+            .addGroup(layout.createSequentialGroup()
+                .addGap(20, 20, 20)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(jLabel1)
+                    .addComponent(cboxBaseDatos, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(jLabel2)
+                    .addComponent(txtUsuario)
+                    .addComponent(jLabel3)
+                    .addComponent(txtPassword)
+                    .addComponent(jLabel4)
+                    .addComponent(jScrollPane1)
+                    .addComponent(jLabel5)
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(txtArchivo, javax.swing.GroupLayout.DEFAULT_SIZE, 360, Short.MAX_VALUE)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(btnArchivo))
+                    .addComponent(jLabel6)
+                    .addComponent(txtClave)
+                    .addComponent(progressBar, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(lblEstado, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, layout.createSequentialGroup()
+                        .addGap(0, 0, Short.MAX_VALUE)
+                        .addComponent(btnRespaldar)
+                        .addGap(18, 18, 18)
+                        .addComponent(btnCancelar)))
+                .addGap(20, 20, 20))
         );
         layout.setVerticalGroup(
             layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-            .addGap(0, 300, Short.MAX_VALUE)
+            .addGroup(layout.createSequentialGroup()
+                .addGap(20, 20, 20)
+                .addComponent(jLabel1)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(cboxBaseDatos, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jLabel2)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(txtUsuario, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jLabel3)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(txtPassword, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jLabel4)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jScrollPane1, javax.swing.GroupLayout.DEFAULT_SIZE, 120, Short.MAX_VALUE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jLabel5)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(txtArchivo, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(btnArchivo))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jLabel6)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(txtClave, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addGap(18, 18, 18)
+                .addComponent(progressBar, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(lblEstado)
+                .addGap(18, 18, 18)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(btnRespaldar)
+                    .addComponent(btnCancelar))
+                .addGap(20, 20, 20))
         );
     }// </editor-fold>//GEN-END:initComponents
 
+    private void cboxBaseDatosActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cboxBaseDatosActionPerformed
+        baseDatosSeleccionada();
+    }//GEN-LAST:event_cboxBaseDatosActionPerformed
+
+    private void btnArchivoActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnArchivoActionPerformed
+        seleccionarArchivo();
+    }//GEN-LAST:event_btnArchivoActionPerformed
+
+    private void btnRespaldarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnRespaldarActionPerformed
+        respaldar();
+    }//GEN-LAST:event_btnRespaldarActionPerformed
+
+    private void btnCancelarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnCancelarActionPerformed
+        // Los controles se restablecen cuando pg_dump termina de detenerse
+        TaskManager.cancelar(btnRespaldar);
+        btnCancelar.setEnabled(false);
+        lblEstado.setText("Backup cancelado");
+    }//GEN-LAST:event_btnCancelarActionPerformed
+
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton btnArchivo;
+    private javax.swing.JButton btnCancelar;
+    private javax.swing.JButton btnRespaldar;
+    private javax.swing.JComboBox<String> cboxBaseDatos;
+    private javax.swing.JLabel jLabel1;
+    private javax.swing.JLabel jLabel2;
+    private javax.swing.JLabel jLabel3;
+    private javax.swing.JLabel jLabel4;
+    private javax.swing.JLabel jLabel5;
+    private javax.swing.JLabel jLabel6;
+    private javax.swing.JScrollPane jScrollPane1;
+    private javax.swing.JLabel lblEstado;
+    private javax.swing.JList<String> listEsquemas;
+    private javax.swing.JProgressBar progressBar;
+    private javax.swing.JTextField txtArchivo;
+    private javax.swing.JPasswordField txtClave;
+    private javax.swing.JPasswordField txtPassword;
+    private javax.swing.JTextField txtUsuario;
     // End of variables declaration//GEN-END:variables
 }
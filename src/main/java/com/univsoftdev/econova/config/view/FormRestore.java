@@ -1,17 +1,73 @@
 package com.univsoftdev.econova.config.view;
 
+import com.univsoftdev.econova.core.system.TaskManager;
+import com.univsoftdev.econova.core.utils.DialogUtils;
+import com.univsoftdev.econova.db.postgres.PostgreSQLBackup;
+import com.univsoftdev.econova.db.postgres.PostgreSQLDatabaseLister;
+import com.univsoftdev.econova.security.SecureEncryptionUtils;
+import io.avaje.inject.Lazy;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.JPasswordField;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import lombok.extern.slf4j.Slf4j;
+import raven.modal.ModalDialog;
 import raven.modal.component.Modal;
+import raven.modal.component.SimpleModalBorder;
 
+/**
+ * Restaura una base de datos desde un backup. La restauración se ejecuta en
+ * segundo plano con {@code pg_restore -j}; el avance se muestra en la barra
+ * de estado.
+ */
 @Slf4j
+@Lazy
 @Singleton
 public class FormRestore extends Modal {
 
+    private final PostgreSQLDatabaseLister databaseLister;
+
     @Inject
-    public FormRestore() {
+    public FormRestore(PostgreSQLDatabaseLister databaseLister) {
+        this.databaseLister = databaseLister;
         initComponents();
+        btnSelectFileRescue.addActionListener(e -> seleccionarArchivo());
+        cargarBasesDatos();
+    }
+
+    private void cargarBasesDatos() {
+        TaskManager.ejecutar(cboxNameDB, "Cargando bases de datos", progreso -> databaseLister.getAvailableDatabases(),
+                basesDatos -> cboxNameDB.setModel(new DefaultComboBoxModel<>(basesDatos.toArray(String[]::new))));
+    }
+
+    private void seleccionarArchivo() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Backups de Econova", PostgreSQLBackup.EXTENSION.substring(1), "backup"));
+        if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            txtArchivoRespaldo.setText(chooser.getSelectedFile().getAbsolutePath());
+        }
+    }
+
+    /**
+     * Pide la contraseña de cifrado si el backup está cifrado.
+     *
+     * @return La contraseña, null si no está cifrado o vacío si se canceló.
+     */
+    private String pedirClave(Path archivo) throws IOException {
+        if (!SecureEncryptionUtils.isEncryptedStream(archivo)) {
+            return null;
+        }
+        JPasswordField campo = new JPasswordField();
+        int opcion = JOptionPane.showConfirmDialog(this, campo, "Contraseña del backup cifrado",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        return opcion == JOptionPane.OK_OPTION ? new String(campo.getPassword()) : "";
     }
 
     @SuppressWarnings("unchecked")
@@ -133,16 +189,61 @@ public class FormRestore extends Modal {
     }// </editor-fold>//GEN-END:initComponents
 
     private void btnCancelarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnCancelarActionPerformed
-        // TODO add your handling code here:
+        if (!btnRestaurar.isEnabled()) {
+            // Los controles se restablecen cuando pg_restore termina de detenerse
+            TaskManager.cancelar(btnRestaurar);
+            return;
+        }
+        ModalDialog.closeModal(getId());
     }//GEN-LAST:event_btnCancelarActionPerformed
 
     private void btnRestaurarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnRestaurarActionPerformed
+        if (cboxNameDB.getSelectedItem() == null || txtArchivoRespaldo.getText().isBlank()
+                || txtUserName.getText().isBlank()) {
+            DialogUtils.showWarningDialog(this, "Indique la base de datos, el archivo de respaldo y el usuario.",
+                    "Restaurar", SimpleModalBorder.CLOSE_OPTION);
+            return;
+        }
         var nombreBaseDatos = cboxNameDB.getSelectedItem().toString();
-        var archivoRespaldo = txtArchivoRespaldo.getText();
-        var userName = txtUserName.getText();
-        var password = txtPassword.getPassword();
-        
-        
+        Path archivoRespaldo = Paths.get(txtArchivoRespaldo.getText().trim());
+        var userName = txtUserName.getText().trim();
+        var password = new String(txtPassword.getPassword());
+        if (!Files.isRegularFile(archivoRespaldo)) {
+            DialogUtils.showWarningDialog(this, "No existe el archivo " + archivoRespaldo,
+                    "Restaurar", SimpleModalBorder.CLOSE_OPTION);
+            return;
+        }
+        String clave;
+        try {
+            clave = pedirClave(archivoRespaldo);
+        } catch (IOException e) {
+            DialogUtils.showErrorDialog(this, e.getMessage(), "Restaurar", SimpleModalBorder.CLOSE_OPTION);
+            return;
+        }
+        if (clave != null && clave.isEmpty()) {
+            return;
+        }
+
+        var backup = new PostgreSQLBackup(userName, password, nombreBaseDatos, archivoRespaldo.toString());
+        btnRestaurar.setEnabled(false);
+        btnCancelar.setText("Detener");
+        TaskManager.ejecutar(btnRestaurar, "Restaurando " + nombreBaseDatos,
+                progreso -> {
+                    backup.restore(archivoRespaldo, nombreBaseDatos, clave, progreso);
+                    return archivoRespaldo;
+                },
+                archivo -> DialogUtils.showSuccessDialog(this, "Base de datos " + nombreBaseDatos + " restaurada desde "
+                        + archivo.getFileName(), "Restaurar", SimpleModalBorder.CLOSE_OPTION),
+                error -> {
+                    log.error("No se pudo restaurar {} desde {}", nombreBaseDatos, archivoRespaldo, error);
+                    DialogUtils.showErrorDialog(this, error.getMessage(), "Restaurar", SimpleModalBorder.CLOSE_OPTION);
+                },
+                this::terminarRestauracion);
+    }
+
+    private void terminarRestauracion() {
+        btnRestaurar.setEnabled(true);
+        btnCancelar.setText("Cancelar");
     }//GEN-LAST:event_btnRestaurarActionPerformed
 
 
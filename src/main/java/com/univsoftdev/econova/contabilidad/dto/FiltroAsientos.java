@@ -0,0 +1,27 @@
+package com.univsoftdev.econova.contabilidad.dto;
+
+import com.univsoftdev.econova.contabilidad.EstadoAsiento;
+import com.univsoftdev.econova.contabilidad.SubSystem;
+
+/**
+ * Criterios de búsqueda de asientos que se traducen a condiciones SQL. Los
+ * campos nulos no filtran.
+ */
+public record FiltroAsientos(
+        Long periodoId,
+        EstadoAsiento estado,
+        SubSystem subSystem,
+        String texto) {
+
+    public static FiltroAsientos todos() {
+        return new FiltroAsientos(null, null, null, null);
+    }
+
+    public static FiltroAsientos delPeriodo(Long periodoId) {
+        return new FiltroAsientos(periodoId, null, null, null);
+    }
+
+    public static FiltroAsientos porTexto(String texto) {
+        return new FiltroAsientos(null, null, null, texto);
+    }
+}
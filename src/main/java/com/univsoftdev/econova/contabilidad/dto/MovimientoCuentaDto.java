@@ -0,0 +1,18 @@
+package com.univsoftdev.econova.contabilidad.dto;
+
+import com.univsoftdev.econova.contabilidad.TipoTransaccion;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Movimiento de una cuenta con los datos necesarios para conciliarlo con un
+ * estado de cuenta bancario, sin cargar la entidad {@code Transaction}.
+ */
+public record MovimientoCuentaDto(
+        long id,
+        LocalDate fecha,
+        TipoTransaccion tipo,
+        BigDecimal importe,
+        String descripcion,
+        int nroAsiento) {
+}
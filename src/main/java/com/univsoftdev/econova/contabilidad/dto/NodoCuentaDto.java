@@ -0,0 +1,34 @@
+package com.univsoftdev.econova.contabilidad.dto;
+
+import com.univsoftdev.econova.contabilidad.NatureOfAccount;
+
+/**
+ * Datos mínimos de una cuenta para mostrarla en el árbol del plan de cuentas.
+ * La entidad completa se carga solo al seleccionar el nodo.
+ */
+public record NodoCuentaDto(
+        long id,
+        long padreId,
+        String codigo,
+        String nombre,
+        NatureOfAccount naturaleza) {
+
+    public static final long SIN_PADRE = 0L;
+
+    public boolean tienePadre() {
+        return padreId != SIN_PADRE;
+    }
+
+    /**
+     * Mismo texto que {@code Account.toString()}: las subcuentas muestran
+     * solo el último segmento de su código.
+     */
+    @Override
+    public String toString() {
+        if (tienePadre()) {
+            int separador = codigo.lastIndexOf('.');
+            return (separador >= 0 ? codigo.substring(separador + 1) : codigo) + " - " + nombre;
+        }
+        return codigo + " - " + nombre;
+    }
+}
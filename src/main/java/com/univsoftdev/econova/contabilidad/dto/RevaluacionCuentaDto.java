@@ -0,0 +1,28 @@
+package com.univsoftdev.econova.contabilidad.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Revaluación del saldo de una cuenta en moneda extranjera al cierre de un
+ * período: el saldo en su moneda valorado con la tasa anterior al período y
+ * con la tasa vigente al cierre.
+ */
+public record RevaluacionCuentaDto(
+        Long accountId,
+        String codigo,
+        String moneda,
+        BigDecimal saldoMoneda,
+        BigDecimal tasaAnterior,
+        BigDecimal tasaCierre,
+        BigDecimal saldoBaseAnterior,
+        BigDecimal saldoBaseRevaluado) {
+
+    /**
+     * Ganancia (positiva) o pérdida (negativa) por diferencia de cambio.
+     *
+     * @return Diferencia en moneda base.
+     */
+    public BigDecimal getDiferencia() {
+        return saldoBaseRevaluado.subtract(saldoBaseAnterior);
+    }
+}
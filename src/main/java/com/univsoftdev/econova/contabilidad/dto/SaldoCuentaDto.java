@@ -0,0 +1,19 @@
+package com.univsoftdev.econova.contabilidad.dto;
+
+import com.univsoftdev.econova.contabilidad.NatureOfAccount;
+import java.math.BigDecimal;
+
+/**
+ * Totales agregados de una cuenta para un rango de fechas: movimientos del
+ * período y acumulados hasta el cierre del rango. Las cuentas padre incluyen
+ * los totales de todas sus subcuentas.
+ */
+public record SaldoCuentaDto(
+        String codigo,
+        String nombre,
+        NatureOfAccount naturaleza,
+        BigDecimal debitoPeriodo,
+        BigDecimal creditoPeriodo,
+        BigDecimal debitoAcumulado,
+        BigDecimal creditoAcumulado) {
+}
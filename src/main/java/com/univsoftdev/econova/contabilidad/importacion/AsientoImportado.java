@@ -0,0 +1,38 @@
+package com.univsoftdev.econova.contabilidad.importacion;
+
+import java.util.List;
+
+/**
+ * Asiento tal como se lee del archivo, con los valores sin interpretar. La
+ * validación de fechas, importes y cuentas la hace el importador, de modo que
+ * un asiento mal formado se informa sin detener la lectura.
+ *
+ * @param ordinal Posición del asiento en el archivo, empezando en 1.
+ * @param posicion Fila o línea del archivo donde empieza el asiento.
+ * @param referencia Identificador del asiento en el sistema de origen.
+ * @param fecha Fecha del asiento.
+ * @param descripcion Descripción del asiento.
+ * @param subsistema Subsistema de origen, si viene indicado.
+ * @param lineas Movimientos del asiento.
+ */
+public record AsientoImportado(
+        int ordinal,
+        int posicion,
+        String referencia,
+        String fecha,
+        String descripcion,
+        String subsistema,
+        List<Linea> lineas) {
+
+    /**
+     * Movimiento de un asiento importado. Solo uno de los importes debe
+     * tener valor.
+     *
+     * @param cuenta Código de la cuenta.
+     * @param debe Importe al debe.
+     * @param haber Importe al haber.
+     * @param descripcion Detalle del movimiento.
+     */
+    public record Linea(String cuenta, String debe, String haber, String descripcion) {
+    }
+}
@@ -0,0 +1,311 @@
+package com.univsoftdev.econova.contabilidad.importacion;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.univsoftdev.econova.core.utils.LectorTabular;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Lee asientos de archivos CSV, XLSX, XML o JSON de uno en uno, sin cargar
+ * el archivo en memoria.
+ * <p>
+ * <b>CSV/XLSX</b>: una fila por movimiento con las columnas referencia,
+ * fecha, descripción, cuenta, debe, haber, detalle y subsistema. Las filas
+ * consecutivas con la misma referencia forman un asiento.
+ * <p>
+ * <b>XML</b>: {@code <asiento referencia fecha descripcion subsistema>} con
+ * elementos {@code <linea cuenta debe haber descripcion/>}, en cualquier
+ * nivel del documento.
+ * <p>
+ * <b>JSON</b>: un arreglo de asientos, o un objeto con el arreglo en
+ * {@code asientos}. Cada asiento tiene {@code referencia}, {@code fecha},
+ * {@code descripcion}, {@code subsistema} y {@code lineas}, y cada línea
+ * {@code cuenta}, {@code debe}, {@code haber} y {@code descripcion}.
+ */
+public final class LectorAsientos {
+
+    /**
+     * Recibe cada asiento leído.
+     */
+    @FunctionalInterface
+    public interface Receptor {
+
+        /**
+         * @param asiento Asiento leído.
+         * @return false para dejar de leer.
+         */
+        boolean recibir(AsientoImportado asiento);
+    }
+
+    public enum Formato {
+        CSV, XML, JSON;
+
+        public static Formato de(Path archivo) {
+            String nombre = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (nombre.endsWith(".xml")) {
+                return XML;
+            }
+            if (nombre.endsWith(".json")) {
+                return JSON;
+            }
+            return CSV;
+        }
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private LectorAsientos() {
+    }
+
+    /**
+     * Recorre los asientos del archivo en orden.
+     *
+     * @param archivo Archivo a leer; el formato se deduce de la extensión.
+     * @param receptor Receptor de los asientos.
+     * @throws IOException si el archivo no se puede leer o no tiene un
+     * formato válido
+     */
+    public static void leer(Path archivo, Receptor receptor) throws IOException {
+        switch (Formato.de(archivo)) {
+            case XML ->
+                leerXml(archivo, receptor);
+            case JSON ->
+                leerJson(archivo, receptor);
+            default ->
+                leerTabular(archivo, receptor);
+        }
+    }
+
+    private static void leerTabular(Path archivo, Receptor receptor) throws IOException {
+        Agrupador agrupador = new Agrupador(receptor);
+        LectorTabular.leer(archivo, agrupador);
+        agrupador.terminar();
+    }
+
+    private static void leerXml(Path archivo, Receptor receptor) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try (InputStream entrada = Files.newInputStream(archivo)) {
+            XMLStreamReader xml = factory.createXMLStreamReader(entrada);
+            try {
+                int ordinal = 0;
+                String referencia = null;
+                String fecha = null;
+                String descripcion = null;
+                String subsistema = null;
+                int posicion = 0;
+                List<AsientoImportado.Linea> lineas = null;
+                while (xml.hasNext()) {
+                    int evento = xml.next();
+                    if (evento == XMLStreamConstants.START_ELEMENT) {
+                        switch (xml.getLocalName()) {
+                            case "asiento" -> {
+                                referencia = atributo(xml, "referencia");
+                                fecha = atributo(xml, "fecha");
+                                descripcion = atributo(xml, "descripcion");
+                                subsistema = atributo(xml, "subsistema");
+                                posicion = xml.getLocation().getLineNumber();
+                                lineas = new ArrayList<>();
+                            }
+                            case "linea" -> {
+                                if (lineas != null) {
+                                    lineas.add(new AsientoImportado.Linea(atributo(xml, "cuenta"),
+                                            atributo(xml, "debe"), atributo(xml, "haber"), atributo(xml, "descripcion")));
+                                }
+                            }
+                            default -> {
+                            }
+                        }
+                    } else if (evento == XMLStreamConstants.END_ELEMENT && "asiento".equals(xml.getLocalName())
+                            && lineas != null) {
+                        if (!receptor.recibir(new AsientoImportado(++ordinal, posicion, referencia, fecha,
+                                descripcion, subsistema, lineas))) {
+                            return;
+                        }
+                        lineas = null;
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("El archivo " + archivo.getFileName() + " no es un XML válido", e);
+        }
+    }
+
+    private static String atributo(XMLStreamReader xml, String nombre) {
+        String valor = xml.getAttributeValue(null, nombre);
+        return valor != null ? valor.trim() : "";
+    }
+
+    private static void leerJson(Path archivo, Receptor receptor) throws IOException {
+        try (JsonParser json = JSON_FACTORY.createParser(archivo.toFile())) {
+            JsonToken token = json.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                // Se busca el arreglo "asientos" dentro del objeto raíz
+                while (json.nextToken() == JsonToken.FIELD_NAME) {
+                    String campo = json.currentName();
+                    token = json.nextToken();
+                    if ("asientos".equals(campo) && token == JsonToken.START_ARRAY) {
+                        break;
+                    }
+                    json.skipChildren();
+                }
+            }
+            if (json.currentToken() != JsonToken.START_ARRAY) {
+                throw new IOException("El archivo " + archivo.getFileName() + " no contiene un arreglo de asientos");
+            }
+            int ordinal = 0;
+            while (json.nextToken() == JsonToken.START_OBJECT) {
+                if (!receptor.recibir(leerAsientoJson(json, ++ordinal))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static AsientoImportado leerAsientoJson(JsonParser json, int ordinal) throws IOException {
+        int posicion = json.currentLocation().getLineNr();
+        String referencia = "";
+        String fecha = "";
+        String descripcion = "";
+        String subsistema = "";
+        List<AsientoImportado.Linea> lineas = new ArrayList<>();
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = json.currentName();
+            JsonToken valor = json.nextToken();
+            switch (campo) {
+                case "referencia" ->
+                    referencia = texto(json);
+                case "fecha" ->
+                    fecha = texto(json);
+                case "descripcion" ->
+                    descripcion = texto(json);
+                case "subsistema" ->
+                    subsistema = texto(json);
+                case "lineas" -> {
+                    if (valor == JsonToken.START_ARRAY) {
+                        while (json.nextToken() == JsonToken.START_OBJECT) {
+                            lineas.add(leerLineaJson(json));
+                        }
+                    } else {
+                        json.skipChildren();
+                    }
+                }
+                default ->
+                    json.skipChildren();
+            }
+        }
+        return new AsientoImportado(ordinal, posicion, referencia, fecha, descripcion, subsistema, lineas);
+    }
+
+    private static AsientoImportado.Linea leerLineaJson(JsonParser json) throws IOException {
+        String cuenta = "";
+        String debe = "";
+        String haber = "";
+        String descripcion = "";
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = json.currentName();
+            json.nextToken();
+            switch (campo) {
+                case "cuenta" ->
+                    cuenta = texto(json);
+                case "debe" ->
+                    debe = texto(json);
+                case "haber" ->
+                    haber = texto(json);
+                case "descripcion" ->
+                    descripcion = texto(json);
+                default ->
+                    json.skipChildren();
+            }
+        }
+        return new AsientoImportado.Linea(cuenta, debe, haber, descripcion);
+    }
+
+    private static String texto(JsonParser json) throws IOException {
+        if (json.currentToken() == JsonToken.VALUE_NULL) {
+            return "";
+        }
+        if (json.currentToken().isStructStart()) {
+            json.skipChildren();
+            return "";
+        }
+        return json.getText().trim();
+    }
+
+    /**
+     * Agrupa en asientos las filas consecutivas con la misma referencia.
+     */
+    private static final class Agrupador implements LectorTabular.ManejadorFila {
+
+        private final Receptor receptor;
+        private int ordinal;
+        private boolean primera = true;
+        private String referencia;
+        private String fecha;
+        private String descripcion;
+        private String subsistema;
+        private int posicion;
+        private List<AsientoImportado.Linea> lineas = new ArrayList<>();
+
+        Agrupador(Receptor receptor) {
+            this.receptor = receptor;
+        }
+
+        @Override
+        public boolean procesar(int numero, List<String> celdas) {
+            if (primera) {
+                primera = false;
+                // Encabezado: la columna de fecha no tiene dígitos
+                if (!celda(celdas, 1).chars().anyMatch(Character::isDigit)) {
+                    return true;
+                }
+            }
+            String ref = celda(celdas, 0);
+            if (referencia != null && !Objects.equals(ref, referencia) && !emitir()) {
+                return false;
+            }
+            if (lineas.isEmpty()) {
+                referencia = ref;
+                fecha = celda(celdas, 1);
+                descripcion = celda(celdas, 2);
+                subsistema = celda(celdas, 7);
+                posicion = numero;
+            }
+            lineas.add(new AsientoImportado.Linea(celda(celdas, 3), celda(celdas, 4), celda(celdas, 5), celda(celdas, 6)));
+            return true;
+        }
+
+        void terminar() {
+            if (!lineas.isEmpty()) {
+                emitir();
+            }
+        }
+
+        private boolean emitir() {
+            AsientoImportado asiento = new AsientoImportado(++ordinal, posicion, referencia, fecha,
+                    descripcion, subsistema, lineas);
+            referencia = null;
+            lineas = new ArrayList<>();
+            return receptor.recibir(asiento);
+        }
+
+        private static String celda(List<String> celdas, int indice) {
+            return indice < celdas.size() ? celdas.get(indice) : "";
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.univsoftdev.econova.contabilidad.importacion;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Punto de control de una importación de asientos: cuántos asientos del
+ * archivo ya quedaron confirmados en la base de datos. Se guarda en la misma
+ * transacción que cada lote de asientos, de modo que si la importación falla
+ * puede reanudarse desde ese punto sin duplicar asientos.
+ * <p>
+ * El punto de control se asocia al tenant, a la unidad y a la
+ * {@linkplain #clave(Path) clave} del archivo, y solo se usa si la
+ * {@linkplain #huella(Path) huella} del archivo no cambió desde entonces.
+ *
+ * @param procesados Asientos del archivo ya tratados, importados o con
+ * errores.
+ * @param importados Asientos importados hasta el punto de control.
+ * @param errores Asientos rechazados hasta el punto de control.
+ */
+public record PuntoControlImportacion(int procesados, int importados, int errores) {
+
+    public static final PuntoControlImportacion INICIO = new PuntoControlImportacion(0, 0, 0);
+
+    /**
+     * @param archivo Archivo que se importa.
+     * @return Resumen SHA-256 en hexadecimal de la ruta absoluta del archivo.
+     */
+    public static String clave(Path archivo) {
+        try {
+            byte[] ruta = archivo.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(ruta));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * @param archivo Archivo que se importa.
+     * @return Tamaño y fecha de modificación del archivo.
+     * @throws IOException si no se pueden leer sus atributos
+     */
+    public static String huella(Path archivo) throws IOException {
+        return Files.size(archivo) + ":" + Files.getLastModifiedTime(archivo).toMillis();
+    }
+}
@@ -7,7 +7,10 @@ import com.univsoftdev.econova.contabilidad.OpeningTypeAnalysis;
 import com.univsoftdev.econova.contabilidad.TypeOfOpening;
 import com.univsoftdev.econova.contabilidad.finder.AccountFinder;
 import com.univsoftdev.econova.core.model.BaseModel;
+import io.ebean.annotation.Cache;
+import io.ebean.annotation.CacheBeanTuning;
 import io.ebean.annotation.Index;
+import io.ebean.annotation.Platform;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -16,7 +19,10 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.validation.constraints.Size;
 import java.io.Serial;
 import java.io.Serializable;
@@ -26,6 +32,8 @@ import java.util.List;
 import lombok.EqualsAndHashCode;
 
 @EqualsAndHashCode(callSuper = true)
+@Cache(naturalKey = "code")
+@CacheBeanTuning(maxSize = 20000, maxSecsToLive = 1800)
 @Entity
 @Table(name = "acc_accounts")
 public class Account extends BaseModel implements Serializable {
@@ -86,6 +94,25 @@ public class Account extends BaseModel implements Serializable {
     @Enumerated(EnumType.STRING)
     private NatureOfAccount natureOfAccount;
 
+    /**
+     * Ruta materializada con los códigos desde la cuenta raíz, por ejemplo
+     * {@code /100/100-01/}. Las subcuentas de una cuenta son las filas cuya
+     * ruta empieza por la de ella, lo que permite sumar un subárbol con una
+     * sola consulta. El índice usa {@code text_pattern_ops} para que
+     * PostgreSQL lo aproveche en las búsquedas por prefijo con {@code LIKE}.
+     */
+    @Column(name = "tree_path", length = 1000)
+    @Index(name = "idx_account_tree_path", platforms = Platform.POSTGRES,
+            definition = "create index idx_account_tree_path on acc_accounts (tree_path text_pattern_ops)")
+    private String treePath;
+
+    /**
+     * Ruta anterior de la cuenta cuando el último guardado la cambió, para
+     * actualizar después las rutas de sus subcuentas.
+     */
+    @Transient
+    private String treePathAnterior;
+
     public Account() {
     }
 
@@ -279,6 +306,57 @@ public class Account extends BaseModel implements Serializable {
         this.accountType = accountType;
     }
 
+    /**
+     * Calcula la ruta antes de insertar la cuenta, salvo que ya la tenga: la
+     * importación en bloque la asigna con la ruta del padre que conserva en
+     * memoria, para no cargar aquí cada padre referenciado.
+     */
+    @PrePersist
+    public void asignarTreePath() {
+        if (treePath == null) {
+            actualizarTreePath();
+        }
+    }
+
+    /**
+     * Recalcula la ruta a partir de la del padre antes de guardar. Si el padre
+     * todavía no tiene ruta, se deja vacía para que la complete
+     * {@code CuentaRepository.reconstruirTreePaths()}. Si la ruta cambia, se
+     * recuerda la anterior para que {@code CuentaService} actualice las
+     * subcuentas.
+     */
+    @PreUpdate
+    public void actualizarTreePath() {
+        String anterior = treePath;
+        if (accountFather == null) {
+            this.treePath = "/" + code + "/";
+        } else {
+            String rutaPadre = accountFather.getTreePath();
+            this.treePath = rutaPadre != null ? rutaPadre + code + "/" : null;
+        }
+        if (anterior != null && !anterior.equals(treePath)) {
+            this.treePathAnterior = anterior;
+        }
+    }
+
+    /**
+     * @return La ruta que tenía la cuenta antes del último guardado si este
+     * la cambió, o {@code null}. La olvida al devolverla.
+     */
+    public String tomarTreePathAnterior() {
+        String anterior = treePathAnterior;
+        treePathAnterior = null;
+        return anterior;
+    }
+
+    public String getTreePath() {
+        return treePath;
+    }
+
+    public void setTreePath(String treePath) {
+        this.treePath = treePath;
+    }
+
     public Account getAccountFather() {
         return accountFather;
     }
@@ -0,0 +1,110 @@
+package com.univsoftdev.econova.contabilidad.model;
+
+import com.univsoftdev.econova.config.model.Period;
+import com.univsoftdev.econova.core.model.BaseModel;
+import io.ebean.annotation.Index;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Saldo acumulado de una cuenta al cierre de un período. Se calcula una sola
+ * vez en el cierre mensual y sirve como punto de partida para el saldo de
+ * apertura del libro mayor, evitando sumar toda la historia de la cuenta.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "cont_account_balance_checkpoints")
+@Index(name = "idx_account_checkpoint_cutoff", unique = true, columnNames = {"account_id", "cutoff_date"})
+public class AccountBalanceCheckpoint extends BaseModel {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull(message = "La cuenta no puede ser nula.")
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "period_id")
+    private Period period;
+
+    @NotNull(message = "La fecha de corte no puede ser nula.")
+    @Column(name = "cutoff_date", nullable = false)
+    private LocalDate cutoffDate;
+
+    @Column(name = "debit", precision = 19, scale = 2, nullable = false)
+    private BigDecimal debit = BigDecimal.ZERO;
+
+    @Column(name = "credit", precision = 19, scale = 2, nullable = false)
+    private BigDecimal credit = BigDecimal.ZERO;
+
+    public AccountBalanceCheckpoint() {
+    }
+
+    public AccountBalanceCheckpoint(@NotNull Account account, Period period, @NotNull LocalDate cutoffDate,
+            BigDecimal debit, BigDecimal credit) {
+        this.account = account;
+        this.period = period;
+        this.cutoffDate = cutoffDate;
+        this.debit = debit;
+        this.credit = credit;
+    }
+
+    /**
+     * Saldo a la fecha de corte (débitos menos créditos acumulados).
+     *
+     * @return el saldo acumulado
+     */
+    public BigDecimal getSaldo() {
+        return debit.subtract(credit);
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    public Period getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(Period period) {
+        this.period = period;
+    }
+
+    public LocalDate getCutoffDate() {
+        return cutoffDate;
+    }
+
+    public void setCutoffDate(LocalDate cutoffDate) {
+        this.cutoffDate = cutoffDate;
+    }
+
+    public BigDecimal getDebit() {
+        return debit;
+    }
+
+    public void setDebit(BigDecimal debit) {
+        this.debit = debit;
+    }
+
+    public BigDecimal getCredit() {
+        return credit;
+    }
+
+    public void setCredit(BigDecimal credit) {
+        this.credit = credit;
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.univsoftdev.econova.contabilidad.model;
+
+import com.univsoftdev.econova.config.model.Period;
+import com.univsoftdev.econova.core.model.BaseModel;
+import io.ebean.annotation.Index;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Acumulado de débitos y créditos de una cuenta dentro de un período contable.
+ * Se mantiene de forma incremental al confirmar asientos, de modo que el
+ * balance de comprobación se obtiene leyendo una fila por cuenta y período en
+ * lugar de recorrer todas las transacciones del libro mayor.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "cont_account_period_balances")
+@Index(name = "idx_account_period_balance", unique = true, columnNames = {"account_id", "period_id"})
+public class AccountPeriodBalance extends BaseModel {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull(message = "La cuenta no puede ser nula.")
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @NotNull(message = "El periodo no puede ser nulo.")
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "period_id", nullable = false)
+    private Period period;
+
+    @Column(name = "debit", precision = 19, scale = 2, nullable = false)
+    private BigDecimal debit = BigDecimal.ZERO;
+
+    @Column(name = "credit", precision = 19, scale = 2, nullable = false)
+    private BigDecimal credit = BigDecimal.ZERO;
+
+    @Column(name = "movements", nullable = false)
+    private long movements;
+
+    public AccountPeriodBalance() {
+    }
+
+    public AccountPeriodBalance(@NotNull Account account, @NotNull Period period) {
+        this.account = account;
+        this.period = period;
+    }
+
+    /**
+     * Suma (o resta, si los importes son negativos) un movimiento al
+     * acumulado.
+     *
+     * @param debito Importe a sumar a los débitos.
+     * @param credito Importe a sumar a los créditos.
+     * @param cantidad Cantidad de transacciones que representan los importes.
+     */
+    public void acumular(BigDecimal debito, BigDecimal credito, long cantidad) {
+        this.debit = this.debit.add(debito);
+        this.credit = this.credit.add(credito);
+        this.movements += cantidad;
+    }
+
+    public BigDecimal getSaldo() {
+        return debit.subtract(credit);
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    public Period getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(Period period) {
+        this.period = period;
+    }
+
+    public BigDecimal getDebit() {
+        return debit;
+    }
+
+    public void setDebit(BigDecimal debit) {
+        this.debit = debit;
+    }
+
+    public BigDecimal getCredit() {
+        return credit;
+    }
+
+    public void setCredit(BigDecimal credit) {
+        this.credit = credit;
+    }
+
+    public long getMovements() {
+        return movements;
+    }
+
+    public void setMovements(long movements) {
+        this.movements = movements;
+    }
+
+}
@@ -6,6 +6,7 @@ import com.univsoftdev.econova.contabilidad.EstadoAsiento;
 import com.univsoftdev.econova.contabilidad.SubSystem;
 import com.univsoftdev.econova.contabilidad.TipoTransaccion;
 import com.univsoftdev.econova.core.model.AuditBaseModel;
+import io.ebean.annotation.Index;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -27,6 +28,7 @@ import lombok.Setter;
 @Setter
 @Entity
 @Table(name = "cont_accounting_entrys")
+@Index(name = "idx_accounting_entry_unit_period_nro", columnNames = {"unit_id", "periodo_id", "nro"})
 public class AccountingEntry extends AuditBaseModel {
 
     private static final long serialVersionUID = 1L;
@@ -161,8 +163,8 @@ public class AccountingEntry extends AuditBaseModel {
         if (transaccion == null) {
             throw new IllegalArgumentException("La transacción no puede ser nula.");
         }
+        // setAsiento la añade a la lista; añadirla aquí también la duplicaba
         if (!this.transactions.contains(transaccion)) {
-            this.transactions.add(transaccion);
             transaccion.setAsiento(this);
         }
     }
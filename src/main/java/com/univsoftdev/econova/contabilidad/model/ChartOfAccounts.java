@@ -2,6 +2,8 @@ package com.univsoftdev.econova.contabilidad.model;
 
 import com.univsoftdev.econova.contabilidad.AccountType;
 import com.univsoftdev.econova.core.model.BaseModel;
+import io.ebean.annotation.Cache;
+import io.ebean.annotation.CacheBeanTuning;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import java.math.BigDecimal;
@@ -13,6 +15,8 @@ import java.util.stream.Collectors;
 import lombok.EqualsAndHashCode;
 
 @EqualsAndHashCode(callSuper = false)
+@Cache
+@CacheBeanTuning(maxSize = 100, maxSecsToLive = 3600)
 @Entity
 @Table(name = "acc_chart_of_accounts")
 public class ChartOfAccounts extends BaseModel {
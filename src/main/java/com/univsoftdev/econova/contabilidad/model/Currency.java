@@ -1,6 +1,9 @@
 package com.univsoftdev.econova.contabilidad.model;
 
 import com.univsoftdev.econova.core.model.BaseModel;
+import io.ebean.annotation.Cache;
+import io.ebean.annotation.CacheBeanTuning;
+import io.ebean.annotation.CacheQueryTuning;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -12,6 +15,9 @@ import java.util.List;
 import lombok.EqualsAndHashCode;
 
 @EqualsAndHashCode(callSuper = false)
+@Cache(naturalKey = "symbol", enableQueryCache = true)
+@CacheBeanTuning(maxSize = 500, maxSecsToLive = 3600)
+@CacheQueryTuning(maxSize = 50, maxSecsToLive = 3600)
 @Entity
 @Table(name = "cont_currency")
 public class Currency extends BaseModel {
@@ -0,0 +1,73 @@
+package com.univsoftdev.econova.contabilidad.model;
+
+import com.univsoftdev.econova.core.model.BaseModel;
+import io.ebean.annotation.Index;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Tasa de cambio de una moneda respecto a la moneda base, vigente desde una
+ * fecha hasta la siguiente tasa registrada de la misma moneda.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "cont_exchange_rates")
+@Index(name = "idx_exchange_rate_currency_date", unique = true, columnNames = {"currency_id", "effective_date"})
+public class ExchangeRate extends BaseModel {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull(message = "La moneda no puede ser nula.")
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "currency_id", nullable = false)
+    private Currency currency;
+
+    @NotNull(message = "La fecha de vigencia no puede ser nula.")
+    @Column(name = "effective_date", nullable = false)
+    private LocalDate effectiveDate;
+
+    @NotNull(message = "La tasa no puede ser nula.")
+    @Column(name = "rate", precision = 19, scale = 6, nullable = false)
+    private BigDecimal rate;
+
+    public ExchangeRate() {
+    }
+
+    public ExchangeRate(@NotNull Currency currency, @NotNull LocalDate effectiveDate, @NotNull BigDecimal rate) {
+        this.currency = currency;
+        this.effectiveDate = effectiveDate;
+        this.rate = rate;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(Currency currency) {
+        this.currency = currency;
+    }
+
+    public LocalDate getEffectiveDate() {
+        return effectiveDate;
+    }
+
+    public void setEffectiveDate(LocalDate effectiveDate) {
+        this.effectiveDate = effectiveDate;
+    }
+
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    public void setRate(BigDecimal rate) {
+        this.rate = rate;
+    }
+}
@@ -0,0 +1,113 @@
+package com.univsoftdev.econova.contabilidad.model;
+
+import com.univsoftdev.econova.config.model.Unit;
+import com.univsoftdev.econova.contabilidad.importacion.PuntoControlImportacion;
+import com.univsoftdev.econova.core.model.BaseModel;
+import io.ebean.annotation.Index;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Avance de la importación de un archivo de asientos en una unidad. Se
+ * actualiza en la misma transacción que registra cada lote de asientos, de
+ * modo que el avance guardado coincide siempre con los asientos confirmados.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "cont_import_checkpoints")
+@Index(name = "idx_import_checkpoint_tenant_unit_file", unique = true,
+        columnNames = {"tenant_id", "unit_id", "file_key"})
+public class ImportCheckpoint extends BaseModel {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull(message = "La unidad no puede ser nula.")
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "unit_id", nullable = false)
+    private Unit unit;
+
+    @Column(name = "file_key", length = 64, nullable = false)
+    private String fileKey;
+
+    @Column(name = "fingerprint", length = 64, nullable = false)
+    private String fingerprint;
+
+    @Column(name = "processed", nullable = false)
+    private int processed;
+
+    @Column(name = "imported", nullable = false)
+    private int imported;
+
+    @Column(name = "errors", nullable = false)
+    private int errors;
+
+    public ImportCheckpoint() {
+    }
+
+    public ImportCheckpoint(@NotNull Unit unit, String fileKey, String fingerprint) {
+        this.unit = unit;
+        this.fileKey = fileKey;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @return El avance guardado.
+     */
+    public PuntoControlImportacion getPunto() {
+        return new PuntoControlImportacion(processed, imported, errors);
+    }
+
+    /**
+     * Sustituye el avance guardado.
+     *
+     * @param punto Nuevo avance.
+     */
+    public void setPunto(PuntoControlImportacion punto) {
+        this.processed = punto.procesados();
+        this.imported = punto.importados();
+        this.errors = punto.errores();
+    }
+
+    public Unit getUnit() {
+        return unit;
+    }
+
+    public void setUnit(Unit unit) {
+        this.unit = unit;
+    }
+
+    public String getFileKey() {
+        return fileKey;
+    }
+
+    public void setFileKey(String fileKey) {
+        this.fileKey = fileKey;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+}
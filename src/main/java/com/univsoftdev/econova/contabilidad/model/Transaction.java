@@ -5,6 +5,7 @@ import com.univsoftdev.econova.config.model.User;
 import com.univsoftdev.econova.contabilidad.TipoTransaccion;
 import com.univsoftdev.econova.contabilidad.finder.TransaccionFinder;
 import com.univsoftdev.econova.core.model.AuditBaseModel;
+import io.ebean.annotation.Index;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -20,6 +21,7 @@ import lombok.EqualsAndHashCode;
 @EqualsAndHashCode(callSuper = false)
 @Entity
 @Table(name = "cont_transactions")
+@Index(name = "idx_transaction_account_date", columnNames = {"account_id", "transaction_date"})
 public class Transaction extends AuditBaseModel {
 
     private static final long serialVersionUID = 1L;
@@ -0,0 +1,87 @@
+package com.univsoftdev.econova.contabilidad.model;
+
+import com.univsoftdev.econova.config.model.Period;
+import com.univsoftdev.econova.config.model.Unit;
+import com.univsoftdev.econova.core.model.BaseModel;
+import io.ebean.annotation.Index;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Último número de asiento asignado en una unidad y período. La fila se
+ * bloquea al reservar números, de modo que dos sesiones concurrentes nunca
+ * obtienen el mismo número.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "cont_voucher_sequences")
+@Index(name = "idx_voucher_sequence_unit_period", unique = true, columnNames = {"unit_id", "period_id"})
+public class VoucherSequence extends BaseModel {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull(message = "La unidad no puede ser nula.")
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "unit_id", nullable = false)
+    private Unit unit;
+
+    @NotNull(message = "El periodo no puede ser nulo.")
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "period_id", nullable = false)
+    private Period period;
+
+    @Column(name = "last_number", nullable = false)
+    private int lastNumber;
+
+    public VoucherSequence() {
+    }
+
+    public VoucherSequence(@NotNull Unit unit, @NotNull Period period, int lastNumber) {
+        this.unit = unit;
+        this.period = period;
+        this.lastNumber = lastNumber;
+    }
+
+    /**
+     * Reserva un bloque consecutivo de números.
+     *
+     * @param cantidad Cantidad de números a reservar.
+     * @return El primer número del bloque.
+     */
+    public int reservar(int cantidad) {
+        int primero = lastNumber + 1;
+        lastNumber += cantidad;
+        return primero;
+    }
+
+    public Unit getUnit() {
+        return unit;
+    }
+
+    public void setUnit(Unit unit) {
+        this.unit = unit;
+    }
+
+    public Period getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(Period period) {
+        this.period = period;
+    }
+
+    public int getLastNumber() {
+        return lastNumber;
+    }
+
+    public void setLastNumber(int lastNumber) {
+        this.lastNumber = lastNumber;
+    }
+
+}
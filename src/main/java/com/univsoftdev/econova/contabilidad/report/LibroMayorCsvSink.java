@@ -0,0 +1,48 @@
+package com.univsoftdev.econova.contabilidad.report;
+
+import com.univsoftdev.econova.contabilidad.model.Account;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+/**
+ * Escribe el Libro Mayor en CSV a medida que se generan las entradas.
+ */
+public class LibroMayorCsvSink implements LibroMayorSink, AutoCloseable {
+
+    private static final String[] ENCABEZADOS = {"Fecha", "Descripción", "Débito", "Crédito", "Saldo"};
+
+    private final CSVPrinter printer;
+
+    public LibroMayorCsvSink(Writer writer) throws IOException {
+        this.printer = new CSVPrinter(writer, CSVFormat.DEFAULT.builder().setHeader(ENCABEZADOS).build());
+    }
+
+    @Override
+    public void inicio(Account cuenta, BigDecimal saldoInicial) throws IOException {
+        printer.printRecord(null, "Saldo inicial " + cuenta.getCode(), null, null, saldoInicial.toPlainString());
+    }
+
+    @Override
+    public void entrada(LibroMayorEntry entrada) throws IOException {
+        printer.printRecord(
+                entrada.getFecha(),
+                entrada.getDescripcion(),
+                entrada.getDebito().toPlainString(),
+                entrada.getCredito().toPlainString(),
+                entrada.getSaldoAcumulado().toPlainString());
+    }
+
+    @Override
+    public void fin(BigDecimal saldoFinal) throws IOException {
+        printer.printRecord(null, "Saldo final", null, null, saldoFinal.toPlainString());
+        printer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        printer.close();
+    }
+}
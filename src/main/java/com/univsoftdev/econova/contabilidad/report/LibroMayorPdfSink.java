@@ -0,0 +1,116 @@
+package com.univsoftdev.econova.contabilidad.report;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import com.univsoftdev.econova.contabilidad.model.Account;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Escribe el Libro Mayor en PDF a medida que se generan las entradas. La
+ * tabla se marca incompleta y se vuelca al documento por bloques, de modo que
+ * las filas ya escritas no se conservan en memoria.
+ */
+public class LibroMayorPdfSink implements LibroMayorSink, AutoCloseable {
+
+    private static final int TAMANO_BLOQUE = 500;
+    private static final String[] ENCABEZADOS = {"Fecha", "Descripción", "Débito", "Crédito", "Saldo"};
+    private static final Font FUENTE_TITULO = new Font(Font.HELVETICA, 14, Font.BOLD);
+    private static final Font FUENTE_ENCABEZADO = new Font(Font.HELVETICA, 9, Font.BOLD);
+    private static final Font FUENTE_DATOS = new Font(Font.HELVETICA, 8);
+
+    private final Document document = new Document(PageSize.A4, 36, 36, 54, 54);
+    private final OutputStream out;
+    private PdfPTable table;
+    private int filas;
+
+    public LibroMayorPdfSink(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void inicio(Account cuenta, BigDecimal saldoInicial) throws IOException {
+        try {
+            PdfWriter.getInstance(document, out);
+            document.open();
+            Paragraph titulo = new Paragraph("Libro Mayor", FUENTE_TITULO);
+            titulo.setAlignment(Element.ALIGN_CENTER);
+            document.add(titulo);
+            document.add(new Paragraph("Cuenta: " + cuenta.getCode() + " " + cuenta.getName(), FUENTE_ENCABEZADO));
+            document.add(new Paragraph("Saldo inicial: " + formatear(saldoInicial), FUENTE_ENCABEZADO));
+            document.add(new Paragraph(" "));
+        } catch (DocumentException e) {
+            throw new IOException("No se pudo iniciar el PDF del Libro Mayor", e);
+        }
+
+        table = new PdfPTable(new float[]{1.2f, 4f, 1.5f, 1.5f, 1.5f});
+        table.setWidthPercentage(100);
+        table.setHeaderRows(1);
+        table.setComplete(false);
+        for (String encabezado : ENCABEZADOS) {
+            table.addCell(new PdfPCell(new Phrase(encabezado, FUENTE_ENCABEZADO)));
+        }
+    }
+
+    @Override
+    public void entrada(LibroMayorEntry entrada) throws IOException {
+        table.addCell(new Phrase(String.valueOf(entrada.getFecha()), FUENTE_DATOS));
+        table.addCell(new Phrase(entrada.getDescripcion(), FUENTE_DATOS));
+        agregarImporte(entrada.getDebito());
+        agregarImporte(entrada.getCredito());
+        agregarImporte(entrada.getSaldoAcumulado());
+        if (++filas % TAMANO_BLOQUE == 0) {
+            volcar();
+        }
+    }
+
+    @Override
+    public void fin(BigDecimal saldoFinal) throws IOException {
+        PdfPCell etiqueta = new PdfPCell(new Phrase("Saldo final", FUENTE_ENCABEZADO));
+        etiqueta.setColspan(4);
+        etiqueta.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        table.addCell(etiqueta);
+        agregarImporte(saldoFinal);
+        table.setComplete(true);
+        volcar();
+    }
+
+    private void agregarImporte(BigDecimal importe) {
+        PdfPCell celda = new PdfPCell(new Phrase(formatear(importe), FUENTE_DATOS));
+        celda.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        table.addCell(celda);
+    }
+
+    /**
+     * Agrega al documento las filas pendientes de la tabla; al estar
+     * incompleta, la tabla las descarta una vez escritas.
+     */
+    private void volcar() throws IOException {
+        try {
+            document.add(table);
+        } catch (DocumentException e) {
+            throw new IOException("No se pudo escribir el PDF del Libro Mayor", e);
+        }
+    }
+
+    private static String formatear(BigDecimal importe) {
+        return importe.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    @Override
+    public void close() {
+        if (document.isOpen()) {
+            document.close();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.univsoftdev.econova.contabilidad.report;
+
+import com.univsoftdev.econova.contabilidad.model.Account;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Destino de las entradas del Libro Mayor cuando el reporte se genera en modo
+ * streaming. Las entradas llegan en orden de fecha con el saldo acumulado ya
+ * calculado, de modo que el destino no necesita conservarlas en memoria.
+ */
+public interface LibroMayorSink {
+
+    /**
+     * Se invoca una vez antes de la primera entrada.
+     *
+     * @param cuenta Cuenta del reporte.
+     * @param saldoInicial Saldo de apertura del período.
+     * @throws IOException si el destino no puede escribirse
+     */
+    default void inicio(Account cuenta, BigDecimal saldoInicial) throws IOException {
+    }
+
+    /**
+     * Recibe una entrada del reporte.
+     *
+     * @param entrada Movimiento con su saldo acumulado.
+     * @throws IOException si el destino no puede escribirse
+     */
+    void entrada(LibroMayorEntry entrada) throws IOException;
+
+    /**
+     * Se invoca una vez después de la última entrada.
+     *
+     * @param saldoFinal Saldo al cierre del período.
+     * @throws IOException si el destino no puede escribirse
+     */
+    default void fin(BigDecimal saldoFinal) throws IOException {
+    }
+}
@@ -0,0 +1,51 @@
+package com.univsoftdev.econova.contabilidad.report;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Publica las entradas del Libro Mayor en un {@link DefaultTableModel} por
+ * bloques, desde el hilo que genera el reporte hacia el hilo de eventos de
+ * Swing.
+ */
+public class LibroMayorTableModelSink implements LibroMayorSink {
+
+    private static final int TAMANO_BLOQUE = 500;
+
+    private final DefaultTableModel model;
+    private List<Object[]> pendientes = new ArrayList<>(TAMANO_BLOQUE);
+
+    public LibroMayorTableModelSink(DefaultTableModel model) {
+        this.model = model;
+    }
+
+    @Override
+    public void entrada(LibroMayorEntry entrada) {
+        pendientes.add(new Object[]{
+            entrada.getFecha(),
+            entrada.getDescripcion(),
+            entrada.getDebito(),
+            entrada.getCredito(),
+            entrada.getSaldoAcumulado()});
+        if (pendientes.size() >= TAMANO_BLOQUE) {
+            publicar();
+        }
+    }
+
+    @Override
+    public void fin(BigDecimal saldoFinal) {
+        publicar();
+    }
+
+    private void publicar() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        List<Object[]> bloque = pendientes;
+        pendientes = new ArrayList<>(TAMANO_BLOQUE);
+        SwingUtilities.invokeLater(() -> bloque.forEach(model::addRow));
+    }
+}
@@ -1,8 +1,12 @@
 package com.univsoftdev.econova.contabilidad.repository;
 
+import com.univsoftdev.econova.contabilidad.dto.FiltroAsientos;
 import com.univsoftdev.econova.contabilidad.model.AccountingEntry;
 import com.univsoftdev.econova.core.repository.BaseRepository;
 import io.ebean.Database;
+import io.ebean.ExpressionList;
+import io.ebean.PagedList;
+import io.ebean.Query;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.time.LocalDate;
@@ -129,4 +133,63 @@ public class AsientoRepository extends BaseRepository<AccountingEntry> {
                 .orderBy("fecha desc, nro desc")
                 .findList();
     }
-}
\ No newline at end of file
+
+    /**
+     * Corre una posición hacia abajo la numeración de los asientos de una
+     * unidad y período posteriores a un número dado, con una sola sentencia.
+     *
+     * @param unitId Identificador de la unidad.
+     * @param periodId Identificador del período.
+     * @param nro Número a partir del cual se renumera (exclusivo).
+     * @return Cantidad de asientos renumerados.
+     */
+    public int renumerarPosterioresA(Long unitId, Long periodId, int nro) {
+        return database.sqlUpdate("UPDATE cont_accounting_entrys SET nro = nro - 1"
+                + " WHERE unit_id = :unitId AND periodo_id = :periodId AND nro > :nro AND deleted = false")
+                .setParameter("unitId", unitId)
+                .setParameter("periodId", periodId)
+                .setParameter("nro", nro)
+                .execute();
+    }
+
+    /**
+     * Página de asientos que cumplen un filtro, con las columnas del listado
+     * y la unidad y el usuario que modificó cargados en la misma consulta.
+     *
+     * @param filtro Criterios de búsqueda.
+     * @param orden Cláusula de ordenación (por ejemplo {@code "nro desc"}).
+     * @param pagina Número de página, empezando en cero.
+     * @param tamanoPagina Cantidad de filas por página.
+     * @return La página solicitada; su total se calcula con una consulta count.
+     */
+    public PagedList<AccountingEntry> findPagina(FiltroAsientos filtro, String orden, int pagina, int tamanoPagina) {
+        Query<AccountingEntry> consulta = database.find(AccountingEntry.class)
+                .select("nro, description, fecha, estadoAsiento, subSystem")
+                .fetch("unit", "code")
+                .fetch("modifiedBy", "fullName");
+
+        ExpressionList<AccountingEntry> where = consulta.where();
+        if (filtro.periodoId() != null) {
+            where.eq("period.id", filtro.periodoId());
+        }
+        if (filtro.estado() != null) {
+            where.eq("estadoAsiento", filtro.estado());
+        }
+        if (filtro.subSystem() != null) {
+            where.eq("subSystem", filtro.subSystem());
+        }
+        if (filtro.texto() != null && !filtro.texto().isBlank()) {
+            String texto = filtro.texto().trim();
+            if (texto.chars().allMatch(Character::isDigit) && texto.length() < 10) {
+                where.or()
+                        .eq("nro", Integer.parseInt(texto))
+                        .icontains("description", texto)
+                        .endOr();
+            } else {
+                where.icontains("description", texto);
+            }
+        }
+        consulta.orderBy(orden + ", id");
+        return findPagedList(consulta, pagina, tamanoPagina);
+    }
+}
@@ -1,20 +1,53 @@
 package com.univsoftdev.econova.contabilidad.repository;
 
+import com.univsoftdev.econova.contabilidad.AccountStatus;
 import com.univsoftdev.econova.contabilidad.AccountType;
+import com.univsoftdev.econova.contabilidad.NatureOfAccount;
+import com.univsoftdev.econova.contabilidad.dto.NodoCuentaDto;
 import com.univsoftdev.econova.contabilidad.model.Account;
 import com.univsoftdev.econova.core.repository.BaseRepository;
 import io.ebean.Database;
+import io.ebean.Junction;
+import io.ebean.SqlQuery;
+import io.ebean.SqlRow;
+import io.ebean.SqlUpdate;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Singleton
 public class CuentaRepository extends BaseRepository<Account> {
 
+    private static final String SQL_RECONSTRUIR_RUTAS
+            = "WITH RECURSIVE rutas (id, ruta) AS ("
+            + " SELECT id, '/' || code || '/' FROM acc_accounts WHERE account_father_id IS NULL"
+            + " UNION ALL"
+            + " SELECT c.id, r.ruta || c.code || '/' FROM acc_accounts c JOIN rutas r ON c.account_father_id = r.id"
+            + ")"
+            + " UPDATE acc_accounts a SET tree_path = r.ruta FROM rutas r"
+            + " WHERE a.id = r.id AND a.tree_path IS DISTINCT FROM r.ruta";
+
+    // El subárbol se une por prefijo con left() y no con LIKE, porque los
+    // códigos pueden contener '_' o '%'
+    private static final String SQL_CUENTAS_DESCUADRADAS
+            = "SELECT a.id, a.code, a.balance, SUM(d.balance) AS saldo_subarbol"
+            + " FROM acc_accounts a"
+            + " JOIN acc_accounts d ON left(d.tree_path, length(a.tree_path)) = a.tree_path AND d.deleted = false"
+            + " WHERE a.deleted = false"
+            + " GROUP BY a.id, a.code, a.balance"
+            + " HAVING a.balance <> SUM(d.balance)"
+            + " ORDER BY a.code";
+
     @Inject
     public CuentaRepository(Database database) {
         super(database);
@@ -36,11 +69,7 @@ public class CuentaRepository extends BaseRepository<Account> {
     }
 
     public Optional<Account> findByCodigo(String codigo) {
-        return Optional.ofNullable(database.find(Account.class)
-                        .where()
-                        .eq("codigo", codigo)
-                        .findOne()
-        );
+        return findByNaturalKey("code", codigo);
     }
 
     public Optional<Account> findByNombre(String nombre) {
@@ -160,6 +189,241 @@ public class CuentaRepository extends BaseRepository<Account> {
                 .findList();
     }
 
+    /**
+     * Suma una variación al saldo de cada cuenta con una sentencia UPDATE por
+     * cuenta, enviadas juntas en un lote JDBC. El saldo se incrementa en la
+     * base de datos, por lo que no depende del valor cargado en memoria.
+     *
+     * @param variaciones Variación de saldo indexada por identificador de
+     * cuenta.
+     * @return Cantidad de cuentas actualizadas.
+     */
+    public int actualizarSaldos(Map<Long, BigDecimal> variaciones) {
+        if (variaciones.isEmpty()) {
+            return 0;
+        }
+        SqlUpdate update = database.sqlUpdate(
+                "UPDATE acc_accounts SET balance = balance + :variacion WHERE id = :id");
+        for (Map.Entry<Long, BigDecimal> variacion : variaciones.entrySet()) {
+            update.setParameter("variacion", variacion.getValue())
+                    .setParameter("id", variacion.getKey())
+                    .addBatch();
+        }
+        int actualizadas = 0;
+        for (int filas : update.executeBatch()) {
+            actualizadas += Math.max(filas, 0);
+        }
+        return actualizadas;
+    }
+
+    /**
+     * Recalcula la ruta materializada de todas las cuentas a partir de la
+     * relación con su padre, corrigiendo solo las filas que difieren. Sirve
+     * para completar las cuentas creadas antes de existir la columna y las
+     * que cambiaron de código o de padre.
+     *
+     * @return Cantidad de cuentas actualizadas.
+     */
+    public int reconstruirTreePaths() {
+        return database.sqlUpdate(SQL_RECONSTRUIR_RUTAS).execute();
+    }
+
+    /**
+     * @return true si alguna cuenta no tiene todavía ruta materializada.
+     */
+    public boolean existenCuentasSinRuta() {
+        return database.find(Account.class)
+                .where()
+                .isNull("treePath")
+                .exists();
+    }
+
+    /**
+     * Sustituye el prefijo de ruta de todas las subcuentas de una cuenta cuya
+     * ruta cambió, con una sola sentencia sobre el índice de la ruta.
+     *
+     * @param anterior Ruta anterior de la cuenta.
+     * @param nueva Ruta nueva de la cuenta.
+     * @return Cantidad de subcuentas actualizadas.
+     */
+    public int actualizarRutasSubcuentas(String anterior, String nueva) {
+        return database.sqlUpdate("UPDATE acc_accounts SET tree_path = :nueva || SUBSTR(tree_path, :desde)"
+                + " WHERE tree_path LIKE :prefijo AND tree_path <> :anterior")
+                .setParameter("nueva", nueva)
+                .setParameter("desde", anterior.length() + 1)
+                .setParameter("prefijo", escaparLike(anterior) + "%")
+                .setParameter("anterior", anterior)
+                .execute();
+    }
+
+    /**
+     * Rutas materializadas de las cuentas indicadas, en una sola consulta.
+     *
+     * @param ids Identificadores de las cuentas.
+     * @return Ruta por id; las cuentas sin ruta no aparecen.
+     */
+    public Map<Long, String> findRutas(Collection<Long> ids) {
+        Map<Long, String> rutas = new HashMap<>();
+        if (ids.isEmpty()) {
+            return rutas;
+        }
+        database.sqlQuery("SELECT id, tree_path FROM acc_accounts WHERE id = ANY(:ids) AND tree_path IS NOT NULL")
+                .setParameter("ids", ids.toArray(Long[]::new))
+                .findEachRow((fila, numero) -> rutas.put(fila.getLong(1), fila.getString(2)));
+        return rutas;
+    }
+
+    /**
+     * Códigos ocupados por cuentas que no están en el árbol del plan indicado:
+     * las de otros planes y las eliminadas. El código es único en todo el
+     * esquema, así que tampoco pueden repetirse al importar.
+     *
+     * @param planId Plan de cuentas.
+     * @return Códigos ocupados fuera del árbol del plan.
+     */
+    public Set<String> findCodigosOcupados(long planId) {
+        Set<String> codigos = new HashSet<>();
+        database.sqlQuery("SELECT code FROM acc_accounts"
+                + " WHERE deleted = true OR chart_of_accounts_id IS DISTINCT FROM :plan")
+                .setParameter("plan", planId)
+                .findEachRow((fila, numero) -> codigos.add(fila.getString(1)));
+        return codigos;
+    }
+
+    /**
+     * Enlaza con su libro mayor las cuentas que todavía no lo tienen, tras
+     * insertar en bloque cuentas y libros.
+     *
+     * @return Cantidad de cuentas enlazadas.
+     */
+    public int enlazarLibrosMayores() {
+        return database.sqlUpdate("UPDATE acc_accounts a SET ledger_id = l.id FROM cont_ledgers l"
+                + " WHERE l.cuenta_id = a.id AND a.ledger_id IS NULL").execute();
+    }
+
+    /**
+     * Suma el saldo de una cuenta y de todas sus subcuentas con una sola
+     * consulta sobre la ruta materializada.
+     *
+     * @param treePath Ruta de la cuenta.
+     * @return Saldo total del subárbol.
+     */
+    public BigDecimal sumarSaldoSubarbol(String treePath) {
+        BigDecimal total = database.sqlQuery(
+                "SELECT COALESCE(SUM(balance), 0) FROM acc_accounts WHERE deleted = false AND tree_path LIKE :prefijo")
+                .setParameter("prefijo", escaparLike(treePath) + "%")
+                .mapToScalar(BigDecimal.class)
+                .findOne();
+        return total != null ? total : BigDecimal.ZERO;
+    }
+
+    /**
+     * Compara, en una sola consulta, el saldo de cada cuenta con el saldo total
+     * de su subárbol (la propia cuenta más todas sus subcuentas) y devuelve las
+     * que difieren.
+     *
+     * @return Filas con {@code id}, {@code code}, {@code balance} y
+     * {@code saldo_subarbol} de las cuentas descuadradas.
+     */
+    public List<SqlRow> findCuentasDescuadradas() {
+        return database.sqlQuery(SQL_CUENTAS_DESCUADRADAS).findList();
+    }
+
+    /**
+     * Cuentas de un plan de cuentas con solo los datos del árbol, en una sola
+     * consulta de proyección y ordenadas por código.
+     *
+     * @param planId Plan de cuentas, o {@code null} para todas las cuentas.
+     * @return Un nodo por cuenta activa o inactiva no eliminada.
+     */
+    public List<NodoCuentaDto> findNodosPlan(Long planId) {
+        SqlQuery consulta = database.sqlQuery("SELECT id, account_father_id, code, name, nature_of_account"
+                + " FROM acc_accounts WHERE deleted = false"
+                + (planId != null ? " AND chart_of_accounts_id = :plan" : "")
+                + " ORDER BY code");
+        if (planId != null) {
+            consulta.setParameter("plan", planId);
+        }
+        List<NodoCuentaDto> nodos = new ArrayList<>();
+        consulta.findEachRow((fila, numero) -> {
+            String naturaleza = fila.getString(5);
+            nodos.add(new NodoCuentaDto(
+                    fila.getLong(1),
+                    fila.getLong(2), // 0 si no tiene padre
+                    fila.getString(3),
+                    fila.getString(4),
+                    naturaleza != null ? NatureOfAccount.valueOf(naturaleza) : null));
+        });
+        return nodos;
+    }
+
+    /**
+     * Las cuentas que admiten movimientos (hojas activas del árbol)
+     * indexadas por código, cargadas en una sola consulta con solo los datos
+     * necesarios para imputarles movimientos.
+     *
+     * @return Cuentas parciales por código.
+     */
+    public Map<String, Account> findIndicePorCodigo() {
+        Map<String, Account> indice = new HashMap<>();
+        database.find(Account.class)
+                .select("id, code, natureOfAccount")
+                .where()
+                .or()
+                .isNull("accountStatus")
+                .ne("accountStatus", AccountStatus.INACTIVE)
+                .endOr()
+                .raw("not exists (select 1 from acc_accounts h where h.account_father_id = ${ta}.id and h.deleted = false)")
+                .findEach(cuenta -> indice.put(cuenta.getCode(), cuenta));
+        return indice;
+    }
+
+    private static String escaparLike(String valor) {
+        return valor.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Cuentas indicadas y todas sus subcuentas, con solo los datos que se
+     * muestran al conciliar. Las subcuentas se buscan por la ruta
+     * materializada de cada cuenta indicada.
+     *
+     * @param codigos Códigos de las cuentas.
+     * @return Cuentas parciales (id, código, nombre y saldo) ordenadas por
+     * código.
+     */
+    public List<Account> findCuentasBancarias(Collection<String> codigos) {
+        List<String> rutas = database.find(Account.class)
+                .select("treePath")
+                .where()
+                .in("code", codigos)
+                .isNotNull("treePath")
+                .findSingleAttributeList();
+        if (rutas.isEmpty()) {
+            return List.of();
+        }
+        Junction<Account> subarboles = database.find(Account.class)
+                .select("id, code, name, balance")
+                .where()
+                .or();
+        for (String ruta : rutas) {
+            subarboles.startsWith("treePath", ruta);
+        }
+        return subarboles.endOr()
+                .orderBy("code asc")
+                .findList();
+    }
+
+    /**
+     * @return Todas las cuentas parciales (id, código, nombre y saldo)
+     * ordenadas por código.
+     */
+    public List<Account> findResumenCuentas() {
+        return database.find(Account.class)
+                .select("id, code, name, balance")
+                .orderBy("code asc")
+                .findList();
+    }
+
     public BigDecimal getTotalSaldoCuentas() {
         // Para calcular el total, necesitarías una consulta específica
         // Esta es una aproximación simple
@@ -0,0 +1,56 @@
+package com.univsoftdev.econova.contabilidad.repository;
+
+import com.univsoftdev.econova.contabilidad.model.ImportCheckpoint;
+import com.univsoftdev.econova.core.repository.BaseRepository;
+import io.ebean.Database;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Singleton
+public class PuntoControlImportacionRepository extends BaseRepository<ImportCheckpoint> {
+
+    @Inject
+    public PuntoControlImportacionRepository(Database database) {
+        super(database);
+    }
+
+    @Override
+    protected Class<ImportCheckpoint> getEntityType() {
+        return ImportCheckpoint.class;
+    }
+
+    @Override
+    public List<ImportCheckpoint> findByCriteria(String criteria) {
+        return database.find(ImportCheckpoint.class)
+                .where()
+                .ilike("unit.name", criteria + "%")
+                .findList();
+    }
+
+    /**
+     * @param unitId Identificador de la unidad.
+     * @param clave Clave del archivo.
+     * @return El avance de la importación del archivo en la unidad, si existe.
+     */
+    public Optional<ImportCheckpoint> findByUnidadYArchivo(Long unitId, String clave) {
+        return database.find(ImportCheckpoint.class)
+                .where()
+                .eq("unit.id", unitId)
+                .eq("fileKey", clave)
+                .findOneOrEmpty();
+    }
+
+    /**
+     * Borra el avance de una importación terminada. El borrado es físico
+     * para que la clave pueda volver a usarse.
+     *
+     * @param control Avance a borrar.
+     */
+    public void borrar(ImportCheckpoint control) {
+        database.deletePermanent(control);
+    }
+}
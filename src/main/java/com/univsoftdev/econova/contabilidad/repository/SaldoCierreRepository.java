@@ -0,0 +1,103 @@
+package com.univsoftdev.econova.contabilidad.repository;
+
+import com.univsoftdev.econova.contabilidad.model.AccountBalanceCheckpoint;
+import com.univsoftdev.econova.core.repository.BaseRepository;
+import io.ebean.Database;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Singleton
+public class SaldoCierreRepository extends BaseRepository<AccountBalanceCheckpoint> {
+
+    @Inject
+    public SaldoCierreRepository(Database database) {
+        super(database);
+    }
+
+    @Override
+    protected Class<AccountBalanceCheckpoint> getEntityType() {
+        return AccountBalanceCheckpoint.class;
+    }
+
+    @Override
+    public List<AccountBalanceCheckpoint> findByCriteria(String criteria) {
+        return database.find(AccountBalanceCheckpoint.class)
+                .where()
+                .ilike("account.code", criteria + "%")
+                .findList();
+    }
+
+    /**
+     * Último cierre de la cuenta anterior a una fecha.
+     *
+     * @param accountId Identificador de la cuenta.
+     * @param fecha Fecha límite (exclusiva).
+     * @return El cierre más reciente, o vacío si la cuenta no tiene cierres.
+     */
+    public Optional<AccountBalanceCheckpoint> findUltimoAntesDe(Long accountId, LocalDate fecha) {
+        return database.find(AccountBalanceCheckpoint.class)
+                .where()
+                .eq("account.id", accountId)
+                .lt("cutoffDate", fecha)
+                .orderBy("cutoffDate desc")
+                .setMaxRows(1)
+                .findOneOrEmpty();
+    }
+
+    /**
+     * Fecha del cierre más reciente anterior a una fecha, para cualquier
+     * cuenta.
+     *
+     * @param fecha Fecha límite (exclusiva).
+     * @return La fecha de corte, o vacío si no hay cierres previos.
+     */
+    public Optional<LocalDate> findUltimaFechaCorteAntesDe(LocalDate fecha) {
+        return database.find(AccountBalanceCheckpoint.class)
+                .select("cutoffDate")
+                .where()
+                .lt("cutoffDate", fecha)
+                .orderBy("cutoffDate desc")
+                .setMaxRows(1)
+                .findOneOrEmpty()
+                .map(AccountBalanceCheckpoint::getCutoffDate);
+    }
+
+    public List<AccountBalanceCheckpoint> findByFechaCorte(LocalDate fechaCorte) {
+        return database.find(AccountBalanceCheckpoint.class)
+                .where()
+                .eq("cutoffDate", fechaCorte)
+                .findList();
+    }
+
+    /**
+     * Elimina físicamente los cierres de una fecha de corte, para poder
+     * recalcular un cierre mensual que se ejecuta de nuevo.
+     *
+     * @param fechaCorte Fecha de corte a eliminar.
+     * @return Cantidad de filas eliminadas.
+     */
+    public int deleteByFechaCorte(LocalDate fechaCorte) {
+        return database.sqlUpdate("DELETE FROM cont_account_balance_checkpoints WHERE cutoff_date = :fechaCorte")
+                .setParameter("fechaCorte", fechaCorte)
+                .execute();
+    }
+
+    /**
+     * Elimina físicamente los cierres con fecha de corte igual o posterior a
+     * una fecha, de todas las cuentas. Se borran fechas de corte completas
+     * porque cada cierre mensual parte de todos los saldos del anterior.
+     *
+     * @param fecha Primera fecha de corte a eliminar.
+     * @return Cantidad de filas eliminadas.
+     */
+    public int deleteDesdeFechaCorte(LocalDate fecha) {
+        return database.sqlUpdate("DELETE FROM cont_account_balance_checkpoints WHERE cutoff_date >= :fecha")
+                .setParameter("fecha", fecha)
+                .execute();
+    }
+}
@@ -0,0 +1,291 @@
+package com.univsoftdev.econova.contabilidad.repository;
+
+import com.univsoftdev.econova.contabilidad.EstadoAsiento;
+import com.univsoftdev.econova.contabilidad.NatureOfAccount;
+import com.univsoftdev.econova.contabilidad.TipoTransaccion;
+import com.univsoftdev.econova.contabilidad.dto.SaldoCuentaDto;
+import com.univsoftdev.econova.contabilidad.model.AccountPeriodBalance;
+import com.univsoftdev.econova.core.repository.BaseRepository;
+import io.ebean.Database;
+import io.ebean.SqlRow;
+import io.ebean.SqlUpdate;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Singleton
+public class SaldoPeriodoRepository extends BaseRepository<AccountPeriodBalance> {
+
+    /**
+     * Balance de comprobación sobre los acumulados por período, que solo
+     * contienen asientos confirmados. Los períodos que quedan enteros dentro
+     * del rango se toman de los acumulados; de los que lo cortan por
+     * {@code :inicio} o por {@code :fin} se suman las transacciones
+     * confirmadas de las fechas que caen en el rango. {@code mov} suma ambos
+     * por cuenta; {@code ancestros} propaga cada cuenta con movimientos hacia
+     * todas sus cuentas padre, de modo que el agrupado final devuelve cada
+     * cuenta con el total de su subárbol en una sola consulta.
+     */
+    private static final String SQL_BALANCE_COMPROBACION
+            = "WITH RECURSIVE partes AS ("
+            + " SELECT b.account_id,"
+            + " CASE WHEN p.start_date >= :inicio THEN b.debit ELSE 0 END AS debito_periodo,"
+            + " CASE WHEN p.start_date >= :inicio THEN b.credit ELSE 0 END AS credito_periodo,"
+            + " b.debit AS debito_acumulado,"
+            + " b.credit AS credito_acumulado"
+            + " FROM cont_account_period_balances b"
+            + " JOIN sys_periods p ON p.id = b.period_id"
+            + " WHERE b.deleted = false AND p.end_date <= :fin"
+            + " UNION ALL"
+            // Períodos cortados: los que contienen :fin aportan al acumulado
+            // hasta :fin, y todos aportan al período desde :inicio
+            + " SELECT t.account_id,"
+            + " CASE WHEN t.tipo = " + TipoTransaccion.DEBITO.ordinal()
+            + " AND t.transaction_date >= :inicio THEN t.balance ELSE 0 END,"
+            + " CASE WHEN t.tipo = " + TipoTransaccion.CREDITO.ordinal()
+            + " AND t.transaction_date >= :inicio THEN t.balance ELSE 0 END,"
+            + " CASE WHEN t.tipo = " + TipoTransaccion.DEBITO.ordinal()
+            + " AND p.end_date > :fin THEN t.balance ELSE 0 END,"
+            + " CASE WHEN t.tipo = " + TipoTransaccion.CREDITO.ordinal()
+            + " AND p.end_date > :fin THEN t.balance ELSE 0 END"
+            + " FROM cont_transactions t"
+            + " JOIN cont_accounting_entrys e ON e.id = t.accounting_entry_id"
+            + " JOIN sys_periods p ON p.id = e.periodo_id"
+            + " WHERE t.deleted = false AND e.deleted = false"
+            + " AND e.estado_asiento = '" + EstadoAsiento.CONFIRMADO.name() + "'"
+            + " AND t.account_id IS NOT NULL AND t.balance IS NOT NULL"
+            + " AND p.start_date <= :fin AND (p.end_date > :fin OR (p.start_date < :inicio AND p.end_date >= :inicio))"
+            + " AND t.transaction_date <= :fin"
+            + "), mov AS ("
+            + " SELECT account_id,"
+            + " SUM(debito_periodo) AS debito_periodo,"
+            + " SUM(credito_periodo) AS credito_periodo,"
+            + " SUM(debito_acumulado) AS debito_acumulado,"
+            + " SUM(credito_acumulado) AS credito_acumulado"
+            + " FROM partes"
+            + " GROUP BY account_id"
+            + "), ancestros AS ("
+            + " SELECT a.id AS account_id, a.id AS ancestor_id, a.account_father_id AS father_id"
+            + " FROM acc_accounts a JOIN mov m ON m.account_id = a.id"
+            + " UNION ALL"
+            + " SELECT an.account_id, p.id, p.account_father_id"
+            + " FROM ancestros an JOIN acc_accounts p ON p.id = an.father_id"
+            + ")"
+            + " SELECT c.code, c.name, c.nature_of_account,"
+            + " COALESCE(SUM(m.debito_periodo), 0) AS debito_periodo,"
+            + " COALESCE(SUM(m.credito_periodo), 0) AS credito_periodo,"
+            + " COALESCE(SUM(m.debito_acumulado), 0) AS debito_acumulado,"
+            + " COALESCE(SUM(m.credito_acumulado), 0) AS credito_acumulado"
+            + " FROM acc_accounts c"
+            + " LEFT JOIN ancestros an ON an.ancestor_id = c.id"
+            + " LEFT JOIN mov m ON m.account_id = an.account_id"
+            + " WHERE c.deleted = false"
+            + " GROUP BY c.id, c.code, c.name, c.nature_of_account"
+            + " ORDER BY c.code";
+
+    private static final String SQL_SALDOS_MONEDA_EXTRANJERA
+            = "SELECT b.account_id, a.code, c.symbol, SUM(b.debit - b.credit) AS saldo"
+            + " FROM cont_account_period_balances b"
+            + " JOIN sys_periods p ON p.id = b.period_id"
+            + " JOIN acc_accounts a ON a.id = b.account_id"
+            + " JOIN cont_currency c ON c.id = a.currency_id"
+            + " WHERE b.deleted = false AND p.end_date <= :fin AND c.id <> :monedaBase"
+            + " GROUP BY b.account_id, a.code, c.symbol"
+            + " HAVING SUM(b.debit - b.credit) <> 0"
+            + " ORDER BY a.code";
+
+    // Suma en la base de datos, así dos sesiones que confirman asientos de la
+    // misma cuenta y período no compiten por crear la fila
+    private static final String SQL_ACUMULAR
+            = "INSERT INTO cont_account_period_balances AS b"
+            + " (account_id, period_id, debit, credit, movements, tenant_id, version, when_created, when_modified, deleted)"
+            + " SELECT a.id, :periodo, :debito, :credito, :cantidad, a.tenant_id, 1, now(), now(), false"
+            + " FROM acc_accounts a WHERE a.id = :cuenta"
+            + " ON CONFLICT (account_id, period_id)"
+            + " DO UPDATE SET debit = b.debit + EXCLUDED.debit, credit = b.credit + EXCLUDED.credit,"
+            + " movements = b.movements + EXCLUDED.movements, when_modified = now(), version = b.version + 1";
+
+    /**
+     * Pone a cero los acumulados antes de reconstruirlos, para que las filas
+     * que ya no tienen movimientos no conserven importes.
+     */
+    private static final String SQL_LIMPIAR
+            = "UPDATE cont_account_period_balances SET debit = 0, credit = 0, movements = 0"
+            + " WHERE movements <> 0 OR debit <> 0 OR credit <> 0";
+
+    /**
+     * Recalcula los acumulados desde las transacciones de los asientos
+     * confirmados.
+     */
+    private static final String SQL_RECONSTRUIR
+            = "INSERT INTO cont_account_period_balances AS b"
+            + " (account_id, period_id, debit, credit, movements, tenant_id, version, when_created, when_modified, deleted)"
+            + " SELECT t.account_id, e.periodo_id,"
+            + " SUM(CASE WHEN t.tipo = " + TipoTransaccion.DEBITO.ordinal() + " THEN t.balance ELSE 0 END),"
+            + " SUM(CASE WHEN t.tipo = " + TipoTransaccion.CREDITO.ordinal() + " THEN t.balance ELSE 0 END),"
+            + " COUNT(*), MIN(e.tenant_id), 1, now(), now(), false"
+            + " FROM cont_transactions t"
+            + " JOIN cont_accounting_entrys e ON e.id = t.accounting_entry_id"
+            + " WHERE t.deleted = false AND e.deleted = false"
+            + " AND e.estado_asiento = '" + EstadoAsiento.CONFIRMADO.name() + "'"
+            + " AND t.account_id IS NOT NULL AND t.balance IS NOT NULL AND e.periodo_id IS NOT NULL"
+            + " GROUP BY t.account_id, e.periodo_id"
+            + " ON CONFLICT (account_id, period_id)"
+            + " DO UPDATE SET debit = EXCLUDED.debit, credit = EXCLUDED.credit, movements = EXCLUDED.movements,"
+            + " when_modified = now(), version = b.version + 1";
+
+    /**
+     * Indica si hay asientos confirmados sin ningún acumulado registrado, es
+     * decir, datos anteriores a la tabla de acumulados.
+     */
+    private static final String SQL_FALTAN_ACUMULADOS
+            = "SELECT NOT EXISTS (SELECT 1 FROM cont_account_period_balances)"
+            + " AND EXISTS (SELECT 1 FROM cont_accounting_entrys WHERE deleted = false"
+            + " AND estado_asiento = '" + EstadoAsiento.CONFIRMADO.name() + "')";
+
+    @Inject
+    public SaldoPeriodoRepository(Database database) {
+        super(database);
+    }
+
+    @Override
+    protected Class<AccountPeriodBalance> getEntityType() {
+        return AccountPeriodBalance.class;
+    }
+
+    @Override
+    public List<AccountPeriodBalance> findByCriteria(String criteria) {
+        return database.find(AccountPeriodBalance.class)
+                .where()
+                .ilike("account.code", criteria + "%")
+                .findList();
+    }
+
+    /**
+     * Suma las variaciones a los acumulados con un INSERT ... ON CONFLICT por
+     * cuenta y período, enviados juntos en un lote JDBC. La fila se crea si no
+     * existe y, si existe, se incrementa en la base de datos.
+     *
+     * @param variaciones Importes a sumar; negativos para revertir.
+     * @return Cantidad de filas afectadas.
+     */
+    public int acumular(Collection<Variacion> variaciones) {
+        if (variaciones.isEmpty()) {
+            return 0;
+        }
+        SqlUpdate upsert = database.sqlUpdate(SQL_ACUMULAR);
+        for (Variacion variacion : variaciones) {
+            upsert.setParameter("cuenta", variacion.accountId())
+                    .setParameter("periodo", variacion.periodId())
+                    .setParameter("debito", variacion.debito())
+                    .setParameter("credito", variacion.credito())
+                    .setParameter("cantidad", variacion.cantidad())
+                    .addBatch();
+        }
+        int filas = 0;
+        for (int afectadas : upsert.executeBatch()) {
+            filas += Math.max(afectadas, 0);
+        }
+        return filas;
+    }
+
+    /**
+     * Recalcula todos los acumulados del tenant actual a partir de los
+     * asientos confirmados.
+     *
+     * @return Cantidad de filas de acumulados escritas.
+     */
+    public int reconstruir() {
+        database.sqlUpdate(SQL_LIMPIAR).execute();
+        return database.sqlUpdate(SQL_RECONSTRUIR).execute();
+    }
+
+    /**
+     * @return true si hay asientos confirmados pero ningún acumulado, es decir,
+     * datos registrados antes de existir la tabla.
+     */
+    public boolean faltanAcumulados() {
+        return Boolean.TRUE.equals(database.sqlQuery(SQL_FALTAN_ACUMULADOS)
+                .mapToScalar(Boolean.class)
+                .findOne());
+    }
+
+    public List<AccountPeriodBalance> findByPeriodo(Long periodId) {
+        return database.find(AccountPeriodBalance.class)
+                .where()
+                .eq("period.id", periodId)
+                .findList();
+    }
+
+    /**
+     * Agrega los acumulados de todas las cuentas en una sola consulta, con
+     * cada cuenta padre sumando los de su subárbol. Los importes del período
+     * son los movimientos confirmados con fecha entre {@code inicio} y
+     * {@code fin}; los acumulados, todos los de fecha hasta {@code fin}. Las
+     * fechas no tienen que coincidir con el inicio o el fin de un período:
+     * de los períodos cortados se leen solo sus transacciones.
+     *
+     * @param inicio Fecha de inicio del rango.
+     * @param fin Fecha de fin del rango.
+     * @return Totales de cada cuenta, ordenados por código.
+     */
+    public List<SaldoCuentaDto> sumarPorCuenta(LocalDate inicio, LocalDate fin) {
+        List<SqlRow> filas = database.sqlQuery(SQL_BALANCE_COMPROBACION)
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
+                .findList();
+
+        List<SaldoCuentaDto> saldos = new ArrayList<>(filas.size());
+        for (SqlRow fila : filas) {
+            String naturaleza = fila.getString("nature_of_account");
+            saldos.add(new SaldoCuentaDto(
+                    fila.getString("code"),
+                    fila.getString("name"),
+                    naturaleza != null ? NatureOfAccount.valueOf(naturaleza) : null,
+                    valor(fila.getBigDecimal("debito_periodo")),
+                    valor(fila.getBigDecimal("credito_periodo")),
+                    valor(fila.getBigDecimal("debito_acumulado")),
+                    valor(fila.getBigDecimal("credito_acumulado"))));
+        }
+        return saldos;
+    }
+
+    /**
+     * Saldo acumulado hasta una fecha de cada cuenta cuya moneda no es la
+     * base, agregado en una sola consulta sobre los acumulados por período.
+     * Devuelve las columnas {@code account_id}, {@code code}, {@code symbol}
+     * y {@code saldo}.
+     *
+     * @param fin Fecha de cierre.
+     * @param monedaBaseId Identificador de la moneda base.
+     * @return Una fila por cuenta con saldo distinto de cero.
+     */
+    public List<SqlRow> findSaldosMonedaExtranjera(LocalDate fin, Long monedaBaseId) {
+        return database.sqlQuery(SQL_SALDOS_MONEDA_EXTRANJERA)
+                .setParameter("fin", fin)
+                .setParameter("monedaBase", monedaBaseId)
+                .findList();
+    }
+
+    private static BigDecimal valor(BigDecimal importe) {
+        return importe != null ? importe : BigDecimal.ZERO;
+    }
+
+    /**
+     * Importes a sumar al acumulado de una cuenta en un período.
+     *
+     * @param accountId Identificador de la cuenta.
+     * @param periodId Identificador del período.
+     * @param debito Débitos a sumar.
+     * @param credito Créditos a sumar.
+     * @param cantidad Transacciones que representan los importes.
+     */
+    public record Variacion(Long accountId, Long periodId, BigDecimal debito, BigDecimal credito, long cantidad) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.univsoftdev.econova.contabilidad.repository;
+
+import com.univsoftdev.econova.config.model.Period;
+import com.univsoftdev.econova.config.model.Unit;
+import com.univsoftdev.econova.contabilidad.model.VoucherSequence;
+import com.univsoftdev.econova.core.repository.BaseRepository;
+import io.ebean.Database;
+import io.ebean.DuplicateKeyException;
+import io.ebean.Transaction;
+import io.ebean.TxScope;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Singleton
+public class SecuenciaAsientoRepository extends BaseRepository<VoucherSequence> {
+
+    private static final String SQL_MAX_NRO
+            = "SELECT COALESCE(MAX(nro), 0) AS nro FROM cont_accounting_entrys"
+            + " WHERE unit_id = :unitId AND periodo_id = :periodId AND deleted = false";
+
+    @Inject
+    public SecuenciaAsientoRepository(Database database) {
+        super(database);
+    }
+
+    @Override
+    protected Class<VoucherSequence> getEntityType() {
+        return VoucherSequence.class;
+    }
+
+    @Override
+    public List<VoucherSequence> findByCriteria(String criteria) {
+        return database.find(VoucherSequence.class)
+                .where()
+                .ilike("unit.name", criteria + "%")
+                .findList();
+    }
+
+    public Optional<VoucherSequence> findByUnidadYPeriodo(Long unitId, Long periodId) {
+        return database.find(VoucherSequence.class)
+                .where()
+                .eq("unit.id", unitId)
+                .eq("period.id", periodId)
+                .findOneOrEmpty();
+    }
+
+    /**
+     * Obtiene la secuencia de una unidad y período bloqueando la fila hasta el
+     * final de la transacción en curso.
+     *
+     * @param unitId Identificador de la unidad.
+     * @param periodId Identificador del período.
+     * @return La secuencia, o vacío si todavía no existe.
+     */
+    public Optional<VoucherSequence> findForUpdate(Long unitId, Long periodId) {
+        return database.find(VoucherSequence.class)
+                .where()
+                .eq("unit.id", unitId)
+                .eq("period.id", periodId)
+                .forUpdate()
+                .findOneOrEmpty();
+    }
+
+    /**
+     * Número de asiento más alto ya registrado en una unidad y período.
+     *
+     * @param unitId Identificador de la unidad.
+     * @param periodId Identificador del período.
+     * @return El número más alto, o cero si no hay asientos.
+     */
+    public int maxNumeroAsiento(Long unitId, Long periodId) {
+        Integer max = database.sqlQuery(SQL_MAX_NRO)
+                .setParameter("unitId", unitId)
+                .setParameter("periodId", periodId)
+                .mapToScalar(Integer.class)
+                .findOne();
+        return max != null ? max : 0;
+    }
+
+    /**
+     * Crea la secuencia de una unidad y período en una transacción propia,
+     * partiendo del número más alto ya registrado. Si otra sesión la crea al
+     * mismo tiempo, el índice único rechaza el duplicado y se conserva la
+     * suya.
+     *
+     * @param unidad Unidad de la secuencia.
+     * @param periodo Período de la secuencia.
+     */
+    public void crearSiNoExiste(Unit unidad, Period periodo) {
+        try (Transaction tx = database.beginTransaction(TxScope.requiresNew())) {
+            if (findByUnidadYPeriodo(unidad.getId(), periodo.getId()).isEmpty()) {
+                database.save(new VoucherSequence(unidad, periodo,
+                        maxNumeroAsiento(unidad.getId(), periodo.getId())));
+            }
+            tx.commit();
+        } catch (DuplicateKeyException e) {
+            log.debug("La secuencia de asientos de la unidad {} y período {} ya fue creada por otra sesión",
+                    unidad.getId(), periodo.getId());
+        }
+    }
+}
@@ -1,20 +1,47 @@
 package com.univsoftdev.econova.contabilidad.repository;
 
+import com.univsoftdev.econova.contabilidad.EstadoAsiento;
 import com.univsoftdev.econova.contabilidad.TipoTransaccion;
+import com.univsoftdev.econova.contabilidad.dto.MovimientoCuentaDto;
 import com.univsoftdev.econova.contabilidad.model.Transaction;
 import com.univsoftdev.econova.core.repository.BaseRepository;
 import io.ebean.Database;
+import io.ebean.SqlRow;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Singleton
 public class TransactionRepository extends BaseRepository<Transaction> {
 
+    private static final int TAMANO_LOTE_LECTURA = 1000;
+
+    private static final String SQL_MOVIMIENTOS_CUENTA
+            = "SELECT COALESCE(SUM(CASE WHEN t.tipo = :debito THEN t.balance ELSE 0 END), 0) AS debito,"
+            + " COALESCE(SUM(CASE WHEN t.tipo = :credito THEN t.balance ELSE 0 END), 0) AS credito"
+            + " FROM cont_transactions t"
+            + " JOIN cont_accounting_entrys e ON e.id = t.accounting_entry_id"
+            + " WHERE t.deleted = false AND t.account_id = :cuenta"
+            + " AND t.transaction_date > :desde AND t.transaction_date < :hasta"
+            + " AND e.deleted = false AND e.estado_asiento = '" + EstadoAsiento.CONFIRMADO.name() + "'";
+
+    private static final String SQL_MOVIMIENTOS_POR_CUENTA
+            = "SELECT t.account_id,"
+            + " SUM(CASE WHEN t.tipo = :debito THEN t.balance ELSE 0 END) AS debito,"
+            + " SUM(CASE WHEN t.tipo = :credito THEN t.balance ELSE 0 END) AS credito"
+            + " FROM cont_transactions t"
+            + " JOIN cont_accounting_entrys e ON e.id = t.accounting_entry_id"
+            + " WHERE t.deleted = false AND t.transaction_date > :desde AND t.transaction_date <= :hasta"
+            + " AND e.deleted = false AND e.estado_asiento = '" + EstadoAsiento.CONFIRMADO.name() + "'"
+            + " GROUP BY t.account_id";
+
     @Inject
     public TransactionRepository(Database database) {
         super(database);
@@ -116,14 +143,128 @@ public class TransactionRepository extends BaseRepository<Transaction> {
                 .findList();
     }
 
+    /**
+     * Transacciones de una cuenta en un rango de fechas, ordenadas por fecha.
+     * La consulta se resuelve con el índice (account_id, transaction_date).
+     *
+     * @param cuentaId Identificador de la cuenta.
+     * @param fechaInicio Fecha de inicio (inclusiva).
+     * @param fechaFin Fecha de fin (inclusiva).
+     * @return Transacciones con el número de asiento ya cargado.
+     */
     public List<Transaction> obtenerTransaccionesPorCuentaYFecha(Long cuentaId, LocalDate fechaInicio, LocalDate fechaFin) {
         return database.find(Transaction.class)
+                .fetch("asiento", "nro")
                 .where()
-                .eq("cuenta.id", cuentaId)
-                .ge("fecha", fechaInicio)
-                .le("fecha", fechaFin)
-                .orderBy("fecha asc, id asc")
+                .eq("account.id", cuentaId)
+                .ge("date", fechaInicio)
+                .le("date", fechaFin)
+                .orderBy("date asc, id asc")
+                .findList();
+    }
+
+    /**
+     * Recorre las transacciones de una cuenta en un rango de fechas sin
+     * mantenerlas en memoria: cada fila se entrega al consumidor y se descarta
+     * antes de leer la siguiente.
+     *
+     * @param cuentaId Identificador de la cuenta.
+     * @param fechaInicio Fecha de inicio (inclusiva).
+     * @param fechaFin Fecha de fin (inclusiva).
+     * @param consumidor Receptor de cada transacción, en orden de fecha.
+     */
+    public void recorrerPorCuentaYFecha(Long cuentaId, LocalDate fechaInicio, LocalDate fechaFin, Consumer<Transaction> consumidor) {
+        database.find(Transaction.class)
+                .select("tipo, balance, date")
+                .fetch("asiento", "nro")
+                .setBufferFetchSizeHint(TAMANO_LOTE_LECTURA)
+                .where()
+                .eq("account.id", cuentaId)
+                .eq("asiento.estadoAsiento", EstadoAsiento.CONFIRMADO)
+                .ge("date", fechaInicio)
+                .le("date", fechaFin)
+                .orderBy("date asc, id asc")
+                .findEach(consumidor);
+    }
+
+    /**
+     * Recorre los débitos y créditos de una cuenta en un rango de fechas con
+     * una sola consulta, leyendo solo las columnas necesarias para conciliar
+     * y sin crear entidades.
+     *
+     * @param cuentaId Identificador de la cuenta.
+     * @param fechaInicio Fecha de inicio (inclusiva).
+     * @param fechaFin Fecha de fin (inclusiva).
+     * @param consumidor Receptor de cada movimiento.
+     */
+    public void recorrerMovimientosConciliacion(Long cuentaId, LocalDate fechaInicio, LocalDate fechaFin,
+            Consumer<MovimientoCuentaDto> consumidor) {
+        database.sqlQuery("SELECT t.id, t.transaction_date, t.tipo, t.balance, t.description, COALESCE(e.nro, 0)"
+                + " FROM cont_transactions t"
+                + " LEFT JOIN cont_accounting_entrys e ON e.id = t.accounting_entry_id"
+                + " WHERE t.deleted = false AND t.account_id = :cuenta"
+                + " AND t.transaction_date >= :desde AND t.transaction_date <= :hasta"
+                + " AND t.tipo IN (:debito, :credito)")
+                .setParameter("cuenta", cuentaId)
+                .setParameter("desde", fechaInicio)
+                .setParameter("hasta", fechaFin)
+                .setParameter("debito", TipoTransaccion.DEBITO.ordinal())
+                .setParameter("credito", TipoTransaccion.CREDITO.ordinal())
+                .setBufferFetchSizeHint(TAMANO_LOTE_LECTURA)
+                .findEachRow((fila, numero) -> consumidor.accept(new MovimientoCuentaDto(
+                fila.getLong(1),
+                fila.getObject(2, LocalDate.class),
+                TipoTransaccion.values()[fila.getInt(3)],
+                fila.getBigDecimal(4),
+                fila.getString(5),
+                fila.getInt(6))));
+    }
+
+    /**
+     * Suma los débitos y créditos de una cuenta en el intervalo
+     * ({@code desde}, {@code hasta}).
+     *
+     * @param cuentaId Identificador de la cuenta.
+     * @param desde Fecha inicial exclusiva, o {@code null} para no acotar.
+     * @param hasta Fecha final exclusiva.
+     * @return Arreglo {débitos, créditos}.
+     */
+    public BigDecimal[] sumarMovimientosCuenta(Long cuentaId, LocalDate desde, LocalDate hasta) {
+        SqlRow fila = database.sqlQuery(SQL_MOVIMIENTOS_CUENTA)
+                .setParameter("cuenta", cuentaId)
+                .setParameter("desde", desde != null ? desde : LocalDate.of(1900, 1, 1))
+                .setParameter("hasta", hasta)
+                .setParameter("debito", TipoTransaccion.DEBITO.ordinal())
+                .setParameter("credito", TipoTransaccion.CREDITO.ordinal())
+                .findOne();
+        if (fila == null) {
+            return new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO};
+        }
+        return new BigDecimal[]{fila.getBigDecimal("debito"), fila.getBigDecimal("credito")};
+    }
+
+    /**
+     * Suma los débitos y créditos de todas las cuentas en el intervalo
+     * ({@code desde}, {@code hasta}] con una sola consulta agrupada.
+     *
+     * @param desde Fecha inicial exclusiva, o {@code null} para no acotar.
+     * @param hasta Fecha final inclusiva.
+     * @return Arreglos {débitos, créditos} indexados por id de cuenta.
+     */
+    public Map<Long, BigDecimal[]> sumarMovimientosPorCuenta(LocalDate desde, LocalDate hasta) {
+        List<SqlRow> filas = database.sqlQuery(SQL_MOVIMIENTOS_POR_CUENTA)
+                .setParameter("desde", desde != null ? desde : LocalDate.of(1900, 1, 1))
+                .setParameter("hasta", hasta)
+                .setParameter("debito", TipoTransaccion.DEBITO.ordinal())
+                .setParameter("credito", TipoTransaccion.CREDITO.ordinal())
                 .findList();
+
+        Map<Long, BigDecimal[]> movimientos = new HashMap<>(filas.size() * 2);
+        for (SqlRow fila : filas) {
+            movimientos.put(fila.getLong("account_id"),
+                    new BigDecimal[]{fila.getBigDecimal("debito"), fila.getBigDecimal("credito")});
+        }
+        return movimientos;
     }
 
     public BigDecimal getTotalMontoPorTipoYFecha(TipoTransaccion tipo, LocalDate fecha) {
@@ -5,6 +5,7 @@ import com.univsoftdev.econova.config.model.Period;
 import com.univsoftdev.econova.config.model.Unit;
 import com.univsoftdev.econova.config.model.User;
 import com.univsoftdev.econova.contabilidad.AccountType;
+import com.univsoftdev.econova.contabilidad.AsientoValidationException;
 import com.univsoftdev.econova.contabilidad.ContabilidadException;
 import com.univsoftdev.econova.contabilidad.EstadoAsiento;
 import com.univsoftdev.econova.contabilidad.NatureOfAccount;
@@ -20,15 +21,19 @@ import com.univsoftdev.econova.contabilidad.model.Transaction;
 import com.univsoftdev.econova.security.Permissions;
 import io.ebean.Database;
 import io.ebean.Model;
+import io.ebean.SqlRow;
 import io.ebean.annotation.Transactional;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.shiro.authz.annotation.RequiresPermissions;
 import org.apache.shiro.authz.annotation.RequiresRoles;
@@ -37,12 +42,16 @@ import org.apache.shiro.authz.annotation.RequiresRoles;
 @Singleton
 public class AccountingService {
 
+    private static final int TAMANO_LOTE_ASIENTOS = 500;
+
     private Database database;
     private CuentaService cuentaService;
     private BalanceGeneralService balanceGeneralService;
     private PlanDeCuentasService planDeCuentasService;
     private AsientoService asientoService;
     private TransaccionService transaccionService;
+    private SaldoPeriodoService saldoPeriodoService;
+    private LibroMayorService libroMayorService;
 
     public AccountingService() {
 
@@ -55,7 +64,9 @@ public class AccountingService {
             BalanceGeneralService balanceGeneralService,
             PlanDeCuentasService planDeCuentasService,
             AsientoService asientoService,
-            TransaccionService transaccionService
+            TransaccionService transaccionService,
+            SaldoPeriodoService saldoPeriodoService,
+            LibroMayorService libroMayorService
     ) {
         this.database = database;
         this.cuentaService = cuentaService;
@@ -63,6 +74,8 @@ public class AccountingService {
         this.planDeCuentasService = planDeCuentasService;
         this.asientoService = asientoService;
         this.transaccionService = transaccionService;
+        this.saldoPeriodoService = saldoPeriodoService;
+        this.libroMayorService = libroMayorService;
     }
 
     @Transactional
@@ -121,6 +134,7 @@ public class AccountingService {
         // Aplicar transacciones a las cuentas (si está confirmado)
         if (asiento.getEstadoAsiento() == EstadoAsiento.CONFIRMADO) {
             aplicarTransaccionesACuentas(asiento);
+            saldoPeriodoService.registrar(asiento);
         }
 
         return asiento;
@@ -151,10 +165,14 @@ public class AccountingService {
     private void aplicarTransaccionesACuentas(AccountingEntry asiento) throws ContabilidadException {
         for (Transaction transaccion : asiento.getTransactions()) {
             Account cuenta = transaccion.getAccount();
-            if (transaccion.getTipo() == TipoTransaccion.DEBITO) {
-                cuentaService.aplicarDebito(cuenta, transaccion.getBalance());
-            } else {
-                cuentaService.aplicarCredito(cuenta, transaccion.getBalance());
+            switch (transaccion.getTipo()) {
+                case DEBITO ->
+                    cuentaService.aplicarDebito(cuenta, transaccion.getBalance());
+                case CREDITO ->
+                    cuentaService.aplicarCredito(cuenta, transaccion.getBalance());
+                case TRANSFERENCIA, AJUSTE ->
+                    throw new ContabilidadException("Las transacciones de tipo " + transaccion.getTipo()
+                            + " deben registrarse como débito o crédito.");
             }
         }
     }
@@ -174,12 +192,100 @@ public class AccountingService {
 
         // Recorrer cada transacción del asiento y actualizar el saldo de la cuenta
         asiento.getTransactions().forEach(transaccion -> {
-            if (transaccion.getTipo() == TipoTransaccion.DEBITO) {
-                cuentaService.aplicarDebito(transaccion.getAccount(), transaccion.getBalance());
-            } else if (transaccion.getTipo() == TipoTransaccion.CREDITO) {
-                cuentaService.aplicarCredito(transaccion.getAccount(), transaccion.getBalance());
+            switch (transaccion.getTipo()) {
+                case DEBITO ->
+                    cuentaService.aplicarDebito(transaccion.getAccount(), transaccion.getBalance());
+                case CREDITO ->
+                    cuentaService.aplicarCredito(transaccion.getAccount(), transaccion.getBalance());
+                case TRANSFERENCIA, AJUSTE ->
+                    throw new IllegalArgumentException("Las transacciones de tipo " + transaccion.getTipo()
+                            + " deben registrarse como débito o crédito.");
             }
         });
+
+        // Los acumulados del balance solo cuentan asientos confirmados; los que
+        // se confirmen después se suman al cambiar de estado
+        if (asiento.esConfirmado()) {
+            saldoPeriodoService.registrar(asiento);
+        }
+    }
+
+    /**
+     * Registra un lote de asientos en una sola transacción. Todos los asientos
+     * se validan en memoria antes de escribir nada; luego asientos y líneas se
+     * insertan en lotes JDBC y las variaciones de saldo se agregan por cuenta,
+     * de modo que cada cuenta afectada recibe una única actualización.
+     *
+     * @param asientos Asientos a registrar.
+     * @throws AsientoValidationException si algún asiento no es válido; en ese
+     * caso no se registra ninguno.
+     */
+    @Transactional(batchSize = TAMANO_LOTE_ASIENTOS)
+    public void registrarAsientos(Collection<AccountingEntry> asientos) {
+        if (asientos == null || asientos.isEmpty()) {
+            return;
+        }
+
+        Map<Long, BigDecimal> variaciones = new TreeMap<>();
+        int indice = 0;
+        for (AccountingEntry asiento : asientos) {
+            validarParaRegistro(asiento, indice++);
+            for (Transaction transaccion : asiento.getTransactions()) {
+                Account cuenta = transaccion.getAccount();
+                variaciones.merge(cuenta.getId(),
+                        cuentaService.calcularVariacion(cuenta, transaccion.getTipo(), transaccion.getBalance()),
+                        BigDecimal::add);
+            }
+        }
+
+        // Los asientos sin número reciben un bloque consecutivo por unidad y período
+        asientoService.numerarAsientos(asientos);
+
+        // Las líneas se insertan en cascada junto con su asiento
+        database.saveAll(asientos);
+
+        int cuentas = cuentaService.aplicarVariaciones(variaciones);
+        saldoPeriodoService.registrar(asientos.stream().filter(AccountingEntry::esConfirmado).toList());
+
+        log.info("Registrados {} asientos en lote; {} cuentas actualizadas.", asientos.size(), cuentas);
+    }
+
+    private void validarParaRegistro(AccountingEntry asiento, int indice) {
+        if (asiento == null || asiento.getTransactions() == null || asiento.getTransactions().isEmpty()) {
+            throw new AsientoValidationException("El asiento #" + indice + " es nulo o no tiene transacciones.");
+        }
+        Period periodo = asiento.getPeriod();
+        if (periodo == null || asiento.getFecha() == null) {
+            throw new AsientoValidationException("El asiento #" + indice + " no tiene fecha o período.");
+        }
+        if (!periodo.isActive()) {
+            throw new AsientoValidationException("El asiento #" + indice + " pertenece al período "
+                    + periodo.getName() + ", que está cerrado o inactivo.");
+        }
+        if (!periodo.isDateWithinPeriod(asiento.getFecha())) {
+            throw new AsientoValidationException("La fecha " + asiento.getFecha() + " del asiento #" + indice
+                    + " no está dentro del período " + periodo.getName() + ".");
+        }
+        for (Transaction transaccion : asiento.getTransactions()) {
+            if (transaccion.getAccount() == null || transaccion.getAccount().getId() == null) {
+                throw new AsientoValidationException("El asiento #" + indice + " tiene una transacción sin cuenta.");
+            }
+            if (transaccion.getTipo() == null || transaccion.getBalance() == null
+                    || transaccion.getBalance().signum() <= 0) {
+                throw new AsientoValidationException("El asiento #" + indice + " tiene una transacción con importe o tipo inválido.");
+            }
+            if (transaccion.getTipo() != TipoTransaccion.DEBITO && transaccion.getTipo() != TipoTransaccion.CREDITO) {
+                throw new AsientoValidationException("El asiento #" + indice + " tiene una transacción de tipo "
+                        + transaccion.getTipo() + "; solo se admiten débitos y créditos.");
+            }
+            if (transaccion.getAccount().getNatureOfAccount() == null) {
+                throw new AsientoValidationException("El asiento #" + indice + " usa la cuenta "
+                        + transaccion.getAccount().getCode() + ", que no tiene naturaleza.");
+            }
+        }
+        if (!asiento.estaCuadrado()) {
+            throw new AsientoValidationException("El asiento #" + indice + " está descuadrado. Diferencia: " + asiento.getDiferencia());
+        }
     }
 
     @Transactional
@@ -219,6 +325,9 @@ public class AccountingService {
 
         // Lógica para generar el balance general del mes o actualizar estados
         balanceGeneralService.generarBalanceGeneralMensual(periodo);
+
+        // Registrar los saldos de cierre que usará el libro mayor como saldo de apertura
+        libroMayorService.generarCierreMensual(periodo);
     }
 
     @Transactional
@@ -251,14 +360,14 @@ public class AccountingService {
     }
 
     private void validarCuentasCuadradas() {
-        var cuentas = cuentaService.findAll();
-        for (Account cuenta : cuentas) {
-            BigDecimal saldoJerarquico = cuentaService.getSaldoTotalJerarquico(cuenta.getId());
-            if (cuenta.getBalance().compareTo(saldoJerarquico) != 0) {
-                log.error("La cuenta {} no está cuadrada. Saldo actual: {}, Saldo esperado: {}",
-                        cuenta.getCode(), cuenta.getBalance(), saldoJerarquico);
-                throw new RuntimeException("La cuenta " + cuenta.getCode() + " no está cuadrada.");
-            }
+        // Una sola consulta compara cada cuenta con el total de su subárbol
+        var descuadradas = cuentaService.findCuentasDescuadradas();
+        for (SqlRow fila : descuadradas) {
+            log.error("La cuenta {} no está cuadrada. Saldo actual: {}, Saldo esperado: {}",
+                    fila.getString("code"), fila.getBigDecimal("balance"), fila.getBigDecimal("saldo_subarbol"));
+        }
+        if (!descuadradas.isEmpty()) {
+            throw new RuntimeException("La cuenta " + descuadradas.get(0).getString("code") + " no está cuadrada.");
         }
     }
 
@@ -324,8 +433,21 @@ public class AccountingService {
         return totalIngresos.subtract(totalGastos);
     }
 
-    public int obtenerSiguienteCodigoDeAsiento(Period periodo) {
-        return asientoService.obtenerSiguienteCodigo(periodo);
+    public int obtenerSiguienteCodigoDeAsiento(Unit unidad, Period periodo) {
+        return asientoService.obtenerSiguienteCodigo(unidad, periodo);
+    }
+
+    /**
+     * Guarda un asiento nuevo reservando su número en la misma transacción.
+     * Si el guardado falla, la reserva se deshace con él y el número no se
+     * pierde; la fila de la secuencia queda bloqueada hasta confirmar.
+     *
+     * @param asiento Asiento a guardar, con unidad y período asignados.
+     */
+    @Transactional
+    public void guardarAsientoNuevo(AccountingEntry asiento) {
+        asiento.setNro(asientoService.reservarSiguienteCodigo(asiento.getUnidad(), asiento.getPeriod()));
+        database.save(asiento);
     }
 
     public List<Account> findAllCuentas() {
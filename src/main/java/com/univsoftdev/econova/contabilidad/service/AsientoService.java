@@ -5,16 +5,19 @@ import com.univsoftdev.econova.config.model.Unit;
 import com.univsoftdev.econova.config.model.User;
 import com.univsoftdev.econova.contabilidad.EstadoAsiento;
 import com.univsoftdev.econova.contabilidad.TipoTransaccion;
+import com.univsoftdev.econova.contabilidad.dto.FiltroAsientos;
 import com.univsoftdev.econova.contabilidad.model.AccountingEntry;
 import com.univsoftdev.econova.contabilidad.model.Transaction;
 import com.univsoftdev.econova.contabilidad.repository.AsientoRepository;
 import com.univsoftdev.econova.core.service.BaseService;
+import io.ebean.PagedList;
 import io.ebean.annotation.Transactional;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -29,22 +32,37 @@ import lombok.extern.slf4j.Slf4j;
 @Singleton
 public class AsientoService extends BaseService<AccountingEntry, AsientoRepository> {
 
+    private final SaldoPeriodoService saldoPeriodoService;
+    private final NumeracionAsientoService numeracionAsientoService;
+
     /**
      * Constructor que inicializa el servicio con una instancia de la base de
      * datos.
      *
      * @param asientoRepository Instancia de la base de datos Ebean
+     * @param saldoPeriodoService Servicio de acumulados por cuenta y período
+     * @param numeracionAsientoService Servicio de numeración de asientos
      */
     @Inject
-    public AsientoService(AsientoRepository asientoRepository) {
+    public AsientoService(AsientoRepository asientoRepository, SaldoPeriodoService saldoPeriodoService,
+            NumeracionAsientoService numeracionAsientoService) {
         super(asientoRepository);
+        this.saldoPeriodoService = saldoPeriodoService;
+        this.numeracionAsientoService = numeracionAsientoService;
     }
 
+    /**
+     * Confirma los asientos que no están confirmados ni en error y suma sus
+     * importes a los acumulados del período.
+     */
+    @Transactional
     public void asentarAsientos() {
         var asientos = findAll();
         for (AccountingEntry asiento : asientos) {
             if (asiento.getEstadoAsiento() != EstadoAsiento.CONFIRMADO && asiento.getEstadoAsiento() != EstadoAsiento.ERROR) {
                 asiento.setEstadoAsiento(EstadoAsiento.CONFIRMADO);
+                repository.update(asiento);
+                saldoPeriodoService.registrar(asiento);
             }
         }
     }
@@ -102,6 +120,7 @@ public class AsientoService extends BaseService<AccountingEntry, AsientoReposito
      * @param estadoAsiento Nuevo estado del asiento
      * @param usuarioActual User que realizó el cambio
      */
+    @Transactional
     public void setEstadoAsiento(AccountingEntry asiento, EstadoAsiento estadoAsiento, User usuarioActual) {
         // Registrar el estado previo
         EstadoAsiento estadoAnterior = asiento.getEstadoAsiento();
@@ -116,6 +135,13 @@ public class AsientoService extends BaseService<AccountingEntry, AsientoReposito
         // Persistir los cambios en la base de datos
         repository.update(asiento);
 
+        // Mantener los acumulados por cuenta y período al entrar o salir del estado confirmado
+        if (estadoAnterior != EstadoAsiento.CONFIRMADO && estadoAsiento == EstadoAsiento.CONFIRMADO) {
+            saldoPeriodoService.registrar(asiento);
+        } else if (estadoAnterior == EstadoAsiento.CONFIRMADO && estadoAsiento != EstadoAsiento.CONFIRMADO) {
+            saldoPeriodoService.revertir(asiento);
+        }
+
         // Opción: registrar en un sistema de logs si es necesario
         log.info("Estado del asiento #{} cambiado de {} a {} por {}", asiento.getNro(), estadoAnterior, estadoAsiento, usuarioActual);
     }
@@ -124,55 +150,87 @@ public class AsientoService extends BaseService<AccountingEntry, AsientoReposito
         setEstadoAsiento(asiento, estadoAsiento, null);
     }
 
-    @Transactional
-    public Integer obtenerSiguienteCodigo(Period periodo) {
-        // Validar que el período no sea nulo
+    /**
+     * Número que recibiría el próximo asiento de la unidad y período, sin
+     * reservarlo.
+     *
+     * @param unidad Unidad del asiento.
+     * @param periodo Período del asiento.
+     * @return El próximo número disponible.
+     */
+    public Integer obtenerSiguienteCodigo(Unit unidad, Period periodo) {
         if (periodo == null) {
             throw new IllegalArgumentException("El periodo no puede ser nulo.");
         }
+        if (unidad == null) {
+            throw new IllegalArgumentException("La unidad no puede ser nula.");
+        }
+        return numeracionAsientoService.consultarSiguienteNumero(unidad, periodo);
+    }
 
-        // Obtener el número consecutivo más alto en el período
-        Integer maxNro = repository.find(AccountingEntry.class)
-                .where().eq("periodo.id", periodo.getId())
-                .orderBy("nro DESC")
-                .setMaxRows(1)
-                .findOneOrEmpty()
-                .map(AccountingEntry::getNro)
-                .orElse(0);
-
-        // Retornar el siguiente número
-        return maxNro + 1;
+    /**
+     * Reserva el número definitivo de un asiento nuevo.
+     *
+     * @param unidad Unidad del asiento.
+     * @param periodo Período del asiento.
+     * @return El número reservado.
+     */
+    public Integer reservarSiguienteCodigo(Unit unidad, Period periodo) {
+        return numeracionAsientoService.siguienteNumero(unidad, periodo);
     }
 
+    /**
+     * Numera los asientos que aún no tienen número, reservando un bloque por
+     * unidad y período.
+     *
+     * @param asientos Asientos a numerar.
+     */
+    public void numerarAsientos(Collection<AccountingEntry> asientos) {
+        numeracionAsientoService.asignarNumeros(asientos);
+    }
+
+    /**
+     * Elimina un asiento y corre la numeración de los posteriores de su unidad
+     * y período para que no queden huecos. La renumeración es una única
+     * sentencia UPDATE dentro de la misma transacción. Si el asiento estaba
+     * confirmado, sus importes se restan de los acumulados del período en esa
+     * misma transacción.
+     *
+     * @param asientoId Identificador del asiento a eliminar.
+     */
     @Transactional
     public void deleteAsiento(Long asientoId) {
-        // Obtener el asiento a eliminar
         Optional<AccountingEntry> optAsiento = repository.findById(asientoId);
-        if (optAsiento.isPresent()) {
-            var asiento = optAsiento.get();
-            if (asiento == null) {
-                throw new IllegalArgumentException("El asiento no existe.");
-            }
-
-            // Obtener el período asociado
-            Period periodo = asiento.getPeriod();
-
-            // Eliminar el asiento
-            repository.delete(asiento);
-
-            // Renumerar los asientos del período
-            List<AccountingEntry> asientos = repository.find(AccountingEntry.class)
-                    .where().eq("periodo.id", periodo.getId())
-                    .orderBy("nro ASC")
-                    .findList();
+        if (optAsiento.isEmpty()) {
+            return;
+        }
+        var asiento = optAsiento.get();
+        Period periodo = asiento.getPeriod();
+        Unit unidad = asiento.getUnidad();
+        int nro = asiento.getNro();
 
-            int nuevoNumero = 1;
-            for (AccountingEntry a : asientos) {
-                a.setNro(nuevoNumero++);
-                repository.update(a);
-            }
+        if (asiento.getEstadoAsiento() == EstadoAsiento.CONFIRMADO) {
+            saldoPeriodoService.revertir(asiento);
         }
+        numeracionAsientoService.eliminarYRenumerar(unidad, periodo, () -> {
+            repository.delete(asiento);
+            int renumerados = repository.renumerarPosterioresA(unidad.getId(), periodo.getId(), nro);
+            log.info("Asiento #{} eliminado; {} asientos posteriores renumerados", nro, renumerados);
+        });
+    }
 
+    /**
+     * Página del listado de asientos con filtros y ordenación resueltos en la
+     * base de datos.
+     *
+     * @param filtro Criterios de búsqueda.
+     * @param orden Cláusula de ordenación.
+     * @param pagina Número de página, empezando en cero.
+     * @param tamanoPagina Cantidad de filas por página.
+     * @return La página solicitada.
+     */
+    public PagedList<AccountingEntry> findPagina(FiltroAsientos filtro, String orden, int pagina, int tamanoPagina) {
+        return repository.findPagina(filtro, orden, pagina, tamanoPagina);
     }
 
     public Map<EstadoAsiento, Long> contarAsientosPorEstado(Period periodo) {
@@ -217,6 +275,7 @@ public class AsientoService extends BaseService<AccountingEntry, AsientoReposito
             if (asiento.estaCuadrado()) {
                 asiento.setEstadoAsiento(EstadoAsiento.CONFIRMADO);
                 repository.update(asiento);
+                saldoPeriodoService.registrar(asiento);
             }
         }
     }
@@ -258,17 +317,6 @@ public class AsientoService extends BaseService<AccountingEntry, AsientoReposito
         }
     }
 
-    /**
-     * Importa asientos desde un archivo (ejemplo: XML o CSV).
-     */
-    @Transactional
-    public void importarDesdeArchivo(java.io.File archivo) {
-        // Implementación de ejemplo: solo loguea el nombre del archivo
-        // En un sistema real, se parsearía el archivo y se crearían asientos
-        log.info("Importando asientos desde archivo: {}", archivo.getAbsolutePath());
-        // TODO: Implementar importación real (XML/CSV)
-    }
-
     /**
      * Invierte un asiento: crea un nuevo asiento con transacciones invertidas.
      */
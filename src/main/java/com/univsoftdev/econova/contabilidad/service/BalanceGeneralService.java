@@ -4,9 +4,7 @@ import com.univsoftdev.econova.config.service.EjercicioService;
 import com.univsoftdev.econova.config.service.PeriodoService;
 import com.univsoftdev.econova.contabilidad.LineaBalance;
 import com.univsoftdev.econova.contabilidad.NatureOfAccount;
-import com.univsoftdev.econova.contabilidad.model.Account;
-import com.univsoftdev.econova.contabilidad.model.Transaction;
-import com.univsoftdev.econova.contabilidad.TipoTransaccion;
+import com.univsoftdev.econova.contabilidad.dto.SaldoCuentaDto;
 import com.univsoftdev.econova.config.model.Period;
 
 import jakarta.inject.Inject;
@@ -14,6 +12,7 @@ import jakarta.inject.Singleton;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
@@ -24,72 +23,79 @@ public class BalanceGeneralService {
     private final CuentaService cuentaService;
     private final EjercicioService ejercicioService;
     private final PeriodoService periodoService;
+    private final SaldoPeriodoService saldoPeriodoService;
 
     @Inject
-    public BalanceGeneralService(CuentaService cuentaService, EjercicioService ejercicioService, PeriodoService periodoService) {
+    public BalanceGeneralService(CuentaService cuentaService, EjercicioService ejercicioService, PeriodoService periodoService,
+            SaldoPeriodoService saldoPeriodoService) {
         this.cuentaService = cuentaService;
         this.ejercicioService = ejercicioService;
         this.periodoService = periodoService;
+        this.saldoPeriodoService = saldoPeriodoService;
     }
 
+    /**
+     * Genera el Balance de Comprobación a partir de los acumulados por cuenta
+     * y período, que solo incluyen asientos confirmados. Las cuentas padre
+     * incluyen el total de su subárbol y no se carga ninguna transacción en
+     * memoria. Los importes del período se presentan netos, al débito o al
+     * crédito según el signo.
+     *
+     * @param inicioPeriodo Fecha de inicio del período.
+     * @param finPeriodo Fecha de fin del período.
+     * @return Una línea por cuenta, ordenadas por código.
+     */
+    public List<LineaBalance> generarBalanceComprobacion(LocalDate inicioPeriodo, LocalDate finPeriodo) {
+        return generar(inicioPeriodo, finPeriodo, saldo -> {
+            BigDecimal neto = saldo.debitoPeriodo().subtract(saldo.creditoPeriodo());
+            return new LineaBalance(saldo.codigo(), saldo.nombre(),
+                    neto.max(BigDecimal.ZERO),
+                    neto.negate().max(BigDecimal.ZERO),
+                    neto,
+                    saldo.debitoAcumulado(),
+                    saldo.creditoAcumulado(),
+                    saldo.debitoAcumulado().subtract(saldo.creditoAcumulado()));
+        });
+    }
+
+    /**
+     * Genera el balance general a partir de los mismos acumulados que el
+     * balance de comprobación, presentando el saldo del período según la
+     * naturaleza de cada cuenta.
+     *
+     * @param inicioPeriodo Fecha de inicio del período.
+     * @param finPeriodo Fecha de fin del período.
+     * @return Una línea de balance por cuenta.
+     */
     public List<LineaBalance> generarBalanceGeneral(LocalDate inicioPeriodo, LocalDate finPeriodo) {
+        return generar(inicioPeriodo, finPeriodo, this::mapearCuentaALineaBalance);
+    }
+
+    private List<LineaBalance> generar(LocalDate inicioPeriodo, LocalDate finPeriodo,
+            Function<SaldoCuentaDto, LineaBalance> linea) {
         if (inicioPeriodo == null || finPeriodo == null) {
             throw new IllegalArgumentException("Las fechas de inicio y fin del periodo no pueden ser nulas.");
         }
-
-        List<Account> cuentas = cuentaService.findAll();
-        return cuentas.stream()
-                .map(cuenta -> mapearCuentaALineaBalance(cuenta, inicioPeriodo, finPeriodo))
+        return saldoPeriodoService.obtenerSaldosPorCuenta(inicioPeriodo, finPeriodo).stream()
+                .map(linea)
                 .collect(Collectors.toList());
     }
 
-    private LineaBalance mapearCuentaALineaBalance(Account cuenta, LocalDate inicio, LocalDate fin) {
+    private LineaBalance mapearCuentaALineaBalance(SaldoCuentaDto saldo) {
         LineaBalance lineaBalance = new LineaBalance();
-        lineaBalance.setCodigo(cuenta.getCode());
-        lineaBalance.setDescripcion(cuenta.getName());
+        lineaBalance.setCodigo(saldo.codigo());
+        lineaBalance.setDescripcion(saldo.nombre());
+        lineaBalance.setDebitoPeriodo(BigDecimal.ZERO);
+        lineaBalance.setCreditoPeriodo(BigDecimal.ZERO);
 
-        BigDecimal[] saldosPeriodo = calcularSaldosPeriodo(cuenta, inicio, fin);
-        asignarSaldosPorNaturaleza(lineaBalance, cuenta.getNatureOfAccount(), saldosPeriodo[0], saldosPeriodo[1]);
+        asignarSaldosPorNaturaleza(lineaBalance, saldo.naturaleza(), saldo.debitoPeriodo(), saldo.creditoPeriodo());
 
-        BigDecimal[] saldosAcumulados = calcularSaldosAcumulados(cuenta);
-        lineaBalance.setDebitoAcumulado(saldosAcumulados[0]);
-        lineaBalance.setCreditoAcumulado(saldosAcumulados[1]);
+        lineaBalance.setDebitoAcumulado(saldo.debitoAcumulado());
+        lineaBalance.setCreditoAcumulado(saldo.creditoAcumulado());
 
         return lineaBalance;
     }
 
-    private BigDecimal[] calcularSaldosPeriodo(Account cuenta, LocalDate inicio, LocalDate fin) {
-        List<Transaction> transaccionesPeriodo = cuenta.getLedger().getTransactions().stream()
-                .filter(t -> t.getDate().isAfter(inicio.minusDays(1)) && t.getDate().isBefore(fin.plusDays(1)))
-                .collect(Collectors.toList());
-
-        BigDecimal debitos = transaccionesPeriodo.stream()
-                .filter(t -> t.getTipo() == TipoTransaccion.DEBITO)
-                .map(Transaction::getBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal creditos = transaccionesPeriodo.stream()
-                .filter(t -> t.getTipo() == TipoTransaccion.CREDITO)
-                .map(Transaction::getBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        return new BigDecimal[]{debitos, creditos};
-    }
-
-    private BigDecimal[] calcularSaldosAcumulados(Account cuenta) {
-        BigDecimal debitos = cuenta.getLedger().getTransactions().stream()
-                .filter(t -> t.getTipo() == TipoTransaccion.DEBITO)
-                .map(Transaction::getBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal creditos = cuenta.getLedger().getTransactions().stream()
-                .filter(t -> t.getTipo() == TipoTransaccion.CREDITO)
-                .map(Transaction::getBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        return new BigDecimal[]{debitos, creditos};
-    }
-
     private void asignarSaldosPorNaturaleza(LineaBalance lineaBalance,
             NatureOfAccount naturaleza,
             BigDecimal debitos,
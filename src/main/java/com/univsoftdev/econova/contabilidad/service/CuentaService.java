@@ -1,17 +1,23 @@
 package com.univsoftdev.econova.contabilidad.service;
 
 import com.univsoftdev.econova.contabilidad.AccountType;
-import com.univsoftdev.econova.contabilidad.NatureOfAccount;
+import com.univsoftdev.econova.contabilidad.TipoTransaccion;
+import com.univsoftdev.econova.contabilidad.dto.NodoCuentaDto;
 import com.univsoftdev.econova.contabilidad.model.Account;
 import com.univsoftdev.econova.contabilidad.model.Ledger;
 import com.univsoftdev.econova.contabilidad.repository.CuentaRepository;
+import com.univsoftdev.econova.core.config.AppConfig;
 import com.univsoftdev.econova.core.service.BaseService;
+import io.ebean.SqlRow;
 import io.ebean.annotation.Transactional;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -23,38 +29,162 @@ public class CuentaService extends BaseService<Account, CuentaRepository> {
         super(database);
     }
 
-    public void aplicarDebito(Account cuenta, BigDecimal monto) {
-        BigDecimal nuevoSaldo = cuenta.getNatureOfAccount() == NatureOfAccount.DEBTOR
-                ? cuenta.getBalance().add(monto)
-                : cuenta.getBalance().subtract(monto);
+    /**
+     * Guarda la cuenta y, si su ruta cambió por un cambio de código o de
+     * padre, actualiza en la misma transacción las rutas de sus subcuentas.
+     *
+     * @param cuenta Cuenta a guardar.
+     */
+    @Transactional
+    @Override
+    public void save(Account cuenta) {
+        super.save(cuenta);
+        actualizarRutasSubcuentas(cuenta);
+    }
+
+    @Transactional
+    @Override
+    public void update(Account cuenta) {
+        super.update(cuenta);
+        actualizarRutasSubcuentas(cuenta);
+    }
+
+    private void actualizarRutasSubcuentas(Account cuenta) {
+        String anterior = cuenta.tomarTreePathAnterior();
+        if (anterior != null && cuenta.getTreePath() != null) {
+            int subcuentas = repository.actualizarRutasSubcuentas(anterior, cuenta.getTreePath());
+            repository.invalidarCache();
+            log.debug("Ruta de la cuenta {} cambiada; {} subcuentas actualizadas", cuenta.getCode(), subcuentas);
+        }
+    }
 
-        cuenta.setBalance(nuevoSaldo);
+    public void aplicarDebito(Account cuenta, BigDecimal monto) {
+        cuenta.setBalance(cuenta.getBalance().add(calcularVariacion(cuenta, TipoTransaccion.DEBITO, monto)));
         save(cuenta);
     }
 
     public void aplicarCredito(Account cuenta, BigDecimal monto) {
-        BigDecimal nuevoSaldo = cuenta.getNatureOfAccount() == NatureOfAccount.DEBTOR
-                ? cuenta.getBalance().subtract(monto)
-                : cuenta.getBalance().add(monto);
-
-        cuenta.setBalance(nuevoSaldo);
+        cuenta.setBalance(cuenta.getBalance().add(calcularVariacion(cuenta, TipoTransaccion.CREDITO, monto)));
         save(cuenta);
     }
 
+    /**
+     * Variación que produce un movimiento en el saldo de una cuenta según su
+     * naturaleza. Las cuentas deudoras aumentan con los débitos y las
+     * acreedoras con los créditos; las mixtas llevan el saldo como débitos
+     * menos créditos, de modo que su signo indica el lado del saldo.
+     * <p>
+     * Las transferencias y los ajustes no tienen lado propio: no cuentan en
+     * el cuadre del asiento, por lo que deben registrarse como débitos y
+     * créditos y aquí se rechazan.
+     *
+     * @param cuenta Cuenta afectada.
+     * @param tipo Tipo de movimiento.
+     * @param monto Importe del movimiento.
+     * @return La variación con signo a sumar al saldo.
+     * @throws IllegalArgumentException si el tipo no es débito ni crédito o
+     * la cuenta no tiene naturaleza.
+     */
+    public BigDecimal calcularVariacion(Account cuenta, TipoTransaccion tipo, BigDecimal monto) {
+        boolean debito = switch (tipo) {
+            case DEBITO ->
+                true;
+            case CREDITO ->
+                false;
+            case TRANSFERENCIA, AJUSTE ->
+                throw new IllegalArgumentException("El movimiento de tipo " + tipo + " de la cuenta "
+                        + cuenta.getCode() + " debe registrarse como débito o crédito.");
+        };
+        if (cuenta.getNatureOfAccount() == null) {
+            throw new IllegalArgumentException("La cuenta " + cuenta.getCode() + " no tiene naturaleza.");
+        }
+        boolean aumenta = switch (cuenta.getNatureOfAccount()) {
+            case DEBTOR, MIXED ->
+                debito;
+            case CREDITOR ->
+                !debito;
+        };
+        return aumenta ? monto : monto.negate();
+    }
+
+    /**
+     * Aplica variaciones de saldo ya agregadas por cuenta con una sola
+     * actualización por cuenta.
+     *
+     * @param variaciones Variación de saldo indexada por identificador de
+     * cuenta.
+     * @return Cantidad de cuentas actualizadas.
+     */
+    public int aplicarVariaciones(Map<Long, BigDecimal> variaciones) {
+        return repository.actualizarSaldos(variaciones);
+    }
+
+    /**
+     * Saldo de una cuenta más el de todas sus subcuentas, sumado en la base de
+     * datos sobre la ruta materializada del árbol.
+     *
+     * @param cuentaId Identificador de la cuenta.
+     * @return Saldo total del subárbol, o cero si la cuenta no existe.
+     */
     public BigDecimal getSaldoTotalJerarquico(Long cuentaId) {
         Optional<Account> optCuenta = repository.findById(cuentaId);
-        if (optCuenta.isPresent()) {
-            var cuenta = optCuenta.get();
-            return calcularSaldoRecursivo(cuenta);
+        if (optCuenta.isEmpty()) {
+            return BigDecimal.ZERO;
         }
-        return BigDecimal.ZERO;
+        String treePath = optCuenta.get().getTreePath();
+        return treePath != null ? repository.sumarSaldoSubarbol(treePath) : optCuenta.get().getBalance();
     }
 
-    private BigDecimal calcularSaldoRecursivo(Account cuenta) {
-        BigDecimal saldoSubcuentas = cuenta.getSubAccounts().stream()
-                .map(this::calcularSaldoRecursivo)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        return cuenta.getBalance().add(saldoSubcuentas);
+    /**
+     * Cuentas cuyo saldo no coincide con el total de su subárbol, obtenidas en
+     * una única consulta sobre las rutas que se mantienen al guardar.
+     *
+     * @return Filas con {@code id}, {@code code}, {@code balance} y
+     * {@code saldo_subarbol}.
+     */
+    public List<SqlRow> findCuentasDescuadradas() {
+        return repository.findCuentasDescuadradas();
+    }
+
+    /**
+     * Completa las cuentas insertadas en bloque: las enlaza con su libro
+     * mayor y, solo si alguna quedó sin ruta por colgar de una cuenta antigua
+     * sin ella, recalcula las rutas del árbol. Como las sentencias se ejecutan
+     * fuera de Ebean, se vacía la caché de cuentas.
+     *
+     * @param rutasIncompletas true si alguna cuenta se insertó sin ruta.
+     */
+    public void completarCuentasImportadas(boolean rutasIncompletas) {
+        int enlazadas = repository.enlazarLibrosMayores();
+        int rutas = rutasIncompletas ? repository.reconstruirTreePaths() : 0;
+        repository.invalidarCache();
+        log.debug("{} cuentas enlazadas con su libro mayor; {} rutas recalculadas", enlazadas, rutas);
+    }
+
+    /**
+     * Calcula las rutas de las cuentas que no la tienen, como las creadas
+     * antes de existir la columna. Solo recorre el árbol si falta alguna, de
+     * modo que en un esquema ya completado no cuesta más que una consulta.
+     *
+     * @return Cantidad de cuentas actualizadas.
+     */
+    @Transactional
+    public int completarRutas() {
+        if (!repository.existenCuentasSinRuta()) {
+            return 0;
+        }
+        int rutas = repository.reconstruirTreePaths();
+        repository.invalidarCache();
+        log.info("Rutas del plan de cuentas completadas: {} cuentas", rutas);
+        return rutas;
+    }
+
+    public Map<Long, String> findRutas(Collection<Long> ids) {
+        return repository.findRutas(ids);
+    }
+
+    public Set<String> findCodigosOcupados(long planId) {
+        return repository.findCodigosOcupados(planId);
     }
 
     public BigDecimal findCuentasSaldoNegativo() {
@@ -85,6 +215,35 @@ public class CuentaService extends BaseService<Account, CuentaRepository> {
         }
     }
 
+    /**
+     * Índice de las cuentas que admiten movimientos (hojas activas) por
+     * código para resolver en memoria las cuentas de una importación.
+     *
+     * @return Cuentas parciales (id, código y naturaleza) por código.
+     */
+    public Map<String, Account> findIndicePorCodigo() {
+        return repository.findIndicePorCodigo();
+    }
+
+    /**
+     * Cuentas que pueden conciliarse con un estado de cuenta bancario: las
+     * configuradas en {@link AppConfig#getCuentasBancarias()} con sus
+     * subcuentas o, si no se configuró ninguna, todas.
+     *
+     * @return Cuentas parciales (id, código, nombre y saldo).
+     */
+    public List<Account> findCuentasBancarias() {
+        List<String> codigos = AppConfig.getCuentasBancarias();
+        if (codigos.isEmpty()) {
+            return repository.findResumenCuentas();
+        }
+        List<Account> cuentas = repository.findCuentasBancarias(codigos);
+        if (cuentas.isEmpty()) {
+            log.warn("Ninguna de las cuentas bancarias configuradas existe en el plan: {}", codigos);
+        }
+        return cuentas;
+    }
+
     public Optional<Account> findByCodigo(String codigo) {
         return repository.findByCodigo(codigo);
     }
@@ -93,6 +252,10 @@ public class CuentaService extends BaseService<Account, CuentaRepository> {
         return repository.findByTipoCuenta(tipoCuenta);
     }
 
+    public List<NodoCuentaDto> findNodosPlan(Long planId) {
+        return repository.findNodosPlan(planId);
+    }
+
     public List<Account> findCuentasPadres() {
         return repository.find(Account.class).where()
                 .isNull("accountFather")
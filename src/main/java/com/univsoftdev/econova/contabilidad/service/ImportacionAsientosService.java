@@ -0,0 +1,409 @@
+package com.univsoftdev.econova.contabilidad.service;
+
+import com.univsoftdev.econova.config.model.Period;
+import com.univsoftdev.econova.config.model.Unit;
+import com.univsoftdev.econova.config.model.User;
+import com.univsoftdev.econova.config.service.PeriodoService;
+import com.univsoftdev.econova.contabilidad.SubSystem;
+import com.univsoftdev.econova.contabilidad.TipoTransaccion;
+import com.univsoftdev.econova.contabilidad.importacion.AsientoImportado;
+import com.univsoftdev.econova.contabilidad.importacion.LectorAsientos;
+import com.univsoftdev.econova.contabilidad.importacion.PuntoControlImportacion;
+import com.univsoftdev.econova.contabilidad.model.Account;
+import com.univsoftdev.econova.contabilidad.model.AccountingEntry;
+import com.univsoftdev.econova.contabilidad.model.ImportCheckpoint;
+import com.univsoftdev.econova.contabilidad.model.Transaction;
+import com.univsoftdev.econova.contabilidad.repository.PuntoControlImportacionRepository;
+import com.univsoftdev.econova.core.system.TaskManager;
+import io.ebean.annotation.Transactional;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Importa asientos en volumen desde los ficheros de los subsistemas (nómina,
+ * inventarios, activos fijos...) en CSV, XLSX, XML o JSON.
+ * <p>
+ * El archivo se lee en streaming con {@link LectorAsientos}. Las cuentas se
+ * resuelven contra un índice por código de las cuentas que admiten
+ * movimientos, cargado una sola vez, y cada asiento se valida en memoria
+ * (fecha, período activo, cuentas y cuadre). Los asientos
+ * válidos se registran con
+ * {@link AccountingService#registrarAsientos(java.util.Collection)} en
+ * transacciones de {@value #ASIENTOS_POR_TRANSACCION} asientos, que reservan
+ * un bloque de números por unidad y período e insertan en lotes JDBC.
+ * <p>
+ * Cada transacción guarda también el {@link PuntoControlImportacion} del
+ * archivo en la unidad, de modo que el avance guardado coincide con los
+ * asientos confirmados; si la importación falla o se cancela, volver a
+ * importar el mismo archivo en la misma unidad continúa tras el último
+ * asiento confirmado.
+ */
+@Slf4j
+@Singleton
+public class ImportacionAsientosService {
+
+    static final int ASIENTOS_POR_TRANSACCION = 500;
+    private static final int MAX_ERRORES = 1000;
+    private static final int ASIENTOS_POR_AVISO = 5000;
+    private static final List<DateTimeFormatter> FORMATOS_FECHA = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("d/M/uuuu"),
+            DateTimeFormatter.ofPattern("d-M-uuuu"));
+
+    private final AccountingService accountingService;
+    private final CuentaService cuentaService;
+    private final PeriodoService periodoService;
+    private final PuntoControlImportacionRepository puntoControlRepository;
+
+    @Inject
+    public ImportacionAsientosService(AccountingService accountingService, CuentaService cuentaService,
+            PeriodoService periodoService, PuntoControlImportacionRepository puntoControlRepository) {
+        this.accountingService = accountingService;
+        this.cuentaService = cuentaService;
+        this.periodoService = periodoService;
+        this.puntoControlRepository = puntoControlRepository;
+    }
+
+    /**
+     * Importa los asientos del archivo, reanudando desde el punto de control
+     * si una importación anterior del mismo archivo no terminó. Debe llamarse
+     * fuera del hilo de eventos.
+     *
+     * @param archivo Archivo a importar.
+     * @param unidad Unidad a la que se imputan los asientos.
+     * @param usuario Usuario que importa, o {@code null}.
+     * @param progreso Recibe el avance y permite cancelar; los asientos ya
+     * confirmados se conservan y la importación puede reanudarse.
+     * @return Resumen de la importación.
+     * @throws IOException si el archivo no se puede leer
+     */
+    public ResultadoImportacionAsientos importar(Path archivo, Unit unidad, User usuario,
+            TaskManager.Progreso progreso) throws IOException {
+        Objects.requireNonNull(unidad, "La unidad no puede ser nula");
+        if (!unidad.isActive()) {
+            throw new IllegalArgumentException("No se pueden importar asientos en una unidad inactiva.");
+        }
+        long inicio = System.nanoTime();
+        ImportCheckpoint control = puntoControl(archivo, unidad);
+        PuntoControlImportacion punto = control.getPunto();
+        if (punto.procesados() > 0) {
+            log.info("Reanudando la importación de {} tras {} asientos", archivo.getFileName(), punto.procesados());
+        }
+        progreso.actualizar(-1, "Leyendo " + archivo.getFileName());
+
+        Importacion importacion = new Importacion(unidad, usuario, control, progreso);
+        try {
+            LectorAsientos.leer(archivo, importacion);
+            if (!progreso.isCancelado()) {
+                importacion.confirmar();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        boolean cancelada = progreso.isCancelado();
+        if (!cancelada && control.getId() != null) {
+            puntoControlRepository.borrar(control);
+        }
+        log.info("Importados {} asientos de {} en {} ms ({} con errores{})", importacion.importados,
+                archivo.getFileName(), (System.nanoTime() - inicio) / 1_000_000, importacion.totalErrores,
+                cancelada ? ", cancelada" : "");
+        return new ResultadoImportacionAsientos(importacion.leidos, importacion.importados, punto.procesados(),
+                List.copyOf(importacion.errores), importacion.totalErrores, cancelada);
+    }
+
+    /**
+     * Registra un lote de asientos y guarda el punto de control en la misma
+     * transacción, de modo que ambos se confirman o se descartan juntos.
+     *
+     * @param lote Asientos válidos a registrar, puede estar vacío.
+     * @param control Punto de control del archivo en la unidad.
+     * @param punto Avance tras registrar el lote.
+     */
+    @Transactional(batchSize = ASIENTOS_POR_TRANSACCION)
+    public void registrarLote(List<AccountingEntry> lote, ImportCheckpoint control, PuntoControlImportacion punto) {
+        if (!lote.isEmpty()) {
+            accountingService.registrarAsientos(lote);
+        }
+        control.setPunto(punto);
+        puntoControlRepository.save(control);
+    }
+
+    /**
+     * Punto de control del archivo en la unidad; si el archivo cambió desde
+     * la importación anterior se empieza desde el principio.
+     */
+    private ImportCheckpoint puntoControl(Path archivo, Unit unidad) throws IOException {
+        String clave = PuntoControlImportacion.clave(archivo);
+        String huella = PuntoControlImportacion.huella(archivo);
+        Optional<ImportCheckpoint> guardado = puntoControlRepository.findByUnidadYArchivo(unidad.getId(), clave);
+        if (guardado.isEmpty()) {
+            return new ImportCheckpoint(unidad, clave, huella);
+        }
+        ImportCheckpoint control = guardado.get();
+        if (!huella.equals(control.getFingerprint())) {
+            log.info("El archivo {} cambió desde la importación anterior; se importa desde el principio",
+                    archivo.getFileName());
+            control.setFingerprint(huella);
+            control.setPunto(PuntoControlImportacion.INICIO);
+        }
+        return control;
+    }
+
+    /**
+     * Error de validación de un asiento.
+     *
+     * @param ordinal Posición del asiento en el archivo.
+     * @param posicion Fila o línea donde empieza el asiento.
+     * @param referencia Referencia del asiento en el origen.
+     * @param mensaje Motivo por el que no se importó.
+     */
+    public record ErrorAsiento(int ordinal, int posicion, String referencia, String mensaje) {
+
+        @Override
+        public String toString() {
+            return "Asiento " + (referencia == null || referencia.isEmpty() ? "#" + ordinal : referencia)
+                    + " (línea " + posicion + "): " + mensaje;
+        }
+    }
+
+    /**
+     * Resumen de una importación de asientos.
+     *
+     * @param leidos Asientos leídos del archivo, incluidos los de una
+     * importación anterior.
+     * @param importados Asientos importados, incluidos los de una importación
+     * anterior.
+     * @param reanudadaDesde Asientos que ya estaban importados al empezar, o 0.
+     * @param errores Primeros errores encontrados en esta ejecución.
+     * @param totalErrores Cantidad total de asientos con errores.
+     * @param cancelada true si se canceló antes de terminar.
+     */
+    public record ResultadoImportacionAsientos(int leidos, int importados, int reanudadaDesde,
+            List<ErrorAsiento> errores, int totalErrores, boolean cancelada) {
+    }
+
+    /**
+     * Valida los asientos a medida que se leen y los registra por lotes.
+     */
+    private final class Importacion implements LectorAsientos.Receptor {
+
+        private final Unit unidad;
+        private final User usuario;
+        private final ImportCheckpoint control;
+        private final TaskManager.Progreso progreso;
+        private final int reanudarTras;
+        private final Map<String, Account> cuentas;
+        private final List<Period> periodos;
+        private final Map<LocalDate, Period> periodoPorFecha = new HashMap<>();
+        private final List<AccountingEntry> lote = new ArrayList<>(ASIENTOS_POR_TRANSACCION);
+        private final List<ErrorAsiento> errores = new ArrayList<>();
+        private int leidos;
+        private int importados;
+        private int totalErrores;
+        private int ultimoOrdinal;
+
+        Importacion(Unit unidad, User usuario, ImportCheckpoint control, TaskManager.Progreso progreso) {
+            PuntoControlImportacion punto = control.getPunto();
+            this.unidad = unidad;
+            this.usuario = usuario;
+            this.control = control;
+            this.progreso = progreso;
+            this.reanudarTras = punto.procesados();
+            this.leidos = punto.procesados();
+            this.importados = punto.importados();
+            this.totalErrores = punto.errores();
+            this.ultimoOrdinal = punto.procesados();
+            this.cuentas = cuentaService.findIndicePorCodigo();
+            this.periodos = periodoService.findAll();
+        }
+
+        @Override
+        public boolean recibir(AsientoImportado asiento) {
+            if (progreso.isCancelado()) {
+                return false;
+            }
+            if (asiento.ordinal() <= reanudarTras) {
+                if (asiento.ordinal() % ASIENTOS_POR_AVISO == 0) {
+                    progreso.actualizar(-1, "Saltando " + asiento.ordinal() + " asientos ya importados");
+                }
+                return true;
+            }
+            leidos++;
+            ultimoOrdinal = asiento.ordinal();
+            AccountingEntry entrada = convertir(asiento);
+            if (entrada != null) {
+                lote.add(entrada);
+            }
+            if (lote.size() >= ASIENTOS_POR_TRANSACCION) {
+                confirmar();
+            }
+            return true;
+        }
+
+        /**
+         * Registra el lote pendiente y el punto de control en una misma
+         * transacción.
+         */
+        void confirmar() {
+            registrarLote(lote, control,
+                    new PuntoControlImportacion(ultimoOrdinal, importados + lote.size(), totalErrores));
+            importados += lote.size();
+            lote.clear();
+            progreso.actualizar(-1, importados + " asientos importados");
+        }
+
+        private AccountingEntry convertir(AsientoImportado asiento) {
+            LocalDate fecha = fecha(asiento.fecha());
+            if (fecha == null) {
+                return error(asiento, "Fecha inválida: " + asiento.fecha());
+            }
+            Period periodo = periodoPorFecha.computeIfAbsent(fecha, this::buscarPeriodo);
+            if (periodo == null) {
+                return error(asiento, "No hay un período contable que contenga la fecha " + fecha);
+            }
+            if (!periodo.isActive()) {
+                return error(asiento, "El período " + periodo.getName() + " está cerrado o inactivo");
+            }
+            SubSystem subsistema = subsistema(asiento.subsistema());
+            if (subsistema == null) {
+                return error(asiento, "Subsistema desconocido: " + asiento.subsistema());
+            }
+            if (asiento.lineas().isEmpty()) {
+                return error(asiento, "El asiento no tiene movimientos");
+            }
+
+            String descripcion = asiento.descripcion() == null || asiento.descripcion().isBlank()
+                    ? "Importado " + asiento.referencia() : asiento.descripcion();
+            AccountingEntry entrada = new AccountingEntry(0, descripcion, fecha, periodo, unidad);
+            entrada.setSubSystem(subsistema);
+            if (periodo.getExercise() != null) {
+                entrada.setExercise(periodo.getExercise());
+            }
+            if (usuario != null) {
+                entrada.setUser(usuario);
+            }
+
+            BigDecimal debe = BigDecimal.ZERO;
+            BigDecimal haber = BigDecimal.ZERO;
+            for (AsientoImportado.Linea linea : asiento.lineas()) {
+                Account cuenta = cuentas.get(linea.cuenta());
+                if (cuenta == null) {
+                    return error(asiento, "La cuenta " + linea.cuenta() + " no existe o no admite movimientos");
+                }
+                BigDecimal importeDebe;
+                BigDecimal importeHaber;
+                try {
+                    importeDebe = importe(linea.debe());
+                    importeHaber = importe(linea.haber());
+                } catch (NumberFormatException e) {
+                    return error(asiento, "Importe inválido en la cuenta " + linea.cuenta());
+                }
+                if (importeDebe.signum() < 0 || importeHaber.signum() < 0
+                        || (importeDebe.signum() > 0) == (importeHaber.signum() > 0)) {
+                    return error(asiento, "El movimiento de la cuenta " + linea.cuenta()
+                            + " debe tener un importe positivo al debe o al haber");
+                }
+                boolean esDebito = importeDebe.signum() > 0;
+                Transaction transaccion = new Transaction(esDebito ? TipoTransaccion.DEBITO : TipoTransaccion.CREDITO,
+                        esDebito ? importeDebe : importeHaber, cuenta);
+                transaccion.setDate(fecha);
+                transaccion.setDescription(linea.descripcion() == null || linea.descripcion().isBlank()
+                        ? descripcion : linea.descripcion());
+                entrada.addTransaccion(transaccion);
+                debe = debe.add(importeDebe);
+                haber = haber.add(importeHaber);
+            }
+            if (debe.compareTo(haber) != 0) {
+                return error(asiento, "El asiento está descuadrado: debe " + debe.toPlainString()
+                        + ", haber " + haber.toPlainString());
+            }
+            return entrada;
+        }
+
+        private Period buscarPeriodo(LocalDate fecha) {
+            for (Period periodo : periodos) {
+                if (periodo.isDateWithinPeriod(fecha)) {
+                    return periodo;
+                }
+            }
+            return null;
+        }
+
+        private AccountingEntry error(AsientoImportado asiento, String mensaje) {
+            totalErrores++;
+            if (errores.size() < MAX_ERRORES) {
+                errores.add(new ErrorAsiento(asiento.ordinal(), asiento.posicion(), asiento.referencia(), mensaje));
+            }
+            return null;
+        }
+    }
+
+    private static LocalDate fecha(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        for (DateTimeFormatter formato : FORMATOS_FECHA) {
+            try {
+                return LocalDate.parse(texto.trim(), formato);
+            } catch (DateTimeParseException e) {
+                // Se prueba el siguiente formato
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Interpreta un importe con punto o coma decimal; el último separador
+     * que aparece es el decimal y el otro se toma como separador de miles.
+     */
+    static BigDecimal importe(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return BigDecimal.ZERO;
+        }
+        String valor = texto.trim().replace(" ", "");
+        int punto = valor.lastIndexOf('.');
+        int coma = valor.lastIndexOf(',');
+        if (coma > punto) {
+            valor = valor.replace(".", "").replace(',', '.');
+        } else if (punto > coma && coma >= 0) {
+            valor = valor.replace(",", "");
+        }
+        return new BigDecimal(valor);
+    }
+
+    private static SubSystem subsistema(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return SubSystem.CONTABILIDAD;
+        }
+        String valor = Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .trim()
+                .toUpperCase(Locale.ROOT);
+        for (SubSystem subsistema : SubSystem.values()) {
+            String descripcion = Normalizer.normalize(subsistema.getDescription(), Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}", "")
+                    .toUpperCase(Locale.ROOT);
+            if (subsistema.name().equals(valor) || descripcion.equals(valor)) {
+                return subsistema;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,468 @@
+package com.univsoftdev.econova.contabilidad.service;
+
+import com.univsoftdev.econova.config.service.CurrencyService;
+import com.univsoftdev.econova.contabilidad.AccountStatus;
+import com.univsoftdev.econova.contabilidad.AccountType;
+import com.univsoftdev.econova.contabilidad.NatureOfAccount;
+import com.univsoftdev.econova.contabilidad.OpeningTypeAnalysis;
+import com.univsoftdev.econova.contabilidad.TypeOfOpening;
+import com.univsoftdev.econova.contabilidad.dto.NodoCuentaDto;
+import com.univsoftdev.econova.contabilidad.model.Account;
+import com.univsoftdev.econova.contabilidad.model.ChartOfAccounts;
+import com.univsoftdev.econova.contabilidad.model.Currency;
+import com.univsoftdev.econova.contabilidad.model.Ledger;
+import com.univsoftdev.econova.core.exception.BusinessLogicException;
+import com.univsoftdev.econova.core.system.TaskManager;
+import com.univsoftdev.econova.core.utils.LectorTabular;
+import io.ebean.Database;
+import io.ebean.annotation.Transactional;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Importa el plan de cuentas desde archivos CSV o XLSX.
+ * <p>
+ * El archivo se recorre una sola vez sin cargarlo completo. Cada fila se
+ * valida contra un índice en memoria de los códigos ya existentes y de los
+ * leídos; una subcuenta cuyo padre aparece más adelante en el archivo queda
+ * en espera hasta leerlo. Las filas válidas se insertan por niveles en lotes
+ * JDBC dentro de una sola transacción, junto con su libro mayor, y las filas
+ * con errores se informan sin detener la importación.
+ * <p>
+ * Columnas: código, descripción, naturaleza, tipo y moneda. La naturaleza y
+ * el tipo vacíos se heredan de la cuenta padre y la moneda vacía es la moneda
+ * por defecto. Si la primera fila no tiene un código se toma como
+ * encabezado.
+ */
+@Slf4j
+@Singleton
+public class ImportacionPlanCuentasService {
+
+    static final int TAMANO_LOTE = 500;
+    private static final int MAX_ERRORES = 1000;
+    private static final int FILAS_POR_AVISO = 1000;
+    private static final Pattern CODIGO = Pattern.compile("[0-9A-Za-z]+(\\.[0-9A-Za-z]+)*");
+
+    private final Database database;
+    private final CuentaService cuentaService;
+    private final PlanDeCuentasService planDeCuentasService;
+    private final CurrencyService currencyService;
+
+    @Inject
+    public ImportacionPlanCuentasService(Database database, CuentaService cuentaService,
+            PlanDeCuentasService planDeCuentasService, CurrencyService currencyService) {
+        this.database = database;
+        this.cuentaService = cuentaService;
+        this.planDeCuentasService = planDeCuentasService;
+        this.currencyService = currencyService;
+    }
+
+    /**
+     * Valida e importa las cuentas del archivo. Debe llamarse fuera del hilo
+     * de eventos.
+     *
+     * @param archivo Archivo CSV o XLSX.
+     * @param progreso Recibe el avance y permite cancelar; si se cancela
+     * durante la inserción no se importa ninguna cuenta.
+     * @return Resumen de la importación con los errores por fila.
+     * @throws IOException si el archivo no se puede leer
+     */
+    public ResultadoImportacion importar(Path archivo, TaskManager.Progreso progreso) throws IOException {
+        long inicio = System.nanoTime();
+        progreso.actualizar(-1, "Leyendo " + archivo.getFileName());
+
+        ChartOfAccounts plan = planDeCuentasService.getChartOfAccounts();
+        Validacion validacion = new Validacion(plan, progreso);
+        LectorTabular.leer(archivo, validacion);
+        validacion.finalizar();
+        if (progreso.isCancelado()) {
+            return validacion.resultado(0, true);
+        }
+
+        int importadas = 0;
+        if (!validacion.niveles.isEmpty()) {
+            try {
+                importadas = guardar(plan, validacion.niveles, validacion.existentes, validacion.total, progreso);
+            } catch (CancellationException e) {
+                return validacion.resultado(0, true);
+            }
+        }
+        log.info("Importadas {} de {} cuentas de {} en {} ms ({} errores)", importadas, validacion.leidas,
+                archivo.getFileName(), (System.nanoTime() - inicio) / 1_000_000, validacion.totalErrores);
+        return validacion.resultado(importadas, false);
+    }
+
+    /**
+     * Inserta las cuentas nivel a nivel para que cada padre tenga id antes de
+     * insertar sus subcuentas. Los libros mayores se insertan tras cada lote
+     * de cuentas y se enlazan al final con una sola sentencia. La ruta del
+     * árbol de cada cuenta se calcula con la de su padre, que está en memoria
+     * o se lee en una sola consulta para los padres ya existentes.
+     */
+    @Transactional(batchSize = TAMANO_LOTE)
+    public int guardar(ChartOfAccounts plan, List<List<FilaCuenta>> niveles, Map<String, NodoCuentaDto> existentes,
+            int total, TaskManager.Progreso progreso) {
+        Set<Long> padresExistentes = new HashSet<>();
+        if (!niveles.isEmpty()) {
+            for (FilaCuenta fila : niveles.get(0)) {
+                if (fila.padre() != null) {
+                    padresExistentes.add(existentes.get(fila.padre()).id());
+                }
+            }
+        }
+        Map<Long, String> rutasExistentes = cuentaService.findRutas(padresExistentes);
+        Map<String, Account> creadas = new HashMap<>(total * 2);
+        boolean rutasIncompletas = false;
+        List<Account> lote = new ArrayList<>(TAMANO_LOTE);
+        int insertadas = 0;
+
+        for (List<FilaCuenta> nivel : niveles) {
+            for (FilaCuenta fila : nivel) {
+                Account cuenta = new Account(fila.codigo(), fila.nombre(), fila.naturaleza(), fila.tipo(), fila.moneda());
+                cuenta.setTypeOfOpening(TypeOfOpening.SIN_APERTURA);
+                cuenta.setOpeningTypeAnalysis(OpeningTypeAnalysis.NINGUNO);
+                cuenta.setAccountStatus(AccountStatus.ACTIVE);
+                cuenta.setChartOfAccounts(plan);
+                if (fila.padre() == null) {
+                    cuenta.setTreePath("/" + fila.codigo() + "/");
+                } else {
+                    Account padre = creadas.get(fila.padre());
+                    String rutaPadre;
+                    if (padre != null) {
+                        rutaPadre = padre.getTreePath();
+                    } else {
+                        long padreId = existentes.get(fila.padre()).id();
+                        padre = database.reference(Account.class, padreId);
+                        rutaPadre = rutasExistentes.get(padreId);
+                    }
+                    cuenta.setAccountFather(padre);
+                    // Sin la ruta del padre se deja vacía y se reconstruye al final
+                    cuenta.setTreePath(rutaPadre != null ? rutaPadre + fila.codigo() + "/" : null);
+                    rutasIncompletas |= rutaPadre == null;
+                }
+                creadas.put(fila.codigo(), cuenta);
+                lote.add(cuenta);
+                if (lote.size() == TAMANO_LOTE) {
+                    insertadas += insertarLote(lote, insertadas, total, progreso);
+                }
+            }
+            // Los padres del nivel siguiente tienen que estar insertados
+            insertadas += insertarLote(lote, insertadas, total, progreso);
+        }
+
+        cuentaService.completarCuentasImportadas(rutasIncompletas);
+        return insertadas;
+    }
+
+    private int insertarLote(List<Account> lote, int insertadas, int total, TaskManager.Progreso progreso) {
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        if (progreso.isCancelado()) {
+            throw new CancellationException("Importación cancelada");
+        }
+        database.insertAll(lote);
+        database.currentTransaction().flush();
+
+        List<Ledger> libros = new ArrayList<>(lote.size());
+        for (Account cuenta : lote) {
+            libros.add(new Ledger(cuenta));
+        }
+        database.insertAll(libros);
+        database.currentTransaction().flush();
+
+        int cantidad = lote.size();
+        lote.clear();
+        int hechas = insertadas + cantidad;
+        progreso.actualizar(hechas * 100 / total, hechas + " de " + total + " cuentas guardadas");
+        return cantidad;
+    }
+
+    /**
+     * Cuenta leída y validada.
+     *
+     * @param fila Fila del archivo.
+     * @param codigo Código completo.
+     * @param padre Código de la cuenta padre, o {@code null} si es de primer
+     * nivel.
+     * @param nombre Descripción.
+     * @param naturaleza Naturaleza, o {@code null} hasta heredarla.
+     * @param tipo Tipo de cuenta, si se conoce.
+     * @param moneda Moneda de la cuenta.
+     * @param nivel Nivel de inserción: 0 si el padre ya existe o no lo tiene.
+     */
+    public record FilaCuenta(int fila, String codigo, String padre, String nombre,
+            NatureOfAccount naturaleza, AccountType tipo, Currency moneda, int nivel) {
+
+        FilaCuenta heredar(FilaCuenta cuentaPadre) {
+            return new FilaCuenta(fila, codigo, padre, nombre,
+                    naturaleza != null ? naturaleza : cuentaPadre.naturaleza(),
+                    tipo != null ? tipo : cuentaPadre.tipo(),
+                    moneda, cuentaPadre.nivel() + 1);
+        }
+
+        FilaCuenta heredar(NodoCuentaDto cuentaPadre) {
+            return new FilaCuenta(fila, codigo, padre, nombre,
+                    naturaleza != null ? naturaleza : cuentaPadre.naturaleza(),
+                    tipo, moneda, 0);
+        }
+    }
+
+    /**
+     * Error de validación de una fila.
+     *
+     * @param fila Fila del archivo.
+     * @param codigo Código leído, si lo hay.
+     * @param mensaje Motivo por el que no se importó.
+     */
+    public record ErrorFila(int fila, String codigo, String mensaje) {
+
+        @Override
+        public String toString() {
+            return "Fila " + fila + (codigo.isEmpty() ? "" : " (" + codigo + ")") + ": " + mensaje;
+        }
+    }
+
+    /**
+     * Resumen de una importación.
+     *
+     * @param leidas Filas de cuentas leídas, sin contar el encabezado.
+     * @param importadas Cuentas creadas.
+     * @param errores Primeros errores encontrados, por orden de fila.
+     * @param totalErrores Cantidad total de filas con errores.
+     * @param cancelada true si se canceló antes de terminar.
+     */
+    public record ResultadoImportacion(int leidas, int importadas, List<ErrorFila> errores,
+            int totalErrores, boolean cancelada) {
+    }
+
+    /**
+     * Valida las filas a medida que se leen y las agrupa por nivel.
+     */
+    private final class Validacion implements LectorTabular.ManejadorFila {
+
+        private final TaskManager.Progreso progreso;
+        private final Map<String, NodoCuentaDto> existentes = new HashMap<>();
+        private final Set<String> ocupados;
+        private final Map<String, Currency> monedas = new HashMap<>();
+        private final Currency monedaPorDefecto;
+        private final Set<String> leidos = new HashSet<>();
+        private final Set<String> rechazados = new HashSet<>();
+        private final Map<String, FilaCuenta> aceptadas = new HashMap<>();
+        private final Map<String, List<FilaCuenta>> pendientes = new HashMap<>();
+        private final List<List<FilaCuenta>> niveles = new ArrayList<>();
+        private final List<ErrorFila> errores = new ArrayList<>();
+        private int leidas;
+        private int total;
+        private int totalErrores;
+
+        Validacion(ChartOfAccounts plan, TaskManager.Progreso progreso) {
+            this.progreso = progreso;
+            // Los padres se buscan solo en el plan de destino; los códigos de
+            // otros planes se conservan aparte porque el código es único
+            Long planId = plan != null ? plan.getId() : null;
+            for (NodoCuentaDto nodo : cuentaService.findNodosPlan(planId)) {
+                existentes.put(nodo.codigo(), nodo);
+            }
+            this.ocupados = planId != null ? cuentaService.findCodigosOcupados(planId) : Set.of();
+            for (Currency moneda : currencyService.obtenerTodasLasMonedas()) {
+                monedas.put(moneda.getSymbol().toUpperCase(Locale.ROOT), moneda);
+            }
+            Currency porDefecto;
+            try {
+                porDefecto = currencyService.obtenerMonedaPorDefecto();
+            } catch (BusinessLogicException e) {
+                porDefecto = null;
+            }
+            this.monedaPorDefecto = porDefecto;
+        }
+
+        @Override
+        public boolean procesar(int numero, List<String> celdas) {
+            if (progreso.isCancelado()) {
+                return false;
+            }
+            String codigo = celda(celdas, 0);
+            if (leidas == 0 && !contieneDigito(codigo)) {
+                // Encabezado
+                return true;
+            }
+            leidas++;
+            if (leidas % FILAS_POR_AVISO == 0) {
+                progreso.actualizar(-1, leidas + " filas leídas");
+            }
+
+            FilaCuenta fila = interpretar(numero, codigo, celdas);
+            if (fila == null) {
+                rechazados.add(codigo);
+                return true;
+            }
+            if (fila.padre() == null) {
+                aceptar(fila);
+            } else if (aceptadas.containsKey(fila.padre())) {
+                aceptar(fila.heredar(aceptadas.get(fila.padre())));
+            } else if (existentes.containsKey(fila.padre())) {
+                aceptar(fila.heredar(existentes.get(fila.padre())));
+            } else {
+                pendientes.computeIfAbsent(fila.padre(), clave -> new ArrayList<>()).add(fila);
+            }
+            return true;
+        }
+
+        private FilaCuenta interpretar(int numero, String codigo, List<String> celdas) {
+            if (codigo.isEmpty()) {
+                return error(numero, codigo, "Falta el código de la cuenta");
+            }
+            if (codigo.length() < 3 || !CODIGO.matcher(codigo).matches()) {
+                return error(numero, codigo, "El código no tiene una estructura válida");
+            }
+            if (existentes.containsKey(codigo)) {
+                return error(numero, codigo, "La cuenta ya existe");
+            }
+            if (ocupados.contains(codigo)) {
+                return error(numero, codigo, "El código ya está en uso fuera del plan de cuentas");
+            }
+            if (!leidos.add(codigo)) {
+                return error(numero, codigo, "Código repetido en el archivo");
+            }
+            String nombre = celda(celdas, 1);
+            if (nombre.isEmpty()) {
+                return error(numero, codigo, "Falta la descripción de la cuenta");
+            }
+
+            String textoNaturaleza = celda(celdas, 2);
+            NatureOfAccount naturaleza = naturaleza(textoNaturaleza);
+            if (naturaleza == null && !textoNaturaleza.isEmpty()) {
+                return error(numero, codigo, "Naturaleza desconocida: " + textoNaturaleza);
+            }
+            String textoTipo = celda(celdas, 3);
+            AccountType tipo = tipo(textoTipo);
+            if (tipo == null && !textoTipo.isEmpty()) {
+                return error(numero, codigo, "Tipo de cuenta desconocido: " + textoTipo);
+            }
+            String simbolo = celda(celdas, 4);
+            Currency moneda = simbolo.isEmpty() ? monedaPorDefecto : monedas.get(simbolo.toUpperCase(Locale.ROOT));
+            if (moneda == null && !simbolo.isEmpty()) {
+                return error(numero, codigo, "Moneda desconocida: " + simbolo);
+            }
+
+            int separador = codigo.lastIndexOf('.');
+            String padre = separador > 0 ? codigo.substring(0, separador) : null;
+            return new FilaCuenta(numero, codigo, padre, nombre, naturaleza, tipo, moneda, 0);
+        }
+
+        /**
+         * Acepta una cuenta y, a continuación, las subcuentas que esperaban
+         * por ella.
+         */
+        private void aceptar(FilaCuenta primera) {
+            Deque<FilaCuenta> cola = new ArrayDeque<>();
+            cola.add(primera);
+            while (!cola.isEmpty()) {
+                FilaCuenta fila = cola.poll();
+                if (fila.naturaleza() == null) {
+                    error(fila.fila(), fila.codigo(), "Falta la naturaleza de la cuenta");
+                    rechazados.add(fila.codigo());
+                    continue;
+                }
+                aceptadas.put(fila.codigo(), fila);
+                while (niveles.size() <= fila.nivel()) {
+                    niveles.add(new ArrayList<>());
+                }
+                niveles.get(fila.nivel()).add(fila);
+                total++;
+
+                List<FilaCuenta> hijas = pendientes.remove(fila.codigo());
+                if (hijas != null) {
+                    for (FilaCuenta hija : hijas) {
+                        cola.add(hija.heredar(fila));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Las subcuentas que siguen en espera no tienen padre válido.
+         */
+        void finalizar() {
+            Set<String> enEspera = new HashSet<>();
+            pendientes.values().forEach(hijas -> hijas.forEach(hija -> enEspera.add(hija.codigo())));
+            pendientes.forEach((padre, hijas) -> {
+                String mensaje = rechazados.contains(padre) || enEspera.contains(padre)
+                        ? "La cuenta padre " + padre + " no se pudo importar"
+                        : "No existe la cuenta padre " + padre;
+                hijas.forEach(hija -> error(hija.fila(), hija.codigo(), mensaje));
+            });
+            pendientes.clear();
+            errores.sort(Comparator.comparingInt(ErrorFila::fila));
+        }
+
+        ResultadoImportacion resultado(int importadas, boolean cancelada) {
+            return new ResultadoImportacion(leidas, importadas, List.copyOf(errores), totalErrores, cancelada);
+        }
+
+        private FilaCuenta error(int numero, String codigo, String mensaje) {
+            totalErrores++;
+            if (errores.size() < MAX_ERRORES) {
+                errores.add(new ErrorFila(numero, codigo, mensaje));
+            }
+            return null;
+        }
+    }
+
+    private static String celda(List<String> celdas, int indice) {
+        return indice < celdas.size() && celdas.get(indice) != null ? celdas.get(indice).trim() : "";
+    }
+
+    private static boolean contieneDigito(String texto) {
+        return texto.chars().anyMatch(Character::isDigit);
+    }
+
+    private static NatureOfAccount naturaleza(String texto) {
+        return switch (normalizar(texto)) {
+            case "D", "DEUDORA", "DEBTOR" ->
+                NatureOfAccount.DEBTOR;
+            case "A", "C", "ACREEDORA", "CREDITOR" ->
+                NatureOfAccount.CREDITOR;
+            case "M", "MIXTA", "MIXED" ->
+                NatureOfAccount.MIXED;
+            default ->
+                null;
+        };
+    }
+
+    private static AccountType tipo(String texto) {
+        String valor = normalizar(texto);
+        if (valor.isEmpty()) {
+            return null;
+        }
+        try {
+            return AccountType.valueOf(valor);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String normalizar(String texto) {
+        return Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .trim()
+                .toUpperCase(Locale.ROOT);
+    }
+}
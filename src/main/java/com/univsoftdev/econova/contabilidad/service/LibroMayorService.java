@@ -3,19 +3,29 @@ package com.univsoftdev.econova.contabilidad.service;
 import com.univsoftdev.econova.config.model.Period;
 import com.univsoftdev.econova.contabilidad.TipoTransaccion;
 import com.univsoftdev.econova.contabilidad.model.Account;
+import com.univsoftdev.econova.contabilidad.model.AccountBalanceCheckpoint;
 import com.univsoftdev.econova.contabilidad.model.Ledger;
-import com.univsoftdev.econova.contabilidad.model.Transaction;
 import com.univsoftdev.econova.contabilidad.report.LibroMayorEntry;
 import com.univsoftdev.econova.contabilidad.report.LibroMayorReport;
+import com.univsoftdev.econova.contabilidad.report.LibroMayorSink;
 import com.univsoftdev.econova.contabilidad.repository.LibroMayorRepository;
+import com.univsoftdev.econova.contabilidad.repository.SaldoCierreRepository;
+import com.univsoftdev.econova.contabilidad.repository.TransactionRepository;
 import com.univsoftdev.econova.core.service.BaseService;
+import io.ebean.annotation.Transactional;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -23,66 +33,168 @@ import lombok.extern.slf4j.Slf4j;
 public class LibroMayorService extends BaseService<Ledger, LibroMayorRepository> {
 
     private final CuentaService cuentaService;
+    private final TransactionRepository transactionRepository;
+    private final SaldoCierreRepository saldoCierreRepository;
 
     @Inject
-    public LibroMayorService(LibroMayorRepository libroMayorRepository, CuentaService cuentaService) {
+    public LibroMayorService(LibroMayorRepository libroMayorRepository, CuentaService cuentaService,
+            TransactionRepository transactionRepository, SaldoCierreRepository saldoCierreRepository) {
         super(libroMayorRepository);
         this.cuentaService = cuentaService;
+        this.transactionRepository = transactionRepository;
+        this.saldoCierreRepository = saldoCierreRepository;
     }
 
     /**
-     * Genera el Libro Mayor para una cuenta y un período determinado. Se
-     * calcula el saldo de apertura, se filtran y ordenan las transacciones del
-     * período y se va actualizando el saldo acumulado.
+     * Genera el Libro Mayor para una cuenta y un período determinado y lo
+     * devuelve completo en memoria. Para cuentas con muchos movimientos se
+     * debe preferir {@link #generarLibroMayor(Account, Period, LibroMayorSink)}.
      *
      * @param cuenta La cuenta para la que se generará el reporte.
      * @param periodo El período durante el cual se filtran las transacciones.
      * @return Un objeto LibroMayorReport con la información del reporte.
      */
     public LibroMayorReport generarLibroMayor(Account cuenta, Period periodo) {
-        // Calcula el saldo de apertura hasta el inicio del período.
-        BigDecimal saldoInicial = obtenerSaldoInicial(cuenta, periodo.getStartDate());
-
-        // Reúne todas las transacciones asociadas a la cuenta (tanto como débito y crédito)
-        // y filtra vistas dentro del período.
-        List<Transaction> transacciones = cuenta.getLedger().getTransactions().stream()
-                .filter(t -> !t.getDate().isBefore(periodo.getStartDate())
-                && !t.getDate().isAfter(periodo.getEndDate()))
-                .sorted((t1, t2) -> t1.getDate().compareTo(t2.getDate()))
-                .collect(Collectors.toList());
-
-        BigDecimal saldoAcumulado = saldoInicial;
         List<LibroMayorEntry> entradas = new ArrayList<>();
+        BigDecimal[] saldoInicial = {BigDecimal.ZERO};
+        try {
+            generarLibroMayor(cuenta, periodo, new LibroMayorSink() {
+                @Override
+                public void inicio(Account c, BigDecimal saldo) {
+                    saldoInicial[0] = saldo;
+                }
 
-        // Itera por cada transacción para formar el reporte
-        for (Transaction t : transacciones) {
-            BigDecimal debito = t.getTipo() == TipoTransaccion.DEBITO ? t.getBalance() : BigDecimal.ZERO;
-            BigDecimal credito = t.getTipo() == TipoTransaccion.CREDITO ? t.getBalance() : BigDecimal.ZERO;
-            saldoAcumulado = saldoAcumulado.add(debito).subtract(credito);
+                @Override
+                public void entrada(LibroMayorEntry entrada) {
+                    entradas.add(entrada);
+                }
+            });
+        } catch (IOException e) {
+            // El destino en memoria no produce errores de E/S
+            throw new UncheckedIOException(e);
+        }
+        return new LibroMayorReport(cuenta, saldoInicial[0], entradas);
+    }
+
+    /**
+     * Genera el Libro Mayor en modo streaming. Calcula el saldo de apertura a
+     * partir del último cierre mensual, recorre las transacciones confirmadas del período
+     * en orden de fecha con un cursor de base de datos y entrega cada entrada
+     * al destino con el saldo acumulado. La memoria usada no depende de la
+     * cantidad de movimientos de la cuenta.
+     *
+     * @param cuenta La cuenta para la que se generará el reporte.
+     * @param periodo El período durante el cual se recorren las transacciones.
+     * @param sink Destino de las entradas (tabla, CSV, PDF...).
+     * @return El saldo al cierre del período.
+     * @throws IOException si el destino no puede escribirse
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal generarLibroMayor(Account cuenta, Period periodo, LibroMayorSink sink) throws IOException {
+        // Calcula el saldo de apertura hasta el inicio del período.
+        BigDecimal saldoInicial = obtenerSaldoInicial(cuenta, periodo.getStartDate());
+        sink.inicio(cuenta, saldoInicial);
 
-            // Puedes construir una descripción utilizando otro dato relevante, por ejemplo,
-            // el número del asiento o una descripción propia.
-            String descripcion = t.getTipo() + " - "
-                    + (t.getAsiento() != null ? ("Asiento #" + t.getAsiento().getNro()) : "");
+        BigDecimal[] saldoAcumulado = {saldoInicial};
+        try {
+            // Solo se leen las transacciones del período, usando el índice (account_id, transaction_date).
+            transactionRepository.recorrerPorCuentaYFecha(cuenta.getId(), periodo.getStartDate(), periodo.getEndDate(), t -> {
+                BigDecimal debito = t.getTipo() == TipoTransaccion.DEBITO ? t.getBalance() : BigDecimal.ZERO;
+                BigDecimal credito = t.getTipo() == TipoTransaccion.CREDITO ? t.getBalance() : BigDecimal.ZERO;
+                saldoAcumulado[0] = saldoAcumulado[0].add(debito).subtract(credito);
 
-            entradas.add(new LibroMayorEntry(t.getDate(), descripcion, debito, credito, saldoAcumulado));
+                String descripcion = t.getTipo() + " - "
+                        + (t.getAsiento() != null ? ("Asiento #" + t.getAsiento().getNro()) : "");
+                try {
+                    sink.entrada(new LibroMayorEntry(t.getDate(), descripcion, debito, credito, saldoAcumulado[0]));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
 
-        return new LibroMayorReport(cuenta, saldoInicial, entradas);
+        sink.fin(saldoAcumulado[0]);
+        return saldoAcumulado[0];
     }
 
     /**
-     * Calcula el saldo inicial de la cuenta hasta el inicio del período. La
-     * implementación real debería considerar todas las transacciones anteriores
-     * al período.
+     * Calcula el saldo inicial de la cuenta hasta el inicio del período. Parte
+     * del último cierre mensual anterior a la fecha y suma solo las
+     * transacciones de asientos confirmados posteriores a ese cierre, por lo
+     * que el costo no crece con la antigüedad de la cuenta.
      *
      * @param cuenta La cuenta de la cual se calculará el saldo de apertura.
      * @param fechaInicio La fecha de inicio del período.
      * @return El saldo inicial en esa fecha.
      */
-    private BigDecimal obtenerSaldoInicial(Account cuenta, LocalDate fechaInicio) {
-        // Como ejemplo básico, se asume que el saldo actual de la cuenta es el saldo de apertura.
-        // En un sistema real, deberías sumar o restar las transacciones previas a 'fechaInicio'.
-        return cuenta.getBalance();
+    public BigDecimal obtenerSaldoInicial(Account cuenta, LocalDate fechaInicio) {
+        Optional<AccountBalanceCheckpoint> cierre = saldoCierreRepository.findUltimoAntesDe(cuenta.getId(), fechaInicio);
+
+        BigDecimal saldo = cierre.map(AccountBalanceCheckpoint::getSaldo).orElse(BigDecimal.ZERO);
+        LocalDate desde = cierre.map(AccountBalanceCheckpoint::getCutoffDate).orElse(null);
+
+        BigDecimal[] movimientos = transactionRepository.sumarMovimientosCuenta(cuenta.getId(), desde, fechaInicio);
+        return saldo.add(movimientos[0]).subtract(movimientos[1]);
+    }
+
+    /**
+     * Registra el saldo de cierre de todas las cuentas al final del período.
+     * Toma los cierres del mes anterior y les suma los movimientos del
+     * período con una sola consulta agrupada. Si el período ya tenía cierres,
+     * se recalculan.
+     *
+     * @param periodo El período que se cierra.
+     * @return Cantidad de cuentas con cierre registrado.
+     */
+    @Transactional
+    public int generarCierreMensual(Period periodo) {
+        LocalDate fechaCorte = periodo.getEndDate();
+        saldoCierreRepository.deleteByFechaCorte(fechaCorte);
+
+        Optional<LocalDate> corteAnterior = saldoCierreRepository.findUltimaFechaCorteAntesDe(periodo.getStartDate());
+        Map<Long, AccountBalanceCheckpoint> anteriores = new HashMap<>();
+        corteAnterior.ifPresent(fecha -> saldoCierreRepository.findByFechaCorte(fecha)
+                .forEach(c -> anteriores.put(c.getAccount().getId(), c)));
+
+        Map<Long, BigDecimal[]> movimientos = transactionRepository.sumarMovimientosPorCuenta(corteAnterior.orElse(null), fechaCorte);
+
+        Set<Long> cuentas = new HashSet<>(anteriores.keySet());
+        cuentas.addAll(movimientos.keySet());
+
+        List<AccountBalanceCheckpoint> cierres = new ArrayList<>(cuentas.size());
+        for (Long cuentaId : cuentas) {
+            AccountBalanceCheckpoint anterior = anteriores.get(cuentaId);
+            BigDecimal[] mov = movimientos.getOrDefault(cuentaId, new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            BigDecimal debito = (anterior != null ? anterior.getDebit() : BigDecimal.ZERO).add(mov[0]);
+            BigDecimal credito = (anterior != null ? anterior.getCredit() : BigDecimal.ZERO).add(mov[1]);
+            Account referencia = saldoCierreRepository.reference(Account.class, cuentaId);
+            cierres.add(new AccountBalanceCheckpoint(referencia, periodo, fechaCorte, debito, credito));
+        }
+        saldoCierreRepository.saveAll(cierres);
+
+        log.info("Cierre mensual {}: saldos registrados para {} cuentas", periodo.getName(), cierres.size());
+        return cierres.size();
+    }
+
+    /**
+     * Descarta los cierres mensuales que dejan de ser válidos al cambiar los
+     * movimientos confirmados de una fecha: los de esa fecha de corte y
+     * todos los posteriores. {@link #obtenerSaldoInicial(Account, LocalDate)}
+     * parte entonces del cierre anterior que queda y suma los movimientos
+     * desde él, por lo que el saldo sigue siendo exacto hasta que
+     * {@link #generarCierreMensual(Period)} vuelva a registrar los meses.
+     *
+     * @param fecha Fecha del movimiento más antiguo que cambió.
+     * @return Cantidad de cierres eliminados.
+     */
+    @Transactional
+    public int invalidarCierresDesde(LocalDate fecha) {
+        int eliminados = saldoCierreRepository.deleteDesdeFechaCorte(fecha);
+        if (eliminados > 0) {
+            log.info("Cierres mensuales desde {} descartados: {} filas", fecha, eliminados);
+        }
+        return eliminados;
     }
 }
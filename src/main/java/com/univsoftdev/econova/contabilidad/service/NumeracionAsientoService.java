@@ -0,0 +1,167 @@
+package com.univsoftdev.econova.contabilidad.service;
+
+import com.univsoftdev.econova.config.model.Period;
+import com.univsoftdev.econova.config.model.Unit;
+import com.univsoftdev.econova.contabilidad.model.AccountingEntry;
+import com.univsoftdev.econova.contabilidad.model.VoucherSequence;
+import com.univsoftdev.econova.contabilidad.repository.SecuenciaAsientoRepository;
+import com.univsoftdev.econova.core.service.BaseService;
+import io.ebean.annotation.Transactional;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Asigna los números de asiento de cada unidad y período a partir de una
+ * secuencia persistente. La reserva bloquea la fila de la secuencia, por lo
+ * que es segura ante varios usuarios registrando asientos a la vez.
+ */
+@Slf4j
+@Singleton
+public class NumeracionAsientoService extends BaseService<VoucherSequence, SecuenciaAsientoRepository> {
+
+    @Inject
+    public NumeracionAsientoService(SecuenciaAsientoRepository repository) {
+        super(repository);
+    }
+
+    /**
+     * Número que recibiría el próximo asiento, sin reservarlo. Solo sirve
+     * para mostrarlo al usuario; el número definitivo se obtiene con
+     * {@link #siguienteNumero(Unit, Period)} al guardar.
+     *
+     * @param unidad Unidad del asiento.
+     * @param periodo Período del asiento.
+     * @return El próximo número disponible.
+     */
+    public int consultarSiguienteNumero(Unit unidad, Period periodo) {
+        validar(unidad, periodo);
+        return repository.findByUnidadYPeriodo(unidad.getId(), periodo.getId())
+                .map(secuencia -> secuencia.getLastNumber() + 1)
+                .orElseGet(() -> repository.maxNumeroAsiento(unidad.getId(), periodo.getId()) + 1);
+    }
+
+    /**
+     * Reserva el siguiente número de asiento.
+     *
+     * @param unidad Unidad del asiento.
+     * @param periodo Período del asiento.
+     * @return El número reservado.
+     */
+    @Transactional
+    public int siguienteNumero(Unit unidad, Period periodo) {
+        return reservar(unidad, periodo, 1);
+    }
+
+    /**
+     * Reserva un bloque de números consecutivos, pensado para importaciones y
+     * registros masivos. Se une a la transacción del llamante: si esta
+     * confirma, el bloque queda asignado aunque no se usen todos sus números;
+     * si se revierte, la secuencia vuelve a su valor y el bloque se libera.
+     * Mientras tanto, la fila de la secuencia queda bloqueada para las demás
+     * sesiones.
+     *
+     * @param unidad Unidad de los asientos.
+     * @param periodo Período de los asientos.
+     * @param cantidad Cantidad de números a reservar.
+     * @return El primer número del bloque.
+     */
+    @Transactional
+    public int reservar(Unit unidad, Period periodo, int cantidad) {
+        validar(unidad, periodo);
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad de números a reservar debe ser positiva.");
+        }
+
+        VoucherSequence secuencia = repository.findForUpdate(unidad.getId(), periodo.getId())
+                .orElseGet(() -> {
+                    repository.crearSiNoExiste(unidad, periodo);
+                    return repository.findForUpdate(unidad.getId(), periodo.getId())
+                            .orElseThrow(() -> new IllegalStateException(
+                                    "No se pudo crear la secuencia de asientos del período " + periodo.getId()));
+                });
+
+        int primero = secuencia.reservar(cantidad);
+        repository.save(secuencia);
+        log.debug("Reservados los asientos {}-{} de la unidad {} en el período {}",
+                primero, primero + cantidad - 1, unidad.getId(), periodo.getId());
+        return primero;
+    }
+
+    /**
+     * Elimina un asiento y corre la numeración de los posteriores con la fila
+     * de la secuencia bloqueada, igual que una reserva, de modo que no se
+     * entrega un número mientras se renumera.
+     * <p>
+     * La secuencia solo se ajusta al nuevo máximo si todos sus números estaban
+     * en uso. Si hay bloques reservados cuyos asientos aún no se guardaron se
+     * deja como está: queda un hueco al final, pero nunca se entrega dos veces
+     * el mismo número.
+     *
+     * @param unidad Unidad del asiento eliminado.
+     * @param periodo Período del asiento eliminado.
+     * @param eliminacion Borra el asiento y renumera los posteriores.
+     */
+    @Transactional
+    public void eliminarYRenumerar(Unit unidad, Period periodo, Runnable eliminacion) {
+        validar(unidad, periodo);
+        Optional<VoucherSequence> bloqueada = repository.findForUpdate(unidad.getId(), periodo.getId());
+        int maximoAnterior = repository.maxNumeroAsiento(unidad.getId(), periodo.getId());
+
+        eliminacion.run();
+
+        bloqueada.ifPresent(secuencia -> {
+            if (secuencia.getLastNumber() == maximoAnterior) {
+                secuencia.setLastNumber(repository.maxNumeroAsiento(unidad.getId(), periodo.getId()));
+                repository.save(secuencia);
+            }
+        });
+    }
+
+    /**
+     * Asigna número a los asientos que todavía no lo tienen, reservando un
+     * solo bloque por cada unidad y período presentes en la colección.
+     *
+     * @param asientos Asientos a numerar.
+     */
+    @Transactional
+    public void asignarNumeros(Collection<AccountingEntry> asientos) {
+        Map<Clave, List<AccountingEntry>> pendientes = new TreeMap<>();
+        for (AccountingEntry asiento : asientos) {
+            if (asiento.getNro() <= 0) {
+                validar(asiento.getUnidad(), asiento.getPeriod());
+                pendientes.computeIfAbsent(
+                        new Clave(asiento.getUnidad().getId(), asiento.getPeriod().getId()),
+                        clave -> new ArrayList<>()).add(asiento);
+            }
+        }
+        for (List<AccountingEntry> grupo : pendientes.values()) {
+            AccountingEntry primero = grupo.get(0);
+            int numero = reservar(primero.getUnidad(), primero.getPeriod(), grupo.size());
+            for (AccountingEntry asiento : grupo) {
+                asiento.setNro(numero++);
+            }
+        }
+    }
+
+    private static void validar(Unit unidad, Period periodo) {
+        Objects.requireNonNull(unidad, "La unidad no puede ser nula");
+        Objects.requireNonNull(periodo, "El periodo no puede ser nulo");
+    }
+
+    private record Clave(Long unitId, Long periodId) implements Comparable<Clave> {
+
+        @Override
+        public int compareTo(Clave otra) {
+            int porUnidad = unitId.compareTo(otra.unitId);
+            return porUnidad != 0 ? porUnidad : periodId.compareTo(otra.periodId);
+        }
+    }
+}
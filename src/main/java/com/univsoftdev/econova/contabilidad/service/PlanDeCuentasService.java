@@ -1,5 +1,6 @@
 package com.univsoftdev.econova.contabilidad.service;
 
+import com.univsoftdev.econova.contabilidad.dto.NodoCuentaDto;
 import com.univsoftdev.econova.contabilidad.model.Account;
 import com.univsoftdev.econova.contabilidad.model.ChartOfAccounts;
 import com.univsoftdev.econova.contabilidad.model.Ledger;
@@ -11,8 +12,6 @@ import jakarta.inject.Singleton;
 import jakarta.validation.constraints.NotNull;
 import java.util.List;
 import java.util.Optional;
-import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.DefaultTreeModel;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -27,38 +26,16 @@ public class PlanDeCuentasService extends BaseService<ChartOfAccounts, PlanDeCue
         this.cuentaService = cuentaService;
     }
 
-    public DefaultTreeModel crearModelPlanDeCuentas() {
-        // Nodo raíz del árbol
-        DefaultMutableTreeNode rootNode = new DefaultMutableTreeNode("Plan de Cuentas");
-
-        // Obtener todas las cuentas principales (sin cuenta padre)
-        List<Account> cuentasPrincipales = cuentaService.findCuentasPadres();
-
-        // Construir el árbol recursivamente
-        for (Account cuenta : cuentasPrincipales) {
-            agregarCuentaAlArbol(rootNode, cuenta);
-        }
-
-        // Crear el modelo del árbol
-        DefaultTreeModel treeModel = new DefaultTreeModel(rootNode);
-
-        // Crear y retornar el JTree
-        return treeModel;
-    }
-
-    private void agregarCuentaAlArbol(DefaultMutableTreeNode parentNode, Account cuenta) {
-        // Crear un nodo para la cuenta actual
-        DefaultMutableTreeNode cuentaNode = new DefaultMutableTreeNode(cuenta);
-
-        // Agregar el nodo al nodo padre
-        parentNode.add(cuentaNode);
-
-        // Recursivamente agregar las subcuentas
-        if (cuenta.getSubAccounts() != null && !cuenta.getSubAccounts().isEmpty()) {
-            for (Account subcuenta : cuenta.getSubAccounts()) {
-                agregarCuentaAlArbol(cuentaNode, subcuenta);
-            }
-        }
+    /**
+     * Cuentas del plan de cuentas con los datos necesarios para el árbol, en
+     * una sola consulta. La entidad {@link Account} completa se carga al
+     * seleccionar una cuenta.
+     *
+     * @return Nodos ordenados por código.
+     */
+    public List<NodoCuentaDto> findNodosPlanDeCuentas() {
+        ChartOfAccounts plan = getChartOfAccounts();
+        return cuentaService.findNodosPlan(plan != null ? plan.getId() : null);
     }
 
     @Transactional
@@ -100,6 +77,10 @@ public class PlanDeCuentasService extends BaseService<ChartOfAccounts, PlanDeCue
         repository.update(planDeCuentas);
     }
 
+    public Optional<Account> findCuentaById(Long id) {
+        return cuentaService.findById(id);
+    }
+
     public Optional<Account> findCuentaByCodigo(String codigo) {
         return cuentaService.findByCodigo(codigo);
     }
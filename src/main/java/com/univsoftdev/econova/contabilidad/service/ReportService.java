@@ -1,10 +1,12 @@
 package com.univsoftdev.econova.contabilidad.service;
 
+import io.avaje.inject.Lazy;
 import jakarta.inject.Singleton;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
+@Lazy
 @Singleton
 @Builder
 public class ReportService {
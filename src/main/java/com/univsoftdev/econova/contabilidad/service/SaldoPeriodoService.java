@@ -0,0 +1,253 @@
+package com.univsoftdev.econova.contabilidad.service;
+
+import com.univsoftdev.econova.config.model.Period;
+import com.univsoftdev.econova.config.service.CurrencyService;
+import com.univsoftdev.econova.config.service.TasaCambioService;
+import com.univsoftdev.econova.contabilidad.TipoTransaccion;
+import com.univsoftdev.econova.contabilidad.dto.RevaluacionCuentaDto;
+import com.univsoftdev.econova.contabilidad.dto.SaldoCuentaDto;
+import com.univsoftdev.econova.contabilidad.model.Account;
+import com.univsoftdev.econova.contabilidad.model.AccountPeriodBalance;
+import com.univsoftdev.econova.contabilidad.model.AccountingEntry;
+import com.univsoftdev.econova.contabilidad.model.Currency;
+import com.univsoftdev.econova.contabilidad.model.Transaction;
+import com.univsoftdev.econova.contabilidad.repository.SaldoPeriodoRepository;
+import com.univsoftdev.econova.contabilidad.repository.SaldoPeriodoRepository.Variacion;
+import com.univsoftdev.econova.core.service.BaseService;
+import io.ebean.SqlRow;
+import io.ebean.annotation.Transactional;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mantiene la tabla de acumulados por cuenta y período. Cada asiento
+ * confirmado suma sus débitos y créditos a la fila de cada cuenta afectada, y
+ * cada asiento que deja de estar confirmado los resta.
+ */
+@Slf4j
+@Singleton
+public class SaldoPeriodoService extends BaseService<AccountPeriodBalance, SaldoPeriodoRepository> {
+
+    private static final int ESCALA_IMPORTE = 2;
+
+    private final CurrencyService currencyService;
+    private final TasaCambioService tasaCambioService;
+    private final LibroMayorService libroMayorService;
+
+    @Inject
+    public SaldoPeriodoService(SaldoPeriodoRepository repository, CurrencyService currencyService,
+            TasaCambioService tasaCambioService, LibroMayorService libroMayorService) {
+        super(repository);
+        this.currencyService = currencyService;
+        this.tasaCambioService = tasaCambioService;
+        this.libroMayorService = libroMayorService;
+    }
+
+    /**
+     * Suma los movimientos de un asiento confirmado a los acumulados de su
+     * período.
+     *
+     * @param asiento Asiento confirmado.
+     */
+    @Transactional
+    public void registrar(AccountingEntry asiento) {
+        aplicar(List.of(asiento), BigDecimal.ONE);
+    }
+
+    /**
+     * Suma los movimientos de varios asientos confirmados. Los importes se
+     * agrupan primero por período y cuenta, de modo que cada fila de
+     * acumulados se lee y escribe una sola vez.
+     *
+     * @param asientos Asientos confirmados.
+     */
+    @Transactional
+    public void registrar(Collection<AccountingEntry> asientos) {
+        aplicar(asientos, BigDecimal.ONE);
+    }
+
+    /**
+     * Resta los movimientos de un asiento que deja de estar confirmado.
+     *
+     * @param asiento Asiento cuya confirmación se revierte.
+     */
+    @Transactional
+    public void revertir(AccountingEntry asiento) {
+        aplicar(List.of(asiento), BigDecimal.ONE.negate());
+    }
+
+    /**
+     * Obtiene los totales de todas las cuentas para un rango de fechas con una
+     * única consulta agregada sobre los acumulados. Las cuentas padre incluyen
+     * los totales de sus subcuentas.
+     *
+     * @param inicio Fecha de inicio del rango.
+     * @param fin Fecha de fin del rango.
+     * @return Totales de cada cuenta, ordenados por código.
+     */
+    public List<SaldoCuentaDto> obtenerSaldosPorCuenta(LocalDate inicio, LocalDate fin) {
+        return repository.sumarPorCuenta(inicio, fin);
+    }
+
+    /**
+     * Revalúa los saldos de las cuentas en moneda extranjera al cierre de un
+     * período. Los saldos se toman del acumulado por cuenta en una sola
+     * consulta y se valoran con la tasa vigente antes del período y con la
+     * del cierre, sin recorrer las transacciones. Las tasas son las del
+     * tenant de la sesión, igual que los saldos.
+     *
+     * @param periodo Período a revaluar.
+     * @return Una revaluación por cuenta con saldo.
+     */
+    @Transactional(readOnly = true)
+    public List<RevaluacionCuentaDto> revaluarMonedaExtranjera(Period periodo) {
+        Currency monedaBase = currencyService.getMonedaBase();
+        LocalDate anterior = periodo.getStartDate().minusDays(1);
+        LocalDate cierre = periodo.getEndDate();
+
+        List<RevaluacionCuentaDto> revaluaciones = new ArrayList<>();
+        for (SqlRow fila : repository.findSaldosMonedaExtranjera(cierre, monedaBase.getId())) {
+            String moneda = fila.getString("symbol");
+            BigDecimal saldo = fila.getBigDecimal("saldo");
+            BigDecimal tasaAnterior = tasaCambioService.getTasa(moneda, anterior);
+            BigDecimal tasaCierre = tasaCambioService.getTasa(moneda, cierre);
+            revaluaciones.add(new RevaluacionCuentaDto(
+                    fila.getLong("account_id"),
+                    fila.getString("code"),
+                    moneda,
+                    saldo,
+                    tasaAnterior,
+                    tasaCierre,
+                    saldo.divide(tasaAnterior, ESCALA_IMPORTE, RoundingMode.HALF_UP),
+                    saldo.divide(tasaCierre, ESCALA_IMPORTE, RoundingMode.HALF_UP)));
+        }
+        log.debug("Revaluadas {} cuentas en moneda extranjera al {}", revaluaciones.size(), cierre);
+        return revaluaciones;
+    }
+
+    /**
+     * Recalcula todos los acumulados del tenant actual a partir de los
+     * asientos confirmados. Sirve para completar los datos registrados antes
+     * de existir la tabla y para reparar acumulados descuadrados.
+     *
+     * @return Cantidad de filas de acumulados escritas.
+     */
+    @Transactional
+    public int reconstruir() {
+        int filas = repository.reconstruir();
+        log.info("Acumulados por cuenta y período reconstruidos: {} filas", filas);
+        return filas;
+    }
+
+    /**
+     * Calcula los acumulados de un tenant que ya tenía asientos confirmados
+     * cuando se creó la tabla. Con la tabla ya poblada no hace nada, así que
+     * solo tiene efecto la primera vez.
+     *
+     * @return Cantidad de filas de acumulados escritas.
+     */
+    @Transactional
+    public int completarAcumulados() {
+        return repository.faltanAcumulados() ? reconstruir() : 0;
+    }
+
+    private void aplicar(Collection<AccountingEntry> asientos, BigDecimal signo) {
+        List<Variacion> variaciones = agrupar(asientos, signo);
+        repository.acumular(variaciones);
+        // Los cierres mensuales desde el movimiento más antiguo ya no reflejan los saldos
+        fechaMasAntigua(asientos).ifPresent(libroMayorService::invalidarCierresDesde);
+        log.debug("Acumulados por cuenta y periodo actualizados: {} filas para {} asientos",
+                variaciones.size(), asientos.size());
+    }
+
+    /**
+     * Fecha del movimiento más antiguo de los asientos, o la del asiento si
+     * una transacción no tiene fecha.
+     *
+     * @param asientos Asientos que cambian.
+     * @return La fecha más antigua, o vacío si no hay movimientos.
+     */
+    static Optional<LocalDate> fechaMasAntigua(Collection<AccountingEntry> asientos) {
+        LocalDate masAntigua = null;
+        for (AccountingEntry asiento : asientos) {
+            if (asiento == null || !asiento.tieneTransacciones()) {
+                continue;
+            }
+            for (Transaction transaccion : asiento.getTransactions()) {
+                LocalDate fecha = transaccion.getDate() != null ? transaccion.getDate() : asiento.getFecha();
+                if (fecha != null && (masAntigua == null || fecha.isBefore(masAntigua))) {
+                    masAntigua = fecha;
+                }
+            }
+        }
+        return Optional.ofNullable(masAntigua);
+    }
+
+    /**
+     * Agrupa los importes de los asientos por período y cuenta. Se ordena por
+     * id para tomar los bloqueos de fila siempre en el mismo orden y evitar
+     * interbloqueos entre sesiones.
+     *
+     * @param asientos Asientos a acumular.
+     * @param signo 1 para sumar, -1 para restar.
+     * @return Una variación por período y cuenta.
+     */
+    static List<Variacion> agrupar(Collection<AccountingEntry> asientos, BigDecimal signo) {
+        Map<Clave, Acumulado> acumulados = new TreeMap<>();
+        for (AccountingEntry asiento : asientos) {
+            if (asiento == null || asiento.getPeriod() == null || !asiento.tieneTransacciones()) {
+                continue;
+            }
+            Long periodoId = asiento.getPeriod().getId();
+            for (Transaction transaccion : asiento.getTransactions()) {
+                Account cuenta = transaccion.getAccount();
+                if (cuenta == null || cuenta.getId() == null || transaccion.getBalance() == null) {
+                    continue;
+                }
+                Acumulado acumulado = acumulados.computeIfAbsent(new Clave(periodoId, cuenta.getId()),
+                        clave -> new Acumulado());
+                if (transaccion.getTipo() == TipoTransaccion.DEBITO) {
+                    acumulado.debito = acumulado.debito.add(transaccion.getBalance());
+                } else if (transaccion.getTipo() == TipoTransaccion.CREDITO) {
+                    acumulado.credito = acumulado.credito.add(transaccion.getBalance());
+                }
+                acumulado.cantidad++;
+            }
+        }
+
+        List<Variacion> variaciones = new ArrayList<>(acumulados.size());
+        acumulados.forEach((clave, acumulado) -> variaciones.add(new Variacion(
+                clave.cuentaId(),
+                clave.periodoId(),
+                acumulado.debito.multiply(signo),
+                acumulado.credito.multiply(signo),
+                signo.signum() * acumulado.cantidad)));
+        return variaciones;
+    }
+
+    private record Clave(Long periodoId, Long cuentaId) implements Comparable<Clave> {
+
+        @Override
+        public int compareTo(Clave otra) {
+            int porPeriodo = periodoId.compareTo(otra.periodoId);
+            return porPeriodo != 0 ? porPeriodo : cuentaId.compareTo(otra.cuentaId);
+        }
+    }
+
+    private static final class Acumulado {
+
+        private BigDecimal debito = BigDecimal.ZERO;
+        private BigDecimal credito = BigDecimal.ZERO;
+        private long cantidad;
+    }
+}
@@ -1,6 +1,7 @@
 package com.univsoftdev.econova.contabilidad.service;
 
 import com.univsoftdev.econova.config.model.User;
+import com.univsoftdev.econova.contabilidad.dto.MovimientoCuentaDto;
 import com.univsoftdev.econova.contabilidad.model.Transaction;
 import com.univsoftdev.econova.contabilidad.repository.TransactionRepository;
 import com.univsoftdev.econova.core.service.BaseService;
@@ -8,8 +9,10 @@ import io.ebean.annotation.Transactional;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -42,6 +45,20 @@ public class TransaccionService extends BaseService<Transaction, TransactionRepo
         return false;
     }
 
+    /**
+     * Recorre los movimientos de una cuenta en un rango de fechas para
+     * conciliarlos, sin cargar las transacciones completas.
+     *
+     * @param cuentaId Identificador de la cuenta.
+     * @param desde Fecha de inicio (inclusiva).
+     * @param hasta Fecha de fin (inclusiva).
+     * @param consumidor Receptor de cada movimiento.
+     */
+    public void recorrerMovimientosConciliacion(Long cuentaId, LocalDate desde, LocalDate hasta,
+            Consumer<MovimientoCuentaDto> consumidor) {
+        repository.recorrerMovimientosConciliacion(cuentaId, desde, hasta, consumidor);
+    }
+
     public List<Transaction> findByMonto(BigDecimal monto) {
         return repository.find(Transaction.class).where().eq("monto", monto).findList();
     }
@@ -12,9 +12,9 @@ import javax.swing.border.*;
 import javax.swing.table.*;
 import com.univsoftdev.econova.core.component.*;
 import com.univsoftdev.econova.core.system.Form;
+import com.univsoftdev.econova.core.system.TaskManager;
 import com.univsoftdev.econova.core.utils.table.TableColumnAdjuster;
 import java.awt.event.ItemEvent;
-import java.math.BigDecimal;
 import java.util.Optional;
 import javax.swing.*;
 import lombok.extern.slf4j.Slf4j;
@@ -293,81 +293,78 @@ public class FormBalanceComprobacion extends Form {
     // JFormDesigner - End of variables declaration  //GEN-END:variables  @formatter:on
 
     private void init() {
-        try {
-            // Inicializar el injector y los servicios necesarios
-            ejercService = Injector.get(EjercicioService.class);
-            balanceService = Injector.get(BalanceGeneralService.class);
-
-            // Obtener todos los ejercicios
-            java.util.List<Exercise> ejercicios = ejercService.findAll();
-
-            // Limpiar el comboBox de ejercicios
-            comboBoxEjercicios.removeAllItems();
-
-            // Encontrar el ejercicio actual y llenar el comboBox
-            Exercise currentEjercicio = null;
-            for (Exercise ejercicio : ejercicios) {
-                comboBoxEjercicios.addItem(ejercicio.getName());
-                if (ejercicio.isCurrent()) {
-                    currentEjercicio = ejercicio;
-                }
-            }
+        // Inicializar el injector y los servicios necesarios
+        ejercService = Injector.get(EjercicioService.class);
+        balanceService = Injector.get(BalanceGeneralService.class);
+
+        // Las consultas y el cálculo del balance se ejecutan fuera del hilo de eventos
+        TaskManager.ejecutar(this, "Calculando balance de comprobación", progreso -> cargarBalance(), this::mostrarBalance,
+                error -> {
+                    log.error("Error al inicializar la interfaz: {}", error.getMessage(), error);
+                    JOptionPane.showMessageDialog(null, "Ocurrió un error al inicializar la interfaz.", "Error", JOptionPane.ERROR_MESSAGE);
+                });
+    }
 
-            // Validar que haya un ejercicio actual
-            if (currentEjercicio == null) {
-                log.error("No se encontró ningún ejercicio actual.");
-                JOptionPane.showMessageDialog(null, "No se encontró ningún ejercicio actual.", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
+    private DatosBalance cargarBalance() {
+        // Obtener todos los ejercicios
+        java.util.List<Exercise> ejercicios = ejercService.findAll();
+        java.util.List<String> nombres = ejercicios.stream().map(Exercise::getName).toList();
 
-            // Obtener los periodos del ejercicio actual
-            java.util.List<Period> periodos = currentEjercicio.getPeriodos();
+        // Encontrar el ejercicio actual
+        Exercise currentEjercicio = ejercicios.stream().filter(Exercise::isCurrent).reduce((a, b) -> b).orElse(null);
+        if (currentEjercicio == null) {
+            return new DatosBalance(nombres, java.util.List.of(), "No se encontró ningún ejercicio actual.");
+        }
 
-            // Encontrar el periodo actual
-            Period currentPeriodo = null;
-            for (Period periodo : periodos) {
-                if (periodo.isCurrent()) {
-                    currentPeriodo = periodo;
-                }
-            }
+        // Encontrar el periodo actual
+        Period currentPeriodo = currentEjercicio.getPeriodos().stream().filter(Period::isCurrent).reduce((a, b) -> b).orElse(null);
+        if (currentPeriodo == null) {
+            return new DatosBalance(nombres, java.util.List.of(),
+                    "No se encontró ningún periodo actual para el ejercicio: " + currentEjercicio.getName());
+        }
 
-            // Validar que haya un periodo actual
-            if (currentPeriodo == null) {
-                log.error("No se encontró ningún periodo actual para el ejercicio: {}", currentEjercicio.getName());
-                JOptionPane.showMessageDialog(null, "No se encontró ningún periodo actual para el ejercicio: " + currentEjercicio.getName(), "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
+        // Generar el balance de comprobación para el periodo actual (agregado en la base de datos)
+        java.util.List<LineaBalance> lineas = balanceService.generarBalanceComprobacion(currentPeriodo.getStartDate(), currentPeriodo.getEndDate());
+        return new DatosBalance(nombres, lineas, null);
+    }
 
-            // Generar el balance general para el periodo actual
-            java.util.List<LineaBalance> lineas = balanceService.generarBalanceGeneral(currentPeriodo.getStartDate(), currentPeriodo.getEndDate());
-
-            // Obtener el modelo de la tabla de balance
-            DefaultTableModel model = (DefaultTableModel) tableBalance.getModel();
-
-            // Limpiar la tabla de balance
-            model.setRowCount(0);
-
-            // Llenar la tabla con las líneas de balance, filtrando las que tienen saldo cero en periodo y acumulado
-            lineas.stream()
-                    .filter(linea -> !linea.getDebitoPeriodo().equals(BigDecimal.ZERO)
-                    || !linea.getCreditoPeriodo().equals(BigDecimal.ZERO)
-                    || !linea.getDebitoAcumulado().equals(BigDecimal.ZERO)
-                    || !linea.getCreditoAcumulado().equals(BigDecimal.ZERO))
-                    .forEach(linea -> {
-                        model.addRow(new Object[]{
-                            linea.getCodigo(),
-                            linea.getDescripcion(),
-                            linea.getDebitoPeriodo(),
-                            linea.getCreditoPeriodo(),
-                            linea.getDebitoAcumulado(),
-                            linea.getCreditoAcumulado()});
-                    });
-
-            // Ajustar las columnas de la tabla
-            new TableColumnAdjuster(tableBalance).adjustColumns();
-        } catch (Exception ex) {
-            log.error("Error al inicializar la interfaz: {}", ex.getMessage(), ex);
-            JOptionPane.showMessageDialog(null, "Ocurrió un error al inicializar la interfaz.", "Error", JOptionPane.ERROR_MESSAGE);
+    private void mostrarBalance(DatosBalance datos) {
+        // Llenar el comboBox de ejercicios
+        comboBoxEjercicios.removeAllItems();
+        datos.ejercicios().forEach(comboBoxEjercicios::addItem);
+
+        if (datos.error() != null) {
+            log.error(datos.error());
+            JOptionPane.showMessageDialog(null, datos.error(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
         }
+
+        // Obtener el modelo de la tabla de balance
+        DefaultTableModel model = (DefaultTableModel) tableBalance.getModel();
+
+        // Limpiar la tabla de balance
+        model.setRowCount(0);
+
+        // Llenar la tabla con las líneas de balance, filtrando las que tienen saldo cero en periodo y acumulado
+        datos.lineas().stream()
+                .filter(linea -> linea.getDebitoPeriodo().signum() != 0
+                || linea.getCreditoPeriodo().signum() != 0
+                || linea.getDebitoAcumulado().signum() != 0
+                || linea.getCreditoAcumulado().signum() != 0)
+                .forEach(linea -> {
+                    model.addRow(new Object[]{
+                        linea.getCodigo(),
+                        linea.getDescripcion(),
+                        linea.getDebitoPeriodo(),
+                        linea.getCreditoPeriodo(),
+                        linea.getDebitoAcumulado(),
+                        linea.getCreditoAcumulado()});
+                });
+
+        // Ajustar las columnas de la tabla
+        new TableColumnAdjuster(tableBalance).adjustColumns();
+    }
+
+    private record DatosBalance(java.util.List<String> ejercicios, java.util.List<LineaBalance> lineas, String error) {
     }
 }
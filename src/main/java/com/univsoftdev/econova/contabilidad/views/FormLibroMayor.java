@@ -0,0 +1,307 @@
+package com.univsoftdev.econova.contabilidad.views;
+
+import com.formdev.flatlaf.FlatClientProperties;
+import com.univsoftdev.econova.config.model.Period;
+import com.univsoftdev.econova.config.service.PeriodoService;
+import com.univsoftdev.econova.contabilidad.model.Account;
+import com.univsoftdev.econova.contabilidad.report.LibroMayorCsvSink;
+import com.univsoftdev.econova.contabilidad.report.LibroMayorPdfSink;
+import com.univsoftdev.econova.contabilidad.report.LibroMayorTableModelSink;
+import com.univsoftdev.econova.contabilidad.service.CuentaService;
+import com.univsoftdev.econova.contabilidad.service.LibroMayorService;
+import com.univsoftdev.econova.core.Injector;
+import com.univsoftdev.econova.core.system.Form;
+import com.univsoftdev.econova.core.system.TaskManager;
+import com.univsoftdev.econova.core.utils.DialogUtils;
+import java.awt.Component;
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.function.Consumer;
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JList;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.DefaultTableModel;
+import lombok.extern.slf4j.Slf4j;
+import raven.modal.component.SimpleModalBorder;
+
+/**
+ * Libro Mayor de una cuenta en un período. La tabla y las exportaciones a CSV
+ * y PDF se generan en modo streaming, sin cargar todos los movimientos en
+ * memoria.
+ */
+@Slf4j
+public class FormLibroMayor extends Form {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient CuentaService cuentaService;
+    private final transient PeriodoService periodoService;
+    private final transient LibroMayorService libroMayorService;
+    private final DefaultTableModel modelo = new DefaultTableModel(new Object[]{
+        "Fecha", "Descripción", "Débito", "Crédito", "Saldo"}, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+
+    public FormLibroMayor() {
+        initComponents();
+        cuentaService = Injector.get(CuentaService.class);
+        periodoService = Injector.get(PeriodoService.class);
+        libroMayorService = Injector.get(LibroMayorService.class);
+        labelTitulo.putClientProperty(FlatClientProperties.STYLE, "font:bold +3");
+        comboPeriodo.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus) {
+                Object texto = value instanceof Period periodo ? periodo.getName() : value;
+                return super.getListCellRendererComponent(list, texto, index, isSelected, cellHasFocus);
+            }
+        });
+        tableMayor.setModel(modelo);
+    }
+
+    @Override
+    public void formOpen() {
+        cargarPeriodos();
+    }
+
+    @Override
+    public void formRefresh() {
+        cargarPeriodos();
+    }
+
+    private void cargarPeriodos() {
+        ejecutarEnSegundoPlano("Cargando períodos",
+                progreso -> periodoService.findAll().stream().sorted(Comparator.comparing(Period::getStartDate)).toList(),
+                periodos -> {
+                    Object seleccionado = comboPeriodo.getSelectedItem();
+                    comboPeriodo.setModel(new DefaultComboBoxModel<>(periodos.toArray(Period[]::new)));
+                    Long id = seleccionado instanceof Period anterior ? anterior.getId()
+                            : periodos.stream().filter(Period::isCurrent).map(Period::getId).findFirst().orElse(null);
+                    periodos.stream().filter(p -> p.getId().equals(id)).findFirst().ifPresent(comboPeriodo::setSelectedItem);
+                });
+    }
+
+    /**
+     * Busca la cuenta indicada por su código.
+     */
+    private Account buscarCuenta(String codigo) {
+        return cuentaService.findByCodigo(codigo)
+                .orElseThrow(() -> new IllegalArgumentException("No existe la cuenta " + codigo));
+    }
+
+    private boolean validar() {
+        if (txtCuenta.getText().isBlank() || !(comboPeriodo.getSelectedItem() instanceof Period)) {
+            DialogUtils.showWarningDialog(this, "Indique la cuenta y el período.", "Libro Mayor",
+                    SimpleModalBorder.CLOSE_OPTION);
+            return false;
+        }
+        return true;
+    }
+
+    private void generar() {
+        if (!validar()) {
+            return;
+        }
+        String codigo = txtCuenta.getText().trim();
+        Period periodo = (Period) comboPeriodo.getSelectedItem();
+        modelo.setRowCount(0);
+        labelSaldo.setText("Generando...");
+        ejecutar(buttonGenerar, "Generando Libro Mayor de " + codigo,
+                progreso -> libroMayorService.generarLibroMayor(buscarCuenta(codigo), periodo,
+                        new LibroMayorTableModelSink(modelo)),
+                saldo -> labelSaldo.setText("Saldo final: " + saldo.toPlainString()));
+    }
+
+    private void exportarCsv() {
+        exportar(buttonCsv, "CSV", "csv", (archivo, cuenta, periodo) -> {
+            try (Writer writer = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8);
+                    LibroMayorCsvSink sink = new LibroMayorCsvSink(writer)) {
+                return libroMayorService.generarLibroMayor(cuenta, periodo, sink);
+            }
+        });
+    }
+
+    private void exportarPdf() {
+        exportar(buttonPdf, "PDF", "pdf", (archivo, cuenta, periodo) -> {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(archivo));
+                    LibroMayorPdfSink sink = new LibroMayorPdfSink(out)) {
+                return libroMayorService.generarLibroMayor(cuenta, periodo, sink);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Exportacion {
+
+        BigDecimal exportar(Path archivo, Account cuenta, Period periodo) throws Exception;
+    }
+
+    private void exportar(JButton boton, String formato, String extension, Exportacion exportacion) {
+        if (!validar()) {
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Libro Mayor (" + formato + ")", extension));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        String ruta = chooser.getSelectedFile().getAbsolutePath();
+        Path archivo = Path.of(ruta.toLowerCase().endsWith("." + extension) ? ruta : ruta + "." + extension);
+        String codigo = txtCuenta.getText().trim();
+        Period periodo = (Period) comboPeriodo.getSelectedItem();
+        ejecutar(boton, "Exportando Libro Mayor a " + formato,
+                progreso -> exportacion.exportar(archivo, buscarCuenta(codigo), periodo),
+                saldo -> DialogUtils.showSuccessDialog(this, "Libro Mayor exportado en " + archivo,
+                        "Libro Mayor", SimpleModalBorder.CLOSE_OPTION));
+    }
+
+    /**
+     * Ejecuta la generación en segundo plano con el botón deshabilitado
+     * mientras dura.
+     */
+    private void ejecutar(JButton boton, String descripcion, TaskManager.Trabajo<BigDecimal> trabajo,
+            Consumer<BigDecimal> alTerminar) {
+        boton.setEnabled(false);
+        TaskManager.ejecutar(boton, descripcion, trabajo, alTerminar,
+                error -> {
+                    labelSaldo.setText(" ");
+                    log.error("No se pudo generar el Libro Mayor", error);
+                    DialogUtils.showErrorDialog(this, error.getMessage(), "Libro Mayor", SimpleModalBorder.CLOSE_OPTION);
+                },
+                () -> boton.setEnabled(true));
+    }
+
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        labelTitulo = new javax.swing.JLabel();
+        jLabel1 = new javax.swing.JLabel();
+        txtCuenta = new javax.swing.JTextField();
+        jLabel2 = new javax.swing.JLabel();
+        comboPeriodo = new javax.swing.JComboBox<>();
+        buttonGenerar = new javax.swing.JButton();
+        buttonCsv = new javax.swing.JButton();
+        buttonPdf = new javax.swing.JButton();
+        jScrollPane1 = new javax.swing.JScrollPane();
+        tableMayor = new javax.swing.JTable();
+        labelSaldo = new javax.swing.JLabel();
+
+        labelTitulo.setText("Libro Mayor");
+
+        jLabel1.setText("Cuenta:");
+
+        jLabel2.setText("Período:");
+
+        buttonGenerar.setText("Generar");
+        buttonGenerar.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                buttonGenerarActionPerformed(evt);
+            }
+        });
+
+        buttonCsv.setText("Exportar CSV...");
+        buttonCsv.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                buttonCsvActionPerformed(evt);
+            }
+        });
+
+        buttonPdf.setText("Exportar PDF...");
+        buttonPdf.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                buttonPdfActionPerformed(evt);
+            }
+        });
+
+        jScrollPane1.setViewportView(tableMayor);
+
+        labelSaldo.setText(" ");
+
+        javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
+        this.setLayout(layout);
+        layout.setHorizontalGroup(
+            layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(jScrollPane1, javax.swing.GroupLayout.DEFAULT_SIZE, 760, Short.MAX_VALUE)
+                    .addComponent(labelSaldo, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(labelTitulo)
+                        .addGap(20, 20, 20)
+                        .addComponent(jLabel1)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(txtCuenta, javax.swing.GroupLayout.DEFAULT_SIZE, 140, Short.MAX_VALUE)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                        .addComponent(jLabel2)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(comboPeriodo, 0, 160, Short.MAX_VALUE)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                        .addComponent(buttonGenerar)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(buttonCsv)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(buttonPdf)))
+                .addContainerGap())
+        );
+        layout.setVerticalGroup(
+            layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(labelTitulo)
+                    .addComponent(jLabel1)
+                    .addComponent(txtCuenta, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(jLabel2)
+                    .addComponent(comboPeriodo, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(buttonGenerar)
+                    .addComponent(buttonCsv)
+                    .addComponent(buttonPdf))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jScrollPane1, javax.swing.GroupLayout.DEFAULT_SIZE, 400, Short.MAX_VALUE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(labelSaldo)
+                .addContainerGap())
+        );
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void buttonGenerarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonGenerarActionPerformed
+        generar();
+    }//GEN-LAST:event_buttonGenerarActionPerformed
+
+    private void buttonCsvActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonCsvActionPerformed
+        exportarCsv();
+    }//GEN-LAST:event_buttonCsvActionPerformed
+
+    private void buttonPdfActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonPdfActionPerformed
+        exportarPdf();
+    }//GEN-LAST:event_buttonPdfActionPerformed
+
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton buttonCsv;
+    private javax.swing.JButton buttonGenerar;
+    private javax.swing.JButton buttonPdf;
+    private javax.swing.JComboBox<Period> comboPeriodo;
+    private javax.swing.JLabel jLabel1;
+    private javax.swing.JLabel jLabel2;
+    private javax.swing.JScrollPane jScrollPane1;
+    private javax.swing.JLabel labelSaldo;
+    private javax.swing.JLabel labelTitulo;
+    private javax.swing.JTable tableMayor;
+    private javax.swing.JTextField txtCuenta;
+    // End of variables declaration//GEN-END:variables
+}
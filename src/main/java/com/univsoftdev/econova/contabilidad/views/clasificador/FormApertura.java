@@ -38,7 +38,7 @@ public class FormApertura extends Modal {
     }
 
     private void cerrarActionPerformed(ActionEvent e) {
-        tree.setModel(planDeCuentasService.crearModelPlanDeCuentas());
+        tree.setModel(new PlanDeCuentasTreeModel("Plan de Cuentas", planDeCuentasService.findNodosPlanDeCuentas()));
         ModalDialog.closeModal(this.getId());
     }
 
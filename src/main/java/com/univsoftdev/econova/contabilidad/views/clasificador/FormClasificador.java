@@ -3,24 +3,25 @@ package com.univsoftdev.econova.contabilidad.views.clasificador;
 import com.univsoftdev.econova.core.Injector;
 import javax.swing.border.*;
 import javax.swing.table.*;
+import com.univsoftdev.econova.contabilidad.dto.NodoCuentaDto;
 import com.univsoftdev.econova.contabilidad.model.Account;
+import com.univsoftdev.econova.contabilidad.service.ImportacionPlanCuentasService;
+import com.univsoftdev.econova.contabilidad.service.ImportacionPlanCuentasService.ResultadoImportacion;
 import com.univsoftdev.econova.contabilidad.service.PlanDeCuentasService;
 import java.awt.event.*;
 import javax.swing.event.*;
 import javax.swing.tree.*;
 import com.univsoftdev.econova.core.component.*;
 import com.univsoftdev.econova.core.system.Form;
+import com.univsoftdev.econova.core.system.TaskManager;
 import com.univsoftdev.econova.core.utils.DialogUtils;
 import java.awt.*;
 import java.io.File;
-import java.io.IOException;
-import java.nio.charset.Charset;
+import java.nio.file.Path;
 import javax.swing.*;
 import javax.swing.filechooser.FileFilter;
 import net.miginfocom.swing.*;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
+import raven.modal.component.SimpleModalBorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,7 +29,9 @@ public class FormClasificador extends Form {
 
     private static final long serialVersionUID = -7448497926761135593L;
     private static final Logger LOGGER = LoggerFactory.getLogger(FormClasificador.class);
+    private static final int MAX_ERRORES_MOSTRADOS = 20;
     private final PlanDeCuentasService planDeCuentasService;
+    private transient Account cuentaSeleccionada;
 
     public FormClasificador() {
         initComponents();
@@ -42,37 +45,46 @@ public class FormClasificador extends Form {
     }
 
     private void tree1ValueChanged(TreeSelectionEvent e) {
-        try {
-            TreePath selectedPath = e.getPath();
-            if (selectedPath != null) {
-                DefaultMutableTreeNode selectedNode = (DefaultMutableTreeNode) selectedPath.getLastPathComponent();
-                DefaultTreeModel treeModel = (DefaultTreeModel) tree1.getModel();
-                DefaultMutableTreeNode rootPrincipal = (DefaultMutableTreeNode) treeModel.getRoot();
-
-                if (selectedNode != rootPrincipal) {
-                    var cuenta = (Account) selectedNode.getUserObject();
-                    textFieldClave.setText(cuenta.getCode());
-                    textFieldDescripcion.setText(cuenta.getName());
-                    textFieldNaturaleza.setText(cuenta.getNatureOfAccount().name());
-                    textFieldTipo.setText(cuenta.getAccountType().name());
-                    if (cuenta.getSubAccounts().isEmpty()) {
-                        textFieldApertura.setText("");
-                    } else {
-                        textFieldApertura.setText(cuenta.getTypeOfOpening().getDescription());
-                    }
-                    textFieldMoneda.setText(cuenta.getCurrency().getSymbol());
-                } else {
-                    textFieldClave.setText("");
-                    textFieldDescripcion.setText("");
-                    textFieldNaturaleza.setText("");
-                    textFieldTipo.setText("");
-                    textFieldMoneda.setText("");
-                    textFieldApertura.setText("");
-                }
-            }
-        } catch (Exception ex) {
-            LOGGER.error(ex.getMessage());
+        TreePath selectedPath = e.getNewLeadSelectionPath();
+        cuentaSeleccionada = null;
+        if (selectedPath == null || !(selectedPath.getLastPathComponent() instanceof NodoCuentaDto nodo)) {
+            mostrarCuenta(null);
+            return;
+        }
+        // La entidad completa solo se carga para la cuenta seleccionada
+        boolean tieneSubcuentas = !tree1.getModel().isLeaf(nodo);
+        TaskManager.ejecutar(tree1, "Cargando cuenta " + nodo.codigo(),
+                progreso -> planDeCuentasService.findCuentaById(nodo.id())
+                        .map(cuenta -> new DetalleCuenta(cuenta, tieneSubcuentas,
+                        cuenta.getCurrency() != null ? cuenta.getCurrency().getSymbol() : ""))
+                        .orElse(null),
+                this::mostrarCuenta,
+                error -> LOGGER.error("No se pudo cargar la cuenta {}", nodo.codigo(), error));
+    }
+
+    private void mostrarCuenta(DetalleCuenta detalle) {
+        if (detalle == null) {
+            cuentaSeleccionada = null;
+            textFieldClave.setText("");
+            textFieldDescripcion.setText("");
+            textFieldNaturaleza.setText("");
+            textFieldTipo.setText("");
+            textFieldMoneda.setText("");
+            textFieldApertura.setText("");
+            return;
+        }
+        Account cuenta = detalle.cuenta();
+        cuentaSeleccionada = cuenta;
+        textFieldClave.setText(cuenta.getCode());
+        textFieldDescripcion.setText(cuenta.getName());
+        textFieldNaturaleza.setText(cuenta.getNatureOfAccount() != null ? cuenta.getNatureOfAccount().name() : "");
+        textFieldTipo.setText(cuenta.getAccountType() != null ? cuenta.getAccountType().name() : "");
+        if (!detalle.tieneSubcuentas() || cuenta.getTypeOfOpening() == null) {
+            textFieldApertura.setText("");
+        } else {
+            textFieldApertura.setText(cuenta.getTypeOfOpening().getDescription());
         }
+        textFieldMoneda.setText(detalle.moneda());
     }
 
     private void aperturaActionPerformed(ActionEvent e) {
@@ -81,15 +93,11 @@ public class FormClasificador extends Form {
 
         if (selectedPath != null) {
 
-            DefaultMutableTreeNode selectedNode = (DefaultMutableTreeNode) selectedPath.getLastPathComponent();
-            DefaultTreeModel treeModel = (DefaultTreeModel) tree1.getModel();
-            DefaultMutableTreeNode rootPrincipal = (DefaultMutableTreeNode) treeModel.getRoot();
-
             //Si es el nodo principal muestro la opcion de añadir nuevas cuentas
-            if (selectedNode == rootPrincipal) {
+            if (selectedPath.getLastPathComponent() == tree1.getModel().getRoot()) {
                 DialogUtils.showModalDialog(this, new FormApertura(tree1), "Cuentas de la Apertura");
-            } else {
-                Account cuenta = (Account) selectedNode.getUserObject();
+            } else if (cuentaSeleccionada != null) {
+                Account cuenta = cuentaSeleccionada;
                 //Si la cuenta tiene apertura , muestro dialogo para añadir mas subcuentas
                 if (cuenta.isOpening()) {
                     DialogUtils.showModalDialog(this, new FormAperturaCuenta(tree1, planDeCuentasService, cuenta), "Aperturas de la Cuenta");
@@ -97,6 +105,9 @@ public class FormClasificador extends Form {
                     //Si la cuenta no tiene apertura muestro el dialogo para seleccionar el tipo de apertura
                     DialogUtils.showModalDialog(this, new FormTipoApertura(tree1, planDeCuentasService, cuenta), "Tipo de Apertura");
                 }
+            } else {
+                // La cuenta seleccionada todavía se está cargando
+                return;
             }
 
             updateTree();
@@ -105,33 +116,56 @@ public class FormClasificador extends Form {
 
     private void importarActionPerformed(ActionEvent e) {
         JFileChooser chooser = new JFileChooser();
+        chooser.setAcceptAllFileFilterUsed(false);
         chooser.addChoosableFileFilter(new FileFilter() {
             @Override
             public boolean accept(File f) {
-                return f.getAbsolutePath().endsWith("csv");
+                String nombre = f.getName().toLowerCase();
+                return f.isDirectory() || nombre.endsWith(".csv") || nombre.endsWith(".xlsx");
             }
 
             @Override
             public String getDescription() {
-                return "Archivos separados por coma (CSV)";
+                return "Archivos CSV o Excel (*.csv, *.xlsx)";
             }
         });
         chooser.setApproveButtonText("Importar");
-        int showOpenDialog = chooser.showOpenDialog(panel1);
-        if (showOpenDialog == JFileChooser.APPROVE_OPTION) {
-            File selectedFile = chooser.getSelectedFile();
-            try {
-                CSVParser parse = CSVParser.parse(selectedFile, Charset.defaultCharset(), CSVFormat.DEFAULT);
-                java.util.List<CSVRecord> records = parse.getRecords();
-                records.stream().forEach(r -> System.out.println(r.get(0)));
-            } catch (IOException ex) {
-                System.getLogger(FormClasificador.class.getName()).log(System.Logger.Level.ERROR, (String) null, ex);
-            }
+        if (chooser.showOpenDialog(panel1) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
+        Path archivo = chooser.getSelectedFile().toPath();
+        ImportacionPlanCuentasService importacion = Injector.get(ImportacionPlanCuentasService.class);
+        buttonImportar.setEnabled(false);
+        TaskManager.ejecutar(buttonImportar, "Importando plan de cuentas",
+                progreso -> importacion.importar(archivo, progreso),
+                resultado -> {
+                    mostrarResultadoImportacion(resultado);
+                    updateTree();
+                },
+                error -> {
+                    LOGGER.error("No se pudo importar {}", archivo, error);
+                    DialogUtils.showErrorDialog(this, error.getMessage(), "Importar plan de cuentas", SimpleModalBorder.CLOSE_OPTION);
+                },
+                () -> buttonImportar.setEnabled(true));
     }
 
-    public void processLine(String line) {
-
+    private void mostrarResultadoImportacion(ResultadoImportacion resultado) {
+        if (resultado == null || resultado.cancelada()) {
+            return;
+        }
+        StringBuilder mensaje = new StringBuilder()
+                .append(resultado.importadas()).append(" de ").append(resultado.leidas()).append(" cuentas importadas.");
+        if (resultado.totalErrores() == 0) {
+            DialogUtils.showSuccessDialog(this, mensaje.toString(), "Importar plan de cuentas", SimpleModalBorder.CLOSE_OPTION);
+            return;
+        }
+        mensaje.append("\n").append(resultado.totalErrores()).append(" filas con errores:");
+        resultado.errores().stream().limit(MAX_ERRORES_MOSTRADOS)
+                .forEach(error -> mensaje.append("\n").append(error));
+        if (resultado.totalErrores() > MAX_ERRORES_MOSTRADOS) {
+            mensaje.append("\n...");
+        }
+        DialogUtils.showWarningDialog(this, mensaje.toString(), "Importar plan de cuentas", SimpleModalBorder.CLOSE_OPTION);
     }
 
     private void exportar(ActionEvent e) {
@@ -707,6 +741,22 @@ public class FormClasificador extends Form {
     // JFormDesigner - End of variables declaration  //GEN-END:variables  @formatter:on
 
     private void updateTree() {
-        tree1.setModel(planDeCuentasService.crearModelPlanDeCuentas());
+        ejecutarEnSegundoPlano("Cargando plan de cuentas",
+                progreso -> new PlanDeCuentasTreeModel("Plan de Cuentas", planDeCuentasService.findNodosPlanDeCuentas()),
+                this::mostrarArbol);
+    }
+
+    private void mostrarArbol(PlanDeCuentasTreeModel modelo) {
+        Account anterior = cuentaSeleccionada;
+        tree1.setModel(modelo);
+        // Conservar la selección tras recargar
+        TreePath ruta = anterior != null && anterior.getId() != null ? modelo.getPath(anterior.getId()) : null;
+        if (ruta != null) {
+            tree1.setSelectionPath(ruta);
+            tree1.scrollPathToVisible(ruta);
+        }
+    }
+
+    private record DetalleCuenta(Account cuenta, boolean tieneSubcuentas, String moneda) {
     }
 }
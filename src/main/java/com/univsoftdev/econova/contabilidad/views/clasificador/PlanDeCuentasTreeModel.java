@@ -0,0 +1,209 @@
+package com.univsoftdev.econova.contabilidad.views.clasificador;
+
+import com.univsoftdev.econova.contabilidad.dto.NodoCuentaDto;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+
+/**
+ * Modelo de solo lectura del árbol del plan de cuentas construido a partir de
+ * una única consulta de proyección.
+ * <p>
+ * Los hijos de cada cuenta se guardan en arreglos de enteros contiguos y la
+ * posición de cada cuenta se busca por su id en un índice de tipos
+ * primitivos, de modo que abrir un plan con decenas de miles de subcuentas
+ * no crea un nodo Swing por cuenta ni consulta la base de datos al expandir.
+ * Los nodos son {@link NodoCuentaDto}; la raíz es un texto.
+ */
+public class PlanDeCuentasTreeModel implements TreeModel {
+
+    private static final int RAIZ = -1;
+
+    private final Object raiz;
+    private final NodoCuentaDto[] nodos;
+    private final IndiceIds indice;
+    private final int[] padres;
+    // Hijos de la raíz en [inicioHijos[0], inicioHijos[1]) y los del nodo i
+    // en [inicioHijos[i + 1], inicioHijos[i + 2])
+    private final int[] inicioHijos;
+    private final int[] hijos;
+    private final int[] posicionEnPadre;
+    private final EventListenerList listeners = new EventListenerList();
+
+    /**
+     * @param raiz Texto del nodo raíz.
+     * @param cuentas Cuentas en el orden en que se mostrarán sus hermanas.
+     */
+    public PlanDeCuentasTreeModel(String raiz, List<NodoCuentaDto> cuentas) {
+        this.raiz = raiz;
+        this.nodos = cuentas.toArray(NodoCuentaDto[]::new);
+        int n = nodos.length;
+
+        indice = new IndiceIds(n);
+        for (int i = 0; i < n; i++) {
+            indice.put(nodos[i].id(), i);
+        }
+
+        padres = new int[n];
+        inicioHijos = new int[n + 2];
+        for (int i = 0; i < n; i++) {
+            // Las cuentas cuyo padre no está en el plan cuelgan de la raíz
+            padres[i] = nodos[i].tienePadre() ? indice.get(nodos[i].padreId()) : RAIZ;
+            inicioHijos[padres[i] + 2]++;
+        }
+        for (int i = 1; i < inicioHijos.length; i++) {
+            inicioHijos[i] += inicioHijos[i - 1];
+        }
+
+        hijos = new int[n];
+        posicionEnPadre = new int[n];
+        int[] siguiente = Arrays.copyOf(inicioHijos, n + 1);
+        for (int i = 0; i < n; i++) {
+            int ranura = siguiente[padres[i] + 1]++;
+            hijos[ranura] = i;
+            posicionEnPadre[i] = ranura - inicioHijos[padres[i] + 1];
+        }
+    }
+
+    @Override
+    public Object getRoot() {
+        return raiz;
+    }
+
+    @Override
+    public Object getChild(Object parent, int index) {
+        int padre = indiceDe(parent);
+        return nodos[hijos[inicioHijos[padre + 1] + index]];
+    }
+
+    @Override
+    public int getChildCount(Object parent) {
+        int padre = indiceDe(parent);
+        if (padre < RAIZ) {
+            return 0;
+        }
+        return inicioHijos[padre + 2] - inicioHijos[padre + 1];
+    }
+
+    @Override
+    public boolean isLeaf(Object node) {
+        return node != raiz && getChildCount(node) == 0;
+    }
+
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        if (!(child instanceof NodoCuentaDto)) {
+            return -1;
+        }
+        int hijo = indiceDe(child);
+        if (hijo < 0 || padres[hijo] != indiceDe(parent)) {
+            return -1;
+        }
+        return posicionEnPadre[hijo];
+    }
+
+    /**
+     * Ruta desde la raíz hasta una cuenta, para volver a seleccionarla tras
+     * recargar el árbol.
+     *
+     * @param cuentaId Id de la cuenta.
+     * @return La ruta, o {@code null} si la cuenta no está en el árbol.
+     */
+    public TreePath getPath(long cuentaId) {
+        int actual = indice.get(cuentaId);
+        if (actual < 0) {
+            return null;
+        }
+        Deque<Object> ruta = new ArrayDeque<>();
+        // El límite de pasos protege frente a ciclos en los datos
+        for (int pasos = 0; actual != RAIZ && pasos < nodos.length; pasos++, actual = padres[actual]) {
+            ruta.addFirst(nodos[actual]);
+        }
+        ruta.addFirst(raiz);
+        return new TreePath(ruta.toArray());
+    }
+
+    public int getCantidadCuentas() {
+        return nodos.length;
+    }
+
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        // El árbol es de solo lectura; los cambios se hacen en los formularios
+        // de cuentas y se recarga el modelo
+    }
+
+    @Override
+    public void addTreeModelListener(TreeModelListener l) {
+        listeners.add(TreeModelListener.class, l);
+    }
+
+    @Override
+    public void removeTreeModelListener(TreeModelListener l) {
+        listeners.remove(TreeModelListener.class, l);
+    }
+
+    /**
+     * Posición de un nodo en el modelo: {@link #RAIZ} para la raíz y menor
+     * que ella para objetos que no pertenecen al árbol.
+     */
+    private int indiceDe(Object nodo) {
+        if (nodo == raiz) {
+            return RAIZ;
+        }
+        if (nodo instanceof NodoCuentaDto cuenta) {
+            int i = indice.get(cuenta.id());
+            return i >= 0 ? i : RAIZ - 1;
+        }
+        return RAIZ - 1;
+    }
+
+    /**
+     * Tabla hash de direccionamiento abierto de id de cuenta a posición, sin
+     * objetos envoltorio por entrada.
+     */
+    private static final class IndiceIds {
+
+        private final long[] claves;
+        private final int[] valores;
+        private final int mascara;
+
+        IndiceIds(int capacidad) {
+            int tamano = Integer.highestOneBit(Math.max(1, capacidad) * 2) << 1;
+            claves = new long[tamano];
+            valores = new int[tamano];
+            Arrays.fill(valores, -1);
+            mascara = tamano - 1;
+        }
+
+        void put(long id, int valor) {
+            int i = hash(id) & mascara;
+            while (valores[i] != -1 && claves[i] != id) {
+                i = (i + 1) & mascara;
+            }
+            claves[i] = id;
+            valores[i] = valor;
+        }
+
+        int get(long id) {
+            int i = hash(id) & mascara;
+            while (valores[i] != -1) {
+                if (claves[i] == id) {
+                    return valores[i];
+                }
+                i = (i + 1) & mascara;
+            }
+            return -1;
+        }
+
+        private static int hash(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.univsoftdev.econova.contabilidad.views.comprobante;
+
+import com.univsoftdev.econova.contabilidad.dto.FiltroAsientos;
+import com.univsoftdev.econova.contabilidad.model.AccountingEntry;
+import com.univsoftdev.econova.contabilidad.service.AsientoService;
+import com.univsoftdev.econova.core.system.TaskManager;
+import io.ebean.PagedList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.table.AbstractTableModel;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Modelo de tabla del listado de comprobantes que carga las filas por páginas
+ * a medida que la tabla las pide. El filtro y la ordenación se resuelven en la
+ * base de datos, y solo se mantienen en memoria las últimas páginas leídas.
+ */
+@Slf4j
+public class ComprobantesTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    static final int TAMANO_PAGINA = 200;
+    private static final int MAX_PAGINAS_EN_MEMORIA = 20;
+
+    private static final String[] COLUMNAS = {
+        "Nro.", "Descripción", "Estado", "Fecha", "Subsistema", "Usuario", "Unidad"
+    };
+    private static final String[] PROPIEDADES = {
+        "nro", "description", "estadoAsiento", "fecha", "subSystem", "modifiedBy.fullName", "unit.code"
+    };
+
+    private final transient AsientoService asientoService;
+    private final transient Map<Integer, List<AccountingEntry>> paginas
+            = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<AccountingEntry>> eldest) {
+            return size() > MAX_PAGINAS_EN_MEMORIA;
+        }
+    };
+    private final Set<Integer> paginasPendientes = new HashSet<>();
+
+    private transient FiltroAsientos filtro = FiltroAsientos.todos();
+    private int columnaOrden = 0;
+    private boolean ascendente = true;
+    private int totalFilas;
+    // Se incrementa con cada recarga para descartar páginas de una consulta anterior
+    private int generacion;
+
+    public ComprobantesTableModel(AsientoService asientoService) {
+        this.asientoService = asientoService;
+    }
+
+    /**
+     * Cambia el filtro y vuelve a cargar desde la primera página.
+     *
+     * @param filtro Nuevo filtro.
+     */
+    public void setFiltro(FiltroAsientos filtro) {
+        this.filtro = filtro;
+        recargar();
+    }
+
+    /**
+     * Ordena por una columna; si ya era la columna de ordenación, invierte el
+     * sentido.
+     *
+     * @param columna Índice de la columna del modelo.
+     */
+    public void ordenarPor(int columna) {
+        if (columna < 0 || columna >= PROPIEDADES.length) {
+            return;
+        }
+        ascendente = columna != columnaOrden || !ascendente;
+        columnaOrden = columna;
+        recargar();
+    }
+
+    /**
+     * Descarta las páginas en memoria y vuelve a consultar el total y la
+     * primera página.
+     */
+    public void recargar() {
+        generacion++;
+        paginas.clear();
+        paginasPendientes.clear();
+        cargarPagina(0, true);
+    }
+
+    /**
+     * Asiento de una fila, o {@code null} si su página todavía no se ha
+     * cargado.
+     *
+     * @param fila Índice de la fila del modelo.
+     * @return El asiento de la fila.
+     */
+    public AccountingEntry getAsiento(int fila) {
+        List<AccountingEntry> pagina = paginas.get(fila / TAMANO_PAGINA);
+        if (pagina == null) {
+            cargarPagina(fila / TAMANO_PAGINA, false);
+            return null;
+        }
+        int indice = fila % TAMANO_PAGINA;
+        return indice < pagina.size() ? pagina.get(indice) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return totalFilas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        String nombre = COLUMNAS[column];
+        if (column == columnaOrden) {
+            return nombre + (ascendente ? " ▲" : " ▼");
+        }
+        return nombre;
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        AccountingEntry asiento = getAsiento(rowIndex);
+        if (asiento == null) {
+            return columnIndex == 1 ? "Cargando..." : null;
+        }
+        return switch (columnIndex) {
+            case 0 ->
+                asiento.getNro();
+            case 1 ->
+                asiento.getDescription();
+            case 2 ->
+                asiento.getEstadoAsiento() != null ? asiento.getEstadoAsiento().getDescripcion() : null;
+            case 3 ->
+                asiento.getFecha();
+            case 4 ->
+                asiento.getSubSystem() != null ? asiento.getSubSystem().getDescription() : null;
+            case 5 ->
+                asiento.getModifiedBy() != null ? asiento.getModifiedBy().getFullName() : null;
+            case 6 ->
+                asiento.getUnidad() != null ? asiento.getUnidad().getCode() : null;
+            default ->
+                null;
+        };
+    }
+
+    private void cargarPagina(int numeroPagina, boolean recalcularTotal) {
+        if (!paginasPendientes.add(numeroPagina)) {
+            return;
+        }
+        final int generacionConsulta = generacion;
+        final FiltroAsientos filtroConsulta = filtro;
+        final String orden = PROPIEDADES[columnaOrden] + (ascendente ? " asc" : " desc");
+        // El total se lee en el hilo de eventos, que es el único que lo modifica
+        final int totalActual = totalFilas;
+
+        TaskManager.ejecutar(new ClavePagina(this, numeroPagina), "Cargando comprobantes",
+                progreso -> {
+                    PagedList<AccountingEntry> pagina = asientoService.findPagina(filtroConsulta, orden, numeroPagina, TAMANO_PAGINA);
+                    int total = recalcularTotal ? pagina.getTotalCount() : totalActual;
+                    return new PaginaCargada(pagina.getList(), total);
+                },
+                pagina -> publicarPagina(generacionConsulta, numeroPagina, recalcularTotal, pagina),
+                error -> log.error("No se pudo cargar la página {} de comprobantes", numeroPagina, error),
+                () -> {
+                    // También tras una cancelación, para que la página pueda volver a pedirse
+                    if (generacionConsulta == generacion) {
+                        paginasPendientes.remove(numeroPagina);
+                    }
+                });
+    }
+
+    private void publicarPagina(int generacionConsulta, int numeroPagina, boolean recalcularTotal, PaginaCargada pagina) {
+        if (generacionConsulta != generacion) {
+            return;
+        }
+        paginasPendientes.remove(numeroPagina);
+        paginas.put(numeroPagina, pagina.filas());
+        if (recalcularTotal) {
+            totalFilas = pagina.total();
+            fireTableStructureChanged();
+        } else {
+            int desde = numeroPagina * TAMANO_PAGINA;
+            int hasta = Math.min(desde + TAMANO_PAGINA, totalFilas) - 1;
+            if (hasta >= desde) {
+                fireTableRowsUpdated(desde, hasta);
+            }
+        }
+    }
+
+    private record ClavePagina(ComprobantesTableModel modelo, int pagina) {
+    }
+
+    private record PaginaCargada(List<AccountingEntry> filas, int total) {
+    }
+}
@@ -14,7 +14,6 @@ import com.univsoftdev.econova.core.AppContext;
 import com.univsoftdev.econova.core.AppSession;
 import com.univsoftdev.econova.core.Injector;
 import com.univsoftdev.econova.core.component.*;
-import com.univsoftdev.econova.core.utils.table.TableColumnAdjuster;
 import jakarta.validation.constraints.NotNull;
 import java.awt.*;
 import java.awt.event.*;
@@ -131,7 +130,8 @@ public class DialogNuevoComprobante extends JDialog {
         }
 
         try {
-            nro = contabilidadService.obtenerSiguienteCodigoDeAsiento(appContext.getSession().getPeriodo());
+            nro = contabilidadService.obtenerSiguienteCodigoDeAsiento(appContext.getSession().getUnidad(),
+                    appContext.getSession().getPeriodo());
         } catch (Exception e) {
             JOptionPane.showMessageDialog(null, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
@@ -306,16 +306,9 @@ public class DialogNuevoComprobante extends JDialog {
                 if (guardarCambios) {
                     if (!persistido) {
                         contabilidadService.save(asiento);
-                        var model = (DefaultTableModel) this.tableComprobantes.getModel();
-                        model.addRow(new Object[]{
-                            asiento.getNro(),
-                            asiento.getDescription(),
-                            asiento.getEstadoAsiento(),
-                            asiento.getFecha(),
-                            SubSystem.CONTABILIDAD.getDescription(),
-                            asiento.getModifiedBy().getFullName(),
-                            asiento.getUnidad().getCode()
-                        });
+                        if (tableComprobantes != null && tableComprobantes.getModel() instanceof ComprobantesTableModel model) {
+                            model.recargar();
+                        }
                     }
                 }
             } catch (Exception ex) {
@@ -327,9 +320,6 @@ public class DialogNuevoComprobante extends JDialog {
                 new DialogNuevoComprobante(null).setVisible(true);
             }
         }
-
-        TableColumnAdjuster adjuster = new TableColumnAdjuster(tableComprobantes);
-        adjuster.adjustColumns();
     }
 
     private void guardarActionPerformed(ActionEvent e) {
@@ -634,7 +624,6 @@ public class DialogNuevoComprobante extends JDialog {
     private void guardarAsiento(EstadoAsiento estadoAsiento) {
         try {
             // Configurar el asiento con todos los campos obligatorios
-            asiento.setNro(nro);
             asiento.setSubSystem(SubSystem.CONTABILIDAD);
             asiento.setDescription(txtDescripcion.getText());
             asiento.setFecha(datePickerSwing1.getSelectedDate());
@@ -647,6 +636,7 @@ public class DialogNuevoComprobante extends JDialog {
                     "No se ha configurado el período contable en la sesión"));
             asiento.setUser(Objects.requireNonNull(session.getUser(),
                     "No hay usuario autenticado en la sesión"));
+            asiento.setNro(nro);
 
             // Procesar transacciones
             final var asientoProcessorFactory = Injector.get(AsientoProcessorFactory.class);
@@ -671,10 +661,16 @@ public class DialogNuevoComprobante extends JDialog {
                 throw new IllegalStateException("El asiento no está cuadrado");
             }
 
-            // Guardar el asiento
+            // Guardar el asiento. El número mostrado al abrir es orientativo;
+            // el definitivo se reserva en la misma transacción del primer guardado.
             validarAsiento();
-            contabilidadService.save(asiento);
-            persistido = true;
+            if (persistido) {
+                contabilidadService.save(asiento);
+            } else {
+                contabilidadService.guardarAsientoNuevo(asiento);
+                nro = asiento.getNro();
+                persistido = true;
+            }
             labelValidacion.setForeground(Color.GREEN);
             labelValidacion.setText("Asiento guardado correctamente");
             JOptionPane.showMessageDialog(this, "Asiento guardado con éxito",
@@ -2,12 +2,16 @@ package com.univsoftdev.econova.contabilidad.views.comprobante;
 
 import com.formdev.flatlaf.FlatClientProperties;
 import com.univsoftdev.econova.contabilidad.EstadoAsiento;
+import com.univsoftdev.econova.contabilidad.dto.FiltroAsientos;
 import com.univsoftdev.econova.contabilidad.model.AccountingEntry;
 import com.univsoftdev.econova.contabilidad.service.AsientoService;
+import com.univsoftdev.econova.contabilidad.service.ImportacionAsientosService;
+import com.univsoftdev.econova.contabilidad.service.ImportacionAsientosService.ResultadoImportacionAsientos;
 import com.univsoftdev.econova.core.AppContext;
 import com.univsoftdev.econova.core.Injector;
 import com.univsoftdev.econova.core.component.*;
 import com.univsoftdev.econova.core.system.Form;
+import com.univsoftdev.econova.core.system.TaskManager;
 import com.univsoftdev.econova.core.utils.table.TableColumnAdjuster;
 import com.univsoftdev.econova.core.utils.table.TableHeaderAlignment;
 import jakarta.xml.bind.JAXBContext;
@@ -17,10 +21,14 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.Optional;
 import javax.swing.*;
 import javax.swing.border.*;
+import javax.swing.event.TableModelEvent;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.*;
 import lombok.extern.slf4j.Slf4j;
 import net.miginfocom.swing.*;
@@ -34,7 +42,9 @@ import net.miginfocom.swing.*;
 public class FormComprobantes extends Form {
 
     private static final long serialVersionUID = -2243449267251361338L;
+    private static final int MAX_ERRORES_MOSTRADOS = 20;
     private transient final AsientoService asientoService;
+    private final ComprobantesTableModel comprobantesModel;
 
     /**
      * Inicializa la vista y sus componentes.
@@ -44,10 +54,20 @@ public class FormComprobantes extends Form {
         initComponents();
         ajustarTabla();
         asientoService = Injector.get(AsientoService.class);
+        comprobantesModel = new ComprobantesTableModel(asientoService);
         configurarTabla();
         configurarEventos();
     }
 
+    /**
+     * Vuelve a consultar la página visible con el filtro actual. La consulta
+     * se ejecuta en segundo plano.
+     */
+    @Override
+    public void formRefresh() {
+        comprobantesModel.recargar();
+    }
+
     /** Ajusta el ancho de columnas de la tabla. */
     private void ajustarTabla() {
         TableColumnAdjuster adjuster = new TableColumnAdjuster(tableComprobantes);
@@ -56,6 +76,26 @@ public class FormComprobantes extends Form {
 
     /** Configura estilos y renderizado de la tabla. */
     private void configurarTabla() {
+        // La ordenación la resuelve el modelo en la base de datos; un RowSorter
+        // de Swing obligaría a cargar todas las filas en memoria.
+        tableComprobantes.setAutoCreateRowSorter(false);
+        tableComprobantes.setRowSorter(null);
+        tableComprobantes.setModel(comprobantesModel);
+        tableComprobantes.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int columna = tableComprobantes.columnAtPoint(e.getPoint());
+                if (columna >= 0) {
+                    comprobantesModel.ordenarPor(tableComprobantes.convertColumnIndexToModel(columna));
+                }
+            }
+        });
+        comprobantesModel.addTableModelListener(e -> {
+            if (e.getFirstRow() == TableModelEvent.HEADER_ROW) {
+                tableComprobantes.getColumnModel().getColumn(1).setPreferredWidth(500);
+            }
+            updateLabelCount();
+        });
         tableComprobantes.getTableHeader().setDefaultRenderer(new TableHeaderAlignment(tableComprobantes) {
             @Override
             protected int getAlignment(int column) {
@@ -90,7 +130,7 @@ public class FormComprobantes extends Form {
      */
     private void nuevoComprobante(ActionEvent e) {
         new DialogNuevoComprobante(tableComprobantes).setVisible(true);
-        ajustarTabla();
+        comprobantesModel.recargar();
     }
 
     /**
@@ -123,8 +163,7 @@ public class FormComprobantes extends Form {
     private AccountingEntry getSelectedAsiento() {
         int selectedRow = tableComprobantes.getSelectedRow();
         if (selectedRow < 0) return null;
-        int valueAt = (int) tableComprobantes.getValueAt(selectedRow, 0);
-        var asiento = asientoService.findByNro(valueAt);
+        var asiento = Optional.ofNullable(comprobantesModel.getAsiento(tableComprobantes.convertRowIndexToModel(selectedRow)));
         try {
             return asiento.orElseThrow(() -> new AsientoNotFoundException("No se ha encontrado el Asiento contable."));
         } catch (AsientoNotFoundException ex) {
@@ -184,15 +223,55 @@ public class FormComprobantes extends Form {
     }
 
     /**
-     * Importa comprobantes desde archivo (implementación ejemplo).
+     * Importa comprobantes desde un archivo CSV, XLSX, XML o JSON en segundo
+     * plano. Si una importación anterior del mismo archivo quedó a medias,
+     * continúa tras el último comprobante guardado.
      */
     private void importar(ActionEvent e) {
         JFileChooser chooser = new JFileChooser();
-        int result = chooser.showOpenDialog(this);
-        if (result == JFileChooser.APPROVE_OPTION) {
-            asientoService.importarDesdeArchivo(chooser.getSelectedFile());
-            mostrarComprobantesPeriodo();
+        chooser.setFileFilter(new FileNameExtensionFilter("Comprobantes (CSV, Excel, XML, JSON)", "csv", "xlsx", "xml", "json"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
+        Path archivo = chooser.getSelectedFile().toPath();
+        var session = Injector.get(AppContext.class).getSession();
+        var importacion = Injector.get(ImportacionAsientosService.class);
+        menuItemImportar.setEnabled(false);
+        TaskManager.ejecutar(menuItemImportar, "Importando comprobantes",
+                progreso -> importacion.importar(archivo, session.getUnidad(), session.getUser(), progreso),
+                resultado -> {
+                    mostrarResultadoImportacion(resultado);
+                    mostrarComprobantesPeriodo();
+                },
+                error -> {
+                    log.error("No se pudo importar {}", archivo, error);
+                    JOptionPane.showMessageDialog(this, error.getMessage()
+                            + "\nVuelva a importar el archivo para continuar desde el último comprobante guardado.",
+                            "Importar comprobantes", JOptionPane.ERROR_MESSAGE);
+                },
+                () -> menuItemImportar.setEnabled(true));
+    }
+
+    private void mostrarResultadoImportacion(ResultadoImportacionAsientos resultado) {
+        if (resultado == null || resultado.cancelada()) {
+            return;
+        }
+        StringBuilder mensaje = new StringBuilder()
+                .append(resultado.importados()).append(" comprobantes importados");
+        if (resultado.reanudadaDesde() > 0) {
+            mensaje.append(" (reanudada tras ").append(resultado.reanudadaDesde()).append(")");
+        }
+        mensaje.append('.');
+        if (resultado.totalErrores() > 0) {
+            mensaje.append("\n").append(resultado.totalErrores()).append(" comprobantes con errores:");
+            resultado.errores().stream().limit(MAX_ERRORES_MOSTRADOS)
+                    .forEach(error -> mensaje.append("\n").append(error));
+            if (resultado.totalErrores() > MAX_ERRORES_MOSTRADOS) {
+                mensaje.append("\n...");
+            }
+        }
+        JOptionPane.showMessageDialog(this, mensaje.toString(), "Importar comprobantes",
+                resultado.totalErrores() > 0 ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
     }
 
     /**
@@ -241,8 +320,7 @@ public class FormComprobantes extends Form {
     private void buscar(ActionEvent e) {
         String query = JOptionPane.showInputDialog(this, "Buscar por descripción o número:");
         if (query != null && !query.isBlank()) {
-            var resultados = asientoService.buscar(query);
-            updateTableView(resultados);
+            comprobantesModel.setFiltro(FiltroAsientos.porTexto(query));
         }
     }
 
@@ -265,42 +343,19 @@ public class FormComprobantes extends Form {
     }
 
     /**
-     * Filtra y muestra los comprobantes del periodo.
+     * Muestra los comprobantes del periodo. El filtro se aplica en la base de
+     * datos y las filas se cargan por páginas al desplazarse.
      */
     private void mostrarComprobantesPeriodo() {
         final var periodo = Injector.get(AppContext.class).getSession().getPeriodo();
-        final var listaDeAsientos = asientoService.findAll().stream()
-                .filter(a -> estaEntreFechas(a.getFecha(), periodo.getStartDate(), periodo.getEndDate()))
-                .toList();
-        updateTableView(listaDeAsientos);
-    }
-
-    /**
-     * Actualiza la tabla con la lista de asientos.
-     */
-    void updateTableView(java.util.List<AccountingEntry> listaDeAsientos) {
-        var model = (DefaultTableModel) this.tableComprobantes.getModel();
-        model.setRowCount(0); // Limpia la tabla antes de agregar
-        for (AccountingEntry asiento : listaDeAsientos) {
-            model.addRow(new Object[]{
-                asiento.getNro(),
-                asiento.getDescription(),
-                asiento.getEstadoAsiento().getDescripcion(),
-                asiento.getFecha(),
-                asiento.getSubSystem().getDescription(),
-                asiento.getModifiedBy(),
-                asiento.getUnidad().getCode()
-            });
-        }
-        updateLabelCount();
+        comprobantesModel.setFiltro(periodo != null ? FiltroAsientos.delPeriodo(periodo.getId()) : FiltroAsientos.todos());
     }
 
     /**
      * Muestra todos los comprobantes.
      */
     private void btnMostrarTodos(ActionEvent e) {
-        java.util.List<AccountingEntry> listaDeAsientos = asientoService.findAll();
-        updateTableView(listaDeAsientos);
+        comprobantesModel.setFiltro(FiltroAsientos.todos());
     }
 
     /**
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import com.univsoftdev.econova.cache.CacheManager;
 import com.univsoftdev.econova.core.Version;
@@ -29,6 +30,7 @@ import lombok.extern.slf4j.Slf4j;
 public class AppContext implements Serializable {
 
     private static final long serialVersionUID = 1L;
+    private static final String PAQUETE_RAIZ = "com.univsoftdev.econova.";
 
     private final transient AppSession session;
     private final transient CacheManager cacheManager;
@@ -60,7 +62,9 @@ public class AppContext implements Serializable {
     }
 
     /**
-     * Añade un módulo con validación y manejo de errores mejorado
+     * Añade un módulo con validación y manejo de errores mejorado. Solo se
+     * inicializa ahora si se carga al arrancar; si no, en
+     * {@link #getModule(String)}.
      *
      * @param module
      */
@@ -75,13 +79,70 @@ public class AppContext implements Serializable {
             return;
         }
 
+        modules.add(module);
+        logEvent("Módulo añadido: " + module.getClass().getSimpleName());
+        if (module.isLoadOnStartup()) {
+            try {
+                initializeModule(module);
+            } catch (RuntimeException e) {
+                modules.remove(module); // Rollback en caso de error  
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Obtiene un módulo añadido, inicializándolo la primera vez que se pide.
+     *
+     * @param moduleId Identificador del módulo
+     * @return El módulo inicializado, o vacío si no se añadió
+     */
+    public Optional<Module> getModule(String moduleId) {
+        for (Module module : modules) {
+            if (module.getModuleId().equals(moduleId)) {
+                initializeModule(module);
+                return Optional.of(module);
+            }
+        }
+        if (moduleDependencyManager.isRegistered(moduleId)) {
+            try {
+                return Optional.of(moduleDependencyManager.getModule(moduleId));
+            } catch (ModuleInitializationException e) {
+                log.error("Error al inicializar módulo {}: {}", moduleId, e.getMessage(), e);
+                throw new RuntimeException("Fallo al inicializar módulo", e);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Obtiene el módulo al que pertenece una clase, inicializándolo la primera
+     * vez. El módulo se deduce del paquete: las clases de
+     * {@code com.univsoftdev.econova.<id>} pertenecen al módulo {@code <id>}.
+     * Se llama al abrir un formulario, que es el primer uso de un módulo.
+     *
+     * @param type Clase del formulario
+     * @return El módulo inicializado, o vacío si la clase no pertenece a
+     * ningún módulo
+     */
+    public Optional<Module> getModuleFor(Class<?> type) {
+        String paquete = type.getPackageName();
+        if (!paquete.startsWith(PAQUETE_RAIZ)) {
+            return Optional.empty();
+        }
+        String resto = paquete.substring(PAQUETE_RAIZ.length());
+        int punto = resto.indexOf('.');
+        return getModule(punto < 0 ? resto : resto.substring(0, punto));
+    }
+
+    private synchronized void initializeModule(Module module) {
+        if (module.isInitialized()) {
+            return;
+        }
         try {
-            modules.add(module);
-            module.initialize(this); // Corregido el error tipográfico  
-            logEvent("Módulo añadido: " + module.getClass().getSimpleName());
+            module.initialize(this);
             log.info("Módulo {} inicializado correctamente", module.getClass().getSimpleName());
         } catch (ModuleInitializationException e) {
-            modules.remove(module); // Rollback en caso de error  
             log.error("Error al inicializar módulo {}: {}",
                     module.getClass().getSimpleName(), e.getMessage(), e);
             throw new RuntimeException("Fallo al inicializar módulo", e);
@@ -1,6 +1,5 @@
 package com.univsoftdev.econova.core;
 
-import com.univsoftdev.econova.cache.CacheManager;
 import com.univsoftdev.econova.config.model.Exercise;
 import com.univsoftdev.econova.config.model.Company;
 import com.univsoftdev.econova.config.model.Period;
@@ -9,8 +8,7 @@ import com.univsoftdev.econova.config.model.User;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import jakarta.validation.constraints.NotNull;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -21,17 +19,16 @@ import lombok.extern.slf4j.Slf4j;
 @Singleton
 public class AppSession implements AutoCloseable {
 
-    private final CacheManager cacheManager;
+    private final SessionStore store;
     private Exercise ejercicio;
     private Company empresa;
     private Unit unidad;
     private Period periodo;
     private String license;
-    private final Map<String, Object> sessionCache = new HashMap<>();
 
     @Inject
-    public AppSession(@NotNull CacheManager cacheManager) {
-        this.cacheManager = cacheManager;
+    public AppSession(@NotNull SessionStore store) {
+        this.store = store;
         User currentUser = getUser();
         String userId = currentUser != null ? currentUser.getId().toString() : null;
 
@@ -39,23 +36,26 @@ public class AppSession implements AutoCloseable {
     }
 
     public void cacheSessionData(String key, Object data) {
-        sessionCache.put(key, data);
-        cacheManager.put("session_" + key, data);
+        put(SessionStore.Clave.de(key, Object.class), data);
     }
 
     public <T> T getCachedSessionData(String key, Class<T> type) {
-        Object cached = sessionCache.get(key);
-        if (cached != null && type.isInstance(cached)) {
-            return type.cast(cached);
-        }
+        return get(SessionStore.Clave.de(key, type)).orElse(null);
+    }
 
-        Object fromCache = cacheManager.get("session_" + key);
-        if (fromCache != null && type.isInstance(fromCache)) {
-            sessionCache.put(key, fromCache);
-            return type.cast(fromCache);
-        }
+    /**
+     * Guarda un dato en la sesión del usuario y tenant actuales.
+     *
+     * @param <T> tipo del valor
+     * @param clave Clave tipada de la entrada.
+     * @param valor Valor a guardar; {@code null} elimina la entrada.
+     */
+    public <T> void put(SessionStore.Clave<T> clave, T valor) {
+        store.put(clave, valor);
+    }
 
-        return null;
+    public <T> Optional<T> get(SessionStore.Clave<T> clave) {
+        return store.get(clave);
     }
 
     public void clear() {
@@ -65,8 +65,7 @@ public class AppSession implements AutoCloseable {
             this.ejercicio = null;
             this.license = null;
 
-            sessionCache.clear();
-            cacheManager.clear();
+            store.limpiar();
 
             log.info("Sesión limpiada exitosamente");
         } catch (Exception e) {
@@ -77,6 +76,7 @@ public class AppSession implements AutoCloseable {
     @Override
     public void close() {
         clear();
+        store.close();
     }
 
     public final User getUser() {
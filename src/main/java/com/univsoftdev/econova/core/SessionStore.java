@@ -0,0 +1,307 @@
+package com.univsoftdev.econova.core;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Almacén de datos de sesión acotado en memoria y persistido en disco.
+ * <p>
+ * Cada entrada pertenece al espacio de nombres del tenant y usuario actuales,
+ * de modo que limpiar la sesión de un usuario no afecta a los demás. Las
+ * entradas se desalojan por LRU cuando su peso estimado supera el límite, y
+ * las serializables se escriben a disco en segundo plano agrupando los
+ * cambios, nunca en el hilo que las guarda. La lectura de lo guardado en
+ * sesiones anteriores también se hace en ese hilo; al iniciar sesión se
+ * {@linkplain #precargar() precarga} el espacio de nombres del usuario para
+ * que el hilo de eventos no acceda a disco ni deserialice.
+ */
+@Slf4j
+@Singleton
+public class SessionStore implements AutoCloseable {
+
+    private static final long PESO_MAXIMO = 10_000;
+    private static final long SEGUNDOS_ENTRE_ESCRITURAS = 5;
+    private static final String SEPARADOR = "|";
+    private static final String NAMESPACE_POR_DEFECTO = "default";
+    private static final ObjectInputFilter FILTRO_LECTURA = ObjectInputFilter.Config.createFilter(
+            "java.base/*;com.univsoftdev.econova.**;io.ebean.**;!*");
+
+    /**
+     * Clave tipada de una entrada de sesión.
+     *
+     * @param <T> tipo del valor
+     * @param nombre Nombre de la entrada dentro del espacio de nombres.
+     * @param tipo Clase del valor.
+     */
+    public record Clave<T>(String nombre, Class<T> tipo) {
+
+        public Clave {
+            Objects.requireNonNull(nombre, "nombre");
+            Objects.requireNonNull(tipo, "tipo");
+            if (nombre.contains(SEPARADOR)) {
+                throw new IllegalArgumentException("El nombre de la clave no puede contener '" + SEPARADOR + "'");
+            }
+        }
+
+        public static <T> Clave<T> de(String nombre, Class<T> tipo) {
+            return new Clave<>(nombre, tipo);
+        }
+    }
+
+    private final Path directorio;
+    private final Cache<String, Object> memoria;
+    private final Map<String, CompletableFuture<Void>> cargas = new ConcurrentHashMap<>();
+    private final Set<String> namespacesModificados = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService escritor;
+
+    @Inject
+    public SessionStore() {
+        this(Paths.get(FileUtils.CACHE_PATH, "session"));
+    }
+
+    SessionStore(Path directorio) {
+        this.directorio = directorio;
+        this.memoria = Caffeine.newBuilder()
+                .maximumWeight(PESO_MAXIMO)
+                .weigher((String clave, Object valor) -> estimarPeso(valor))
+                .recordStats()
+                .build();
+        this.escritor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("econova-session-writer")
+                .daemon(true)
+                .factory());
+        escritor.scheduleWithFixedDelay(this::escribirPendientes,
+                SEGUNDOS_ENTRE_ESCRITURAS, SEGUNDOS_ENTRE_ESCRITURAS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Guarda un valor en la sesión actual. Un valor {@code null} elimina la
+     * entrada.
+     *
+     * @param <T> tipo del valor
+     * @param clave Clave de la entrada.
+     * @param valor Valor a guardar.
+     */
+    public <T> void put(Clave<T> clave, T valor) {
+        if (valor == null) {
+            remove(clave);
+            return;
+        }
+        String namespace = namespaceActual();
+        cargar(namespace);
+        memoria.put(claveInterna(namespace, clave.nombre()), valor);
+        if (valor instanceof Serializable) {
+            namespacesModificados.add(namespace);
+        }
+    }
+
+    /**
+     * Lee en segundo plano lo guardado en disco para el tenant y usuario
+     * actuales, si no se ha leído ya. Se llama al iniciar sesión, desde el
+     * hilo cuyo contexto usará después la sesión.
+     *
+     * @return Tarea que termina cuando lo guardado está en memoria.
+     */
+    public CompletableFuture<Void> precargar() {
+        return cargar(namespaceActual());
+    }
+
+    /**
+     * Obtiene un valor de la sesión actual. Nunca lee de disco en el hilo que
+     * llama: si el espacio de nombres no se ha {@linkplain #precargar()
+     * precargado}, la lectura se programa en segundo plano y mientras tanto
+     * solo se ven los valores guardados en esta ejecución.
+     *
+     * @param <T> tipo del valor
+     * @param clave Clave de la entrada.
+     * @return El valor, o vacío si no existe o es de otro tipo.
+     */
+    public <T> Optional<T> get(Clave<T> clave) {
+        String namespace = namespaceActual();
+        cargar(namespace);
+        Object valor = memoria.getIfPresent(claveInterna(namespace, clave.nombre()));
+        return clave.tipo().isInstance(valor) ? Optional.of(clave.tipo().cast(valor)) : Optional.empty();
+    }
+
+    public void remove(Clave<?> clave) {
+        String namespace = namespaceActual();
+        cargar(namespace);
+        memoria.invalidate(claveInterna(namespace, clave.nombre()));
+        namespacesModificados.add(namespace);
+    }
+
+    /**
+     * Elimina las entradas del tenant y usuario actuales, en memoria y en
+     * disco. Las sesiones de otros usuarios no se tocan.
+     */
+    public void limpiar() {
+        String namespace = namespaceActual();
+        String prefijo = namespace + SEPARADOR;
+        memoria.asMap().keySet().removeIf(clave -> clave.startsWith(prefijo));
+        namespacesModificados.remove(namespace);
+        if (escritor.isShutdown()) {
+            return;
+        }
+        escritor.execute(() -> {
+            try {
+                Files.deleteIfExists(archivo(namespace));
+            } catch (IOException e) {
+                log.warn("No se pudo eliminar la sesión persistida de {}: {}", namespace, e.getMessage());
+            }
+        });
+    }
+
+    public CacheStats getEstadisticas() {
+        return memoria.stats();
+    }
+
+    /**
+     * Escribe los cambios pendientes y detiene el escritor en segundo plano.
+     */
+    @Override
+    public void close() {
+        escritor.shutdown();
+        try {
+            if (!escritor.awaitTermination(SEGUNDOS_ENTRE_ESCRITURAS, TimeUnit.SECONDS)) {
+                escritor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        escribirPendientes();
+    }
+
+    private void escribirPendientes() {
+        for (String namespace : namespacesModificados) {
+            CompletableFuture<Void> carga = cargas.get(namespace);
+            if (carga != null && !carga.isDone()) {
+                // Escribir antes de leer reemplazaría lo guardado en disco
+                continue;
+            }
+            namespacesModificados.remove(namespace);
+            try {
+                escribir(namespace);
+            } catch (IOException | RuntimeException e) {
+                log.warn("No se pudo persistir la sesión de {}: {}", namespace, e.getMessage());
+            }
+        }
+    }
+
+    private void escribir(String namespace) throws IOException {
+        String prefijo = namespace + SEPARADOR;
+        HashMap<String, Serializable> entradas = new HashMap<>();
+        memoria.asMap().forEach((clave, valor) -> {
+            if (clave.startsWith(prefijo) && valor instanceof Serializable serializable) {
+                entradas.put(clave.substring(prefijo.length()), serializable);
+            }
+        });
+
+        Path destino = archivo(namespace);
+        if (entradas.isEmpty()) {
+            Files.deleteIfExists(destino);
+            return;
+        }
+        Files.createDirectories(directorio);
+        Path temporal = Files.createTempFile(directorio, "session", ".tmp");
+        try (OutputStream salida = Files.newOutputStream(temporal);
+                ObjectOutputStream objetos = new ObjectOutputStream(salida)) {
+            objetos.writeObject(entradas);
+        }
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private CompletableFuture<Void> cargar(String namespace) {
+        return cargas.computeIfAbsent(namespace, this::programarLectura);
+    }
+
+    private CompletableFuture<Void> programarLectura(String namespace) {
+        try {
+            return CompletableFuture.runAsync(() -> leer(namespace), escritor);
+        } catch (RejectedExecutionException e) {
+            // Con el almacén cerrado solo queda lo que hay en memoria
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void leer(String namespace) {
+        Path origen = archivo(namespace);
+        if (!Files.isRegularFile(origen)) {
+            return;
+        }
+        try (InputStream entrada = Files.newInputStream(origen);
+                ObjectInputStream objetos = new ObjectInputStream(entrada)) {
+            objetos.setObjectInputFilter(FILTRO_LECTURA);
+            Map<String, Object> entradas = (Map<String, Object>) objetos.readObject();
+            // Lo que ya se guardó en esta ejecución prevalece sobre lo leído de disco
+            entradas.forEach((nombre, valor)
+                    -> memoria.asMap().putIfAbsent(claveInterna(namespace, nombre), valor));
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            log.warn("Se descarta la sesión persistida de {}: {}", namespace, e.getMessage());
+        }
+    }
+
+    private Path archivo(String namespace) {
+        return directorio.resolve(namespace.replaceAll("[^A-Za-z0-9._-]", "_") + ".ser");
+    }
+
+    private static String claveInterna(String namespace, String nombre) {
+        return namespace + SEPARADOR + nombre;
+    }
+
+    private static String namespaceActual() {
+        try {
+            UserContext contexto = UserContext.get();
+            String tenant = contexto.getTenantId() != null ? contexto.getTenantId() : NAMESPACE_POR_DEFECTO;
+            String usuario = contexto.getUser() != null && contexto.getUser().getId() != null
+                    ? contexto.getUser().getId().toString()
+                    : Objects.requireNonNullElse(contexto.getUserId(), NAMESPACE_POR_DEFECTO);
+            return tenant + "." + usuario;
+        } catch (IllegalStateException e) {
+            return NAMESPACE_POR_DEFECTO;
+        }
+    }
+
+    private static int estimarPeso(Object valor) {
+        if (valor instanceof CharSequence texto) {
+            return 1 + texto.length() / 512;
+        }
+        if (valor instanceof byte[] bytes) {
+            return 1 + bytes.length / 1024;
+        }
+        if (valor instanceof Collection<?> coleccion) {
+            return 1 + coleccion.size();
+        }
+        if (valor instanceof Map<?, ?> mapa) {
+            return 1 + mapa.size();
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,75 @@
+package com.univsoftdev.econova.core;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mide las fases del arranque de la aplicación y registra un informe con su
+ * duración al llegar a la pantalla de inicio de sesión.
+ */
+@Slf4j
+public final class StartupTimer {
+
+    private static final Instant INICIO_PROCESO = ProcessHandle.current().info().startInstant()
+            .orElseGet(Instant::now);
+    private static final List<Fase> FASES = new CopyOnWriteArrayList<>();
+    private static final AtomicBoolean INFORMADO = new AtomicBoolean();
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Ejecuta una fase del arranque midiendo su duración.
+     *
+     * @param nombre Nombre de la fase en el informe.
+     * @param fase Trabajo de la fase.
+     */
+    public static void fase(String nombre, Runnable fase) {
+        medir(nombre, () -> {
+            fase.run();
+            return null;
+        });
+    }
+
+    /**
+     * Ejecuta una fase del arranque que produce un resultado, midiendo su
+     * duración.
+     *
+     * @param <T> tipo del resultado
+     * @param nombre Nombre de la fase en el informe.
+     * @param fase Trabajo de la fase.
+     * @return El resultado de la fase.
+     */
+    public static <T> T medir(String nombre, Supplier<T> fase) {
+        long inicio = System.nanoTime();
+        try {
+            return fase.get();
+        } finally {
+            FASES.add(new Fase(nombre, Duration.ofNanos(System.nanoTime() - inicio)));
+        }
+    }
+
+    /**
+     * Registra el informe de arranque. Solo la primera llamada tiene efecto.
+     */
+    public static void registrarInforme() {
+        if (!INFORMADO.compareAndSet(false, true)) {
+            return;
+        }
+        StringBuilder informe = new StringBuilder("Arranque completado en ")
+                .append(Duration.between(INICIO_PROCESO, Instant.now()).toMillis()).append(" ms");
+        for (Fase fase : FASES) {
+            informe.append(System.lineSeparator())
+                    .append(String.format("  %-32s %6d ms", fase.nombre(), fase.duracion().toMillis()));
+        }
+        log.info(informe.toString());
+    }
+
+    private record Fase(String nombre, Duration duracion) {
+    }
+}
@@ -42,6 +42,28 @@ public final class UserContext {
         context.remove();
     }
 
+    /**
+     * Copia el contexto del hilo actual para propagarlo a otro hilo con
+     * {@link #restaurar(UserContext)}.
+     *
+     * @return Una copia del contexto del hilo actual.
+     */
+    public static UserContext capturar() {
+        UserContext actual = context.get();
+        UserContext copia = new UserContext(actual.userId, actual.tenantId, actual.tenantSchema);
+        copia.user = actual.user;
+        return copia;
+    }
+
+    /**
+     * Establece en el hilo actual un contexto capturado en otro hilo.
+     *
+     * @param contexto Contexto obtenido con {@link #capturar()}.
+     */
+    public static void restaurar(UserContext contexto) {
+        context.set(contexto);
+    }
+
     public static void set(String tenantId) {
         String schema = tenantId.toLowerCase();
         // Verificar que el esquema existe
@@ -63,8 +85,9 @@ public final class UserContext {
     }
 
     public static void set(String userId, String tenantId, String tenantSchema) {
+        // El esquema lo fija el pool de conexiones del tenant; un SET search_path
+        // aquí cambiaría una conexión compartida cualquiera del pool
         context.set(new UserContext(userId, tenantId, tenantSchema));
-        DB.getDefault().sqlUpdate("SET search_path TO " + tenantSchema).execute();
     }
 
     public String getTenantSchema() {
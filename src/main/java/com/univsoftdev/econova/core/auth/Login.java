@@ -3,11 +3,17 @@ package com.univsoftdev.econova.core.auth;
 import com.formdev.flatlaf.FlatClientProperties;
 import com.univsoftdev.econova.EconovaDrawerBuilder;
 import com.univsoftdev.econova.config.view.FormSeleccionEmpresa;
+import com.univsoftdev.econova.core.Injector;
+import com.univsoftdev.econova.core.SessionStore;
 import com.univsoftdev.econova.core.component.LabelButton;
 import net.miginfocom.swing.MigLayout;
 import com.univsoftdev.econova.core.system.Form;
 import com.univsoftdev.econova.core.system.FormManager;
+import com.univsoftdev.econova.core.system.TaskManager;
 import com.univsoftdev.econova.core.utils.DialogUtils;
+import com.univsoftdev.econova.ebean.config.MyTenantSchemaProvider;
+import com.univsoftdev.econova.ebean.config.TenantMigrationService;
+import com.univsoftdev.econova.security.shiro.LoginAttemptCache;
 import com.univsoftdev.econova.security.shiro.ShiroContext;
 import com.univsoftdev.econova.security.shiro.ShiroUserPrincipal;
 import javax.swing.*;
@@ -157,59 +163,72 @@ public class Login extends Form {
         String userName = txtUsername.getText().trim();
         char[] password = txtPassword.getPassword();
 
+        if (!validateInput(userName, password)) {
+            Arrays.fill(password, '\0');
+            return;
+        }
+
         // Deshabilitar UI durante el proceso
         setUIEnabled(false);
 
-        try {
-            // Validación inicial
-            if (!validateInput(userName, password)) {
-                return;
-            }
+        // El sujeto se obtiene en el hilo de eventos, que es el que lo usará
+        // después; la verificación Argon2 se hace en segundo plano
+        Subject subject = SecurityUtils.getSubject();
+        TaskManager.ejecutar(this, "Autenticando",
+                progreso -> {
+                    try {
+                        return login(subject, userName, password);
+                    } finally {
+                        // Limpieza segura de la contraseña
+                        Arrays.fill(password, '\0');
+                    }
+                },
+                currentUser -> {
+                    if (currentUser != null && currentUser.isAuthenticated()) {
+                        handleSuccessfulLogin(currentUser);
+                    } else {
+                        showErrorMessage("Error de autenticación", "No se pudo autenticar el usuario");
+                    }
+                },
+                error -> mostrarErrorLogin(userName, error, txtPassword),
+                () -> terminarLogin(txtPassword));
+    }
 
-            Subject currentUser = login(userName, password);
+    private void terminarLogin(JPasswordField txtPassword) {
+        txtPassword.setText("");
+        txtPassword.requestFocus();
 
-            if (currentUser != null && currentUser.isAuthenticated()) {
-                handleSuccessfulLogin(currentUser);
-            } else {
-                showErrorMessage("Error de autenticación", "No se pudo autenticar el usuario");
-            }
+        // Rehabilitar UI
+        setUIEnabled(true);
+    }
 
-        } catch (UnknownAccountException e) {
+    private void mostrarErrorLogin(String userName, Throwable error, JPasswordField txtPassword) {
+        if (error instanceof UnknownAccountException) {
             log.warn("Intento de login con usuario desconocido: {}", userName);
             showErrorMessage("Error de autenticación", "Usuario o contraseña incorrectos");
 
-        } catch (IncorrectCredentialsException e) {
+        } else if (error instanceof IncorrectCredentialsException) {
             log.warn("Credenciales incorrectas para usuario: {}", userName);
             showErrorMessage("Error de autenticación", "Usuario o contraseña incorrectos");
             txtPassword.requestFocus();
 
-        } catch (LockedAccountException e) {
+        } else if (error instanceof LockedAccountException) {
             log.warn("Cuenta bloqueada para usuario: {}", userName);
             showErrorMessage("Error de autenticación", "La cuenta está bloqueada. Contacte al administrador");
 
-        } catch (ExcessiveAttemptsException e) {
+        } else if (error instanceof ExcessiveAttemptsException) {
             log.warn("Demasiados intentos fallidos para usuario: {}", userName);
             showErrorMessage("Error de autenticación", "Cuenta bloqueada temporalmente por seguridad");
 
-        } catch (AuthenticationException e) {
+        } else if (error instanceof AuthenticationException e) {
             log.error("Error de autenticación para usuario: {}", userName, e);
             String message = StringUtils.isNotBlank(e.getMessage())
                     ? e.getMessage() : "Error en la autenticación";
             showErrorMessage("Error de autenticación", message);
 
-        } catch (Exception e) {
-            log.error("Error inesperado durante el login para usuario: {}", userName, e);
+        } else {
+            log.error("Error inesperado durante el login para usuario: {}", userName, error);
             showErrorMessage("Error", "Ocurrió un error inesperado. Por favor intente nuevamente.");
-        } finally {
-            // Limpieza segura de la contraseña
-            if (password != null) {
-                Arrays.fill(password, '\0');
-            }
-            txtPassword.setText("");
-            txtPassword.requestFocus();
-
-            // Rehabilitar UI
-            setUIEnabled(true);
         }
     }
 
@@ -317,6 +336,8 @@ public class Login extends Form {
 
             // Configurar usuario en la aplicación
             EconovaDrawerBuilder.getInstance().setUser(user);
+            // La sesión guardada se lee en segundo plano, no al consultarla desde la UI
+            Injector.get(SessionStore.class).precargar();
 
             log.info("Autenticación exitosa para: {} (ID: {})", user.getUserName(), user.getId());
 
@@ -364,7 +385,7 @@ public class Login extends Form {
         }
     }
 
-    private Subject login(String username, char[] password) throws AuthenticationException {
+    private Subject login(Subject currentUser, String username, char[] password) throws AuthenticationException {
         Objects.requireNonNull(username, "El nombre de usuario no puede ser null");
         Objects.requireNonNull(password, "La contraseña no puede ser null");
 
@@ -376,9 +397,7 @@ public class Login extends Form {
             throw new AuthenticationException("La contraseña no puede estar vacía");
         }
 
-        Subject currentUser = SecurityUtils.getSubject();
-        UsernamePasswordToken token = new UsernamePasswordToken(username, password);
-        token.setRememberMe(false);
+        UsernamePasswordToken token = new UsernamePasswordToken(username, password, false, LoginAttemptCache.hostActual());
 
         log.debug("Intentando login para usuario: {}", username);
         currentUser.login(token);
@@ -394,6 +413,13 @@ public class Login extends Form {
                 currentUser.getPrincipal() != null
                 ? ((ShiroUserPrincipal) currentUser.getPrincipal()).getUser().getId() : "unknown");
 
+        // Si el esquema de la empresa del usuario aún se está migrando, se
+        // espera solo por él; los demás tenants siguen migrando en paralelo
+        if (currentUser.getPrincipal() instanceof ShiroUserPrincipal principal) {
+            String esquema = new MyTenantSchemaProvider().schema(principal.getTenantId());
+            Injector.get(TenantMigrationService.class).esperar(esquema);
+        }
+
         return currentUser;
     }
 
@@ -7,6 +7,8 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -99,6 +101,42 @@ public class AppConfig {
         return Config.getInt("econova.cache.expirationMinutes", 60);
     }
     
+    /**
+     * @return Días de diferencia admitidos entre la fecha del banco y la del
+     * movimiento contable al conciliar.
+     */
+    public static int getDiasConciliacionBancaria() {
+        return Config.getInt("econova.finanzas.conciliacion.dias", 3);
+    }
+    
+    /**
+     * @return Códigos de las cuentas de bancos que se concilian, separados por
+     * comas en {@code econova.finanzas.conciliacion.cuentas}. Cada cuenta
+     * incluye sus subcuentas. Vacío si no se configuró ninguna.
+     */
+    public static List<String> getCuentasBancarias() {
+        return Arrays.stream(Config.get("econova.finanzas.conciliacion.cuentas", "").split(","))
+                .map(String::trim)
+                .filter(codigo -> !codigo.isEmpty())
+                .toList();
+    }
+    
+    /**
+     * @return Procesos en paralelo de {@code pg_dump} y {@code pg_restore}.
+     */
+    public static int getBackupTrabajos() {
+        return Config.getInt("econova.backup.trabajos",
+                Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+    }
+    
+    /**
+     * @return Compresión de {@code pg_dump}: un nivel gzip (0-9) o, desde
+     * PostgreSQL 16, un método como {@code zstd:3}.
+     */
+    public static String getBackupCompresion() {
+        return Config.get("econova.backup.compresion", "6");
+    }
+    
     public static String getDefaultCurrency() {
         return Config.get("econova.currency.default.code", "CUP");
     }
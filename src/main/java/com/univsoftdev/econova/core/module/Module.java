@@ -36,6 +36,15 @@ public interface Module {
      */
     int getInitializationPriority();
 
+    /**
+     * Indica si el módulo se inicializa al arrancar la aplicación. Por defecto
+     * se inicializa la primera vez que se usa, de modo que los módulos sin
+     * licencia o que no se abren no retrasan el arranque.
+     */
+    default boolean isLoadOnStartup() {
+        return false;
+    }
+
     /**
      * Inicializa el módulo con acceso al contexto
      */
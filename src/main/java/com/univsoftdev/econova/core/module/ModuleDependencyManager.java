@@ -31,15 +31,34 @@ public class ModuleDependencyManager {
     }  
       
     /**  
-     * Inicializa todos los módulos respetando dependencias  
+     * Inicializa, respetando dependencias, los módulos que se cargan al
+     * arrancar. El resto se inicializa en {@link #getModule(String)}.
      */  
     public void initializeAllModules() throws ModuleInitializationException {  
         List<Module> sortedModules = topologicalSort();  
           
         for (Module module : sortedModules) {  
-            initializeModule(module);  
+            if (module.isLoadOnStartup()) {
+                initializeModule(module);  
+            }
         }  
     }  
+
+    /**
+     * Indica si hay un módulo registrado con el identificador dado.
+     */
+    public boolean isRegistered(String moduleId) {
+        return registeredModules.containsKey(moduleId);
+    }
+
+    /**
+     * Obtiene un módulo registrado, inicializándolo junto con sus
+     * dependencias la primera vez que se pide.
+     */
+    public Module getModule(String moduleId) throws ModuleInitializationException {
+        initializeModule(moduleId);
+        return registeredModules.get(moduleId);
+    }
       
     /**  
      * Inicializa un módulo específico y sus dependencias  
@@ -52,7 +71,7 @@ public class ModuleDependencyManager {
         initializeModule(module);  
     }  
       
-    private void initializeModule(Module module) throws ModuleInitializationException {  
+    private synchronized void initializeModule(Module module) throws ModuleInitializationException {  
         String moduleId = module.getModuleId();  
         ModuleState currentState = moduleStates.get(moduleId);  
           
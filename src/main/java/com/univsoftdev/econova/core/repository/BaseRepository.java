@@ -1,9 +1,12 @@
 package com.univsoftdev.econova.core.repository;
 
+import io.ebean.CacheMode;
 import io.ebean.Database;
 import io.ebean.PagedList;
 import io.ebean.Query;
+import io.ebean.cache.ServerCacheManager;
 import jakarta.persistence.OptimisticLockException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +30,10 @@ public abstract class BaseRepository<T> implements CrudRepository<T> {
         database.update(entity);
     }
 
+    public void saveAll(Collection<T> entities) {
+        database.saveAll(entities);
+    }
+
     @Override
     public boolean delete(T entity) {
         try {
@@ -94,6 +101,10 @@ public abstract class BaseRepository<T> implements CrudRepository<T> {
         return database.find(type);
     }
 
+    public <T> T reference(Class<T> beanType, Object id) {
+        return database.reference(beanType, id);
+    }
+
     // Método abstracto que debe ser implementado por las clases hijas
     protected abstract Class<T> getEntityType();
 
@@ -102,7 +113,11 @@ public abstract class BaseRepository<T> implements CrudRepository<T> {
     }
 
     public PagedList<T> findPagedList(int page, int pageSize) {
-        return query()
+        return findPagedList(query(), page, pageSize);
+    }
+
+    public PagedList<T> findPagedList(Query<T> query, int page, int pageSize) {
+        return query
                 .setFirstRow(page * pageSize)
                 .setMaxRows(pageSize)
                 .findPagedList();
@@ -116,4 +131,60 @@ public abstract class BaseRepository<T> implements CrudRepository<T> {
     public long getTotalCount() {
         return query().findCount();
     }
+
+    /**
+     * Busca por una clave natural pasando por la caché L2. Si la entidad
+     * declara la propiedad como {@code naturalKey} en su {@code @Cache}, la
+     * consulta se resuelve en memoria sin ir a la base de datos. La caché se
+     * particiona por tenant y Ebean la invalida al guardar, actualizar o
+     * eliminar la entidad, incluidas las sentencias SQL sobre su tabla.
+     *
+     * @param propiedad Propiedad de la clave natural.
+     * @param valor Valor buscado.
+     * @return La entidad, o vacío si no existe.
+     */
+    protected Optional<T> findByNaturalKey(String propiedad, Object valor) {
+        if (valor == null) {
+            return Optional.empty();
+        }
+        return query()
+                .setBeanCacheMode(CacheMode.ON)
+                .where()
+                .eq(propiedad, valor)
+                .findOneOrEmpty();
+    }
+
+    /**
+     * Lista completa de la entidad desde la caché de consultas. Pensado para
+     * tablas maestras pequeñas; los objetos devueltos son de solo lectura.
+     *
+     * @param orden Cláusula de ordenación.
+     * @return Lista de entidades.
+     */
+    public List<T> findAllCached(String orden) {
+        return query()
+                .setUseQueryCache(CacheMode.ON)
+                .orderBy(orden)
+                .findList();
+    }
+
+    /**
+     * Vacía la caché de la entidad. Solo hace falta tras cambios hechos fuera
+     * de Ebean, como una restauración de la base de datos.
+     */
+    public void invalidarCache() {
+        database.cacheManager().clear(getEntityType());
+    }
+
+    /**
+     * Aciertos y fallos de la caché de la entidad desde el arranque.
+     *
+     * @return Estadísticas acumuladas.
+     */
+    public EstadisticasCache getEstadisticasCache() {
+        ServerCacheManager cacheManager = database.cacheManager();
+        return EstadisticasCache.de(getEntityType(),
+                cacheManager.beanCache(getEntityType()).statistics(false),
+                cacheManager.naturalKeyCache(getEntityType()).statistics(false));
+    }
 }
@@ -0,0 +1,39 @@
+package com.univsoftdev.econova.core.repository;
+
+import io.ebean.cache.ServerCacheStatistics;
+
+/**
+ * Aciertos y fallos de la caché de una entidad, sumando la caché por id y la
+ * caché por clave natural.
+ *
+ * @param entidad Nombre simple de la entidad.
+ * @param aciertos Lecturas resueltas desde la caché.
+ * @param fallos Lecturas que tuvieron que ir a la base de datos.
+ * @param tamano Cantidad de entradas en memoria.
+ */
+public record EstadisticasCache(String entidad, long aciertos, long fallos, int tamano) {
+
+    static EstadisticasCache de(Class<?> tipo, ServerCacheStatistics... estadisticas) {
+        long aciertos = 0;
+        long fallos = 0;
+        int tamano = 0;
+        for (ServerCacheStatistics estadistica : estadisticas) {
+            if (estadistica != null) {
+                aciertos += estadistica.getHitCount();
+                fallos += estadistica.getMissCount();
+                tamano += estadistica.getSize();
+            }
+        }
+        return new EstadisticasCache(tipo.getSimpleName(), aciertos, fallos, tamano);
+    }
+
+    /**
+     * Porcentaje de lecturas resueltas desde la caché.
+     *
+     * @return Valor entre 0 y 100.
+     */
+    public int porcentajeAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0 : (int) (aciertos * 100 / total);
+    }
+}
@@ -1,6 +1,7 @@
 package com.univsoftdev.econova.core.system;
 
 import java.awt.*;
+import java.util.function.Consumer;
 import javax.swing.*;
 
 /**
@@ -28,6 +29,22 @@ public class Form extends JPanel {
     public void formRefresh() {
     }
 
+    /**
+     * Ejecuta trabajo de servicios fuera del hilo de eventos. Las solicitudes
+     * repetidas de un mismo formulario se agrupan, de modo que solo se publica
+     * el resultado de la última.
+     *
+     * @param <T> tipo del resultado
+     * @param descripcion Texto que se muestra en la barra de estado.
+     * @param trabajo Trabajo a ejecutar en segundo plano.
+     * @param alTerminar Recibe el resultado en el hilo de eventos.
+     * @return La tarea, que puede cancelarse.
+     */
+    protected <T> TaskManager.Tarea ejecutarEnSegundoPlano(String descripcion, TaskManager.Trabajo<T> trabajo,
+            Consumer<? super T> alTerminar) {
+        return TaskManager.ejecutar(this, descripcion, trabajo, alTerminar);
+    }
+
     public final void formCheck() {
         if (oldTheme != UIManager.getLookAndFeel()) {
             oldTheme = UIManager.getLookAndFeel();
@@ -72,6 +72,9 @@ public class MainForm extends JPanel {
         lbVersion.setIcon(new SVGIconUIColor("econova/icons/git.svg", 1f, "Label.disabledForeground"));
         panel.add(lbVersion);
 
+        // tareas en segundo plano
+        panel.add(new StatusBarDataView(), "growx,wmin 0");
+
 //        try {
 //            SwingUtilities.invokeLater(() -> {
 //                AppSession session = Injector.get(AppSession.class);
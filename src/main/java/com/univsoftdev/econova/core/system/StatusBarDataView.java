@@ -4,17 +4,88 @@
  */
 package com.univsoftdev.econova.core.system;
 
+import java.awt.BorderLayout;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JProgressBar;
+
 /**
  *
  * @author CNA
  */
-public class StatusBarDataView extends javax.swing.JPanel {
+public class StatusBarDataView extends javax.swing.JPanel implements TaskManager.Listener {
+
+    private final Deque<TaskManager.Tarea> tareas = new ArrayDeque<>();
+    private final JLabel lbTarea = new JLabel();
+    private final JProgressBar progressBar = new JProgressBar(0, 100);
+    private final JButton btnCancelar = new JButton("Cancelar");
 
     /**
      * Creates new form StatusBarDataView
      */
     public StatusBarDataView() {
         initComponents();
+        initTareas();
+    }
+
+    private void initTareas() {
+        removeAll();
+        setLayout(new BorderLayout(5, 0));
+        progressBar.setPreferredSize(new java.awt.Dimension(120, progressBar.getPreferredSize().height));
+        btnCancelar.addActionListener(e -> {
+            TaskManager.Tarea actual = tareas.peekLast();
+            if (actual != null) {
+                actual.cancelar();
+            }
+        });
+        add(lbTarea, BorderLayout.CENTER);
+        add(progressBar, BorderLayout.EAST);
+        add(btnCancelar, BorderLayout.WEST);
+        actualizarVista();
+        TaskManager.addListener(this);
+    }
+
+    @Override
+    public void tareaIniciada(TaskManager.Tarea tarea) {
+        tareas.addLast(tarea);
+        progressBar.setIndeterminate(true);
+        actualizarVista();
+    }
+
+    @Override
+    public void progresoActualizado(TaskManager.Tarea tarea, int porcentaje, String mensaje) {
+        if (tarea != tareas.peekLast()) {
+            return;
+        }
+        progressBar.setIndeterminate(porcentaje < 0);
+        if (porcentaje >= 0) {
+            progressBar.setValue(Math.min(porcentaje, 100));
+        }
+        if (mensaje != null) {
+            lbTarea.setText(tarea.getDescripcion() + ": " + mensaje);
+        }
+    }
+
+    @Override
+    public void tareaTerminada(TaskManager.Tarea tarea) {
+        tareas.remove(tarea);
+        actualizarVista();
+    }
+
+    private void actualizarVista() {
+        TaskManager.Tarea actual = tareas.peekLast();
+        boolean ocupado = actual != null;
+        lbTarea.setText(ocupado ? actual.getDescripcion() : "");
+        progressBar.setVisible(ocupado);
+        btnCancelar.setVisible(ocupado);
+        if (!ocupado) {
+            progressBar.setIndeterminate(false);
+            progressBar.setValue(0);
+        }
+        revalidate();
+        repaint();
     }
 
     /**
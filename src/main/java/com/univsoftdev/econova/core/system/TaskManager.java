@@ -0,0 +1,316 @@
+package com.univsoftdev.econova.core.system;
+
+import com.univsoftdev.econova.core.UserContext;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ejecuta trabajo de servicios fuera del hilo de eventos de Swing y publica
+ * el resultado de vuelta en él.
+ * <p>
+ * Las tareas se agrupan por una clave (normalmente el formulario que las
+ * lanza). Mientras una tarea de una clave está en ejecución, las nuevas
+ * solicitudes con la misma clave no se ejecutan en paralelo: solo se conserva
+ * la última y se ejecuta al terminar la actual, cuyo resultado se descarta por
+ * estar desactualizado. Así, pulsar varias veces "Actualizar" produce como
+ * mucho una consulta en curso y otra pendiente.
+ * <p>
+ * El {@link UserContext} del hilo que lanza la tarea se propaga al hilo que
+ * la ejecuta, de modo que las consultas se resuelven en el tenant del
+ * usuario. La cancelación es cooperativa: el trabajo debe consultar
+ * {@link Progreso#isCancelado()}; su hilo no se interrumpe para no cerrar
+ * conexiones JDBC en uso.
+ */
+@Slf4j
+public final class TaskManager {
+
+    /**
+     * Trabajo que se ejecuta en segundo plano.
+     *
+     * @param <T> tipo del resultado
+     */
+    @FunctionalInterface
+    public interface Trabajo<T> {
+
+        T ejecutar(Progreso progreso) throws Exception;
+    }
+
+    /**
+     * Permite a un trabajo informar de su avance y consultar si fue
+     * cancelado.
+     */
+    public interface Progreso {
+
+        void actualizar(int porcentaje, String mensaje);
+
+        boolean isCancelado();
+    }
+
+    /**
+     * Recibe, en el hilo de eventos, los cambios de estado de las tareas.
+     */
+    public interface Listener {
+
+        void tareaIniciada(Tarea tarea);
+
+        void progresoActualizado(Tarea tarea, int porcentaje, String mensaje);
+
+        void tareaTerminada(Tarea tarea);
+    }
+
+    /**
+     * Tarea en ejecución o pendiente.
+     */
+    public static final class Tarea {
+
+        private final Object clave;
+        private final String descripcion;
+        private final Runnable inicio;
+        private final Runnable alFinalizar;
+        private volatile boolean cancelada;
+        private boolean finalizada;
+
+        private Tarea(Object clave, String descripcion, Runnable inicio, Runnable alFinalizar) {
+            this.clave = clave;
+            this.descripcion = descripcion;
+            this.inicio = inicio;
+            this.alFinalizar = alFinalizar;
+        }
+
+        public String getDescripcion() {
+            return descripcion;
+        }
+
+        public boolean isCancelada() {
+            return cancelada;
+        }
+
+        /**
+         * Cancela la tarea. Si está en ejecución, el trabajo lo detecta con
+         * {@link Progreso#isCancelado()} y su resultado no se publica.
+         */
+        public void cancelar() {
+            cancelada = true;
+        }
+
+        /**
+         * Ejecuta una sola vez, en el hilo de eventos, el aviso de fin de la
+         * tarea.
+         */
+        private void finalizar() {
+            if (finalizada) {
+                return;
+            }
+            finalizada = true;
+            if (alFinalizar != null) {
+                alFinalizar.run();
+            }
+        }
+    }
+
+    private static final ExecutorService EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("econova-task-", 0).factory());
+    private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final Map<Object, Tarea> EN_EJECUCION = new HashMap<>();
+    private static final Map<Object, Tarea> PENDIENTES = new HashMap<>();
+
+    private TaskManager() {
+    }
+
+    public static void addListener(Listener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Ejecuta un trabajo en segundo plano y entrega su resultado en el hilo
+     * de eventos.
+     *
+     * @param <T> tipo del resultado
+     * @param clave Clave de agrupación de las solicitudes repetidas.
+     * @param descripcion Texto que se muestra en la barra de estado.
+     * @param trabajo Trabajo a ejecutar fuera del hilo de eventos.
+     * @param alTerminar Recibe el resultado en el hilo de eventos.
+     * @param alFallar Recibe el error en el hilo de eventos.
+     * @return La tarea, que puede cancelarse.
+     */
+    public static <T> Tarea ejecutar(Object clave, String descripcion, Trabajo<T> trabajo,
+            Consumer<? super T> alTerminar, Consumer<Throwable> alFallar) {
+        return ejecutar(clave, descripcion, trabajo, alTerminar, alFallar, null);
+    }
+
+    /**
+     * Igual que {@link #ejecutar(Object, String, Trabajo, Consumer, Consumer)}
+     * con un aviso que se ejecuta siempre al terminar la tarea: tras el
+     * resultado o el error, o cuando se cancela o se descarta por otra
+     * solicitud con la misma clave. Sirve para volver a habilitar los
+     * controles deshabilitados al lanzarla.
+     *
+     * @param <T> tipo del resultado
+     * @param clave Clave de agrupación de las solicitudes repetidas.
+     * @param descripcion Texto que se muestra en la barra de estado.
+     * @param trabajo Trabajo a ejecutar fuera del hilo de eventos.
+     * @param alTerminar Recibe el resultado en el hilo de eventos.
+     * @param alFallar Recibe el error en el hilo de eventos.
+     * @param alFinalizar Se ejecuta siempre en el hilo de eventos.
+     * @return La tarea, que puede cancelarse.
+     */
+    public static <T> Tarea ejecutar(Object clave, String descripcion, Trabajo<T> trabajo,
+            Consumer<? super T> alTerminar, Consumer<Throwable> alFallar, Runnable alFinalizar) {
+        // El contexto se captura en el hilo que lanza la tarea
+        UserContext contexto = UserContext.capturar();
+        Tarea[] referencia = new Tarea[1];
+        Tarea tarea = new Tarea(clave, descripcion,
+                () -> correr(referencia[0], contexto, trabajo, alTerminar, alFallar), alFinalizar);
+        referencia[0] = tarea;
+
+        synchronized (EN_EJECUCION) {
+            if (EN_EJECUCION.containsKey(clave)) {
+                Tarea anterior = PENDIENTES.put(clave, tarea);
+                if (anterior != null) {
+                    descartar(anterior);
+                }
+                return tarea;
+            }
+            iniciar(tarea);
+        }
+        return tarea;
+    }
+
+    /**
+     * Igual que {@link #ejecutar(Object, String, Trabajo, Consumer, Consumer)}
+     * registrando los errores en el log.
+     *
+     * @param <T> tipo del resultado
+     * @param clave Clave de agrupación de las solicitudes repetidas.
+     * @param descripcion Texto que se muestra en la barra de estado.
+     * @param trabajo Trabajo a ejecutar fuera del hilo de eventos.
+     * @param alTerminar Recibe el resultado en el hilo de eventos.
+     * @return La tarea, que puede cancelarse.
+     */
+    public static <T> Tarea ejecutar(Object clave, String descripcion, Trabajo<T> trabajo,
+            Consumer<? super T> alTerminar) {
+        return ejecutar(clave, descripcion, trabajo, alTerminar,
+                error -> log.error("Error en la tarea '{}': {}", descripcion, error.getMessage(), error));
+    }
+
+    /**
+     * Cancela la tarea en ejecución y la pendiente de una clave.
+     *
+     * @param clave Clave de las tareas a cancelar.
+     */
+    public static void cancelar(Object clave) {
+        synchronized (EN_EJECUCION) {
+            Tarea pendiente = PENDIENTES.remove(clave);
+            if (pendiente != null) {
+                descartar(pendiente);
+            }
+            Tarea actual = EN_EJECUCION.get(clave);
+            if (actual != null) {
+                actual.cancelar();
+            }
+        }
+    }
+
+    /**
+     * Cancela todas las tareas en curso y pendientes.
+     */
+    public static void cancelarTodas() {
+        synchronized (EN_EJECUCION) {
+            PENDIENTES.values().forEach(TaskManager::descartar);
+            PENDIENTES.clear();
+            EN_EJECUCION.values().forEach(Tarea::cancelar);
+        }
+    }
+
+    private static void iniciar(Tarea tarea) {
+        EN_EJECUCION.put(tarea.clave, tarea);
+        SwingUtilities.invokeLater(() -> LISTENERS.forEach(l -> l.tareaIniciada(tarea)));
+        EXECUTOR.execute(tarea.inicio);
+    }
+
+    /**
+     * Cancela una tarea pendiente que no llegará a ejecutarse.
+     */
+    private static void descartar(Tarea tarea) {
+        tarea.cancelada = true;
+        SwingUtilities.invokeLater(tarea::finalizar);
+    }
+
+    private static <T> void correr(Tarea tarea, UserContext contexto, Trabajo<T> trabajo,
+            Consumer<? super T> alTerminar, Consumer<Throwable> alFallar) {
+        Progreso progreso = new Progreso() {
+            @Override
+            public void actualizar(int porcentaje, String mensaje) {
+                if (!tarea.cancelada) {
+                    SwingUtilities.invokeLater(() -> LISTENERS.forEach(l -> l.progresoActualizado(tarea, porcentaje, mensaje)));
+                }
+            }
+
+            @Override
+            public boolean isCancelado() {
+                return tarea.cancelada;
+            }
+        };
+
+        T resultado = null;
+        Throwable error = null;
+        UserContext.restaurar(contexto);
+        try {
+            if (!tarea.cancelada) {
+                resultado = trabajo.ejecutar(progreso);
+            }
+        } catch (InterruptedException | CancellationException e) {
+            tarea.cancelada = true;
+        } catch (Exception e) {
+            error = e;
+        } finally {
+            UserContext.reset();
+            Thread.interrupted();
+        }
+
+        boolean publicar;
+        synchronized (EN_EJECUCION) {
+            EN_EJECUCION.remove(tarea.clave);
+            Tarea siguiente = PENDIENTES.remove(tarea.clave);
+            // Si llegó otra solicitud mientras se ejecutaba, este resultado ya está desactualizado
+            publicar = siguiente == null && !tarea.cancelada;
+            if (siguiente != null) {
+                if (siguiente.cancelada) {
+                    descartar(siguiente);
+                } else {
+                    iniciar(siguiente);
+                }
+            }
+        }
+
+        final T valor = resultado;
+        final Throwable fallo = error;
+        SwingUtilities.invokeLater(() -> {
+            LISTENERS.forEach(l -> l.tareaTerminada(tarea));
+            try {
+                if (!publicar) {
+                    return;
+                }
+                if (fallo != null) {
+                    alFallar.accept(fallo);
+                } else {
+                    alTerminar.accept(valor);
+                }
+            } finally {
+                tarea.finalizar();
+            }
+        });
+    }
+}
@@ -0,0 +1,195 @@
+package com.univsoftdev.econova.core.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.xml.parsers.ParserConfigurationException;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Lee fila a fila archivos CSV o XLSX sin cargarlos completos en memoria.
+ * <p>
+ * Los CSV se recorren con el analizador de Commons CSV y el separador (coma
+ * o punto y coma) se deduce de la primera línea. De los XLSX se lee la
+ * primera hoja con el lector SAX de POI, que no construye el libro en
+ * memoria.
+ */
+public final class LectorTabular {
+
+    /**
+     * Recibe cada fila leída.
+     */
+    @FunctionalInterface
+    public interface ManejadorFila {
+
+        /**
+         * @param numero Número de la fila en el archivo, empezando en 1.
+         * @param celdas Valores de la fila sin espacios sobrantes; las
+         * celdas vacías son cadenas vacías.
+         * @return false para dejar de leer.
+         */
+        boolean procesar(int numero, List<String> celdas);
+    }
+
+    private LectorTabular() {
+    }
+
+    /**
+     * @param archivo Archivo a leer.
+     * @return true si el archivo se leerá como libro de Excel.
+     */
+    public static boolean isXlsx(Path archivo) {
+        return archivo.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".xlsx");
+    }
+
+    /**
+     * Recorre las filas del archivo en orden hasta el final o hasta que el
+     * manejador devuelva false.
+     *
+     * @param archivo Archivo CSV o XLSX.
+     * @param manejador Receptor de las filas.
+     * @throws IOException si el archivo no se puede leer o no tiene un
+     * formato válido
+     */
+    public static void leer(Path archivo, ManejadorFila manejador) throws IOException {
+        if (isXlsx(archivo)) {
+            leerXlsx(archivo, manejador);
+        } else {
+            leerCsv(archivo, manejador);
+        }
+    }
+
+    private static void leerCsv(Path archivo, ManejadorFila manejador) throws IOException {
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            lector.mark(8192);
+            String primera = lector.readLine();
+            lector.reset();
+            if (primera == null) {
+                return;
+            }
+            char separador = contar(primera, ';') > contar(primera, ',') ? ';' : ',';
+            CSVFormat formato = CSVFormat.DEFAULT.builder()
+                    .setDelimiter(separador)
+                    .setIgnoreEmptyLines(true)
+                    .setTrim(true)
+                    .build();
+            try (CSVParser parser = CSVParser.parse(lector, formato)) {
+                for (CSVRecord registro : parser) {
+                    List<String> celdas = new ArrayList<>(registro.size());
+                    registro.forEach(celdas::add);
+                    if (registro.getRecordNumber() == 1 && !celdas.isEmpty()) {
+                        // Marca de orden de bytes de los CSV guardados por Excel
+                        celdas.set(0, celdas.get(0).replace("\uFEFF", ""));
+                    }
+                    if (!manejador.procesar((int) registro.getRecordNumber(), celdas)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void leerXlsx(Path archivo, ManejadorFila manejador) throws IOException {
+        try (OPCPackage paquete = OPCPackage.open(archivo.toFile(), PackageAccess.READ)) {
+            XSSFReader lector = new XSSFReader(paquete);
+            ReadOnlySharedStringsTable cadenas = new ReadOnlySharedStringsTable(paquete);
+            StylesTable estilos = lector.getStylesTable();
+            XSSFReader.SheetIterator hojas = (XSSFReader.SheetIterator) lector.getSheetsData();
+            if (!hojas.hasNext()) {
+                return;
+            }
+            try (InputStream hoja = hojas.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(estilos, null, cadenas,
+                        new FilasHoja(manejador), new DataFormatter(), false));
+                parser.parse(new InputSource(hoja));
+            } catch (LecturaDetenida e) {
+                // El manejador pidió dejar de leer
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("El archivo " + archivo.getFileName() + " no es un libro de Excel válido", e);
+        }
+    }
+
+    private static int contar(String texto, char caracter) {
+        int total = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == caracter) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Reúne las celdas de cada fila de la hoja. El lector SAX omite las
+     * celdas vacías, por eso se colocan según su columna.
+     */
+    private static final class FilasHoja implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final ManejadorFila manejador;
+        private final List<String> celdas = new ArrayList<>();
+
+        FilasHoja(ManejadorFila manejador) {
+            this.manejador = manejador;
+        }
+
+        @Override
+        public void startRow(int fila) {
+            celdas.clear();
+        }
+
+        @Override
+        public void endRow(int fila) {
+            if (celdas.stream().allMatch(String::isEmpty)) {
+                return;
+            }
+            if (!manejador.procesar(fila + 1, new ArrayList<>(celdas))) {
+                throw new LecturaDetenida();
+            }
+        }
+
+        @Override
+        public void cell(String referencia, String valor, XSSFComment comentario) {
+            int columna = referencia != null ? new CellReference(referencia).getCol() : celdas.size();
+            while (celdas.size() < columna) {
+                celdas.add("");
+            }
+            String texto = valor != null ? valor.trim() : "";
+            if (columna < celdas.size()) {
+                celdas.set(columna, texto);
+            } else {
+                celdas.add(texto);
+            }
+        }
+    }
+
+    private static final class LecturaDetenida extends RuntimeException {
+
+        LecturaDetenida() {
+            super(null, null, false, false);
+        }
+    }
+}
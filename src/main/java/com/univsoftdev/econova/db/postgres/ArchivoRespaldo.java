@@ -0,0 +1,140 @@
+package com.univsoftdev.econova.db.postgres;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Empaqueta en un solo archivo el directorio generado por
+ * {@code pg_dump -F d}, y lo desempaqueta para {@code pg_restore}.
+ * <p>
+ * Los archivos se copian en streaming, sin cargarlos en memoria y sin volver
+ * a comprimirlos: {@code pg_dump} ya comprime cada tabla en paralelo. El
+ * formato es una cabecera seguida de entradas (nombre, tamaño, contenido) y
+ * una marca de fin.
+ */
+public final class ArchivoRespaldo {
+
+    private static final byte[] CABECERA = "ECONOVA_RESPALDO_V1".getBytes(StandardCharsets.US_ASCII);
+    private static final int TAMANO_BUFFER = 256 * 1024;
+
+    private ArchivoRespaldo() {
+    }
+
+    /**
+     * @param directorio Directorio a empaquetar.
+     * @return La suma de los tamaños de sus archivos.
+     * @throws IOException si no se puede recorrer
+     */
+    public static long tamano(Path directorio) throws IOException {
+        long total = 0;
+        for (Path archivo : archivos(directorio)) {
+            total += Files.size(archivo);
+        }
+        return total;
+    }
+
+    /**
+     * Escribe los archivos del directorio en la salida, sin cerrarla.
+     *
+     * @param directorio Directorio generado por {@code pg_dump -F d}.
+     * @param salida Destino del paquete.
+     * @param copiados Recibe los bytes copiados tras cada bloque.
+     * @throws IOException si falla la lectura o la escritura
+     */
+    public static void empaquetar(Path directorio, OutputStream salida, LongConsumer copiados) throws IOException {
+        DataOutputStream datos = new DataOutputStream(salida);
+        datos.write(CABECERA);
+        byte[] buffer = new byte[TAMANO_BUFFER];
+        long total = 0;
+        for (Path archivo : archivos(directorio)) {
+            datos.writeBoolean(true);
+            datos.writeUTF(directorio.relativize(archivo).toString().replace('\\', '/'));
+            datos.writeLong(Files.size(archivo));
+            try (InputStream entrada = Files.newInputStream(archivo)) {
+                int leidos;
+                while ((leidos = entrada.read(buffer)) != -1) {
+                    datos.write(buffer, 0, leidos);
+                    total += leidos;
+                    copiados.accept(total);
+                }
+            }
+        }
+        datos.writeBoolean(false);
+        datos.flush();
+    }
+
+    /**
+     * Extrae en el directorio los archivos de un paquete.
+     *
+     * @param entrada Paquete escrito por {@link #empaquetar}.
+     * @param directorio Directorio destino, que debe existir.
+     * @param extraidos Recibe los bytes extraídos tras cada bloque.
+     * @throws IOException si el paquete no es válido o falla la escritura
+     */
+    public static void desempaquetar(InputStream entrada, Path directorio, LongConsumer extraidos) throws IOException {
+        DataInputStream datos = new DataInputStream(entrada);
+        byte[] cabecera = new byte[CABECERA.length];
+        datos.readFully(cabecera);
+        if (!Arrays.equals(CABECERA, cabecera)) {
+            throw new IOException("The file is not an Econova backup");
+        }
+        Path raiz = directorio.toAbsolutePath().normalize();
+        byte[] buffer = new byte[TAMANO_BUFFER];
+        long total = 0;
+        while (datos.readBoolean()) {
+            String nombre = datos.readUTF();
+            long tamano = datos.readLong();
+            Path destino = raiz.resolve(nombre).normalize();
+            if (!destino.startsWith(raiz) || destino.equals(raiz) || tamano < 0) {
+                throw new IOException("Invalid backup entry: " + nombre);
+            }
+            Files.createDirectories(destino.getParent());
+            try (OutputStream salida = Files.newOutputStream(destino)) {
+                long pendientes = tamano;
+                while (pendientes > 0) {
+                    int leidos = datos.read(buffer, 0, (int) Math.min(buffer.length, pendientes));
+                    if (leidos == -1) {
+                        throw new IOException("The backup is truncated at " + nombre);
+                    }
+                    salida.write(buffer, 0, leidos);
+                    pendientes -= leidos;
+                    total += leidos;
+                    extraidos.accept(total);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param archivo Archivo a comprobar.
+     * @return true si es un paquete sin cifrar escrito por
+     * {@link #empaquetar}.
+     * @throws IOException si no se puede leer
+     */
+    public static boolean esPaquete(Path archivo) throws IOException {
+        byte[] cabecera = new byte[CABECERA.length];
+        try (InputStream entrada = Files.newInputStream(archivo)) {
+            return entrada.readNBytes(cabecera, 0, cabecera.length) == cabecera.length
+                    && Arrays.equals(CABECERA, cabecera);
+        }
+    }
+
+    private static List<Path> archivos(Path directorio) throws IOException {
+        try (Stream<Path> recorrido = Files.walk(directorio)) {
+            List<Path> archivos = new ArrayList<>();
+            recorrido.filter(Files::isRegularFile).sorted().forEach(archivos::add);
+            return archivos;
+        }
+    }
+}
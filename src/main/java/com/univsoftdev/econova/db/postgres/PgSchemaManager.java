@@ -1,12 +1,14 @@
 package com.univsoftdev.econova.db.postgres;
 
 import io.ebean.Database;
+import io.avaje.inject.Lazy;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
 
 
 @Slf4j
+@Lazy
 @Singleton
 public class PgSchemaManager {
 
@@ -1,13 +1,35 @@
 package com.univsoftdev.econova.db.postgres;
 
+import com.google.common.io.CountingInputStream;
+import com.univsoftdev.econova.core.config.AppConfig;
+import com.univsoftdev.econova.core.system.TaskManager;
+import com.univsoftdev.econova.security.SecureEncryptionUtils;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -22,8 +44,10 @@ import lombok.extern.slf4j.Slf4j;
  * </ul>
  * </p>
  * 
- * <p>Los backups se realizan en formato personalizado de PostgreSQL (-F c) 
- * con blobs incluidos (-b) para una restauración completa.</p>
+ * <p>Los backups se realizan en formato directorio de PostgreSQL (-F d) con
+ * varios procesos en paralelo y blobs incluidos (-b), y se guardan en un solo
+ * archivo, opcionalmente cifrado con AES-GCM. La restauración usa también
+ * varios procesos en paralelo.</p>
  * 
  * @author UnivSoftDev Team
  * @version 1.0
@@ -35,6 +59,44 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class PostgreSQLBackup {
 
+    /** Extensión de los archivos de backup. */
+    public static final String EXTENSION = ".ecobak";
+
+    private static final int TAMANO_BUFFER = 256 * 1024;
+    private static final long BYTES_POR_AVISO = 8L * 1024 * 1024;
+    private static final int LINEAS_ERROR = 20;
+
+    private static final TaskManager.Progreso SIN_PROGRESO = new TaskManager.Progreso() {
+        @Override
+        public void actualizar(int porcentaje, String mensaje) {
+        }
+
+        @Override
+        public boolean isCancelado() {
+            return false;
+        }
+    };
+
+    /**
+     * Resultado de un backup.
+     *
+     * @param archivo Archivo creado
+     * @param tablas Tablas volcadas
+     * @param bytesVolcados Tamaño del volcado comprimido de {@code pg_dump}
+     * @param bytesArchivo Tamaño del archivo final
+     * @param duracion Duración total
+     */
+    public record ResultadoRespaldo(Path archivo, int tablas, long bytesVolcados, long bytesArchivo, Duration duracion) {
+
+        /**
+         * @return El rendimiento medio en MB de archivo por segundo.
+         */
+        public double getMegabytesPorSegundo() {
+            double segundos = duracion.toNanos() / 1_000_000_000.0;
+            return segundos > 0 ? bytesArchivo / (1024.0 * 1024.0) / segundos : 0;
+        }
+    }
+
     /** Nombre de usuario para la conexión PostgreSQL. */
     private final String userName;
     
@@ -81,134 +143,287 @@ public class PostgreSQLBackup {
     }
 
     /**
-     * Realiza un backup de la base de datos configurada.
-     * 
-     * <p>Utiliza {@code pg_dump} con las siguientes opciones:
-     * <ul>
-     *   <li>-F c: Formato personalizado de PostgreSQL</li>
-     *   <li>-b: Incluir blobs grandes</li>
-     *   <li>-v: Modo verbose</li>
-     *   <li>-f: Archivo de salida</li>
-     * </ul>
-     * </p>
-     * 
+     * Realiza un backup de la base de datos configurada en la ruta de backup.
+     * Si la ruta es un directorio, el archivo se crea dentro con el nombre de
+     * la base de datos y la fecha.
+     *
      * @throws IOException si ocurre un error de E/S durante la ejecución
      * @throws InterruptedException si el proceso es interrumpido
      * @throws RuntimeException si el backup falla
-     * 
-     * @see #executeCommand(String, String)
-     * @see #ensureBackupDirectoryExists()
+     *
+     * @see #backup(String, List, Path, String, TaskManager.Progreso)
      */
     public void backup() throws IOException, InterruptedException {
-        ensureBackupDirectoryExists();
-
-        String pgDumpPath = getPostgreSqlBinPath() + (isWindows() ? "pg_dump.exe" : "pg_dump");
-        log.info("Using pg_dump path: {}", pgDumpPath);
-
-        String command;
-        if (getPostgreSqlBinPath().isEmpty()) {
-            // PostgreSQL está en el PATH del sistema
-            command = String.format("pg_dump -U %s -d %s -F c -b -v -f \"%s\"",
-                    userName, defaultDatabase, backupFilePath);
-        } else {
-            // PostgreSQL en ruta específica
-            command = String.format("\"%s\" -U %s -d %s -F c -b -v -f \"%s\"",
-                    pgDumpPath, userName, defaultDatabase, backupFilePath);
+        Path destino = Paths.get(backupFilePath);
+        if (Files.isDirectory(destino)) {
+            destino = destino.resolve(nombreArchivo(defaultDatabase));
         }
-        
-        executeCommand(command, "Backup");
-        log.info("Backup completed successfully to: {}", backupFilePath);
+        backup(defaultDatabase, List.of(), destino, null, SIN_PROGRESO);
     }
 
     /**
-     * Restaura una base de datos desde un archivo de backup.
-     * 
-     * <p>Utiliza {@code pg_restore} con las siguientes opciones:
+     * Realiza un backup en paralelo de una base de datos o de algunos de sus
+     * esquemas.
+     *
+     * <p>El proceso tiene dos etapas:
      * <ul>
-     *   <li>-U: Usuario de conexión</li>
-     *   <li>-d: Base de datos destino</li>
-     *   <li>-v: Modo verbose</li>
+     *   <li>{@code pg_dump -F d -j N} vuelca cada tabla en un archivo
+     *   comprimido, con {@link AppConfig#getBackupTrabajos()} procesos y la
+     *   compresión de {@link AppConfig#getBackupCompresion()}</li>
+     *   <li>El directorio se empaqueta en streaming con {@link ArchivoRespaldo}
+     *   y, si se indica una contraseña, se cifra con AES-GCM por bloques
+     *   mientras se escribe</li>
      * </ul>
      * </p>
-     * 
-     * <p><strong>Nota:</strong> La base de datos destino debe existir 
+     *
+     * <p>El archivo final se escribe en un temporal y se mueve al destino solo
+     * si todo terminó bien.</p>
+     *
+     * @param database Base de datos a respaldar
+     * @param esquemas Esquemas a incluir (uno por tenant); vacío para toda la
+     * base de datos
+     * @param destino Archivo de backup a crear
+     * @param clave Contraseña de cifrado, o null o vacía para no cifrar
+     * @param progreso Avance y cancelación
+     * @return Tamaños, duración y rendimiento del backup
+     *
+     * @throws IOException si ocurre un error de E/S durante la ejecución
+     * @throws InterruptedException si el proceso es interrumpido
+     * @throws CancellationException si se cancela
+     * @throws RuntimeException si {@code pg_dump} falla
+     */
+    public ResultadoRespaldo backup(String database, List<String> esquemas, Path destino, String clave,
+            TaskManager.Progreso progreso) throws IOException, InterruptedException {
+        long inicio = System.nanoTime();
+        Path directorioDestino = destino.toAbsolutePath().getParent();
+        Files.createDirectories(directorioDestino);
+        Path temporal = Files.createTempDirectory(directorioDestino, ".pgdump-");
+        Path volcado = temporal.resolve("volcado");
+        try {
+            List<String> comando = new ArrayList<>(List.of(getPostgreSqlCommand("pg_dump"),
+                    "-U", userName, "-d", database, "-F", "d", "-j", Integer.toString(AppConfig.getBackupTrabajos()),
+                    "-Z", AppConfig.getBackupCompresion(), "-b", "-v", "-f", volcado.toString()));
+            for (String esquema : esquemas) {
+                comando.add("-n");
+                comando.add(esquema);
+            }
+            int[] tablas = new int[1];
+            executeCommand(comando, "Backup", linea -> {
+                if (linea.contains("TABLE DATA") && linea.contains("finished item")
+                        || linea.contains("dumping contents of table")) {
+                    progreso.actualizar(-1, "Volcando tablas: " + ++tablas[0]);
+                }
+            }, progreso);
+
+            long bytesVolcados = ArchivoRespaldo.tamano(volcado);
+            Path parcial = temporal.resolve("respaldo.tmp");
+            long inicioEmpaquetado = System.nanoTime();
+            try (OutputStream archivo = new BufferedOutputStream(Files.newOutputStream(parcial), TAMANO_BUFFER);
+                    OutputStream salida = clave != null && !clave.isEmpty() ? cifrar(archivo, clave) : archivo) {
+                long[] ultimoAviso = {0};
+                ArchivoRespaldo.empaquetar(volcado, salida, copiados -> {
+                    if (progreso.isCancelado()) {
+                        throw new CancellationException();
+                    }
+                    if (copiados - ultimoAviso[0] >= BYTES_POR_AVISO || copiados == bytesVolcados) {
+                        ultimoAviso[0] = copiados;
+                        progreso.actualizar(porcentaje(copiados, bytesVolcados), String.format("Empaquetando: %s de %s (%.1f MB/s)",
+                                megabytes(copiados), megabytes(bytesVolcados), megabytesPorSegundo(copiados, inicioEmpaquetado)));
+                    }
+                });
+            }
+            Files.move(parcial, destino, StandardCopyOption.REPLACE_EXISTING);
+
+            ResultadoRespaldo resultado = new ResultadoRespaldo(destino, tablas[0], bytesVolcados, Files.size(destino),
+                    Duration.ofNanos(System.nanoTime() - inicio));
+            log.info("Backup of {} completed to {}: {} tables, {} dumped, {} written in {} s ({} MB/s)", database, destino,
+                    resultado.tablas(), megabytes(resultado.bytesVolcados()), megabytes(resultado.bytesArchivo()),
+                    resultado.duracion().toSeconds(), String.format("%.1f", resultado.getMegabytesPorSegundo()));
+            return resultado;
+        } finally {
+            borrarDirectorio(temporal);
+        }
+    }
+
+    /**
+     * Restaura una base de datos desde el archivo de backup configurado.
+     *
+     * <p><strong>Nota:</strong> La base de datos destino debe existir
      * antes de realizar la restauración.</p>
-     * 
+     *
      * @throws IOException si el archivo de backup no existe o hay error de E/S
      * @throws InterruptedException si el proceso es interrumpido
      * @throws RuntimeException si la restauración falla
-     * 
-     * @see #executeCommand(String, String)
+     *
+     * @see #restore(Path, String, String, TaskManager.Progreso)
      */
     public void restore() throws IOException, InterruptedException {
-        File file = new File(backupFilePath);
-        if (!file.exists()) {
-            throw new IOException("Backup file not found: " + backupFilePath);
+        restore(Paths.get(backupFilePath), defaultDatabase, null, SIN_PROGRESO);
+    }
+
+    /**
+     * Restaura una base de datos con {@code pg_restore -j N}.
+     *
+     * <p>Acepta los archivos creados por
+     * {@link #backup(String, List, Path, String, TaskManager.Progreso)},
+     * cifrados o no, que se desempaquetan en streaming a un directorio
+     * temporal, y los backups anteriores en formato personalizado
+     * ({@code -F c}), que se pasan directamente a {@code pg_restore}.</p>
+     *
+     * <p><strong>Nota:</strong> La base de datos destino debe existir
+     * antes de realizar la restauración.</p>
+     *
+     * @param archivo Archivo de backup
+     * @param database Base de datos destino
+     * @param clave Contraseña de cifrado, si el backup está cifrado
+     * @param progreso Avance y cancelación
+     *
+     * @throws IOException si el archivo de backup no existe, no es válido o
+     * la contraseña es incorrecta
+     * @throws InterruptedException si el proceso es interrumpido
+     * @throws CancellationException si se cancela
+     * @throws RuntimeException si {@code pg_restore} falla
+     */
+    public void restore(Path archivo, String database, String clave, TaskManager.Progreso progreso)
+            throws IOException, InterruptedException {
+        if (!Files.isRegularFile(archivo)) {
+            throw new IOException("Backup file not found: " + archivo);
+        }
+        boolean cifrado = SecureEncryptionUtils.isEncryptedStream(archivo);
+        if (!cifrado && !ArchivoRespaldo.esPaquete(archivo)) {
+            // Backup anterior en formato personalizado
+            executeCommand(comandoRestore(database, archivo), "Restore", linea -> {
+            }, progreso);
+            log.info("Restore completed successfully from: {}", archivo);
+            return;
         }
+        if (cifrado && (clave == null || clave.isEmpty())) {
+            throw new IOException("The backup is encrypted; a password is required");
+        }
+
+        Path temporal = crearDirectorioTemporal(archivo.toAbsolutePath().getParent(), ".pgrestore-");
+        try {
+            long total = Files.size(archivo);
+            long inicio = System.nanoTime();
+            try (CountingInputStream leidos = new CountingInputStream(
+                    new BufferedInputStream(Files.newInputStream(archivo), TAMANO_BUFFER));
+                    InputStream entrada = cifrado ? SecureEncryptionUtils.decryptingStream(leidos, clave) : leidos) {
+                progreso.actualizar(0, "Desempaquetando " + archivo.getFileName());
+                long[] ultimoAviso = {0};
+                ArchivoRespaldo.desempaquetar(entrada, temporal, extraidos -> {
+                    if (progreso.isCancelado()) {
+                        throw new CancellationException();
+                    }
+                    long bytes = leidos.getCount();
+                    if (bytes - ultimoAviso[0] >= BYTES_POR_AVISO) {
+                        ultimoAviso[0] = bytes;
+                        progreso.actualizar(porcentaje(bytes, total), String.format("Desempaquetando: %s de %s (%.1f MB/s)",
+                                megabytes(bytes), megabytes(total), megabytesPorSegundo(bytes, inicio)));
+                    }
+                });
+            }
 
-        String pgRestorePath = getPostgreSqlBinPath() + (isWindows() ? "pg_restore.exe" : "pg_restore");
-        log.info("Using pg_restore path: {}", pgRestorePath);
-
-        String command;
-        if (getPostgreSqlBinPath().isEmpty()) {
-            // PostgreSQL está en el PATH del sistema
-            command = String.format("pg_restore -U %s -d %s -v \"%s\"",
-                    userName, defaultDatabase, backupFilePath);
-        } else {
-            // PostgreSQL en ruta específica
-            command = String.format("\"%s\" -U %s -d %s -v \"%s\"",
-                    pgRestorePath, userName, defaultDatabase, backupFilePath);
+            int[] elementos = new int[1];
+            executeCommand(comandoRestore(database, temporal), "Restore", linea -> {
+                if (linea.contains("finished item") || linea.contains("processing item")) {
+                    progreso.actualizar(-1, "Restaurando: " + ++elementos[0] + " elementos");
+                }
+            }, progreso);
+            log.info("Restore of {} completed successfully from {} in {} s", database, archivo,
+                    Duration.ofNanos(System.nanoTime() - inicio).toSeconds());
+        } finally {
+            borrarDirectorio(temporal);
+        }
+    }
+
+    private List<String> comandoRestore(String database, Path origen) {
+        return List.of(getPostgreSqlCommand("pg_restore"), "-U", userName, "-d", database,
+                "-j", Integer.toString(AppConfig.getBackupTrabajos()), "-v", origen.toString());
+    }
+
+    private static OutputStream cifrar(OutputStream salida, String clave) throws IOException {
+        try {
+            return new SecureEncryptionUtils(clave).encryptingStream(salida);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot derive the encryption key", e);
         }
-        
-        executeCommand(command, "Restore");
-        log.info("Restore completed successfully from: {}", backupFilePath);
     }
 
     /**
-     * Asegura que el directorio para el archivo de backup exista.
-     * 
-     * <p>Verifica si el directorio padre del archivo de backup existe,
-     * y si no, intenta crearlo recursivamente.</p>
-     * 
-     * @throws IOException si no se puede crear el directorio
+     * Crea el directorio temporal junto al backup y, si no se puede, en el
+     * directorio temporal del sistema.
      */
-    private void ensureBackupDirectoryExists() throws IOException {
-        File backupFile = new File(backupFilePath);
-        File parentDir = backupFile.getParentFile();
+    private static Path crearDirectorioTemporal(Path directorio, String prefijo) throws IOException {
+        if (directorio != null) {
+            try {
+                return Files.createTempDirectory(directorio, prefijo);
+            } catch (IOException e) {
+                log.debug("Cannot create a temporary directory in {}: {}", directorio, e.getMessage());
+            }
+        }
+        return Files.createTempDirectory(prefijo);
+    }
 
-        if (parentDir != null && !parentDir.exists() && !parentDir.mkdirs()) {
-            throw new IOException("Failed to create backup directory: " + parentDir.getAbsolutePath());
+    private static void borrarDirectorio(Path directorio) {
+        try (Stream<Path> recorrido = Files.walk(directorio)) {
+            recorrido.sorted(Comparator.reverseOrder()).forEach(ruta -> {
+                try {
+                    Files.deleteIfExists(ruta);
+                } catch (IOException e) {
+                    log.warn("Cannot delete temporary file {}: {}", ruta, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Cannot delete temporary directory {}: {}", directorio, e.getMessage());
         }
     }
 
     /**
-     * Ejecuta un comando del sistema operativo de forma segura.
-     * 
+     * @param database Base de datos a respaldar
+     * @return Nombre de archivo de backup con la base de datos y la fecha
+     */
+    public static String nombreArchivo(String database) {
+        return database + "_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + EXTENSION;
+    }
+
+    private static int porcentaje(long parte, long total) {
+        return total > 0 ? (int) Math.min(100, parte * 100 / total) : -1;
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static double megabytesPorSegundo(long bytes, long inicioNanos) {
+        double segundos = (System.nanoTime() - inicioNanos) / 1_000_000_000.0;
+        return segundos > 0 ? bytes / (1024.0 * 1024.0) / segundos : 0;
+    }
+
+    /**
+     * Ejecuta un comando de PostgreSQL sin pasar por el shell.
+     *
      * <p>Este método:
      * <ul>
      *   <li>Establece la variable de entorno PGPASSWORD para autenticación</li>
-     *   <li>Redirige la salida de error a la salida estándar</li>
-     *   <li>Registra toda la salida del comando</li>
+     *   <li>Lee la salida en otro hilo, la registra a nivel debug y conserva
+     *   las últimas líneas para el mensaje de error</li>
+     *   <li>Termina el proceso y sus hijos si se cancela</li>
      *   <li>Verifica el código de salida para determinar éxito/fracaso</li>
      * </ul>
      * </p>
-     * 
-     * @param command El comando a ejecutar
+     *
+     * @param command El comando y sus argumentos
      * @param operation Nombre de la operación para mensajes de error (ej: "Backup", "Restore")
+     * @param salida Recibe cada línea de la salida del comando
+     * @param progreso Consultado para cancelar
      * @throws IOException si ocurre un error de E/S
      * @throws InterruptedException si el proceso es interrumpido
+     * @throws CancellationException si se cancela
      * @throws RuntimeException si el comando falla (código de salida != 0)
      */
-    private void executeCommand(String command, String operation) throws IOException, InterruptedException {
-        // Dividir el comando correctamente para ProcessBuilder
-        ProcessBuilder processBuilder;
-        if (isWindows()) {
-            // En Windows, usamos cmd.exe con el comando entre comillas
-            processBuilder = new ProcessBuilder("cmd.exe", "/c", command);
-        } else {
-            // En Unix/Linux, usamos sh -c con el comando entre comillas
-            processBuilder = new ProcessBuilder("sh", "-c", command);
-        }
+    private void executeCommand(List<String> command, String operation, Consumer<String> salida,
+            TaskManager.Progreso progreso) throws IOException, InterruptedException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
 
         // Establecer la contraseña de PostgreSQL como variable de entorno
         if (password != null && !password.isEmpty()) {
@@ -216,25 +431,58 @@ public class PostgreSQLBackup {
         }
         processBuilder.redirectErrorStream(true);
 
-        // Loggear el comando que se ejecutará (útil para debugging)
-        log.info("Executing {} command: {}", operation, command);
+        log.info("Executing {} command: {}", operation, String.join(" ", command));
 
         Process process = processBuilder.start();
+        Deque<String> ultimasLineas = new ArrayDeque<>();
+        Thread lector = Thread.ofPlatform().daemon().name(operation.toLowerCase() + "-output").start(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    log.debug("{} output: {}", operation, line);
+                    synchronized (ultimasLineas) {
+                        if (ultimasLineas.size() == LINEAS_ERROR) {
+                            ultimasLineas.removeFirst();
+                        }
+                        ultimasLineas.addLast(line);
+                    }
+                    salida.accept(line);
+                }
+            } catch (IOException e) {
+                log.debug("{} output closed: {}", operation, e.getMessage());
+            }
+        });
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                log.info("{} output: {}", operation, line);
+        try {
+            while (!process.waitFor(200, TimeUnit.MILLISECONDS)) {
+                if (progreso.isCancelado()) {
+                    throw new CancellationException(operation + " cancelled");
+                }
             }
+            lector.join();
+        } catch (InterruptedException | CancellationException e) {
+            process.descendants().forEach(ProcessHandle::destroy);
+            process.destroy();
+            throw e;
         }
 
-        int exitCode = process.waitFor();
+        int exitCode = process.exitValue();
         if (exitCode != 0) {
-            throw new RuntimeException(operation + " failed with exit code " + exitCode);
+            synchronized (ultimasLineas) {
+                throw new RuntimeException(operation + " failed with exit code " + exitCode
+                        + (ultimasLineas.isEmpty() ? "" : ":\n" + String.join("\n", ultimasLineas)));
+            }
         }
     }
 
+    /**
+     * @param command Nombre del ejecutable, sin extensión
+     * @return La ruta del ejecutable de PostgreSQL
+     */
+    private String getPostgreSqlCommand(String command) {
+        return getPostgreSqlBinPath() + (isWindows() ? command + ".exe" : command);
+    }
+
     /**
      * Obtiene la ruta al directorio bin de PostgreSQL.
      * 
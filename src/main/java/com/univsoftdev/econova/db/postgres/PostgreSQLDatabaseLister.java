@@ -4,6 +4,7 @@ import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -15,12 +16,14 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class PostgreSQLDatabaseLister {
 
+    private final String servidor;
     private final String url;
     private final String username;
     private final String password;
 
     @Inject
     public PostgreSQLDatabaseLister() {
+        this.servidor = null;
         this.url = null;
         this.username = null;
         this.password = null;
@@ -35,8 +38,8 @@ public class PostgreSQLDatabaseLister {
      * @param password Password
      */
     public PostgreSQLDatabaseLister(String host, int port, String username, String password) {
-        this.url = String.format("jdbc:postgresql://%s:%d/postgres",
-                Objects.requireNonNull(host), port);
+        this.servidor = String.format("jdbc:postgresql://%s:%d/", Objects.requireNonNull(host), port);
+        this.url = servidor + "postgres";
         this.username = Objects.requireNonNull(username);
         this.password = Objects.requireNonNull(password);
     }
@@ -62,4 +65,30 @@ public class PostgreSQLDatabaseLister {
 
         return databases;
     }
+
+    /**
+     * Retrieves the tenant schemas of a database, that is, the schemas that
+     * hold their own migrations table ({@code db_migration_<schema>}).
+     *
+     * @param database database to inspect
+     * @return schema names ordered by name (may be empty, never null)
+     */
+    public List<String> getTenantSchemas(String database) {
+        List<String> schemas = new ArrayList<>();
+        String sql = "SELECT table_schema FROM information_schema.tables "
+                + "WHERE table_name = 'db_migration_' || lower(table_schema) ORDER BY table_schema";
+
+        try (Connection conn = DriverManager.getConnection(servidor + Objects.requireNonNull(database), username, password); PreparedStatement stmt = conn.prepareStatement(sql); ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                schemas.add(rs.getString("table_schema"));
+            }
+
+        } catch (SQLException ex) {
+            log.error("Failed to retrieve schema list of {} from PostgreSQL at {}", database, servidor, ex);
+            throw new RuntimeException("Schema listing failed", ex);
+        }
+
+        return schemas;
+    }
 }
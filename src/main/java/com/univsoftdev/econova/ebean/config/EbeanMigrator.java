@@ -34,7 +34,9 @@ public class EbeanMigrator {
             log.info("Iniciando migración para esquema: {}", schema);
 
             // Primero asegurar que las migraciones estén generadas
-            MigratorGenerator.generateNextMigration();
+            if (MigratorGenerator.isGenerationEnabled()) {
+                MigratorGenerator.generateNextMigration();
+            }
 
             // Verificar si ya hay migraciones aplicadas
             boolean hasAppliedMigrations = checkIfMigrationsApplied(schema);
@@ -44,8 +46,9 @@ public class EbeanMigrator {
                 runInitMigration(); // FORZAR ejecución de migración inicial
             }
             
+            // El runner abre su propia conexión con currentSchema; no se toca
+            // el search_path de las conexiones del pool
             MigrationConfig migrationConfig = createMigrationConfig(schema);
-            database.sqlUpdate("SET search_path TO " + schema).execute();
             
             runMigrations(migrationConfig);
             log.info("Migración completada exitosamente para esquema: {}", schema);
@@ -55,6 +58,22 @@ public class EbeanMigrator {
             throw new MigrationException(errorMsg, e);
         }
     }
+
+    /**
+     * Aplica las migraciones pendientes de un esquema existente, sin generar
+     * migraciones ni consultar antes qué está aplicado: el runner lo resuelve
+     * con la tabla de metadatos del esquema. Es seguro llamarlo en paralelo
+     * para esquemas distintos.
+     *
+     * @param schema
+     */
+    public void aplicarMigraciones(String schema) {
+        try {
+            new MigrationRunner(createMigrationConfig(schema)).run();
+        } catch (Exception e) {
+            throw new MigrationException("Error en migración para esquema " + schema + ": " + e.getMessage(), e);
+        }
+    }
     
     private boolean checkIfMigrationsApplied(String schema) {
         try {
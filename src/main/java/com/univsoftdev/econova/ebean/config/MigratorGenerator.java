@@ -1,9 +1,12 @@
 package com.univsoftdev.econova.ebean.config;
 
+import io.avaje.config.Config;
 import io.ebean.annotation.Platform;
 import io.ebean.dbmigration.DbMigration;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
@@ -11,6 +14,20 @@ import lombok.extern.slf4j.Slf4j;
 public class MigratorGenerator {
 
     private static final String MIGRATION_BASE_PATH = "dbmigration";
+    private static final String RESOURCES_PATH = "src/main/resources";
+
+    /**
+     * La generación de migraciones compara el modelo con las migraciones del
+     * código fuente, así que solo tiene sentido en una copia de desarrollo con
+     * {@code ebean.migration.generate=true}; en una instalación se omite y no
+     * retrasa el arranque.
+     *
+     * @return true si se deben generar migraciones
+     */
+    public static boolean isGenerationEnabled() {
+        return Config.getBool("ebean.migration.generate", false)
+                && Files.isDirectory(Paths.get(RESOURCES_PATH));
+    }
 
     public static synchronized void generateNextMigration() {
         try {
@@ -0,0 +1,336 @@
+package com.univsoftdev.econova.ebean.config;
+
+import io.ebean.config.TenantDataSourceProvider;
+import io.ebean.config.TenantSchemaProvider;
+import io.ebean.datasource.DataSourceConfig;
+import io.ebean.datasource.DataSourceFactory;
+import io.ebean.datasource.DataSourcePool;
+import io.ebean.datasource.PoolStatus;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Proveedor de conexiones con un pool independiente por esquema de tenant.
+ * <p>
+ * Cada empresa obtiene sus conexiones de su propio pool, limitado a
+ * {@code maxPorTenant} conexiones, de modo que un informe pesado en una
+ * empresa solo puede agotar su partición y no las del resto. Las conexiones
+ * de cada pool se crean ya con su esquema, así que el {@code search_path} se
+ * fija una vez por conexión física y no en cada préstamo.
+ * <p>
+ * El esquema base (tenant {@code null}) tiene un pool propio,
+ * {@link #getDataSourceBase()}, que es el {@code DataSource} por defecto de
+ * Ebean y de las migraciones; se reserva {@code maxPorTenant} conexiones y no
+ * se cierra nunca.
+ * <p>
+ * Las particiones de los tenants comparten el resto de las conexiones
+ * máximas de la configuración base mediante un semáforo justo: cuando todas
+ * están prestadas, el préstamo espera en orden de llegada hasta el
+ * {@code waitTimeout} de la configuración en lugar de fallar. Los pools sin
+ * conexiones en uso durante {@code inactividad} se cierran, y al abrir uno
+ * nuevo con más de {@code maxConnections / maxPorTenant} pools abiertos se
+ * cierra antes el pool inactivo usado hace más tiempo, si lo hay.
+ */
+@Slf4j
+public class MyTenantDataSourceProvider implements TenantDataSourceProvider {
+
+    private static final long MARGEN_DESALOJO_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final DataSourceConfig base;
+    private final TenantSchemaProvider schemaProvider;
+    private final int maxPorTenant;
+    private final int maxPools;
+    private final long inactividadNanos;
+    private final long esperaMillis;
+    private final Semaphore conexionesTenants;
+    private final String esquemaBase;
+    private final DataSourcePool poolBase;
+    private final Map<String, Particion> pools = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService limpieza;
+
+    /**
+     * Pool de un esquema y momento de su último préstamo. Cada préstamo
+     * ocupa un permiso del semáforo compartido hasta que se cierra la
+     * conexión.
+     */
+    private final class Particion implements DataSource {
+
+        final DataSourcePool pool;
+        volatile long ultimoUso = System.nanoTime();
+
+        Particion(DataSourcePool pool) {
+            this.pool = pool;
+        }
+
+        boolean inactiva(long desde) {
+            return ultimoUso - desde < 0 && pool.status(false).busy() == 0;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            ultimoUso = System.nanoTime();
+            adquirir();
+            try {
+                return liberarAlCerrar(pool.getConnection());
+            } catch (SQLException | RuntimeException e) {
+                conexionesTenants.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            ultimoUso = System.nanoTime();
+            adquirir();
+            try {
+                return liberarAlCerrar(pool.getConnection(username, password));
+            } catch (SQLException | RuntimeException e) {
+                conexionesTenants.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return pool.getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            pool.setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            pool.setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return pool.getLoginTimeout();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            return pool.getParentLogger();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return iface.isInstance(pool) ? iface.cast(pool) : pool.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(pool) || pool.isWrapperFor(iface);
+        }
+    }
+
+    /**
+     * @param base Configuración común de las conexiones; sus conexiones
+     * máximas son el límite global del pool base y de todas las particiones.
+     * @param schemaProvider Esquema que corresponde a cada tenant.
+     * @param maxPorTenant Conexiones máximas de cada partición.
+     * @param inactividad Tiempo sin uso tras el que se cierra una partición.
+     */
+    public MyTenantDataSourceProvider(DataSourceConfig base, TenantSchemaProvider schemaProvider, int maxPorTenant,
+            Duration inactividad) {
+        this.base = base;
+        this.schemaProvider = schemaProvider;
+        this.maxPorTenant = Math.max(1, Math.min(maxPorTenant, base.getMaxConnections()));
+        int conexionesParticiones = Math.max(1, base.getMaxConnections() - this.maxPorTenant);
+        this.maxPools = Math.max(1, conexionesParticiones / this.maxPorTenant);
+        this.conexionesTenants = new Semaphore(conexionesParticiones, true);
+        this.inactividadNanos = inactividad.toNanos();
+        this.esperaMillis = Math.max(0, base.getWaitTimeoutMillis());
+        this.esquemaBase = schemaProvider.schema(null);
+        this.poolBase = crearPool(esquemaBase);
+        long periodo = Math.max(1, Math.min(inactividad.toSeconds() / 2, 60));
+        this.limpieza = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("econova-pools-tenant").daemon(true).factory());
+        this.limpieza.scheduleWithFixedDelay(this::cerrarInactivas, periodo, periodo, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return El pool del esquema base, que no se cierra por inactividad.
+     */
+    public DataSource getDataSourceBase() {
+        return poolBase;
+    }
+
+    @Override
+    public DataSource dataSource(Object tenantId) {
+        String esquema = schemaProvider.schema(tenantId);
+        if (esquemaBase.equals(esquema)) {
+            return poolBase;
+        }
+        Particion particion = pools.get(esquema);
+        if (particion == null) {
+            particion = abrir(esquema);
+        }
+        particion.ultimoUso = System.nanoTime();
+        return particion;
+    }
+
+    /**
+     * Estado actual del pool base y de cada partición, ordenado por
+     * conexiones en uso.
+     *
+     * @return Una entrada por esquema con pool creado.
+     */
+    public List<EstadoPoolTenant> getEstadisticas() {
+        List<EstadoPoolTenant> estados = new ArrayList<>(pools.size() + 1);
+        estados.add(estado(esquemaBase, poolBase));
+        pools.forEach((esquema, particion) -> estados.add(estado(esquema, particion.pool)));
+        estados.sort(Comparator.comparingInt(EstadoPoolTenant::enUso).reversed());
+        return estados;
+    }
+
+    @Override
+    public synchronized void shutdown(boolean deregisterDriver) {
+        limpieza.shutdownNow();
+        pools.values().forEach(particion -> particion.pool.shutdown());
+        pools.clear();
+        poolBase.shutdown();
+    }
+
+    /**
+     * Abre el pool de un esquema. Si ya hay {@code maxPools} pools abiertos
+     * se cierra antes el inactivo usado hace más tiempo; si ninguno está
+     * inactivo se abre igualmente, porque el semáforo compartido ya limita
+     * las conexiones prestadas.
+     */
+    private synchronized Particion abrir(String esquema) {
+        Particion existente = pools.get(esquema);
+        if (existente != null) {
+            return existente;
+        }
+        if (pools.size() >= maxPools) {
+            // Margen para no cerrar un pool que otro hilo acaba de obtener
+            long desde = System.nanoTime() - MARGEN_DESALOJO_NANOS;
+            pools.entrySet().stream()
+                    .filter(entrada -> entrada.getValue().inactiva(desde))
+                    .min(Comparator.comparingLong(entrada -> entrada.getValue().ultimoUso))
+                    .map(Map.Entry::getKey)
+                    .ifPresent(this::cerrar);
+        }
+        Particion particion = new Particion(crearPool(esquema));
+        pools.put(esquema, particion);
+        return particion;
+    }
+
+    private void adquirir() throws SQLException {
+        try {
+            if (!conexionesTenants.tryAcquire(esperaMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("No hay conexiones libres tras esperar " + esperaMillis
+                        + " ms; todas las conexiones de las empresas están en uso.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Se interrumpió la espera de una conexión", e);
+        }
+    }
+
+    /**
+     * Envuelve la conexión para devolver su permiso al cerrarla. Cerrarla
+     * más de una vez no tiene efecto, como indica {@link Connection#close()}.
+     */
+    private Connection liberarAlCerrar(Connection conexion) {
+        AtomicBoolean liberada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, argumentos) -> {
+                    if ("close".equals(metodo.getName()) && metodo.getParameterCount() == 0) {
+                        if (liberada.compareAndSet(false, true)) {
+                            try {
+                                conexion.close();
+                            } finally {
+                                conexionesTenants.release();
+                            }
+                        }
+                        return null;
+                    }
+                    if ("isClosed".equals(metodo.getName()) && liberada.get()) {
+                        return true;
+                    }
+                    if ("unwrap".equals(metodo.getName()) && ((Class<?>) argumentos[0]).isInstance(conexion)) {
+                        return conexion;
+                    }
+                    try {
+                        return metodo.invoke(conexion, argumentos);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private synchronized void cerrarInactivas() {
+        try {
+            long desde = System.nanoTime() - inactividadNanos;
+            pools.entrySet().stream()
+                    .filter(entrada -> entrada.getValue().inactiva(desde))
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(this::cerrar);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron cerrar los pools inactivos", e);
+        }
+    }
+
+    private void cerrar(String esquema) {
+        Particion particion = pools.remove(esquema);
+        if (particion != null) {
+            log.info("Cerrando el pool de conexiones inactivo del esquema {}", esquema);
+            particion.pool.shutdown();
+        }
+    }
+
+    private DataSourcePool crearPool(String esquema) {
+        DataSourceConfig config = base.copy();
+        config.setSchema(esquema);
+        config.setMinConnections(Math.min(base.getMinConnections(), maxPorTenant));
+        config.setMaxConnections(maxPorTenant);
+        log.info("Creando pool de conexiones para el esquema {} (máximo {}, {} pools abiertos)", esquema,
+                maxPorTenant, pools.size() + 1);
+        return DataSourceFactory.create("econova-" + esquema, config);
+    }
+
+    private static EstadoPoolTenant estado(String esquema, DataSourcePool pool) {
+        PoolStatus estado = pool.status(false);
+        return new EstadoPoolTenant(esquema, estado.busy(), estado.free(), estado.waiting(),
+                estado.maxSize(), estado.highWaterMark(), estado.waitCount());
+    }
+
+    /**
+     * Métricas de la partición de un tenant.
+     *
+     * @param esquema Esquema del tenant.
+     * @param enUso Conexiones prestadas.
+     * @param libres Conexiones disponibles en el pool.
+     * @param esperando Hilos esperando una conexión.
+     * @param maximo Tamaño máximo de la partición.
+     * @param maximoAlcanzado Mayor número de conexiones en uso a la vez.
+     * @param esperas Veces que un hilo tuvo que esperar una conexión.
+     */
+    public record EstadoPoolTenant(String esquema, int enUso, int libres, int esperando,
+            int maximo, int maximoAlcanzado, long esperas) {
+    }
+}
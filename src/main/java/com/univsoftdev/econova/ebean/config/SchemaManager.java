@@ -2,12 +2,14 @@ package com.univsoftdev.econova.ebean.config;
 
 import io.ebean.Database;
 import io.ebean.SqlRow;
+import io.avaje.inject.Lazy;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
 import java.util.List;
 
 @Slf4j
+@Lazy
 @Singleton
 public class SchemaManager {
 
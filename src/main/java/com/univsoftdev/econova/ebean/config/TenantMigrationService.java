@@ -0,0 +1,238 @@
+package com.univsoftdev.econova.ebean.config;
+
+import com.univsoftdev.econova.contabilidad.service.CuentaService;
+import com.univsoftdev.econova.contabilidad.service.SaldoPeriodoService;
+import com.univsoftdev.econova.core.UserContext;
+import com.univsoftdev.econova.ebean.config.EbeanMigrator.MigrationException;
+import io.avaje.config.Config;
+import io.ebean.Database;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Migra en paralelo los esquemas de todos los tenants.
+ * <p>
+ * Los esquemas se descubren por su tabla de metadatos de migración y se
+ * migran con una concurrencia acotada
+ * ({@code econova.migration.parallelism}). Cada esquema se migra bajo un
+ * bloqueo consultivo de PostgreSQL, de modo que dos instancias de la
+ * aplicación no migran el mismo esquema a la vez. La aplicación no espera al
+ * conjunto: quien vaya a usar un tenant llama a {@link #esperar(String)} y
+ * solo espera por el suyo.
+ * <p>
+ * Tras migrar el esquema de un tenant, y ya sin el bloqueo, se completan con
+ * Ebean los datos derivados que las versiones anteriores no guardaban, como
+ * las rutas del plan de cuentas y los acumulados por período.
+ */
+@Slf4j
+@Singleton
+public class TenantMigrationService {
+
+    // Primera clave de los bloqueos consultivos, para no chocar con otros usos
+    private static final int CLAVE_BLOQUEO = 0x45434E56;
+    private static final String ESQUEMA_BASE = "accounting";
+
+    private final EbeanMigrator migrator;
+    private final Database database;
+    private final CuentaService cuentaService;
+    private final SaldoPeriodoService saldoPeriodoService;
+    private final Map<String, CompletableFuture<Void>> migraciones = new ConcurrentHashMap<>();
+    private final List<Consumer<ProgresoMigracion>> listeners = new CopyOnWriteArrayList<>();
+
+    @Inject
+    public TenantMigrationService(EbeanMigrator migrator, Database database, CuentaService cuentaService,
+            SaldoPeriodoService saldoPeriodoService) {
+        this.migrator = migrator;
+        this.database = database;
+        this.cuentaService = cuentaService;
+        this.saldoPeriodoService = saldoPeriodoService;
+    }
+
+    /**
+     * Lanza la migración de todos los esquemas de tenants sin bloquear al
+     * llamante. El esquema base se encola primero. Los esquemas ya migrados
+     * en esta ejecución no se vuelven a migrar; los que fallaron se
+     * reintentan.
+     *
+     * @return Se completa cuando terminan todas las migraciones.
+     */
+    public synchronized CompletableFuture<Void> migrarTodos() {
+        List<String> esquemas = descubrirEsquemas();
+        int paralelismo = Math.max(1, Math.min(esquemas.size(), Config.getInt("econova.migration.parallelism",
+                Math.min(4, Runtime.getRuntime().availableProcessors()))));
+        ExecutorService ejecutor = Executors.newFixedThreadPool(paralelismo,
+                Thread.ofPlatform().name("econova-migracion-", 0).daemon(true).factory());
+        log.info("Migrando {} esquemas con {} hilos", esquemas.size(), paralelismo);
+
+        AtomicInteger terminados = new AtomicInteger();
+        List<CompletableFuture<Void>> tareas = new ArrayList<>(esquemas.size());
+        for (String esquema : esquemas) {
+            tareas.add(migraciones.compute(esquema, (clave, anterior) -> {
+                if (anterior != null && !anterior.isCompletedExceptionally()) {
+                    return anterior;
+                }
+                return CompletableFuture.runAsync(() -> {
+                    migrarConBloqueo(esquema);
+                    completarDatos(esquema);
+                }, ejecutor)
+                        .whenComplete((resultado, error) -> notificar(new ProgresoMigracion(
+                        esquema, terminados.incrementAndGet(), esquemas.size(), error)));
+            }));
+        }
+        CompletableFuture<Void> todas = CompletableFuture.allOf(tareas.toArray(CompletableFuture[]::new));
+        todas.whenComplete((resultado, error) -> ejecutor.shutdown());
+        return todas;
+    }
+
+    /**
+     * Espera a que termine la migración de un esquema. Si el esquema no está
+     * entre los que se están migrando, vuelve de inmediato.
+     *
+     * @param esquema Esquema del tenant.
+     * @throws MigrationException si la migración del esquema falló
+     */
+    public void esperar(String esquema) {
+        CompletableFuture<Void> migracion = migraciones.get(esquema);
+        if (migracion == null) {
+            return;
+        }
+        try {
+            migracion.join();
+        } catch (CompletionException e) {
+            throw new MigrationException("El esquema " + esquema + " no se pudo migrar", e.getCause());
+        }
+    }
+
+    /**
+     * @param esquema Esquema del tenant.
+     * @return true si el esquema ya se puede usar.
+     */
+    public boolean isMigrado(String esquema) {
+        CompletableFuture<Void> migracion = migraciones.get(esquema);
+        return migracion == null || migracion.isDone() && !migracion.isCompletedExceptionally();
+    }
+
+    public void addListener(Consumer<ProgresoMigracion> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<ProgresoMigracion> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Esquemas con tabla de metadatos de migración, en una sola consulta. Son
+     * el esquema base y los de los tenants.
+     *
+     * @return Los esquemas, empezando por el base.
+     */
+    public List<String> descubrirEsquemas() {
+        Set<String> esquemas = new LinkedHashSet<>();
+        esquemas.add(ESQUEMA_BASE);
+        esquemas.addAll(database.sqlQuery("SELECT table_schema FROM information_schema.tables "
+                + "WHERE table_name = 'db_migration_' || lower(table_schema) "
+                + "ORDER BY table_schema")
+                .mapToScalar(String.class)
+                .findList());
+        return new ArrayList<>(esquemas);
+    }
+
+    private void migrarConBloqueo(String esquema) {
+        long inicio = System.nanoTime();
+        try (Connection conexion = database.dataSource().getConnection()) {
+            ejecutarBloqueo(conexion, "SELECT pg_advisory_lock(?, hashtext(?))", esquema);
+            try {
+                migrator.aplicarMigraciones(esquema);
+            } finally {
+                ejecutarBloqueo(conexion, "SELECT pg_advisory_unlock(?, hashtext(?))", esquema);
+            }
+        } catch (SQLException e) {
+            throw new MigrationException("No se pudo obtener el bloqueo de migración del esquema " + esquema, e);
+        }
+        log.info("Esquema {} migrado en {} ms", esquema, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Completa los datos derivados de un tenant en su propio contexto. Cada
+     * paso comprueba antes si le queda algo por hacer, así que en un esquema
+     * ya completado solo cuesta una consulta. El esquema base no tiene datos
+     * contables y se omite. Un fallo deja el esquema como no migrado, igual
+     * que un fallo de la migración.
+     *
+     * @param esquema Esquema recién migrado.
+     * @throws MigrationException si no se pudieron completar los datos
+     */
+    private void completarDatos(String esquema) {
+        if (ESQUEMA_BASE.equals(esquema)) {
+            return;
+        }
+        UserContext.set("System", esquema, esquema);
+        try {
+            cuentaService.completarRutas();
+            saldoPeriodoService.completarAcumulados();
+        } catch (RuntimeException e) {
+            throw new MigrationException("No se pudieron completar los datos del esquema " + esquema, e);
+        } finally {
+            UserContext.reset();
+        }
+    }
+
+    private static void ejecutarBloqueo(Connection conexion, String sql, String esquema) throws SQLException {
+        try (PreparedStatement sentencia = conexion.prepareStatement(sql)) {
+            sentencia.setInt(1, CLAVE_BLOQUEO);
+            sentencia.setString(2, esquema);
+            try (ResultSet resultado = sentencia.executeQuery()) {
+                resultado.next();
+            }
+        }
+        // El bloqueo es de sesión; se confirma para no dejar la conexión en
+        // una transacción abierta mientras dura la migración
+        conexion.commit();
+    }
+
+    private void notificar(ProgresoMigracion progreso) {
+        if (progreso.error() != null) {
+            log.error("Migración del esquema {} fallida ({}/{})", progreso.esquema(),
+                    progreso.terminados(), progreso.total(), progreso.error());
+        } else {
+            log.info("Migración del esquema {} terminada ({}/{})", progreso.esquema(),
+                    progreso.terminados(), progreso.total());
+        }
+        for (Consumer<ProgresoMigracion> listener : listeners) {
+            try {
+                listener.accept(progreso);
+            } catch (RuntimeException e) {
+                log.warn("Error notificando el progreso de migración", e);
+            }
+        }
+    }
+
+    /**
+     * Avance de la migración de los tenants.
+     *
+     * @param esquema Esquema que acaba de terminar.
+     * @param terminados Esquemas terminados hasta ahora, con o sin error.
+     * @param total Esquemas a migrar.
+     * @param error Causa del fallo, o {@code null} si se migró.
+     */
+    public record ProgresoMigracion(String esquema, int terminados, int total, Throwable error) {
+    }
+}
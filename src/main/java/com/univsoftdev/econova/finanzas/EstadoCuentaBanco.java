@@ -1,32 +1,91 @@
 package com.univsoftdev.econova.finanzas;
 
-import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.Unmarshaller;
-import jakarta.xml.bind.annotation.XmlAccessType;
-import jakarta.xml.bind.annotation.XmlAccessorType;
-import jakarta.xml.bind.annotation.XmlElement;
-import jakarta.xml.bind.annotation.XmlRootElement;
-import java.io.File;
 import java.math.BigDecimal;
-import java.util.List;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 /**
- * Clase principal para el registro de cuenta*
+ * Registro del estado de cuenta exportado por el banco
+ * ({@code NewDataSet/Estado_x0020_de_x0020_Cuenta}).
  */
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@XmlAccessorType(XmlAccessType.FIELD)
 public class EstadoCuentaBanco {
 
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("d/M/uuuu");
+
+    /**
+     * Tipos que los bancos usan para las entradas de fondos, sin tildes.
+     */
+    private static final Set<String> TIPOS_CREDITO = Set.of("C", "CR", "CRED", "CREDITO", "ABONO", "HABER",
+            "DEPOSITO", "INGRESO", "ENTRADA");
+
+    /**
+     * Tipos que los bancos usan para las salidas de fondos, sin tildes.
+     */
+    private static final Set<String> TIPOS_DEBITO = Set.of("D", "DB", "DR", "DEB", "DEBITO", "CARGO", "DEBE",
+            "RETIRO", "EXTRACCION", "PAGO", "SALIDA");
+
     private String fecha;
     private String ref_corrie;
     private String observ;
     private BigDecimal importe;
     private String tipo;
+    /**
+     * Línea del archivo donde empieza el registro.
+     */
+    private int linea;
+
+    /**
+     * @return La fecha de la operación, o null si no se puede interpretar.
+     * Acepta fechas ISO, con o sin hora, y el formato dd/MM/yyyy.
+     */
+    public LocalDate getFechaOperacion() {
+        if (fecha == null || fecha.isBlank()) {
+            return null;
+        }
+        String valor = fecha.trim();
+        try {
+            if (valor.length() >= 10 && valor.charAt(4) == '-') {
+                return LocalDate.parse(valor.substring(0, 10));
+            }
+            int espacio = valor.indexOf(' ');
+            return LocalDate.parse(espacio > 0 ? valor.substring(0, espacio) : valor, FORMATO_FECHA);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true si es un crédito (entrada de fondos) en la cuenta del
+     * banco. El tipo se compara con las abreviaturas y palabras conocidas de
+     * crédito y débito ({@code CR}, {@code ABONO}, {@code CARGO}...); sin
+     * tipo o con uno desconocido, se deduce del signo del importe.
+     */
+    public boolean isCredito() {
+        if (tipo != null && !tipo.isBlank()) {
+            String valor = Normalizer.normalize(tipo, Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}", "")
+                    .replace(".", "")
+                    .trim()
+                    .toUpperCase(Locale.ROOT);
+            if (TIPOS_CREDITO.contains(valor)) {
+                return true;
+            }
+            if (TIPOS_DEBITO.contains(valor)) {
+                return false;
+            }
+        }
+        return importe != null && importe.signum() > 0;
+    }
 
     @Override
     public String toString() {
@@ -37,36 +96,3 @@ public class EstadoCuentaBanco {
                 + " | Tipo: " + tipo;
     }
 }
-
-/**
- * Contenedor del conjunto de registros*
- */
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
-@XmlRootElement(name = "NewDataSet")
-@XmlAccessorType(XmlAccessType.FIELD)
-class NewDataSet {
-
-    @XmlElement(name = "Estado_x0020_de_x0020_Cuenta")
-    private List<EstadoCuentaBanco> registros;
-
-}
-
-// Clase principal de ejecución
-class App {
-
-    public static void main(String[] args) throws Exception {
-        File file = new File("Pasted_Text_1748030339793.txt");
-
-        JAXBContext context = JAXBContext.newInstance(NewDataSet.class);
-        Unmarshaller unmarshaller = context.createUnmarshaller();
-
-        NewDataSet dataSet = (NewDataSet) unmarshaller.unmarshal(file);
-
-        System.out.println("Total de registros: " + dataSet.getRegistros().size());
-        for (EstadoCuentaBanco ec : dataSet.getRegistros()) {
-            System.out.println(ec);
-        }
-    }
-}
@@ -0,0 +1,109 @@
+package com.univsoftdev.econova.finanzas;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Lee el estado de cuenta exportado por el banco registro a registro con
+ * StAX, sin cargar el archivo en memoria.
+ * <p>
+ * El archivo es un {@code NewDataSet} con un elemento
+ * {@code Estado_x0020_de_x0020_Cuenta} por operación y los campos
+ * {@code fecha}, {@code ref_corrie}, {@code observ}, {@code importe} y
+ * {@code tipo} como elementos hijos.
+ */
+public final class LectorEstadoCuenta {
+
+    /**
+     * Recibe cada registro leído.
+     */
+    @FunctionalInterface
+    public interface Receptor {
+
+        /**
+         * @param registro Registro leído.
+         * @return false para dejar de leer.
+         * @throws InterruptedException si se interrumpe el hilo que lee
+         */
+        boolean recibir(EstadoCuentaBanco registro) throws InterruptedException;
+    }
+
+    private static final String ELEMENTO_REGISTRO = "Estado_x0020_de_x0020_Cuenta";
+
+    private LectorEstadoCuenta() {
+    }
+
+    /**
+     * Recorre los registros del archivo en orden.
+     *
+     * @param archivo Estado de cuenta en XML.
+     * @param receptor Receptor de los registros.
+     * @throws IOException si el archivo no se puede leer o no es un XML
+     * válido
+     * @throws InterruptedException si se interrumpe el hilo que lee
+     */
+    public static void leer(Path archivo, Receptor receptor) throws IOException, InterruptedException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        try (InputStream entrada = Files.newInputStream(archivo)) {
+            XMLStreamReader xml = factory.createXMLStreamReader(entrada);
+            try {
+                EstadoCuentaBanco registro = null;
+                while (xml.hasNext()) {
+                    int evento = xml.next();
+                    if (evento == XMLStreamConstants.START_ELEMENT) {
+                        String nombre = xml.getLocalName();
+                        if (ELEMENTO_REGISTRO.equals(nombre)) {
+                            registro = new EstadoCuentaBanco();
+                            registro.setLinea(xml.getLocation().getLineNumber());
+                        } else if (registro != null) {
+                            asignar(registro, nombre, xml.getElementText().trim());
+                        }
+                    } else if (evento == XMLStreamConstants.END_ELEMENT && registro != null
+                            && ELEMENTO_REGISTRO.equals(xml.getLocalName())) {
+                        if (!receptor.recibir(registro)) {
+                            return;
+                        }
+                        registro = null;
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("El archivo " + archivo.getFileName() + " no es un estado de cuenta válido", e);
+        }
+    }
+
+    private static void asignar(EstadoCuentaBanco registro, String campo, String valor) {
+        switch (campo) {
+            case "fecha" ->
+                registro.setFecha(valor);
+            case "ref_corrie" ->
+                registro.setRef_corrie(valor);
+            case "observ" ->
+                registro.setObserv(valor);
+            case "tipo" ->
+                registro.setTipo(valor);
+            case "importe" -> {
+                // Un importe no válido queda vacío y el registro se informa sin conciliar
+                try {
+                    registro.setImporte(valor.isEmpty() ? null : new BigDecimal(valor.replace(',', '.')));
+                } catch (NumberFormatException e) {
+                    registro.setImporte(null);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.univsoftdev.econova.finanzas.service;
+
+import com.univsoftdev.econova.contabilidad.TipoTransaccion;
+import com.univsoftdev.econova.contabilidad.dto.MovimientoCuentaDto;
+import com.univsoftdev.econova.contabilidad.model.Account;
+import com.univsoftdev.econova.contabilidad.service.TransaccionService;
+import com.univsoftdev.econova.core.config.AppConfig;
+import com.univsoftdev.econova.core.system.TaskManager;
+import com.univsoftdev.econova.finanzas.EstadoCuentaBanco;
+import com.univsoftdev.econova.finanzas.LectorEstadoCuenta;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Concilia el estado de cuenta de un banco con los movimientos contables de
+ * la cuenta bancaria.
+ * <p>
+ * Un hilo lee el XML del banco con {@link LectorEstadoCuenta} y deja los
+ * registros en una cola acotada; el hilo que llama los empareja a medida que
+ * llegan. Los movimientos de la cuenta se cargan por meses bajo demanda en un
+ * índice hash por (tipo, importe, día) y solo se conservan los
+ * {@value #MESES_EN_MEMORIA} meses más próximos a la fecha en curso, de modo
+ * que la memoria no depende del tamaño de la cuenta. Los movimientos
+ * conciliados se quitan del índice y se anota su id; si un registro fuera de
+ * orden necesita un mes ya descartado, el mes se vuelve a cargar sin esos
+ * movimientos.
+ * <p>
+ * Un crédito del banco corresponde a un débito en libros y viceversa. Entre
+ * los movimientos del mismo importe dentro de la ventana de
+ * {@link AppConfig#getDiasConciliacionBancaria()} días se prefiere el que
+ * coincide en referencia (número de asiento o texto en la descripción) y, si
+ * no hay, el de fecha más próxima. Cada movimiento se concilia una sola vez.
+ */
+@Slf4j
+@Singleton
+public class ConciliacionBancariaService {
+
+    private static final int CAPACIDAD_COLA = 1024;
+    private static final int RESULTADOS_POR_ENTREGA = 500;
+    private static final int MESES_EN_MEMORIA = 4;
+    private static final int LONGITUD_MINIMA_REFERENCIA = 3;
+    private static final EstadoCuentaBanco FIN = new EstadoCuentaBanco();
+
+    public enum TipoCoincidencia {
+        REFERENCIA, IMPORTE_FECHA, SIN_COINCIDENCIA
+    }
+
+    /**
+     * Resultado de conciliar un registro del banco.
+     *
+     * @param registro Registro del estado de cuenta.
+     * @param coincidencia Cómo se emparejó.
+     * @param movimiento Movimiento contable emparejado, o null.
+     */
+    public record ResultadoConciliacion(
+            EstadoCuentaBanco registro,
+            TipoCoincidencia coincidencia,
+            MovimientoCuentaDto movimiento) {
+    }
+
+    /**
+     * Totales de una conciliación.
+     *
+     * @param cuentaId Cuenta conciliada.
+     * @param cuenta Código y nombre de la cuenta.
+     * @param archivo Nombre del estado de cuenta.
+     * @param fecha Momento en que terminó.
+     * @param registros Registros leídos.
+     * @param porReferencia Conciliados por referencia.
+     * @param porImporteFecha Conciliados por importe y fecha.
+     * @param sinCoincidencia Registros sin movimiento contable.
+     * @param importePendiente Suma de los importes sin conciliar.
+     * @param cancelada Si se canceló antes de terminar.
+     */
+    public record ResumenConciliacion(
+            Long cuentaId,
+            String cuenta,
+            String archivo,
+            LocalDateTime fecha,
+            int registros,
+            int porReferencia,
+            int porImporteFecha,
+            int sinCoincidencia,
+            BigDecimal importePendiente,
+            boolean cancelada) {
+    }
+
+    private final TransaccionService transaccionService;
+    private final Map<Long, ResumenConciliacion> ultimas = new ConcurrentHashMap<>();
+
+    @Inject
+    public ConciliacionBancariaService(TransaccionService transaccionService) {
+        this.transaccionService = transaccionService;
+    }
+
+    /**
+     * Concilia un estado de cuenta con la cuenta indicada. Debe llamarse
+     * fuera del hilo de eventos.
+     *
+     * @param archivo Estado de cuenta en XML.
+     * @param cuenta Cuenta bancaria en libros.
+     * @param receptor Recibe los resultados en bloques, en el orden del
+     * archivo.
+     * @param progreso Avance y cancelación.
+     * @return Los totales de la conciliación.
+     * @throws IOException si el archivo no se puede leer
+     * @throws InterruptedException si se interrumpe el hilo
+     */
+    public ResumenConciliacion conciliar(Path archivo, Account cuenta, Consumer<List<ResultadoConciliacion>> receptor,
+            TaskManager.Progreso progreso) throws IOException, InterruptedException {
+        BlockingQueue<EstadoCuentaBanco> cola = new ArrayBlockingQueue<>(CAPACIDAD_COLA);
+        AtomicReference<Exception> errorLectura = new AtomicReference<>();
+        Thread lector = Thread.ofPlatform().daemon().name("lector-estado-cuenta").start(() -> {
+            try {
+                LectorEstadoCuenta.leer(archivo, registro -> {
+                    cola.put(registro);
+                    return true;
+                });
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                errorLectura.set(e);
+            }
+            try {
+                cola.put(FIN);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        IndiceMovimientos indice = new IndiceMovimientos(cuenta.getId(), AppConfig.getDiasConciliacionBancaria());
+        List<ResultadoConciliacion> bloque = new ArrayList<>(RESULTADOS_POR_ENTREGA);
+        int registros = 0;
+        int porReferencia = 0;
+        int porImporteFecha = 0;
+        int sinCoincidencia = 0;
+        BigDecimal importePendiente = BigDecimal.ZERO;
+        boolean cancelada = false;
+        try {
+            while (true) {
+                if (progreso.isCancelado()) {
+                    cancelada = true;
+                    break;
+                }
+                EstadoCuentaBanco registro = cola.poll(200, TimeUnit.MILLISECONDS);
+                if (registro == null) {
+                    continue;
+                }
+                if (registro == FIN) {
+                    break;
+                }
+                ResultadoConciliacion resultado = indice.emparejar(registro);
+                registros++;
+                switch (resultado.coincidencia()) {
+                    case REFERENCIA ->
+                        porReferencia++;
+                    case IMPORTE_FECHA ->
+                        porImporteFecha++;
+                    default -> {
+                        sinCoincidencia++;
+                        if (registro.getImporte() != null) {
+                            importePendiente = importePendiente.add(registro.getImporte().abs());
+                        }
+                    }
+                }
+                bloque.add(resultado);
+                if (bloque.size() == RESULTADOS_POR_ENTREGA) {
+                    receptor.accept(bloque);
+                    bloque = new ArrayList<>(RESULTADOS_POR_ENTREGA);
+                    progreso.actualizar(-1, registros + " registros conciliados");
+                }
+            }
+        } finally {
+            lector.interrupt();
+        }
+        Exception error = errorLectura.get();
+        if (error != null) {
+            throw error instanceof IOException io ? io : new IOException(error.getMessage(), error);
+        }
+        if (!bloque.isEmpty()) {
+            receptor.accept(bloque);
+        }
+
+        ResumenConciliacion resumen = new ResumenConciliacion(cuenta.getId(), cuenta.getCode() + " " + cuenta.getName(),
+                archivo.getFileName().toString(), LocalDateTime.now(), registros, porReferencia, porImporteFecha,
+                sinCoincidencia, importePendiente, cancelada);
+        if (!cancelada) {
+            ultimas.put(cuenta.getId(), resumen);
+        }
+        log.info("Conciliación de {} con {}: {} registros, {} por referencia, {} por importe y fecha, {} sin coincidencia",
+                resumen.cuenta(), resumen.archivo(), registros, porReferencia, porImporteFecha, sinCoincidencia);
+        return resumen;
+    }
+
+    /**
+     * @param cuentaId Cuenta bancaria.
+     * @return Los totales de la última conciliación terminada de la cuenta
+     * en esta sesión.
+     */
+    public Optional<ResumenConciliacion> getUltimaConciliacion(Long cuentaId) {
+        return Optional.ofNullable(ultimas.get(cuentaId));
+    }
+
+    /**
+     * @return Los totales de la última conciliación de cada cuenta en esta
+     * sesión.
+     */
+    public Collection<ResumenConciliacion> getUltimasConciliaciones() {
+        return List.copyOf(ultimas.values());
+    }
+
+    /**
+     * Clave del índice: tipo del movimiento en libros, importe en centavos y
+     * día.
+     */
+    private record Clave(TipoTransaccion tipo, long centavos, long dia) {
+    }
+
+    /**
+     * Movimientos de la cuenta por mes, cargados bajo demanda.
+     */
+    private final class IndiceMovimientos {
+
+        private final Long cuentaId;
+        private final int dias;
+        private final Map<YearMonth, Map<Clave, List<MovimientoCuentaDto>>> meses = new HashMap<>();
+        private final Set<Long> conciliados = new HashSet<>();
+
+        IndiceMovimientos(Long cuentaId, int dias) {
+            this.cuentaId = cuentaId;
+            this.dias = Math.max(0, dias);
+        }
+
+        ResultadoConciliacion emparejar(EstadoCuentaBanco registro) {
+            LocalDate fecha = registro.getFechaOperacion();
+            if (fecha == null || registro.getImporte() == null) {
+                return new ResultadoConciliacion(registro, TipoCoincidencia.SIN_COINCIDENCIA, null);
+            }
+            cargar(fecha);
+
+            TipoTransaccion tipo = registro.isCredito() ? TipoTransaccion.DEBITO : TipoTransaccion.CREDITO;
+            long centavos = centavos(registro.getImporte());
+            long dia = fecha.toEpochDay();
+            String referencia = normalizar(registro.getRef_corrie());
+
+            List<MovimientoCuentaDto> listaCercana = null;
+            // Días en orden de cercanía: 0, -1, +1, -2, +2...
+            for (int i = 0; i <= 2 * dias; i++) {
+                int desplazamiento = (i + 1) / 2 * (i % 2 == 0 ? 1 : -1);
+                List<MovimientoCuentaDto> candidatos = buscar(new Clave(tipo, centavos, dia + desplazamiento));
+                if (candidatos == null || candidatos.isEmpty()) {
+                    continue;
+                }
+                if (listaCercana == null) {
+                    listaCercana = candidatos;
+                }
+                if (referencia.isEmpty()) {
+                    break;
+                }
+                for (Iterator<MovimientoCuentaDto> it = candidatos.iterator(); it.hasNext();) {
+                    MovimientoCuentaDto movimiento = it.next();
+                    if (coincideReferencia(movimiento, referencia)) {
+                        it.remove();
+                        conciliados.add(movimiento.id());
+                        return new ResultadoConciliacion(registro, TipoCoincidencia.REFERENCIA, movimiento);
+                    }
+                }
+            }
+            if (listaCercana == null) {
+                return new ResultadoConciliacion(registro, TipoCoincidencia.SIN_COINCIDENCIA, null);
+            }
+            MovimientoCuentaDto movimiento = listaCercana.remove(0);
+            conciliados.add(movimiento.id());
+            return new ResultadoConciliacion(registro, TipoCoincidencia.IMPORTE_FECHA, movimiento);
+        }
+
+        private List<MovimientoCuentaDto> buscar(Clave clave) {
+            Map<Clave, List<MovimientoCuentaDto>> mes = meses.get(YearMonth.from(LocalDate.ofEpochDay(clave.dia())));
+            return mes != null ? mes.get(clave) : null;
+        }
+
+        /**
+         * Asegura que estén cargados los meses que cubre la ventana de la
+         * fecha y descarta los más alejados. Un mes descartado se vuelve a
+         * cargar si otro registro lo necesita, sin los movimientos ya
+         * conciliados.
+         */
+        private void cargar(LocalDate fecha) {
+            YearMonth desde = YearMonth.from(fecha.minusDays(dias));
+            YearMonth hasta = YearMonth.from(fecha.plusDays(dias));
+            for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+                if (!meses.containsKey(mes)) {
+                    meses.put(mes, cargarMes(mes));
+                }
+            }
+            YearMonth actual = YearMonth.from(fecha);
+            while (meses.size() > MESES_EN_MEMORIA) {
+                YearMonth lejano = meses.keySet().stream()
+                        .max((a, b) -> Long.compare(distancia(a, actual), distancia(b, actual)))
+                        .orElseThrow();
+                meses.remove(lejano);
+            }
+        }
+
+        private Map<Clave, List<MovimientoCuentaDto>> cargarMes(YearMonth mes) {
+            Map<Clave, List<MovimientoCuentaDto>> indice = new HashMap<>();
+            transaccionService.recorrerMovimientosConciliacion(cuentaId, mes.atDay(1), mes.atEndOfMonth(), movimiento -> {
+                if (movimiento.fecha() != null && movimiento.importe() != null
+                        && !conciliados.contains(movimiento.id())) {
+                    Clave clave = new Clave(movimiento.tipo(), centavos(movimiento.importe()),
+                            movimiento.fecha().toEpochDay());
+                    indice.computeIfAbsent(clave, c -> new ArrayList<>(1)).add(movimiento);
+                }
+            });
+            return indice;
+        }
+
+        private static long distancia(YearMonth mes, YearMonth actual) {
+            return Math.abs(ChronoUnit.MONTHS.between(mes, actual));
+        }
+    }
+
+    private static boolean coincideReferencia(MovimientoCuentaDto movimiento, String referencia) {
+        if (movimiento.nroAsiento() > 0 && referencia.equals(Integer.toString(movimiento.nroAsiento()))) {
+            return true;
+        }
+        String descripcion = movimiento.descripcion();
+        return referencia.length() >= LONGITUD_MINIMA_REFERENCIA && descripcion != null
+                && descripcion.toUpperCase(Locale.ROOT).contains(referencia);
+    }
+
+    /**
+     * Referencia en mayúsculas y sin ceros a la izquierda, para compararla
+     * con el número de asiento y la descripción.
+     */
+    private static String normalizar(String referencia) {
+        if (referencia == null) {
+            return "";
+        }
+        String valor = referencia.trim().toUpperCase(Locale.ROOT);
+        int inicio = 0;
+        while (inicio < valor.length() - 1 && valor.charAt(inicio) == '0') {
+            inicio++;
+        }
+        return valor.substring(inicio);
+    }
+
+    private static long centavos(BigDecimal importe) {
+        return importe.abs().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+}
@@ -1,32 +1,231 @@
 package com.univsoftdev.econova.finanzas.views.banco;
 
+import com.formdev.flatlaf.FlatClientProperties;
+import com.univsoftdev.econova.contabilidad.model.Account;
+import com.univsoftdev.econova.contabilidad.service.CuentaService;
+import com.univsoftdev.econova.core.Injector;
 import com.univsoftdev.econova.core.system.Form;
+import com.univsoftdev.econova.core.system.TaskManager;
+import com.univsoftdev.econova.core.utils.DialogUtils;
+import com.univsoftdev.econova.finanzas.EstadoCuentaBanco;
+import com.univsoftdev.econova.finanzas.service.ConciliacionBancariaService;
+import com.univsoftdev.econova.finanzas.service.ConciliacionBancariaService.ResultadoConciliacion;
+import com.univsoftdev.econova.finanzas.service.ConciliacionBancariaService.ResumenConciliacion;
+import java.awt.Component;
+import java.nio.file.Path;
+import java.util.List;
+import javax.swing.DefaultComboBoxModel;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JFileChooser;
+import javax.swing.JList;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.DefaultTableModel;
+import lombok.extern.slf4j.Slf4j;
+import raven.modal.component.SimpleModalBorder;
 
+/**
+ * Conciliación del estado de cuenta del banco con los movimientos de la
+ * cuenta bancaria. Los resultados se agregan a la tabla a medida que se
+ * concilian.
+ */
+@Slf4j
 public class FormBanco extends Form {
 
     private static final long serialVersionUID = -8161093947855570587L;
 
+    private final CuentaService cuentaService;
+    private final ConciliacionBancariaService conciliacionService;
+    private final DefaultTableModel modelo = new DefaultTableModel(new Object[]{
+        "Línea", "Fecha", "Referencia", "Observación", "Importe", "Tipo", "Coincidencia", "Asiento", "Fecha libros", "Descripción"}, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+
     public FormBanco() {
         initComponents();
+        cuentaService = Injector.get(CuentaService.class);
+        conciliacionService = Injector.get(ConciliacionBancariaService.class);
+        labelTitulo.putClientProperty(FlatClientProperties.STYLE, "font:bold +3");
+        comboCuenta.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus) {
+                Object texto = value instanceof Account cuenta ? cuenta.getCode() + " " + cuenta.getName() : value;
+                return super.getListCellRendererComponent(list, texto, index, isSelected, cellHasFocus);
+            }
+        });
+        tableResultados.setModel(modelo);
+    }
+
+    @Override
+    public void formOpen() {
+        cargarCuentas();
+    }
+
+    @Override
+    public void formRefresh() {
+        cargarCuentas();
+    }
+
+    private void cargarCuentas() {
+        ejecutarEnSegundoPlano("Cargando cuentas bancarias", progreso -> cuentaService.findCuentasBancarias(),
+                cuentas -> {
+                    Object seleccionada = comboCuenta.getSelectedItem();
+                    comboCuenta.setModel(new DefaultComboBoxModel<>(cuentas.toArray(Account[]::new)));
+                    if (seleccionada instanceof Account anterior) {
+                        cuentas.stream().filter(c -> c.getId().equals(anterior.getId()))
+                                .findFirst().ifPresent(comboCuenta::setSelectedItem);
+                    }
+                });
+    }
+
+    /**
+     * Concilia en segundo plano el estado de cuenta elegido con la cuenta
+     * seleccionada.
+     */
+    private void conciliar() {
+        if (!(comboCuenta.getSelectedItem() instanceof Account cuenta)) {
+            DialogUtils.showWarningDialog(this, "Seleccione la cuenta bancaria a conciliar.",
+                    "Conciliación bancaria", SimpleModalBorder.CLOSE_OPTION);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Estado de cuenta (XML)", "xml"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path archivo = chooser.getSelectedFile().toPath();
+        modelo.setRowCount(0);
+        labelResumen.setText("Conciliando " + archivo.getFileName() + "...");
+        buttonConciliar.setEnabled(false);
+        TaskManager.ejecutar(buttonConciliar, "Conciliando estado de cuenta",
+                progreso -> conciliacionService.conciliar(archivo, cuenta,
+                        bloque -> SwingUtilities.invokeLater(() -> agregarResultados(bloque)), progreso),
+                this::mostrarResumen,
+                error -> {
+                    labelResumen.setText(" ");
+                    log.error("No se pudo conciliar {}", archivo, error);
+                    DialogUtils.showErrorDialog(this, error.getMessage(), "Conciliación bancaria",
+                            SimpleModalBorder.CLOSE_OPTION);
+                },
+                () -> buttonConciliar.setEnabled(true));
+    }
+
+    private void agregarResultados(List<ResultadoConciliacion> resultados) {
+        for (ResultadoConciliacion resultado : resultados) {
+            EstadoCuentaBanco registro = resultado.registro();
+            var movimiento = resultado.movimiento();
+            modelo.addRow(new Object[]{
+                registro.getLinea(),
+                registro.getFecha(),
+                registro.getRef_corrie(),
+                registro.getObserv(),
+                registro.getImporte(),
+                registro.getTipo(),
+                switch (resultado.coincidencia()) {
+                    case REFERENCIA ->
+                        "Referencia";
+                    case IMPORTE_FECHA ->
+                        "Importe y fecha";
+                    default ->
+                        "Sin coincidencia";
+                },
+                movimiento != null ? movimiento.nroAsiento() : null,
+                movimiento != null ? movimiento.fecha() : null,
+                movimiento != null ? movimiento.descripcion() : null
+            });
+        }
+    }
+
+    private void mostrarResumen(ResumenConciliacion resumen) {
+        if (resumen == null) {
+            return;
+        }
+        labelResumen.setText(String.format("%s: %d registros, %d por referencia, %d por importe y fecha, "
+                + "%d sin coincidencia (%s pendiente)%s", resumen.archivo(), resumen.registros(),
+                resumen.porReferencia(), resumen.porImporteFecha(), resumen.sinCoincidencia(),
+                resumen.importePendiente().toPlainString(), resumen.cancelada() ? ". Cancelada" : ""));
     }
 
     @SuppressWarnings("unchecked")
     // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
     private void initComponents() {
 
+        labelTitulo = new javax.swing.JLabel();
+        jLabel1 = new javax.swing.JLabel();
+        comboCuenta = new javax.swing.JComboBox<>();
+        buttonConciliar = new javax.swing.JButton();
+        jScrollPane1 = new javax.swing.JScrollPane();
+        tableResultados = new javax.swing.JTable();
+        labelResumen = new javax.swing.JLabel();
+
+        labelTitulo.setText("Conciliación bancaria");
+
+        jLabel1.setText("Cuenta:");
+
+        buttonConciliar.setText("Conciliar estado de cuenta...");
+        buttonConciliar.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                buttonConciliarActionPerformed(evt);
+            }
+        });
+
+        tableResultados.setAutoCreateRowSorter(true);
+        jScrollPane1.setViewportView(tableResultados);
+
+        labelResumen.setText(" ");
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
             layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-            .addGap(0, 400, Short.MAX_VALUE)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(jScrollPane1, javax.swing.GroupLayout.DEFAULT_SIZE, 760, Short.MAX_VALUE)
+                    .addComponent(labelResumen, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(labelTitulo)
+                        .addGap(20, 20, 20)
+                        .addComponent(jLabel1)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(comboCuenta, 0, 300, Short.MAX_VALUE)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(buttonConciliar)))
+                .addContainerGap())
         );
         layout.setVerticalGroup(
             layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-            .addGap(0, 300, Short.MAX_VALUE)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(labelTitulo)
+                    .addComponent(jLabel1)
+                    .addComponent(comboCuenta, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(buttonConciliar))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jScrollPane1, javax.swing.GroupLayout.DEFAULT_SIZE, 400, Short.MAX_VALUE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(labelResumen)
+                .addContainerGap())
         );
     }// </editor-fold>//GEN-END:initComponents
 
+    private void buttonConciliarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonConciliarActionPerformed
+        conciliar();
+    }//GEN-LAST:event_buttonConciliarActionPerformed
+
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton buttonConciliar;
+    private javax.swing.JComboBox<Account> comboCuenta;
+    private javax.swing.JLabel jLabel1;
+    private javax.swing.JScrollPane jScrollPane1;
+    private javax.swing.JLabel labelResumen;
+    private javax.swing.JLabel labelTitulo;
+    private javax.swing.JTable tableResultados;
     // End of variables declaration//GEN-END:variables
 }
@@ -1,32 +1,134 @@
 package com.univsoftdev.econova.finanzas.views.banco;
 
+import com.formdev.flatlaf.FlatClientProperties;
+import com.univsoftdev.econova.contabilidad.model.Account;
+import com.univsoftdev.econova.contabilidad.service.CuentaService;
+import com.univsoftdev.econova.core.Injector;
 import com.univsoftdev.econova.core.system.Form;
+import com.univsoftdev.econova.finanzas.service.ConciliacionBancariaService;
+import com.univsoftdev.econova.finanzas.service.ConciliacionBancariaService.ResumenConciliacion;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import javax.swing.table.DefaultTableModel;
 
+/**
+ * Cuentas bancarias con su saldo en libros y el resultado de la última
+ * conciliación con el estado de cuenta del banco.
+ */
 public class FormCuentasBancarias extends Form {
 
     private static final long serialVersionUID = -5666935646120740588L;
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private final CuentaService cuentaService;
+    private final ConciliacionBancariaService conciliacionService;
+    private final DefaultTableModel modelo = new DefaultTableModel(new Object[]{
+        "Código", "Cuenta", "Saldo", "Última conciliación", "Estado de cuenta", "Registros",
+        "Conciliados", "Sin coincidencia", "Importe pendiente"}, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
 
     public FormCuentasBancarias() {
         initComponents();
+        cuentaService = Injector.get(CuentaService.class);
+        conciliacionService = Injector.get(ConciliacionBancariaService.class);
+        labelTitulo.putClientProperty(FlatClientProperties.STYLE, "font:bold +3");
+        tableCuentas.setModel(modelo);
+    }
+
+    @Override
+    public void formOpen() {
+        cargarCuentas();
+    }
+
+    @Override
+    public void formRefresh() {
+        cargarCuentas();
+    }
+
+    private void cargarCuentas() {
+        ejecutarEnSegundoPlano("Cargando cuentas bancarias", progreso -> cuentaService.findCuentasBancarias(),
+                this::mostrarCuentas);
+    }
+
+    private void mostrarCuentas(List<Account> cuentas) {
+        modelo.setRowCount(0);
+        for (Account cuenta : cuentas) {
+            ResumenConciliacion resumen = conciliacionService.getUltimaConciliacion(cuenta.getId()).orElse(null);
+            modelo.addRow(new Object[]{
+                cuenta.getCode(),
+                cuenta.getName(),
+                cuenta.getBalance(),
+                resumen != null ? resumen.fecha().format(FORMATO_FECHA) : "Sin conciliar",
+                resumen != null ? resumen.archivo() : null,
+                resumen != null ? resumen.registros() : null,
+                resumen != null ? resumen.porReferencia() + resumen.porImporteFecha() : null,
+                resumen != null ? resumen.sinCoincidencia() : null,
+                resumen != null ? resumen.importePendiente() : null
+            });
+        }
     }
 
     @SuppressWarnings("unchecked")
     // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
     private void initComponents() {
 
+        labelTitulo = new javax.swing.JLabel();
+        buttonActualizar = new javax.swing.JButton();
+        jScrollPane1 = new javax.swing.JScrollPane();
+        tableCuentas = new javax.swing.JTable();
+
+        labelTitulo.setText("Cuentas bancarias");
+
+        buttonActualizar.setText("Actualizar");
+        buttonActualizar.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                buttonActualizarActionPerformed(evt);
+            }
+        });
+
+        tableCuentas.setAutoCreateRowSorter(true);
+        jScrollPane1.setViewportView(tableCuentas);
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
             layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-            .addGap(0, 400, Short.MAX_VALUE)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(jScrollPane1, javax.swing.GroupLayout.DEFAULT_SIZE, 760, Short.MAX_VALUE)
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(labelTitulo)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                        .addComponent(buttonActualizar)))
+                .addContainerGap())
         );
         layout.setVerticalGroup(
             layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
-            .addGap(0, 300, Short.MAX_VALUE)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(labelTitulo)
+                    .addComponent(buttonActualizar))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jScrollPane1, javax.swing.GroupLayout.DEFAULT_SIZE, 400, Short.MAX_VALUE)
+                .addContainerGap())
         );
     }// </editor-fold>//GEN-END:initComponents
 
+    private void buttonActualizarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_buttonActualizarActionPerformed
+        cargarCuentas();
+    }//GEN-LAST:event_buttonActualizarActionPerformed
+
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton buttonActualizar;
+    private javax.swing.JScrollPane jScrollPane1;
+    private javax.swing.JLabel labelTitulo;
+    private javax.swing.JTable tableCuentas;
     // End of variables declaration//GEN-END:variables
 }
@@ -2,12 +2,14 @@ package com.univsoftdev.econova.modules;
 
 import com.univsoftdev.econova.core.config.AppConfig;
 import com.univsoftdev.econova.ebean.config.*;
+import io.avaje.config.Config;
 import io.avaje.inject.Bean;
 import io.avaje.inject.Factory;
 import io.ebean.*;
 import io.ebean.config.*;
 import io.ebean.datasource.DataSourceConfig;
 import java.sql.Connection;
+import java.time.Duration;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Optional;
@@ -50,21 +52,25 @@ public class EbeanModule {
      * <li>Asegura que el esquema base exista</li>
      * <li>Crea la configuración de la base de datos</li>
      * <li>Inicializa Ebean con la configuración</li>
-     * <li>Genera archivos DDL para uso en TenantMigrationService</li>
+     * <li>Genera archivos DDL para uso en TenantMigrationService (solo en
+     * desarrollo)</li>
      * </ol>
      * </p>
      *
+     * @param config Configuración de la base de datos
      * @return Instancia configurada de Database
      */
     @Bean
-    public Database database() {
+    public Database database(DatabaseConfig config) {
 
-        var db = DatabaseFactory.create(createDatabaseConfig());
+        var db = DatabaseFactory.create(config);
 
         // Generar migraciones después de que la base de datos esté inicializada  
-        // y el contexto de esquema esté establecido 
-        MigratorGenerator.generateInitMigration();
-        MigratorGenerator.generateNextMigration();
+        // y el contexto de esquema esté establecido; solo en desarrollo
+        if (MigratorGenerator.isGenerationEnabled()) {
+            MigratorGenerator.generateInitMigration();
+            MigratorGenerator.generateNextMigration();
+        }
         return db;
     }
 
@@ -82,15 +88,16 @@ public class EbeanModule {
      * </ul>
      * </p>
      *
+     * @param dataSources Pools de conexiones por tenant
      * @return Configuración completa de DatabaseConfig
      */
     @Bean
-    public DatabaseConfig createDatabaseConfig() {
+    public DatabaseConfig createDatabaseConfig(MyTenantDataSourceProvider dataSources) {
         DatabaseConfig config = new DatabaseConfig();
         config.setName("econova");
         config.setDefaultServer(true);
         config.setRegister(true);
-        config.setDataSourceConfig(createDataSourceConfig());
+        config.setDataSource(dataSources.getDataSourceBase());
         config.setClassLoadConfig(new ClassLoadConfig(Thread.currentThread().getContextClassLoader()));
 
         // Configurar esquema para migraciones  
@@ -101,8 +108,13 @@ public class EbeanModule {
         config.setCurrentTenantProvider(new MyCurrentTenantProvider());
         config.setTenantSchemaProvider(new MyTenantSchemaProvider());
 
-        // Configuración de tenant basado en esquemas    
-        config.setTenantMode(TenantMode.SCHEMA);
+        // Cada tenant usa su propio esquema a través de su propio pool de
+        // conexiones, creado ya con ese esquema
+        config.setTenantMode(TenantMode.DB);
+        config.setTenantDataSourceProvider(dataSources);
+        // La caché L2 de datos maestros se particiona por tenant: cada esquema
+        // tiene sus propias cuentas, monedas y unidades con los mismos códigos
+        config.setTenantPartitionedCache(true);
 
         // Configuración de migraciones y DDL - CORREGIDO
         configureDdlAndMigrations(config);
@@ -116,6 +128,29 @@ public class EbeanModule {
         return config;
     }
 
+    /**
+     * Crea los pools de conexiones particionados por tenant.
+     *
+     * <p>
+     * Cada esquema recibe un pool de hasta
+     * {@code econova.database.pool.tenant.maxConnections} conexiones (10 por
+     * defecto), de modo que la carga de una empresa no deja sin conexiones a
+     * las demás. El esquema base tiene su propio pool, que no se cierra, y
+     * las empresas comparten el resto de las conexiones máximas: si están
+     * todas prestadas, el préstamo espera su turno. El pool de una empresa se
+     * cierra tras {@code econova.database.pool.tenant.idleMinutes} minutos
+     * sin uso (10 por defecto).</p>
+     *
+     * @param dsConfig Configuración común de las conexiones
+     * @return Proveedor de conexiones por tenant
+     */
+    @Bean
+    public MyTenantDataSourceProvider tenantDataSourceProvider(DataSourceConfig dsConfig) {
+        return new MyTenantDataSourceProvider(dsConfig, new MyTenantSchemaProvider(),
+                Config.getInt("econova.database.pool.tenant.maxConnections", 10),
+                Duration.ofMinutes(Config.getInt("econova.database.pool.tenant.idleMinutes", 10)));
+    }
+
     /**
      * Configura las opciones de DDL y migraciones según el entorno.
      *
@@ -7,9 +7,11 @@ import com.univsoftdev.econova.db.postgres.PostgreSQLDatabaseLister;
 import com.univsoftdev.econova.db.postgres.PostgresSql;
 import io.avaje.inject.Bean;
 import io.avaje.inject.Factory;
+import io.avaje.inject.Lazy;
 import jakarta.inject.Singleton;
 
 @Factory
+@Lazy
 public class PostgresModule {
 
     @Bean
@@ -24,7 +24,7 @@ public class SecurityModule {
     public PasswordHasher passwordHasher() {
         log.info("Inicializando Argon2PasswordHasher");
         Argon2PasswordHasher hasher = new Argon2PasswordHasher();
-        log.debug("Argon2PasswordHasher inicializado correctamente");
+        log.debug("Argon2PasswordHasher inicializado correctamente: {}", hasher.getConfiguration());
         return hasher;
     }
 }
@@ -1,6 +1,7 @@
 package com.univsoftdev.econova.modules;
 
 import com.univsoftdev.econova.security.argon2.Argon2CredentialsMatcher;
+import com.univsoftdev.econova.security.shiro.AutorizacionCache;
 import com.univsoftdev.econova.security.shiro.CustomRealm;
 import io.avaje.inject.Bean;
 import io.avaje.inject.Factory;
@@ -12,8 +13,9 @@ import org.apache.shiro.authc.credential.PasswordService;
 public class ShiroModule {
 
     @Bean
-    public CustomRealm customRealm(Database database, Argon2CredentialsMatcher argon2CredentialsMatcher) {
-        return new CustomRealm(database, argon2CredentialsMatcher);
+    public CustomRealm customRealm(Database database, Argon2CredentialsMatcher argon2CredentialsMatcher,
+            AutorizacionCache autorizacionCache) {
+        return new CustomRealm(database, argon2CredentialsMatcher, autorizacionCache);
     }
     
     @Bean
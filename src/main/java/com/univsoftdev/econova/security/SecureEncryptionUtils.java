@@ -1,10 +1,17 @@
 package com.univsoftdev.econova.security;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
@@ -14,6 +21,7 @@ import java.util.Base64;
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
@@ -29,6 +37,11 @@ public class SecureEncryptionUtils {
     private static final int ITERATIONS = 100000;
     private static final String ENCRYPTED_FILE_HEADER = "ENCRYPTED_CONFIG_V2:";
     private static final String ENCRYPTED_PREFIX = "enc:";
+    private static final String ENCRYPTED_STREAM_HEADER = "ENCRYPTED_STREAM_V1:";
+    private static final String STREAM_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int STREAM_NONCE_PREFIX_LENGTH = 8;
+    private static final int STREAM_TAG_BITS = 128;
+    private static final int STREAM_CHUNK_SIZE = 1024 * 1024;
     private final SecretKey secretKey;
     private final SecureRandom random;
     private final byte[] salt;
@@ -168,6 +181,228 @@ public class SecureEncryptionUtils {
         return Arrays.equals(header, fileStart);
     }
 
+    /**
+     * Returns a stream that encrypts everything written to it with AES-GCM in
+     * chunks of {@value #STREAM_CHUNK_SIZE} bytes, so arbitrarily large data
+     * can be encrypted without buffering it. Each chunk is authenticated on
+     * its own with a nonce derived from its position, and the last chunk is
+     * marked, so reordered, altered or truncated data is rejected on
+     * decryption.
+     * <p>
+     * Format: HEADER + SALT + NONCE_PREFIX + (LAST_FLAG + LENGTH + CHUNK)*.
+     * The stream must be closed to write the last chunk.
+     *
+     * @param out destination of the encrypted data
+     * @return the encrypting stream
+     * @throws IOException if the header cannot be written
+     */
+    public OutputStream encryptingStream(OutputStream out) throws IOException {
+        byte[] noncePrefix = new byte[STREAM_NONCE_PREFIX_LENGTH];
+        random.nextBytes(noncePrefix);
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(ENCRYPTED_STREAM_HEADER.getBytes(StandardCharsets.UTF_8));
+        data.write(salt);
+        data.write(noncePrefix);
+        return new EncryptingOutputStream(data, secretKey, noncePrefix);
+    }
+
+    /**
+     * Returns a stream that decrypts data written by
+     * {@link #encryptingStream(OutputStream)}. The key is derived from the
+     * password and the salt stored in the stream header.
+     *
+     * @param in encrypted data
+     * @param password password used to encrypt
+     * @return the decrypting stream
+     * @throws IOException if the header is not valid
+     */
+    public static InputStream decryptingStream(InputStream in, String password) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] header = ENCRYPTED_STREAM_HEADER.getBytes(StandardCharsets.UTF_8);
+        byte[] fileHeader = new byte[header.length];
+        data.readFully(fileHeader);
+        if (!Arrays.equals(header, fileHeader)) {
+            throw new IOException("Invalid encrypted stream header");
+        }
+        byte[] salt = new byte[SALT_LENGTH];
+        byte[] noncePrefix = new byte[STREAM_NONCE_PREFIX_LENGTH];
+        data.readFully(salt);
+        data.readFully(noncePrefix);
+        try {
+            SecretKey key = new SecureEncryptionUtils(password, salt).secretKey;
+            return new DecryptingInputStream(data, key, noncePrefix);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot derive the decryption key", e);
+        }
+    }
+
+    /**
+     * Checks if a file was written by {@link #encryptingStream(OutputStream)}
+     */
+    public static boolean isEncryptedStream(Path file) throws IOException {
+        byte[] header = ENCRYPTED_STREAM_HEADER.getBytes(StandardCharsets.UTF_8);
+        byte[] fileStart = new byte[header.length];
+        try (InputStream is = Files.newInputStream(file)) {
+            return is.readNBytes(fileStart, 0, header.length) == header.length && Arrays.equals(header, fileStart);
+        }
+    }
+
+    private static byte[] streamNonce(byte[] prefix, int counter) {
+        return ByteBuffer.allocate(STREAM_NONCE_PREFIX_LENGTH + Integer.BYTES).put(prefix).putInt(counter).array();
+    }
+
+    private static final class EncryptingOutputStream extends FilterOutputStream {
+
+        private final DataOutputStream data;
+        private final SecretKey key;
+        private final byte[] noncePrefix;
+        private final byte[] buffer = new byte[STREAM_CHUNK_SIZE];
+        private final Cipher cipher;
+        private int position;
+        private int counter;
+        private boolean closed;
+
+        EncryptingOutputStream(DataOutputStream data, SecretKey key, byte[] noncePrefix) throws IOException {
+            super(data);
+            this.data = data;
+            this.key = key;
+            this.noncePrefix = noncePrefix;
+            try {
+                this.cipher = Cipher.getInstance(STREAM_TRANSFORMATION);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("AES-GCM is not available", e);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                // The full buffer is written only when more data arrives, so the last chunk can be marked on close
+                if (position == buffer.length) {
+                    writeChunk(false);
+                }
+                int count = Math.min(len, buffer.length - position);
+                System.arraycopy(b, off, buffer, position, count);
+                position += count;
+                off += count;
+                len -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            data.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeChunk(true);
+            } finally {
+                data.close();
+            }
+        }
+
+        private void writeChunk(boolean last) throws IOException {
+            try {
+                cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(STREAM_TAG_BITS, streamNonce(noncePrefix, counter++)));
+                cipher.updateAAD(new byte[]{(byte) (last ? 1 : 0)});
+                byte[] encrypted = cipher.doFinal(buffer, 0, position);
+                data.writeBoolean(last);
+                data.writeInt(encrypted.length);
+                data.write(encrypted);
+                position = 0;
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Cannot encrypt chunk " + (counter - 1), e);
+            }
+        }
+    }
+
+    private static final class DecryptingInputStream extends InputStream {
+
+        private final DataInputStream data;
+        private final SecretKey key;
+        private final byte[] noncePrefix;
+        private final Cipher cipher;
+        private byte[] chunk = new byte[0];
+        private int position;
+        private int counter;
+        private boolean last;
+
+        DecryptingInputStream(DataInputStream data, SecretKey key, byte[] noncePrefix) throws IOException {
+            this.data = data;
+            this.key = key;
+            this.noncePrefix = noncePrefix;
+            try {
+                this.cipher = Cipher.getInstance(STREAM_TRANSFORMATION);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("AES-GCM is not available", e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (position == chunk.length) {
+                if (last) {
+                    return -1;
+                }
+                readChunk();
+            }
+            int count = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            data.close();
+        }
+
+        private void readChunk() throws IOException {
+            boolean lastChunk;
+            byte[] encrypted;
+            try {
+                lastChunk = data.readBoolean();
+                int length = data.readInt();
+                if (length < STREAM_TAG_BITS / 8 || length > STREAM_CHUNK_SIZE + STREAM_TAG_BITS / 8) {
+                    throw new IOException("Invalid encrypted chunk length " + length);
+                }
+                encrypted = new byte[length];
+                data.readFully(encrypted);
+            } catch (EOFException e) {
+                throw new IOException("The encrypted stream is truncated", e);
+            }
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(STREAM_TAG_BITS, streamNonce(noncePrefix, counter++)));
+                cipher.updateAAD(new byte[]{(byte) (lastChunk ? 1 : 0)});
+                chunk = cipher.doFinal(encrypted);
+                position = 0;
+                last = lastChunk;
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Wrong password or corrupted data in chunk " + (counter - 1), e);
+            }
+        }
+    }
+
     /**
      * Encrypts individual values
      */
@@ -2,7 +2,10 @@ package com.univsoftdev.econova.security.argon2;
 
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authc.UsernamePasswordToken;
@@ -13,6 +16,8 @@ import org.apache.shiro.authc.credential.CredentialsMatcher;
 public class Argon2CredentialsMatcher implements CredentialsMatcher {
 
     private final PasswordHasher passwordHasher;
+    private volatile BiConsumer<AuthenticationInfo, String> rehashHandler;
+    private volatile String hashFicticio;
 
     @Inject
     public Argon2CredentialsMatcher(PasswordHasher passwordHasher) {
@@ -70,8 +75,15 @@ public class Argon2CredentialsMatcher implements CredentialsMatcher {
                 log.debug("Contraseña ingresada longitud: {}", passwordChars.length);
             }
 
-            // Verificación de la contraseña
-            boolean result = passwordHasher.verify(storedHash, passwordChars);
+            // Verificación de la contraseña en el ejecutor acotado del hasher;
+            // si hay demasiadas en espera se rechaza en lugar de encolarla
+            boolean result;
+            try {
+                result = passwordHasher.verifyAsync(storedHash, passwordChars.clone()).join();
+            } catch (RejectedExecutionException e) {
+                throw new AuthenticationException(
+                        "Hay demasiados inicios de sesión en curso. Inténtelo de nuevo en unos segundos.", e);
+            }
 
             if (log.isDebugEnabled()) {
                 log.debug("Resultado de verificación para usuario {}: {}",
@@ -87,8 +99,14 @@ public class Argon2CredentialsMatcher implements CredentialsMatcher {
                 log.info("Intento de login fallido para usuario: {}", upToken.getUsername());
             }
 
+            if (result && rehashHandler != null && passwordHasher.needsRehash(storedHash)) {
+                regenerarHash(upToken.getUsername(), info, passwordChars);
+            }
+
             return result;
 
+        } catch (AuthenticationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error crítico durante verificación de contraseña para usuario: {}",
                     upToken != null && upToken.getUsername() != null ? upToken.getUsername() : "unknown", e);
@@ -106,6 +124,50 @@ public class Argon2CredentialsMatcher implements CredentialsMatcher {
         }
     }
 
+    /**
+     * Registra quién guarda el hash regenerado cuando una contraseña
+     * verificada usa parámetros de Argon2 anteriores.
+     *
+     * @param rehashHandler Recibe la información de autenticación y el hash
+     * nuevo.
+     */
+    public void setRehashHandler(BiConsumer<AuthenticationInfo, String> rehashHandler) {
+        this.rehashHandler = rehashHandler;
+    }
+
+    /**
+     * Realiza una verificación completa contra un hash ficticio. Se usa
+     * cuando el usuario no existe para que la respuesta tarde lo mismo que
+     * con un usuario real y no revele qué nombres están registrados.
+     *
+     * @param password Contraseña recibida.
+     */
+    public void simularVerificacion(char[] password) {
+        if (password == null || password.length == 0) {
+            return;
+        }
+        String hash = hashFicticio;
+        if (hash == null || passwordHasher.needsRehash(hash)) {
+            hash = passwordHasher.hash("econova-usuario-inexistente".toCharArray());
+            hashFicticio = hash;
+        }
+        try {
+            passwordHasher.verify(hash, password.clone());
+        } catch (Exception e) {
+            log.debug("Error en la verificación simulada", e);
+        }
+    }
+
+    private void regenerarHash(String username, AuthenticationInfo info, char[] passwordChars) {
+        try {
+            rehashHandler.accept(info, passwordHasher.hash(passwordChars.clone()));
+            log.info("Hash de contraseña actualizado a los parámetros actuales para usuario: {}", username);
+        } catch (Exception e) {
+            // La sesión es válida aunque no se pueda guardar el hash nuevo
+            log.warn("No se pudo actualizar el hash de contraseña para usuario: {}", username, e);
+        }
+    }
+
     /**
      * Método para verificación directa (uso en pruebas o utilidades)
      *
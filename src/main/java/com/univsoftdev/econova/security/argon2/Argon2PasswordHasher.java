@@ -2,8 +2,18 @@ package com.univsoftdev.econova.security.argon2;
 
 import de.mkammerer.argon2.Argon2;
 import de.mkammerer.argon2.Argon2Factory;
+import io.avaje.config.Config;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Implementación de {@link PasswordHasher} utilizando el algoritmo Argon2.
@@ -24,15 +34,31 @@ import java.util.Arrays;
  * </p>
  *
  * <p>
- * <strong>Parámetros de configuración:</strong></p>
+ * <strong>Parámetros de configuración</strong> (valor por defecto entre
+ * paréntesis):</p>
  * <ul>
- * <li><strong>Iteraciones:</strong> 3 - Número de pasadas sobre la memoria</li>
- * <li><strong>Memoria:</strong> 65536 KB (64MB) - Memoria requerida</li>
- * <li><strong>Paralelismo:</strong> 2 - Grado de paralelismo</li>
+ * <li><strong>Iteraciones</strong> ({@code security.argon2.iterations},
+ * {@value #ITERATIONS}): número de pasadas sobre la memoria</li>
+ * <li><strong>Memoria</strong> ({@code security.argon2.memory},
+ * {@value #MEMORY} KB): memoria requerida</li>
+ * <li><strong>Paralelismo</strong> ({@code security.argon2.parallelism},
+ * {@value #PARALLELISM}): grado de paralelismo</li>
  * <li><strong>Tipo:</strong> Argon2id - Combina las ventajas de Argon2i y
  * Argon2d</li>
  * </ul>
  *
+ * <p>
+ * Los parámetros se leen de la configuración al crear el hasher y no cambian
+ * mientras la aplicación está en marcha. Para ajustarlos a un equipo se
+ * ejecuta aparte {@link CalibracionArgon2}, que mide con {@link #calibrar(long)}
+ * y muestra los valores a configurar. Los hashes generados con otros
+ * parámetros siguen verificándose y {@link #needsRehash(String)} indica
+ * cuándo conviene regenerarlos.</p>
+ *
+ * <p>
+ * Cada cálculo reserva la memoria configurada, por lo que el número de
+ * cálculos simultáneos se limita según los núcleos disponibles.</p>
+ *
  * @author UnivSoftDev Team
  * @version 1.0
  * @since 1.0
@@ -63,6 +89,58 @@ public class Argon2PasswordHasher implements PasswordHasher {
      */
     private static final int PARALLELISM = 4;
 
+    /**
+     * Memoria mínima en KB que puede elegir la calibración (16MB).
+     */
+    private static final int MIN_MEMORY = 16384;
+
+    /**
+     * Iteraciones máximas que puede elegir la calibración.
+     */
+    private static final int MAX_ITERATIONS = 50;
+
+    private static final Pattern PARAMETROS_HASH = Pattern.compile("\\$argon2id\\$v=\\d+\\$m=(\\d+),t=(\\d+),p=(\\d+)\\$");
+
+    /**
+     * Parámetros de coste de Argon2.
+     *
+     * @param iterations Número de pasadas sobre la memoria.
+     * @param memory Memoria en KB.
+     * @param parallelism Grado de paralelismo.
+     */
+    public record Parametros(int iterations, int memory, int parallelism) {
+
+        public static Parametros desdeConfiguracion() {
+            return new Parametros(
+                    Config.getInt("security.argon2.iterations", ITERATIONS),
+                    Config.getInt("security.argon2.memory", MEMORY),
+                    Config.getInt("security.argon2.parallelism", PARALLELISM));
+        }
+    }
+
+    private static final int CALCULOS_SIMULTANEOS = Math.max(1,
+            Runtime.getRuntime().availableProcessors() / Math.max(1, Parametros.desdeConfiguracion().parallelism()));
+
+    /**
+     * Limita los cálculos simultáneos para no reservar más memoria de la que
+     * admite el equipo cuando coinciden varios inicios de sesión.
+     */
+    private static final Semaphore PERMISOS = new Semaphore(CALCULOS_SIMULTANEOS, true);
+
+    /**
+     * Ejecutor acotado para las verificaciones asíncronas. Si la cola se
+     * llena, la solicitud se rechaza en lugar de acumular trabajo.
+     */
+    private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(
+            CALCULOS_SIMULTANEOS, CALCULOS_SIMULTANEOS, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(32),
+            Thread.ofPlatform().name("econova-argon2-", 0).daemon(true).factory(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * Parámetros con los que se generan los hashes nuevos.
+     */
+    private final Parametros parametros;
 
     /**
      * Instancia de Argon2 configurada con tipo Argon2id.
@@ -74,6 +152,18 @@ public class Argon2PasswordHasher implements PasswordHasher {
      */
     private final Argon2 argon2 = Argon2Factory.create(Argon2Factory.Argon2Types.ARGON2id);
 
+    @Inject
+    public Argon2PasswordHasher() {
+        this(Parametros.desdeConfiguracion());
+    }
+
+    /**
+     * @param parametros Parámetros con los que se generan los hashes nuevos.
+     */
+    public Argon2PasswordHasher(Parametros parametros) {
+        this.parametros = parametros;
+    }
+
     /**
      * Genera un hash Argon2 de la contraseña proporcionada.
      *
@@ -104,7 +194,12 @@ public class Argon2PasswordHasher implements PasswordHasher {
         if (password == null) {
             throw new IllegalArgumentException("Password cannot be null");
         }
-        return argon2.hash(ITERATIONS, MEMORY, PARALLELISM, password);
+        adquirirPermiso();
+        try {
+            return argon2.hash(parametros.iterations(), parametros.memory(), parametros.parallelism(), password);
+        } finally {
+            PERMISOS.release();
+        }
     }
 
     /**
@@ -134,7 +229,101 @@ public class Argon2PasswordHasher implements PasswordHasher {
         if (rawPassword == null) {
             throw new IllegalArgumentException("Raw password cannot be null");
         }
-        return argon2.verify(hash, rawPassword);
+        adquirirPermiso();
+        try {
+            return argon2.verify(hash, rawPassword);
+        } finally {
+            PERMISOS.release();
+        }
+    }
+
+    /**
+     * Verifica una contraseña en el ejecutor acotado de Argon2, sin ocupar el
+     * hilo que la solicita.
+     *
+     * @param hash Hash Argon2 almacenado.
+     * @param rawPassword Contraseña a verificar; se limpia al terminar.
+     * @return Resultado de la verificación.
+     * @throws java.util.concurrent.RejectedExecutionException si hay demasiadas
+     * verificaciones en espera
+     */
+    @Override
+    public CompletableFuture<Boolean> verifyAsync(String hash, char[] rawPassword) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return verify(hash, rawPassword);
+            } finally {
+                if (rawPassword != null) {
+                    Arrays.fill(rawPassword, '\0');
+                }
+            }
+        }, EXECUTOR);
+    }
+
+    /**
+     * Indica si un hash se generó con parámetros distintos de los actuales y
+     * conviene regenerarlo tras una verificación correcta.
+     *
+     * @param hash Hash Argon2 almacenado.
+     * @return {@code true} si el hash usa otros parámetros o no se reconoce su
+     * formato.
+     */
+    @Override
+    public boolean needsRehash(String hash) {
+        if (hash == null) {
+            return false;
+        }
+        Matcher matcher = PARAMETROS_HASH.matcher(hash);
+        if (!matcher.find()) {
+            return true;
+        }
+        return Integer.parseInt(matcher.group(1)) != parametros.memory()
+                || Integer.parseInt(matcher.group(2)) != parametros.iterations()
+                || Integer.parseInt(matcher.group(3)) != parametros.parallelism();
+    }
+
+    /**
+     * Busca los parámetros que hacen que un hash tarde aproximadamente el
+     * tiempo indicado en este equipo. Mantiene el paralelismo, reduce la
+     * memoria si una sola iteración ya supera el objetivo y después aumenta
+     * las iteraciones mientras no se supere. No cambia los parámetros de este
+     * hasher: el resultado se lleva a la configuración.
+     *
+     * @param objetivoMs Tiempo objetivo por hash en milisegundos.
+     * @return Parámetros calibrados.
+     */
+    public Parametros calibrar(long objetivoMs) {
+        char[] muestra = "calibracion-argon2".toCharArray();
+        int paralelismo = parametros.parallelism();
+        int memoria = parametros.memory();
+
+        while (memoria > MIN_MEMORY && medir(1, memoria, paralelismo, muestra) > objetivoMs) {
+            memoria /= 2;
+        }
+        int iteraciones = 1;
+        while (iteraciones < MAX_ITERATIONS && medir(iteraciones + 1, memoria, paralelismo, muestra) <= objetivoMs) {
+            iteraciones++;
+        }
+        return new Parametros(iteraciones, Math.max(memoria, MIN_MEMORY), paralelismo);
+    }
+
+    private long medir(int iteraciones, int memoria, int paralelismo, char[] muestra) {
+        long inicio = System.nanoTime();
+        argon2.hash(iteraciones, memoria, paralelismo, muestra);
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+    }
+
+    public Parametros getParametros() {
+        return parametros;
+    }
+
+    private static void adquirirPermiso() {
+        try {
+            PERMISOS.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando para calcular Argon2", e);
+        }
     }
 
     /**
@@ -197,7 +386,7 @@ public class Argon2PasswordHasher implements PasswordHasher {
      */
     public String getConfiguration() {
         return String.format("Argon2id(iterations=%d, memory=%dKB, parallelism=%d)",
-                ITERATIONS, MEMORY, PARALLELISM);
+                parametros.iterations(), parametros.memory(), parametros.parallelism());
     }
 
     /**
@@ -0,0 +1,32 @@
+package com.univsoftdev.econova.security.argon2;
+
+import com.univsoftdev.econova.security.argon2.Argon2PasswordHasher.Parametros;
+
+/**
+ * Calibra Argon2 para el equipo en el que se ejecuta, fuera de la aplicación.
+ * Mide con {@link Argon2PasswordHasher#calibrar(long)} partiendo de los
+ * parámetros configurados y muestra las propiedades a copiar en la
+ * configuración. La aplicación los lee al arrancar; los hashes existentes se
+ * regeneran al iniciar sesión.
+ * <p>
+ * Uso: {@code java -cp econova.jar com.univsoftdev.econova.security.argon2.CalibracionArgon2 [ms]},
+ * con el tiempo objetivo por hash en milisegundos ({@value #OBJETIVO_MS} por
+ * defecto).
+ */
+public final class CalibracionArgon2 {
+
+    private static final long OBJETIVO_MS = 500;
+
+    private CalibracionArgon2() {
+    }
+
+    public static void main(String[] args) {
+        long objetivoMs = args.length > 0 ? Long.parseLong(args[0]) : OBJETIVO_MS;
+        Argon2PasswordHasher hasher = new Argon2PasswordHasher();
+        System.out.println("# Argon2 calibrado para " + objetivoMs + " ms, partiendo de " + hasher.getConfiguration());
+        Parametros calibrados = hasher.calibrar(objetivoMs);
+        System.out.println("security.argon2.iterations=" + calibrados.iterations());
+        System.out.println("security.argon2.memory=" + calibrados.memory());
+        System.out.println("security.argon2.parallelism=" + calibrados.parallelism());
+    }
+}
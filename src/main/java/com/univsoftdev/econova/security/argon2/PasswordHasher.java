@@ -1,5 +1,8 @@
 package com.univsoftdev.econova.security.argon2;
 
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interfaz para operaciones de hash de contraseñas.
  *
@@ -73,4 +76,33 @@ public interface PasswordHasher {
     boolean verify(String hash, String rawPassword);
 
     boolean verify(String hash, char[] rawPassword);
+
+    /**
+     * Verifica una contraseña sin ocupar el hilo que la solicita, si la
+     * implementación lo admite. Por defecto verifica en el mismo hilo.
+     *
+     * @param hash El hash almacenado
+     * @param rawPassword La contraseña a verificar; se limpia al terminar
+     * @return El resultado de la verificación
+     */
+    default CompletableFuture<Boolean> verifyAsync(String hash, char[] rawPassword) {
+        try {
+            return CompletableFuture.completedFuture(verify(hash, rawPassword));
+        } finally {
+            if (rawPassword != null) {
+                Arrays.fill(rawPassword, '\0');
+            }
+        }
+    }
+
+    /**
+     * Indica si un hash se generó con parámetros distintos de los actuales y
+     * debería regenerarse la próxima vez que se conozca la contraseña.
+     *
+     * @param hash El hash almacenado
+     * @return {@code true} si conviene regenerar el hash
+     */
+    default boolean needsRehash(String hash) {
+        return false;
+    }
 }
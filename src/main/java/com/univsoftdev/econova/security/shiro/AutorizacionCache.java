@@ -0,0 +1,119 @@
+package com.univsoftdev.econova.security.shiro;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.univsoftdev.econova.config.model.User;
+import com.univsoftdev.econova.core.UserContext;
+import io.ebean.Database;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.authz.UnauthenticatedException;
+
+/**
+ * Caché de los roles y permisos compilados de cada usuario. Se carga la
+ * primera vez que se comprueba una autorización del usuario y se invalida
+ * cuando cambian sus roles o los permisos de algún rol. Las claves incluyen la
+ * empresa, porque los identificadores de usuario se repiten entre esquemas.
+ */
+@Slf4j
+@Singleton
+public class AutorizacionCache {
+
+    private final Database database;
+    private final Cache<ClaveUsuario, PermisosCompilados> permisosPorUsuario = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    @Inject
+    public AutorizacionCache(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Permisos del usuario autenticado en el hilo actual.
+     *
+     * @return Permisos compilados del usuario.
+     * @throws UnauthenticatedException si no hay usuario autenticado.
+     */
+    public PermisosCompilados getPermisosActuales() {
+        Object principal = SecurityUtils.getSubject().getPrincipal();
+        if (!(principal instanceof ShiroUserPrincipal shiroPrincipal) || shiroPrincipal.getUser() == null) {
+            throw new UnauthenticatedException("No hay un usuario autenticado para comprobar la autorización");
+        }
+        return getPermisos(shiroPrincipal.getUser());
+    }
+
+    public PermisosCompilados getPermisos(User user) {
+        return permisosPorUsuario.get(new ClaveUsuario(user.getTenantId(), user.getId()), clave -> cargar(user));
+    }
+
+    /**
+     * Descarta los permisos de un usuario, por ejemplo al cambiar sus roles.
+     * Se descartan los de ese identificador en todas las empresas: quien
+     * invalida no siempre conoce la empresa, y recargar de más no cambia el
+     * resultado.
+     *
+     * @param userId Identificador del usuario.
+     */
+    public void invalidar(Long userId) {
+        if (userId != null) {
+            permisosPorUsuario.asMap().keySet().removeIf(clave -> userId.equals(clave.userId()));
+        }
+    }
+
+    /**
+     * Descarta los permisos de todos los usuarios, por ejemplo al cambiar los
+     * permisos de un rol.
+     */
+    public void invalidarTodos() {
+        permisosPorUsuario.invalidateAll();
+    }
+
+    private PermisosCompilados cargar(User user) {
+        // La consulta se hace en la empresa del usuario y luego se deja el contexto de quien llama
+        UserContext anterior = UserContext.capturar();
+        UserContext.set(user.getUserName(), user.getTenantId());
+        UserContext.get().setUser(user);
+
+        try {
+            User freshUser = database.find(User.class)
+                    .setId(user.getId())
+                    .fetch("roles") // Primero fetch de roles
+                    .fetch("roles.permissions", "name") // Luego fetch de permisos
+                    .setMaxRows(1)
+                    .findOne();
+
+            Set<String> roles = new HashSet<>();
+            Set<String> permisos = new HashSet<>();
+            if (freshUser != null && freshUser.getRoles() != null) {
+                freshUser.getRoles().stream()
+                        .filter(role -> role != null && role.getName() != null)
+                        .forEach(role -> {
+                            roles.add(role.getName());
+
+                            if (role.getPermissions() != null) {
+                                role.getPermissions().stream()
+                                        .filter(permission -> permission != null && permission.getName() != null)
+                                        .map(permission -> permission.getName())
+                                        .forEach(permisos::add);
+                            }
+                        });
+            }
+
+            log.debug("Permisos compilados para usuario: {}. Roles: {}, Permisos: {}",
+                    user.getUserName(), roles.size(), permisos.size());
+            return new PermisosCompilados(roles, permisos);
+        } finally {
+            UserContext.restaurar(anterior);
+        }
+    }
+
+    private record ClaveUsuario(String tenantId, Long userId) {
+    }
+}
@@ -2,12 +2,12 @@ package com.univsoftdev.econova.security.shiro;
 
 import com.univsoftdev.econova.config.model.Role;
 import com.univsoftdev.econova.config.model.User;
-import com.univsoftdev.econova.core.UserContext;
 import com.univsoftdev.econova.ebean.config.MyTenantSchemaProvider;
 import com.univsoftdev.econova.security.argon2.Argon2CredentialsMatcher;
 import io.ebean.Database;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
+import java.util.HashSet;
 import java.util.Objects;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.shiro.authc.*;
@@ -54,23 +54,28 @@ public class CustomRealm extends AuthorizingRealm {
      */
     private final Database database;
     private final Argon2CredentialsMatcher argon2CredentialsMatcher;
+    private final AutorizacionCache autorizacionCache;
 
     /**
      * Constructor que inyecta las dependencias necesarias.
      *
      * @param database Instancia de base de datos Ebean (no null)
      * @param argon2CredentialsMatcher
+     * @param autorizacionCache Caché de permisos compilados por usuario
      *
      * @throws IllegalArgumentException si alguna dependencia es null
      */
     @Inject
-    public CustomRealm(Database database, Argon2CredentialsMatcher argon2CredentialsMatcher) {
+    public CustomRealm(Database database, Argon2CredentialsMatcher argon2CredentialsMatcher,
+            AutorizacionCache autorizacionCache) {
         this.database = Objects.requireNonNull(database);
         this.argon2CredentialsMatcher = Objects.requireNonNull(argon2CredentialsMatcher);
+        this.autorizacionCache = Objects.requireNonNull(autorizacionCache);
         setAuthorizationCachingEnabled(true);
         setAuthorizationCacheName("authorizationCache");
         setAuthenticationTokenClass(UsernamePasswordToken.class);
         setCredentialsMatcher(this.argon2CredentialsMatcher);
+        this.argon2CredentialsMatcher.setRehashHandler(this::guardarHashRegenerado);
     }
 
     /**
@@ -104,10 +109,20 @@ public class CustomRealm extends AuthorizingRealm {
             throw new AuthenticationException("Username cannot be null or empty");
         }
 
-        // Verificar intentos fallidos
-        if (LoginAttemptCache.isAccountLocked(username)) {
+        // Verificar intentos fallidos del usuario y frenar al equipo de origen
+        String host = upToken.getHost();
+        if (LoginAttemptCache.isLocked(username, host)) {
             throw new ExcessiveAttemptsException("Cuenta bloqueada temporalmente por muchos intentos fallidos");
         }
+        long retraso = LoginAttemptCache.retrasoHost(host);
+        if (retraso > 0) {
+            try {
+                Thread.sleep(retraso);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AuthenticationException("Inicio de sesión interrumpido");
+            }
+        }
 
         try {
             User user = database.find(User.class)
@@ -117,8 +132,9 @@ public class CustomRealm extends AuthorizingRealm {
                     .findOne();
 
             if (user == null) {
-                com.univsoftdev.econova.security.SecurityUtils.delayRandom(500, 1500);
-                LoginAttemptCache.recordFailedAttempt(username);
+                // Misma verificación Argon2 que con un usuario real, para no revelar
+                // por el tiempo de respuesta qué usuarios existen
+                argon2CredentialsMatcher.simularVerificacion(upToken.getPassword());
                 throw new UnknownAccountException("Usuario no encontrado");
             }
 
@@ -137,7 +153,7 @@ public class CustomRealm extends AuthorizingRealm {
                     getName()
             );
         } catch (AuthenticationException e) {
-            LoginAttemptCache.recordFailedAttempt(username);
+            LoginAttemptCache.recordFailedAttempt(username, host);
             throw e;
         }
     }
@@ -164,52 +180,44 @@ public class CustomRealm extends AuthorizingRealm {
         log.debug("Building authorization info for user: {} in tenant: {}",
                 user.getUserName(), user.getTenantId());
 
-        UserContext.get().setUser(user);
-        UserContext.set(user.getUserName(), user.getTenantId());
-
-        try {
-            SimpleAuthorizationInfo authorizationInfo = new SimpleAuthorizationInfo();
-
-            User freshUser = database.find(User.class)
-                    .setId(user.getId())
-                    .fetch("roles") // Primero fetch de roles
-                    .fetch("roles.permissions", "name") // Luego fetch de permisos
-                    .setMaxRows(1)
-                    .findOne();
-
-            if (freshUser != null && freshUser.getRoles() != null) {
-                freshUser.getRoles().stream()
-                        .filter(role -> role != null && role.getName() != null)
-                        .forEach(role -> {
-                            authorizationInfo.addRole(role.getName());
+        PermisosCompilados permisos = autorizacionCache.getPermisos(user);
+        SimpleAuthorizationInfo authorizationInfo = new SimpleAuthorizationInfo(new HashSet<>(permisos.getRoles()));
+        authorizationInfo.setStringPermissions(new HashSet<>(permisos.getPermisos()));
+        return authorizationInfo;
+    }
 
-                            if (role.getPermissions() != null) {
-                                role.getPermissions().stream()
-                                        .filter(permission -> permission != null && permission.getName() != null)
-                                        .map(permission -> permission.getName())
-                                        .forEach(authorizationInfo::addStringPermission);
-                            }
-                        });
-            }
+    /**
+     * Resuelve el permiso con los permisos compilados del usuario, sin
+     * reconstruir la información de autorización en cada comprobación.
+     */
+    @Override
+    public boolean isPermitted(PrincipalCollection principals, String permission) {
+        User user = getUser(principals);
+        return user != null && autorizacionCache.getPermisos(user).isPermitted(permission);
+    }
 
-            log.debug("Authorization info built successfully for user: {}. Roles: {}, Permissions: {}",
-                    user.getUserName(),
-                    authorizationInfo.getRoles().size(),
-                    authorizationInfo.getStringPermissions().size());
+    @Override
+    public boolean hasRole(PrincipalCollection principals, String roleIdentifier) {
+        User user = getUser(principals);
+        return user != null && autorizacionCache.getPermisos(user).hasRole(roleIdentifier);
+    }
 
-            return authorizationInfo;
-        } finally {
-            UserContext.reset();
+    private static User getUser(PrincipalCollection principals) {
+        if (principals == null || principals.isEmpty()) {
+            return null;
         }
+        return principals.getPrimaryPrincipal() instanceof ShiroUserPrincipal principal ? principal.getUser() : null;
     }
 
     @Override
     protected void assertCredentialsMatch(AuthenticationToken token, AuthenticationInfo info) throws AuthenticationException {
         String username = null;
+        String host = null;
         try {
             // Obtenemos el username del token
             UsernamePasswordToken upToken = (UsernamePasswordToken) token;
             username = upToken.getUsername();
+            host = upToken.getHost();
 
             // Verificamos que tengamos credenciales válidas
             if (username == null || upToken.getPassword() == null) {
@@ -229,7 +237,7 @@ public class CustomRealm extends AuthorizingRealm {
             if (username != null) {
                 log.error("Falló autenticación para: {}", username, e);
 
-                int attempts = LoginAttemptCache.recordFailedAttempt(username);
+                int attempts = LoginAttemptCache.recordFailedAttempt(username, host);
 
                 // Bloqueamos la cuenta si se supera el límite
                 if (attempts >= LoginAttemptCache.MAX_ATTEMPTS) {
@@ -253,4 +261,24 @@ public class CustomRealm extends AuthorizingRealm {
             throw e;
         }
     }
+
+    /**
+     * Guarda el hash regenerado con los parámetros actuales de Argon2 tras un
+     * inicio de sesión correcto.
+     *
+     * @param info Información de autenticación del usuario.
+     * @param hash Hash nuevo de la contraseña.
+     */
+    private void guardarHashRegenerado(AuthenticationInfo info, String hash) {
+        Object principal = info.getPrincipals() != null ? info.getPrincipals().getPrimaryPrincipal() : null;
+        if (principal instanceof ShiroUserPrincipal shiroPrincipal && shiroPrincipal.getUser() != null) {
+            User user = shiroPrincipal.getUser();
+            database.update(User.class)
+                    .set("password", hash)
+                    .where()
+                    .idEq(user.getId())
+                    .update();
+            user.setPassword(hash);
+        }
+    }
 }
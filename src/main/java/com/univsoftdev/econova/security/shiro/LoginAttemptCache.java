@@ -1,58 +1,194 @@
 package com.univsoftdev.econova.security.shiro;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.univsoftdev.econova.core.FileUtils;
+import io.avaje.config.Config;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Limitador de intentos fallidos de inicio de sesión con ventana deslizante.
+ * <p>
+ * Se cuentan los fallos por usuario y por equipo de origen dentro de una
+ * ventana de tiempo. Al alcanzar el límite el usuario queda bloqueado durante
+ * {@code LOCK_TIME_MS} desde el último fallo; el equipo de origen nunca se
+ * bloquea, sino que cada intento desde él espera un
+ * {@linkplain #retrasoHost(String) retraso} creciente, de modo que un equipo
+ * no puede dejar sin acceso a los demás. Las entradas caducan solas cuando
+ * termina la ventana o el bloqueo y el número de claves está acotado. Con
+ * {@code security.login-attempts.persist=true} los bloqueos se conservan
+ * entre reinicios.
+ */
+@Slf4j
 public class LoginAttemptCache {
 
-    private static final Map<String, Integer> ATTEMPTS = new ConcurrentHashMap<>();
-    private static final Map<String, Long> LOCKED_ACCOUNTS = new ConcurrentHashMap<>();
     public static final int MAX_ATTEMPTS = 3;
+    private static final int ATTEMPTS_HOST_SIN_RETRASO = 5;
+    private static final int MAX_FALLOS_HOST = 20;
+    private static final long RETRASO_HOST_INICIAL_MS = 1000;
+    private static final long RETRASO_HOST_MAXIMO_MS = 30 * 1000;
     private static final long LOCK_TIME_MS = 30 * 60 * 1000; // 30 minutos
+    private static final long WINDOW_MS = 15 * 60 * 1000; // 15 minutos
+    private static final int MAX_KEYS = 10_000;
+
+    private static final String PREFIJO_USUARIO = "user:";
+    private static final String PREFIJO_HOST = "host:";
+    private static final String PREFIJO_LOCAL = "local:";
+
+    /**
+     * Fallos recientes de una clave y fin de su bloqueo, si lo tiene.
+     *
+     * @param fallos Marcas de tiempo de los fallos dentro de la ventana, como
+     * mucho las necesarias para decidir el bloqueo.
+     * @param bloqueadoHasta Fin del bloqueo en milisegundos, o 0.
+     */
+    private record Registro(long[] fallos, long bloqueadoHasta) {
+
+        boolean bloqueado(long ahora) {
+            return bloqueadoHasta > ahora;
+        }
+
+        long caducidad() {
+            long ultimoFallo = fallos.length > 0 ? fallos[fallos.length - 1] : 0;
+            return Math.max(bloqueadoHasta, ultimoFallo + WINDOW_MS);
+        }
+    }
+
+    private static final Cache<String, Registro> REGISTROS = Caffeine.newBuilder()
+            .maximumSize(MAX_KEYS)
+            .expireAfter(new Expiry<String, Registro>() {
+                @Override
+                public long expireAfterCreate(String clave, Registro registro, long tiempoActual) {
+                    return restante(registro);
+                }
+
+                @Override
+                public long expireAfterUpdate(String clave, Registro registro, long tiempoActual, long duracionActual) {
+                    return restante(registro);
+                }
+
+                @Override
+                public long expireAfterRead(String clave, Registro registro, long tiempoActual, long duracionActual) {
+                    return duracionActual;
+                }
+            })
+            .scheduler(Scheduler.systemScheduler())
+            .build();
+
+    private static final boolean PERSISTIR = Config.getBool("security.login-attempts.persist", false);
+    private static final Path ARCHIVO = Paths.get(FileUtils.CACHE_PATH, "login-attempts.txt");
+    private static final ExecutorService ESCRITOR = PERSISTIR
+            ? Executors.newSingleThreadExecutor(Thread.ofPlatform().name("econova-login-attempts").daemon(true).factory())
+            : null;
+    private static final AtomicBoolean ESCRITURA_PENDIENTE = new AtomicBoolean();
+
+    static {
+        if (PERSISTIR) {
+            cargar();
+        }
+    }
 
     /**
      * Registra un intento fallido de inicio de sesión para un usuario
      *
      * @param username Nombre de usuario (no debe ser null)
-     * @return Número total de intentos fallidos después de este registro
+     * @return Número de intentos fallidos del usuario dentro de la ventana
      * @throws IllegalArgumentException si username es null
      */
     public static int recordFailedAttempt(String username) {
+        return recordFailedAttempt(username, null);
+    }
+
+    /**
+     * Registra un intento fallido para un usuario y para el equipo desde el
+     * que se intentó.
+     *
+     * @param username Nombre de usuario (no debe ser null)
+     * @param host Equipo de origen, o {@code null} si no se conoce
+     * @return Número de intentos fallidos del usuario dentro de la ventana
+     * @throws IllegalArgumentException si username es null
+     */
+    public static int recordFailedAttempt(String username, String host) {
         if (username == null) {
             throw new IllegalArgumentException("Username no puede ser null");
         }
-        return ATTEMPTS.compute(username, (k, v) -> v == null ? 1 : v + 1);
+        if (host != null && !host.isBlank()) {
+            registrarFallo(PREFIJO_HOST + host, MAX_FALLOS_HOST, false);
+        }
+        return registrarFallo(PREFIJO_USUARIO + username, MAX_ATTEMPTS, true).fallos().length;
     }
 
     /**
-     * Verifica si una cuenta está bloqueada temporalmente
+     * Verifica si una cuenta está bloqueada temporalmente. No modifica el
+     * estado: los bloqueos terminan solos al vencer.
      *
      * @param username Nombre de usuario (no debe ser null)
      * @return true si la cuenta está bloqueada, false en caso contrario
      * @throws IllegalArgumentException si username es null
      */
     public static boolean isAccountLocked(String username) {
+        return isLocked(username, null);
+    }
+
+    /**
+     * Verifica si está bloqueada la cuenta. El equipo de origen no se bloquea;
+     * véase {@link #retrasoHost(String)}.
+     *
+     * @param username Nombre de usuario (no debe ser null)
+     * @param host Equipo de origen, o {@code null} si no se conoce
+     * @return true si la cuenta está bloqueada
+     * @throws IllegalArgumentException si username es null
+     */
+    public static boolean isLocked(String username, String host) {
         if (username == null) {
             throw new IllegalArgumentException("Username no puede ser null");
         }
+        Registro usuario = REGISTROS.getIfPresent(PREFIJO_USUARIO + username);
+        return usuario != null && usuario.bloqueado(System.currentTimeMillis());
+    }
 
-        Integer attempts = ATTEMPTS.get(username);
-        if (attempts == null || attempts < MAX_ATTEMPTS) {
-            return false;
+    /**
+     * Retraso que debe esperar un intento de inicio de sesión desde un equipo
+     * con fallos recientes. Tras {@code ATTEMPTS_HOST_SIN_RETRASO} fallos
+     * dentro de la ventana el retraso empieza en un segundo y se duplica con
+     * cada fallo, hasta {@code RETRASO_HOST_MAXIMO_MS}.
+     *
+     * @param host Equipo de origen, o {@code null} si no se conoce
+     * @return Milisegundos a esperar, o 0
+     */
+    public static long retrasoHost(String host) {
+        if (host == null || host.isBlank()) {
+            return 0;
         }
-
-        Long lockTime = LOCKED_ACCOUNTS.get(username);
-        if (lockTime == null) {
-            LOCKED_ACCOUNTS.put(username, System.currentTimeMillis());
-            return true;
+        Registro equipo = REGISTROS.getIfPresent(PREFIJO_HOST + host);
+        if (equipo == null) {
+            return 0;
         }
-
-        if (System.currentTimeMillis() - lockTime > LOCK_TIME_MS) {
-            resetAttempts(username);
-            return false;
+        long desde = System.currentTimeMillis() - WINDOW_MS;
+        long exceso = Arrays.stream(equipo.fallos()).filter(fallo -> fallo > desde).count() - ATTEMPTS_HOST_SIN_RETRASO;
+        if (exceso < 0) {
+            return 0;
         }
-
-        return true;
+        return Math.min(RETRASO_HOST_INICIAL_MS << Math.min(exceso, 16), RETRASO_HOST_MAXIMO_MS);
     }
 
     /**
@@ -63,8 +199,8 @@ public class LoginAttemptCache {
      */
     public static void resetAttempts(String username) {
         if (username != null) {
-            ATTEMPTS.remove(username);
-            LOCKED_ACCOUNTS.remove(username);
+            REGISTROS.invalidate(PREFIJO_USUARIO + username);
+            programarEscritura();
         }
     }
 
@@ -79,12 +215,173 @@ public class LoginAttemptCache {
     }
 
     /**
-     * Obtiene el número de intentos fallidos para un usuario
+     * Obtiene el número de intentos fallidos para un usuario dentro de la
+     * ventana actual
      *
      * @param username Nombre de usuario (no debe ser null)
      * @return Número de intentos fallidos (0 si username es null o no existe)
      */
     public static int getFailedAttempts(String username) {
-        return username != null ? ATTEMPTS.getOrDefault(username, 0) : 0;
+        if (username == null) {
+            return 0;
+        }
+        Registro registro = REGISTROS.getIfPresent(PREFIJO_USUARIO + username);
+        if (registro == null) {
+            return 0;
+        }
+        long desde = System.currentTimeMillis() - WINDOW_MS;
+        return (int) Arrays.stream(registro.fallos()).filter(fallo -> fallo > desde).count();
+    }
+
+    /**
+     * Identifica el equipo desde el que se inicia sesión. En una sesión SSH
+     * es la dirección IP del cliente que el servidor anota en
+     * {@code SSH_CLIENT}; en un escritorio es el nombre del equipo junto con
+     * el usuario del sistema, para que las sesiones de distintos usuarios de
+     * un mismo servidor de terminales no compartan la clave. No se usa el
+     * {@code CLIENTNAME} que elige el propio cliente. Como el equipo solo se
+     * retrasa y nunca se bloquea, falsear estos datos no permite dejar sin
+     * acceso a otros. Se resuelve una sola vez por ejecución.
+     * <p>
+     * Si no se puede averiguar el nombre del equipo devuelve {@code null}:
+     * entonces solo se cuentan los fallos por usuario y ningún intento
+     * espera.
+     *
+     * @return Equipo de origen, o {@code null} si no se conoce
+     */
+    public static String hostActual() {
+        return HostLocal.NOMBRE;
+    }
+
+    private static final class HostLocal {
+
+        static final String NOMBRE = resolverHost();
+    }
+
+    private static String resolverHost() {
+        return resolverHost(System.getenv("SSH_CLIENT"), nombreEquipo(), System.getProperty("user.name"));
+    }
+
+    static String resolverHost(String sshClient, String equipo, String usuario) {
+        String remoto = direccionRemota(sshClient);
+        if (remoto != null) {
+            return remoto;
+        }
+        if (equipo == null || equipo.isBlank()) {
+            return null;
+        }
+        String local = PREFIJO_LOCAL + equipo.trim().toLowerCase(Locale.ROOT);
+        return usuario != null && !usuario.isBlank() ? local + "/" + usuario.trim() : local;
+    }
+
+    private static String direccionRemota(String sshClient) {
+        if (sshClient == null || sshClient.isBlank()) {
+            return null;
+        }
+        String direccion = sshClient.trim().split("\\s+")[0];
+        // Solo se aceptan direcciones IP literales, que no provocan consultas DNS
+        if (!direccion.matches("[0-9A-Fa-f.:]+")) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(direccion).getHostAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static String nombreEquipo() {
+        // Las variables del sistema evitan consultar el DNS
+        for (String variable : new String[]{"COMPUTERNAME", "HOSTNAME"}) {
+            String nombre = System.getenv(variable);
+            if (nombre != null && !nombre.isBlank()) {
+                return nombre;
+            }
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            log.debug("No se pudo resolver el nombre del equipo: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Registro registrarFallo(String clave, int maximo, boolean bloquear) {
+        long ahora = System.currentTimeMillis();
+        long desde = ahora - WINDOW_MS;
+        Registro registro = REGISTROS.asMap().compute(clave, (k, anterior) -> {
+            long[] previos = anterior != null
+                    ? Arrays.stream(anterior.fallos()).filter(fallo -> fallo > desde).toArray()
+                    : new long[0];
+            // Solo hacen falta los últimos fallos para decidir el bloqueo
+            int conservar = Math.min(previos.length, maximo - 1);
+            long[] fallos = Arrays.copyOfRange(previos, previos.length - conservar, previos.length + 1);
+            fallos[fallos.length - 1] = ahora;
+            long bloqueadoHasta = anterior != null ? anterior.bloqueadoHasta() : 0;
+            if (bloquear && fallos.length >= maximo) {
+                bloqueadoHasta = ahora + LOCK_TIME_MS;
+            }
+            return new Registro(fallos, bloqueadoHasta);
+        });
+        if (registro.bloqueado(ahora)) {
+            programarEscritura();
+        }
+        return registro;
+    }
+
+    private static long restante(Registro registro) {
+        long restanteMs = registro.caducidad() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(restanteMs, 0));
+    }
+
+    private static void programarEscritura() {
+        if (ESCRITOR != null && ESCRITURA_PENDIENTE.compareAndSet(false, true)) {
+            ESCRITOR.execute(() -> {
+                ESCRITURA_PENDIENTE.set(false);
+                escribir();
+            });
+        }
+    }
+
+    private static void escribir() {
+        long ahora = System.currentTimeMillis();
+        try {
+            Files.createDirectories(ARCHIVO.getParent());
+            Path temporal = Files.createTempFile(ARCHIVO.getParent(), "login-attempts", ".tmp");
+            try (BufferedWriter salida = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Registro> entrada : REGISTROS.asMap().entrySet()) {
+                    Registro registro = entrada.getValue();
+                    if (registro.bloqueado(ahora)) {
+                        salida.write(entrada.getKey() + "\t" + registro.bloqueadoHasta());
+                        salida.newLine();
+                    }
+                }
+            }
+            Files.move(temporal, ARCHIVO, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("No se pudieron guardar los bloqueos de inicio de sesión: {}", e.getMessage());
+        }
+    }
+
+    private static void cargar() {
+        if (!Files.isRegularFile(ARCHIVO)) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        try {
+            List<String> lineas = Files.readAllLines(ARCHIVO, StandardCharsets.UTF_8);
+            for (String linea : lineas) {
+                int separador = linea.lastIndexOf('\t');
+                if (separador <= 0) {
+                    continue;
+                }
+                long bloqueadoHasta = Long.parseLong(linea.substring(separador + 1).trim());
+                if (bloqueadoHasta > ahora) {
+                    REGISTROS.put(linea.substring(0, separador), new Registro(new long[0], bloqueadoHasta));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.warn("No se pudieron leer los bloqueos de inicio de sesión: {}", e.getMessage());
+        }
     }
 }
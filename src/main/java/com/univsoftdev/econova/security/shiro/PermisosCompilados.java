@@ -0,0 +1,90 @@
+package com.univsoftdev.econova.security.shiro;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.shiro.authz.permission.WildcardPermission;
+
+/**
+ * Roles y permisos de un usuario preparados para consultarse sin acceso a
+ * datos. Los permisos literales se resuelven con una búsqueda en un conjunto;
+ * los que contienen comodines o varias partes se convierten una sola vez a
+ * {@link WildcardPermission}, y el resultado de cada permiso consultado se
+ * recuerda para las llamadas siguientes.
+ */
+public final class PermisosCompilados {
+
+    /**
+     * Comodín, separador de partes y de subpartes de {@link WildcardPermission},
+     * cuyas constantes no son públicas.
+     */
+    private static final String SEPARADORES = "*:,";
+
+    private final Set<String> roles;
+    private final Set<String> permisos;
+    private final List<WildcardPermission> comodines;
+    private final Map<String, Boolean> resueltos = new ConcurrentHashMap<>();
+
+    public PermisosCompilados(Collection<String> roles, Collection<String> permisos) {
+        this.roles = Set.copyOf(roles);
+        this.permisos = Set.copyOf(permisos);
+        List<WildcardPermission> compilados = new ArrayList<>();
+        for (String permiso : this.permisos) {
+            if (tieneComodines(permiso)) {
+                compilados.add(new WildcardPermission(permiso));
+            }
+        }
+        this.comodines = List.copyOf(compilados);
+    }
+
+    private static boolean tieneComodines(String permiso) {
+        for (int i = 0; i < permiso.length(); i++) {
+            if (SEPARADORES.indexOf(permiso.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public Set<String> getPermisos() {
+        return permisos;
+    }
+
+    public boolean hasRole(String rol) {
+        return roles.contains(rol);
+    }
+
+    /**
+     * Indica si el usuario tiene un permiso, literal o implicado por alguno de
+     * sus permisos con comodines.
+     *
+     * @param permiso Permiso requerido.
+     * @return {@code true} si está concedido.
+     */
+    public boolean isPermitted(String permiso) {
+        if (permisos.contains(permiso)) {
+            return true;
+        }
+        if (comodines.isEmpty()) {
+            return false;
+        }
+        return resueltos.computeIfAbsent(permiso, this::implicado);
+    }
+
+    private boolean implicado(String permiso) {
+        WildcardPermission requerido = new WildcardPermission(permiso);
+        for (WildcardPermission concedido : comodines) {
+            if (concedido.implies(requerido)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,66 +1,69 @@
 package com.univsoftdev.econova.security.shiro.interceptor;
 
+import com.univsoftdev.econova.security.shiro.AutorizacionCache;
+import com.univsoftdev.econova.security.shiro.PermisosCompilados;
 import com.univsoftdev.econova.security.shiro.annotations.RequiresPermissions;
 import io.avaje.inject.aop.AspectProvider;
 import io.avaje.inject.aop.Invocation;
 import io.avaje.inject.aop.MethodInterceptor;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.lang.reflect.Method;
-import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authz.AuthorizationException;
-import org.apache.shiro.subject.Subject;
+import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.authz.annotation.Logical;
 
+/**
+ * Comprueba {@link RequiresPermissions} antes de ejecutar un método. Los
+ * permisos requeridos se leen de la anotación una sola vez al preparar el
+ * interceptor de cada método, y se comprueban contra los permisos compilados
+ * del usuario.
+ */
 @Singleton
-public class RequiresPermissionsInterceptor implements AspectProvider<RequiresPermissions>, MethodInterceptor {
+public class RequiresPermissionsInterceptor implements AspectProvider<RequiresPermissions> {
 
-    @Override
-    public MethodInterceptor interceptor(Method method, RequiresPermissions requiresPermissions) {
-        return this;
+    private final AutorizacionCache autorizacionCache;
+
+    @Inject
+    public RequiresPermissionsInterceptor(AutorizacionCache autorizacionCache) {
+        this.autorizacionCache = autorizacionCache;
     }
 
     @Override
-    public void invoke(Invocation invocation) throws Throwable {
-        Method method = invocation.method();
-        RequiresPermissions annotation = method.getAnnotation(RequiresPermissions.class);
-
-        if (annotation != null) {
-            checkPermissions(annotation);
+    public MethodInterceptor interceptor(Method method, RequiresPermissions requiresPermissions) {
+        String[] permissions = requiresPermissions.value().clone();
+        if (permissions.length == 0) {
+            return Invocation::invoke;
         }
+        boolean all = permissions.length == 1 || requiresPermissions.logical() == Logical.AND;
+        return invocation -> {
+            checkPermissions(permissions, all);
 
-        // Si las verificaciones pasan, ejecutar el método original  
-        invocation.invoke();
+            // Si las verificaciones pasan, ejecutar el método original
+            invocation.invoke();
+        };
     }
 
-    private void checkPermissions(RequiresPermissions requiresPermissions) {
-        Subject subject = SecurityUtils.getSubject();
+    private void checkPermissions(String[] permissions, boolean all) {
+        PermisosCompilados permisos = autorizacionCache.getPermisosActuales();
 
-        String[] permissions = requiresPermissions.value();
-        if (permissions.length == 0) {
+        if (all) {
+            // Todos los permisos deben estar presentes
+            for (String permission : permissions) {
+                if (!permisos.isPermitted(permission)) {
+                    throw new UnauthorizedException("Subject does not have permission [" + permission + "]");
+                }
+            }
             return;
         }
 
-        if (permissions.length == 1) {
-            // Un solo permiso  
-            subject.checkPermission(permissions[0]);
-        } else {
-            // Múltiples permisos - verificar según la lógica (AND por defecto)  
-            if (requiresPermissions.logical() == org.apache.shiro.authz.annotation.Logical.AND) {
-                // Todos los permisos deben estar presentes  
-                subject.checkPermissions(permissions);
-            } else {
-                // Al menos uno de los permisos debe estar presente  
-                boolean hasPermission = false;
-                for (String permission : permissions) {
-                    if (subject.isPermitted(permission)) {
-                        hasPermission = true;
-                        break;
-                    }
-                }
-                if (!hasPermission) {
-                    throw new AuthorizationException("Subject does not have any of the required permissions: "
-                            + String.join(", ", permissions));
-                }
+        // Al menos uno de los permisos debe estar presente
+        for (String permission : permissions) {
+            if (permisos.isPermitted(permission)) {
+                return;
             }
         }
+        throw new AuthorizationException("Subject does not have any of the required permissions: "
+                + String.join(", ", permissions));
     }
 }
@@ -1,66 +1,68 @@
 package com.univsoftdev.econova.security.shiro.interceptor;
 
+import com.univsoftdev.econova.security.shiro.AutorizacionCache;
+import com.univsoftdev.econova.security.shiro.PermisosCompilados;
 import com.univsoftdev.econova.security.shiro.annotations.RequiresRoles;
 import io.avaje.inject.aop.AspectProvider;
 import io.avaje.inject.aop.Invocation;
 import io.avaje.inject.aop.MethodInterceptor;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.lang.reflect.Method;
-import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authz.AuthorizationException;
-import org.apache.shiro.subject.Subject;
+import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.authz.annotation.Logical;
 
+/**
+ * Comprueba {@link RequiresRoles} antes de ejecutar un método. Los roles
+ * requeridos se leen de la anotación una sola vez al preparar el interceptor
+ * de cada método, y se comprueban contra los roles compilados del usuario.
+ */
 @Singleton
-public class RequiresRolesInterceptor implements AspectProvider<RequiresRoles>, MethodInterceptor {
+public class RequiresRolesInterceptor implements AspectProvider<RequiresRoles> {
 
-    @Override
-    public MethodInterceptor interceptor(Method method, RequiresRoles requiresRoles) {
-        return this;
+    private final AutorizacionCache autorizacionCache;
+
+    @Inject
+    public RequiresRolesInterceptor(AutorizacionCache autorizacionCache) {
+        this.autorizacionCache = autorizacionCache;
     }
 
     @Override
-    public void invoke(Invocation invocation) throws Throwable {
-        Method method = invocation.method();
-        RequiresRoles annotation = method.getAnnotation(RequiresRoles.class);
-
-        if (annotation != null) {
-            checkRoles(annotation);
+    public MethodInterceptor interceptor(Method method, RequiresRoles requiresRoles) {
+        String[] roles = requiresRoles.value().clone();
+        if (roles.length == 0) {
+            return Invocation::invoke;
         }
+        boolean all = roles.length == 1 || requiresRoles.logical() == Logical.AND;
+        return invocation -> {
+            checkRoles(roles, all);
 
-        // Si las verificaciones pasan, ejecutar el método original  
-        invocation.invoke();
+            // Si las verificaciones pasan, ejecutar el método original
+            invocation.invoke();
+        };
     }
 
-    private void checkRoles(RequiresRoles requiresRoles) {
-        Subject subject = SecurityUtils.getSubject();
+    private void checkRoles(String[] roles, boolean all) {
+        PermisosCompilados permisos = autorizacionCache.getPermisosActuales();
 
-        String[] roles = requiresRoles.value();
-        if (roles.length == 0) {
+        if (all) {
+            // Todos los roles deben estar presentes
+            for (String role : roles) {
+                if (!permisos.hasRole(role)) {
+                    throw new UnauthorizedException("Subject does not have role [" + role + "]");
+                }
+            }
             return;
         }
 
-        if (roles.length == 1) {
-            // Un solo rol  
-            subject.checkRole(roles[0]);
-        } else {
-            // Múltiples roles - verificar según la lógica (AND por defecto)  
-            if (requiresRoles.logical() == org.apache.shiro.authz.annotation.Logical.AND) {
-                // Todos los roles deben estar presentes  
-                subject.checkRoles(roles);
-            } else {
-                // Al menos uno de los roles debe estar presente  
-                boolean hasRole = false;
-                for (String role : roles) {
-                    if (subject.hasRole(role)) {
-                        hasRole = true;
-                        break;
-                    }
-                }
-                if (!hasRole) {
-                    throw new AuthorizationException("Subject does not have any of the required roles: "
-                            + String.join(", ", roles));
-                }
+        // Al menos uno de los roles debe estar presente
+        for (String role : roles) {
+            if (permisos.hasRole(role)) {
+                return;
             }
         }
+        throw new AuthorizationException("Subject does not have any of the required roles: "
+                + String.join(", ", roles));
     }
 }
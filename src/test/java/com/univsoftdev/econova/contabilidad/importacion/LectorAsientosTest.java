@@ -0,0 +1,169 @@
+package com.univsoftdev.econova.contabilidad.importacion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author CNA
+ */
+public class LectorAsientosTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    public void testCsvAgrupaFilasPorReferencia() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("asientos.csv"), """
+                referencia;fecha;descripcion;cuenta;debe;haber;detalle;subsistema
+                N-1;2025-01-31;Nómina enero;701;1.500,00;;Salarios;Nómina
+                N-1;2025-01-31;Nómina enero;101;;1.500,00;Pago;Nómina
+                I-1;2025-01-31;Consumo;702;80,00;;;
+                I-1;2025-01-31;Consumo;183;;80,00;;
+                """);
+
+        List<AsientoImportado> asientos = leer(archivo);
+
+        assertEquals(2, asientos.size());
+        AsientoImportado nomina = asientos.get(0);
+        assertEquals(1, nomina.ordinal());
+        assertEquals(2, nomina.posicion());
+        assertEquals("N-1", nomina.referencia());
+        assertEquals("2025-01-31", nomina.fecha());
+        assertEquals("Nómina enero", nomina.descripcion());
+        assertEquals("Nómina", nomina.subsistema());
+        assertEquals(List.of(
+                new AsientoImportado.Linea("701", "1.500,00", "", "Salarios"),
+                new AsientoImportado.Linea("101", "", "1.500,00", "Pago")), nomina.lineas());
+
+        AsientoImportado consumo = asientos.get(1);
+        assertEquals(2, consumo.ordinal());
+        assertEquals(4, consumo.posicion());
+        assertEquals(2, consumo.lineas().size());
+        assertEquals("", consumo.subsistema());
+    }
+
+    @Test
+    public void testCsvSinEncabezado() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("asientos.csv"), """
+                A-1,2025-02-01,Venta,101,10.00,,,
+                A-1,2025-02-01,Venta,900,,10.00,,
+                """);
+
+        List<AsientoImportado> asientos = leer(archivo);
+
+        assertEquals(1, asientos.size());
+        assertEquals(1, asientos.get(0).posicion());
+        assertEquals(2, asientos.get(0).lineas().size());
+    }
+
+    @Test
+    public void testXml() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("asientos.xml"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <asientos>
+                  <asiento referencia="AF-1" fecha="31/01/2025" descripcion="Depreciación" subsistema="Activos Fijos">
+                    <linea cuenta="815" debe="25.00" descripcion="Gasto"/>
+                    <linea cuenta="375" haber="25.00"/>
+                  </asiento>
+                  <asiento referencia="AF-2" fecha="28/02/2025" descripcion="Depreciación">
+                    <linea cuenta="815" debe="25.00"/>
+                    <linea cuenta="375" haber="25.00"/>
+                  </asiento>
+                </asientos>
+                """);
+
+        List<AsientoImportado> asientos = leer(archivo);
+
+        assertEquals(2, asientos.size());
+        assertEquals("AF-1", asientos.get(0).referencia());
+        assertEquals("Activos Fijos", asientos.get(0).subsistema());
+        assertEquals(new AsientoImportado.Linea("815", "25.00", "", "Gasto"), asientos.get(0).lineas().get(0));
+        assertEquals(new AsientoImportado.Linea("375", "", "25.00", ""), asientos.get(0).lineas().get(1));
+        assertEquals(2, asientos.get(1).ordinal());
+        assertEquals("", asientos.get(1).subsistema());
+    }
+
+    @Test
+    public void testJsonConObjetoRaiz() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("asientos.json"), """
+                {
+                  "version": 1,
+                  "origen": {"sistema": "nomina"},
+                  "asientos": [
+                    {
+                      "referencia": "N-1",
+                      "fecha": "2025-01-31",
+                      "descripcion": "Nómina",
+                      "extra": [1, 2],
+                      "lineas": [
+                        {"cuenta": "701", "debe": 1500.00, "haber": null},
+                        {"cuenta": "101", "haber": "1500.00", "descripcion": "Pago"}
+                      ]
+                    }
+                  ]
+                }
+                """);
+
+        List<AsientoImportado> asientos = leer(archivo);
+
+        assertEquals(1, asientos.size());
+        AsientoImportado asiento = asientos.get(0);
+        assertEquals("N-1", asiento.referencia());
+        assertEquals("", asiento.subsistema());
+        assertEquals(new AsientoImportado.Linea("701", "1500.00", "", ""), asiento.lineas().get(0));
+        assertEquals(new AsientoImportado.Linea("101", "", "1500.00", "Pago"), asiento.lineas().get(1));
+    }
+
+    @Test
+    public void testJsonConArreglo() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("asientos.json"), """
+                [
+                  {"referencia": "A-1", "lineas": []},
+                  {"referencia": "A-2", "lineas": []}
+                ]
+                """);
+
+        List<AsientoImportado> asientos = leer(archivo);
+
+        assertEquals(2, asientos.size());
+        assertEquals("A-2", asientos.get(1).referencia());
+    }
+
+    @Test
+    public void testJsonSinArregloDeAsientos() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("asientos.json"), "{\"version\": 1}");
+
+        assertThrows(IOException.class, () -> leer(archivo));
+    }
+
+    @Test
+    public void testReceptorDetieneLaLectura() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("asientos.csv"), """
+                A-1;2025-01-01;Uno;101;1;;;
+                A-2;2025-01-02;Dos;101;1;;;
+                A-3;2025-01-03;Tres;101;1;;;
+                """);
+        List<AsientoImportado> asientos = new ArrayList<>();
+
+        LectorAsientos.leer(archivo, asiento -> {
+            asientos.add(asiento);
+            return asientos.size() < 2;
+        });
+
+        assertEquals(2, asientos.size());
+    }
+
+    private static List<AsientoImportado> leer(Path archivo) throws IOException {
+        List<AsientoImportado> asientos = new ArrayList<>();
+        LectorAsientos.leer(archivo, asientos::add);
+        return asientos;
+    }
+}
@@ -0,0 +1,64 @@
+package com.univsoftdev.econova.contabilidad.importacion;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author CNA
+ */
+public class PuntoControlImportacionTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    public void testClaveEsIgualParaRutasEquivalentes() {
+        Path archivo = directorio.resolve("asientos.csv");
+        Path conRodeo = directorio.resolve("sub").resolve("..").resolve("asientos.csv");
+
+        String clave = PuntoControlImportacion.clave(archivo);
+
+        assertEquals(clave, PuntoControlImportacion.clave(conRodeo));
+        assertEquals(64, clave.length());
+        assertTrue(clave.matches("[0-9a-f]+"));
+    }
+
+    @Test
+    public void testClaveDistingueArchivos() {
+        assertNotEquals(PuntoControlImportacion.clave(directorio.resolve("enero.csv")),
+                PuntoControlImportacion.clave(directorio.resolve("febrero.csv")));
+    }
+
+    @Test
+    public void testHuellaCambiaSiCambiaElArchivo() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("asientos.csv"), "A1;2025-01-01;Nomina\n");
+        Files.setLastModifiedTime(archivo, FileTime.from(Instant.parse("2025-01-01T10:00:00Z")));
+        String huella = PuntoControlImportacion.huella(archivo);
+
+        assertEquals(huella, PuntoControlImportacion.huella(archivo));
+
+        Files.writeString(archivo, "A1;2025-01-01;Nomina\nA2;2025-01-02;Inventario\n");
+        Files.setLastModifiedTime(archivo, FileTime.from(Instant.parse("2025-01-01T10:00:00Z")));
+        assertNotEquals(huella, PuntoControlImportacion.huella(archivo));
+    }
+
+    @Test
+    public void testHuellaCambiaConLaFechaDeModificacion() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("asientos.csv"), "A1;2025-01-01;Nomina\n");
+        Files.setLastModifiedTime(archivo, FileTime.from(Instant.parse("2025-01-01T10:00:00Z")));
+        String huella = PuntoControlImportacion.huella(archivo);
+
+        Files.setLastModifiedTime(archivo, FileTime.from(Instant.parse("2025-01-02T10:00:00Z")));
+
+        assertNotEquals(huella, PuntoControlImportacion.huella(archivo));
+    }
+}
@@ -0,0 +1,46 @@
+package com.univsoftdev.econova.contabilidad.service;
+
+import java.math.BigDecimal;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author CNA
+ */
+public class ImportacionAsientosServiceTest {
+
+    @Test
+    public void testImporteConPuntoDecimal() {
+        assertEquals(new BigDecimal("1234.56"), ImportacionAsientosService.importe("1234.56"));
+        assertEquals(new BigDecimal("1234.56"), ImportacionAsientosService.importe("1,234.56"));
+        assertEquals(new BigDecimal("1234567.80"), ImportacionAsientosService.importe("1,234,567.80"));
+    }
+
+    @Test
+    public void testImporteConComaDecimal() {
+        assertEquals(new BigDecimal("1234.56"), ImportacionAsientosService.importe("1234,56"));
+        assertEquals(new BigDecimal("1234.56"), ImportacionAsientosService.importe("1.234,56"));
+        assertEquals(new BigDecimal("1234567.80"), ImportacionAsientosService.importe("1.234.567,80"));
+    }
+
+    @Test
+    public void testImporteConEspaciosYSigno() {
+        assertEquals(new BigDecimal("1234.56"), ImportacionAsientosService.importe(" 1 234,56 "));
+        assertEquals(new BigDecimal("-10.00"), ImportacionAsientosService.importe("-10,00"));
+        assertEquals(new BigDecimal("500"), ImportacionAsientosService.importe("500"));
+    }
+
+    @Test
+    public void testImporteVacioEsCero() {
+        assertEquals(BigDecimal.ZERO, ImportacionAsientosService.importe(null));
+        assertEquals(BigDecimal.ZERO, ImportacionAsientosService.importe(""));
+        assertEquals(BigDecimal.ZERO, ImportacionAsientosService.importe("   "));
+    }
+
+    @Test
+    public void testImporteNoNumerico() {
+        assertThrows(NumberFormatException.class, () -> ImportacionAsientosService.importe("abc"));
+    }
+}
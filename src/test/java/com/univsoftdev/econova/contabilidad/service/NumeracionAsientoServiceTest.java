@@ -0,0 +1,80 @@
+package com.univsoftdev.econova.contabilidad.service;
+
+import com.univsoftdev.econova.config.model.Period;
+import com.univsoftdev.econova.config.model.Unit;
+import com.univsoftdev.econova.contabilidad.model.VoucherSequence;
+import com.univsoftdev.econova.contabilidad.repository.SecuenciaAsientoRepository;
+import java.time.LocalDate;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ *
+ * @author CNA
+ */
+public class NumeracionAsientoServiceTest {
+
+    private SecuenciaAsientoRepository repository;
+    private NumeracionAsientoService service;
+    private Unit unidad;
+    private Period periodo;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(SecuenciaAsientoRepository.class);
+        service = new NumeracionAsientoService(repository);
+        unidad = new Unit("01", "Unidad", null);
+        unidad.setId(5L);
+        periodo = new Period("2025-01", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31));
+        periodo.setId(7L);
+    }
+
+    @Test
+    public void testReservarBloquesConsecutivos() {
+        VoucherSequence secuencia = new VoucherSequence(unidad, periodo, 0);
+
+        assertEquals(1, secuencia.reservar(1));
+        assertEquals(2, secuencia.reservar(50));
+        assertEquals(52, secuencia.reservar(1));
+        assertEquals(52, secuencia.getLastNumber());
+    }
+
+    @Test
+    public void testReservarContinuaDesdeElUltimoNumero() {
+        VoucherSequence secuencia = new VoucherSequence(unidad, periodo, 120);
+
+        assertEquals(121, secuencia.reservar(3));
+        assertEquals(123, secuencia.getLastNumber());
+    }
+
+    @Test
+    public void testConsultarSiguienteNumeroConSecuencia() {
+        when(repository.findByUnidadYPeriodo(5L, 7L))
+                .thenReturn(Optional.of(new VoucherSequence(unidad, periodo, 41)));
+
+        assertEquals(42, service.consultarSiguienteNumero(unidad, periodo));
+        verify(repository, never()).maxNumeroAsiento(anyLong(), anyLong());
+    }
+
+    @Test
+    public void testConsultarSiguienteNumeroSinSecuencia() {
+        when(repository.findByUnidadYPeriodo(5L, 7L)).thenReturn(Optional.empty());
+        when(repository.maxNumeroAsiento(5L, 7L)).thenReturn(9);
+
+        assertEquals(10, service.consultarSiguienteNumero(unidad, periodo));
+    }
+
+    @Test
+    public void testConsultarSiguienteNumeroSinUnidadOPeriodo() {
+        assertThrows(NullPointerException.class, () -> service.consultarSiguienteNumero(null, periodo));
+        assertThrows(NullPointerException.class, () -> service.consultarSiguienteNumero(unidad, null));
+    }
+}
@@ -0,0 +1,171 @@
+package com.univsoftdev.econova.contabilidad.service;
+
+import com.univsoftdev.econova.config.model.Period;
+import com.univsoftdev.econova.contabilidad.TipoTransaccion;
+import com.univsoftdev.econova.contabilidad.model.Account;
+import com.univsoftdev.econova.contabilidad.model.AccountingEntry;
+import com.univsoftdev.econova.contabilidad.model.Currency;
+import com.univsoftdev.econova.contabilidad.model.Transaction;
+import com.univsoftdev.econova.contabilidad.repository.SaldoPeriodoRepository.Variacion;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author CNA
+ */
+public class SaldoPeriodoServiceTest {
+
+    private static final BigDecimal SUMAR = BigDecimal.ONE;
+    private static final BigDecimal RESTAR = BigDecimal.ONE.negate();
+    private static final Currency PESO = new Currency("CUP", "Peso cubano");
+
+    @Test
+    public void testAgruparSumaPorPeriodoYCuenta() {
+        Period enero = periodo(2L, 1);
+        Account caja = cuenta(10L, "101");
+        Account banco = cuenta(11L, "102");
+
+        AccountingEntry primero = asiento(enero,
+                transaccion(TipoTransaccion.DEBITO, new BigDecimal("100.00"), caja),
+                transaccion(TipoTransaccion.CREDITO, new BigDecimal("100.00"), banco));
+        AccountingEntry segundo = asiento(enero,
+                transaccion(TipoTransaccion.DEBITO, new BigDecimal("25.50"), caja),
+                transaccion(TipoTransaccion.CREDITO, new BigDecimal("5.50"), caja),
+                transaccion(TipoTransaccion.CREDITO, new BigDecimal("20.00"), banco));
+
+        List<Variacion> variaciones = SaldoPeriodoService.agrupar(List.of(primero, segundo), SUMAR);
+
+        assertEquals(2, variaciones.size());
+        Variacion deCaja = variaciones.get(0);
+        assertEquals(10L, deCaja.accountId());
+        assertEquals(2L, deCaja.periodId());
+        assertEquals(0, new BigDecimal("125.50").compareTo(deCaja.debito()));
+        assertEquals(0, new BigDecimal("5.50").compareTo(deCaja.credito()));
+        assertEquals(3, deCaja.cantidad());
+
+        Variacion deBanco = variaciones.get(1);
+        assertEquals(11L, deBanco.accountId());
+        assertEquals(0, BigDecimal.ZERO.compareTo(deBanco.debito()));
+        assertEquals(0, new BigDecimal("120.00").compareTo(deBanco.credito()));
+        assertEquals(2, deBanco.cantidad());
+    }
+
+    @Test
+    public void testAgruparOrdenaPorPeriodoYCuenta() {
+        Period febrero = periodo(3L, 2);
+        Period enero = periodo(2L, 1);
+        Account caja = cuenta(10L, "101");
+        Account banco = cuenta(11L, "102");
+
+        List<Variacion> variaciones = SaldoPeriodoService.agrupar(List.of(
+                asiento(febrero, transaccion(TipoTransaccion.DEBITO, BigDecimal.ONE, caja)),
+                asiento(enero, transaccion(TipoTransaccion.DEBITO, BigDecimal.TEN, banco)),
+                asiento(enero, transaccion(TipoTransaccion.CREDITO, BigDecimal.TEN, caja))), SUMAR);
+
+        assertEquals(3, variaciones.size());
+        assertEquals(2L, variaciones.get(0).periodId());
+        assertEquals(10L, variaciones.get(0).accountId());
+        assertEquals(2L, variaciones.get(1).periodId());
+        assertEquals(11L, variaciones.get(1).accountId());
+        assertEquals(3L, variaciones.get(2).periodId());
+        assertEquals(10L, variaciones.get(2).accountId());
+    }
+
+    @Test
+    public void testAgruparConSignoNegativoRevierteLaVariacion() {
+        Period enero = periodo(2L, 1);
+        Account caja = cuenta(10L, "101");
+
+        List<Variacion> variaciones = SaldoPeriodoService.agrupar(List.of(asiento(enero,
+                transaccion(TipoTransaccion.DEBITO, new BigDecimal("40.00"), caja),
+                transaccion(TipoTransaccion.CREDITO, new BigDecimal("15.00"), caja))), RESTAR);
+
+        assertEquals(1, variaciones.size());
+        assertEquals(0, new BigDecimal("-40.00").compareTo(variaciones.get(0).debito()));
+        assertEquals(0, new BigDecimal("-15.00").compareTo(variaciones.get(0).credito()));
+        assertEquals(-2, variaciones.get(0).cantidad());
+    }
+
+    @Test
+    public void testAgruparIgnoraAsientosYTransaccionesIncompletos() {
+        Period enero = periodo(2L, 1);
+        Account caja = cuenta(10L, "101");
+        Account sinId = new Account("999", "Sin guardar");
+
+        AccountingEntry sinPeriodo = new AccountingEntry();
+        sinPeriodo.addTransaccion(transaccion(TipoTransaccion.DEBITO, BigDecimal.TEN, caja));
+        AccountingEntry vacio = asiento(enero);
+        AccountingEntry mixto = asiento(enero,
+                transaccion(TipoTransaccion.DEBITO, new BigDecimal("7.00"), caja),
+                transaccion(TipoTransaccion.DEBITO, BigDecimal.ONE, sinId));
+        // Sin importe no tiene descripción, y addTransaccion la compara con equals
+        mixto.getTransactions().add(new Transaction(TipoTransaccion.CREDITO, null, caja));
+
+        List<Variacion> variaciones = SaldoPeriodoService.agrupar(
+                Arrays.asList(null, sinPeriodo, vacio, mixto), SUMAR);
+
+        assertEquals(1, variaciones.size());
+        assertEquals(0, new BigDecimal("7.00").compareTo(variaciones.get(0).debito()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(variaciones.get(0).credito()));
+        assertEquals(1, variaciones.get(0).cantidad());
+    }
+
+    @Test
+    public void testAgruparSinAsientos() {
+        assertTrue(SaldoPeriodoService.agrupar(List.of(), SUMAR).isEmpty());
+    }
+
+    @Test
+    public void testFechaMasAntiguaTomaElPrimerMovimiento() {
+        Period enero = periodo(2L, 1);
+        Account caja = cuenta(10L, "101");
+
+        Transaction dia20 = transaccion(TipoTransaccion.DEBITO, BigDecimal.TEN, caja);
+        dia20.setDate(LocalDate.of(2025, 1, 20));
+        Transaction sinFecha = transaccion(TipoTransaccion.CREDITO, BigDecimal.TEN, caja);
+        AccountingEntry conFechas = asiento(enero, dia20);
+        AccountingEntry delDia10 = asiento(enero, sinFecha);
+        delDia10.setFecha(LocalDate.of(2025, 1, 10));
+
+        assertEquals(Optional.of(LocalDate.of(2025, 1, 20)),
+                SaldoPeriodoService.fechaMasAntigua(List.of(conFechas)));
+        assertEquals(Optional.of(LocalDate.of(2025, 1, 10)),
+                SaldoPeriodoService.fechaMasAntigua(Arrays.asList(conFechas, null, delDia10)));
+        assertTrue(SaldoPeriodoService.fechaMasAntigua(List.of(asiento(enero))).isEmpty());
+    }
+
+    private static Period periodo(Long id, int mes) {
+        LocalDate inicio = LocalDate.of(2025, mes, 1);
+        Period periodo = new Period("2025-" + mes, inicio, inicio.withDayOfMonth(inicio.lengthOfMonth()));
+        periodo.setId(id);
+        return periodo;
+    }
+
+    private static Account cuenta(Long id, String codigo) {
+        Account cuenta = new Account(codigo, "Cuenta " + codigo);
+        cuenta.setId(id);
+        return cuenta;
+    }
+
+    private static Transaction transaccion(TipoTransaccion tipo, BigDecimal importe, Account cuenta) {
+        Transaction transaccion = new Transaction(tipo, importe, cuenta);
+        transaccion.setCurrency(PESO);
+        return transaccion;
+    }
+
+    private static AccountingEntry asiento(Period periodo, Transaction... transacciones) {
+        AccountingEntry asiento = new AccountingEntry();
+        asiento.setPeriod(periodo);
+        for (Transaction transaccion : transacciones) {
+            asiento.addTransaccion(transaccion);
+        }
+        return asiento;
+    }
+}
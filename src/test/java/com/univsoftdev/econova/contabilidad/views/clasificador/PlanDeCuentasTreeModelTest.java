@@ -0,0 +1,130 @@
+package com.univsoftdev.econova.contabilidad.views.clasificador;
+
+import com.univsoftdev.econova.contabilidad.NatureOfAccount;
+import com.univsoftdev.econova.contabilidad.dto.NodoCuentaDto;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.tree.TreePath;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author CNA
+ */
+public class PlanDeCuentasTreeModelTest {
+
+    private static final String RAIZ = "Plan de Cuentas";
+
+    private NodoCuentaDto caja;
+    private NodoCuentaDto cajaCup;
+    private NodoCuentaDto cajaUsd;
+    private NodoCuentaDto capital;
+    private NodoCuentaDto huerfana;
+    private PlanDeCuentasTreeModel model;
+
+    @BeforeEach
+    public void setUp() {
+        caja = nodo(1, NodoCuentaDto.SIN_PADRE, "101");
+        cajaCup = nodo(2, 1, "101.01");
+        capital = nodo(3, NodoCuentaDto.SIN_PADRE, "600");
+        cajaUsd = nodo(4, 1, "101.02");
+        // Su padre no está en el plan: cuelga de la raíz
+        huerfana = nodo(5, 99, "700.01");
+        model = new PlanDeCuentasTreeModel(RAIZ, List.of(caja, cajaCup, capital, cajaUsd, huerfana));
+    }
+
+    @Test
+    public void testHijosDeLaRaiz() {
+        assertSame(RAIZ, model.getRoot());
+        assertFalse(model.isLeaf(RAIZ));
+        assertEquals(3, model.getChildCount(RAIZ));
+        assertSame(caja, model.getChild(RAIZ, 0));
+        assertSame(capital, model.getChild(RAIZ, 1));
+        assertSame(huerfana, model.getChild(RAIZ, 2));
+        assertEquals(5, model.getCantidadCuentas());
+    }
+
+    @Test
+    public void testHijosConservanElOrden() {
+        assertEquals(2, model.getChildCount(caja));
+        assertSame(cajaCup, model.getChild(caja, 0));
+        assertSame(cajaUsd, model.getChild(caja, 1));
+        assertFalse(model.isLeaf(caja));
+        assertTrue(model.isLeaf(cajaUsd));
+        assertTrue(model.isLeaf(capital));
+    }
+
+    @Test
+    public void testIndiceDeHijo() {
+        assertEquals(0, model.getIndexOfChild(RAIZ, caja));
+        assertEquals(2, model.getIndexOfChild(RAIZ, huerfana));
+        assertEquals(1, model.getIndexOfChild(caja, cajaUsd));
+        assertEquals(-1, model.getIndexOfChild(capital, cajaUsd));
+        assertEquals(-1, model.getIndexOfChild(RAIZ, cajaCup));
+        assertEquals(-1, model.getIndexOfChild(RAIZ, "otro"));
+        assertEquals(-1, model.getIndexOfChild(RAIZ, nodo(42, NodoCuentaDto.SIN_PADRE, "900")));
+    }
+
+    @Test
+    public void testNodoAjenoNoTieneHijos() {
+        assertEquals(0, model.getChildCount(nodo(42, NodoCuentaDto.SIN_PADRE, "900")));
+        assertEquals(0, model.getChildCount("otro"));
+    }
+
+    @Test
+    public void testRutaDeUnaCuenta() {
+        assertArrayEquals(new Object[]{RAIZ, caja, cajaUsd}, model.getPath(4).getPath());
+        assertArrayEquals(new Object[]{RAIZ, huerfana}, model.getPath(5).getPath());
+        assertNull(model.getPath(42));
+    }
+
+    @Test
+    public void testRutaConCicloTermina() {
+        PlanDeCuentasTreeModel conCiclo = new PlanDeCuentasTreeModel(RAIZ, List.of(
+                nodo(1, 2, "1"),
+                nodo(2, 1, "2")));
+
+        TreePath ruta = conCiclo.getPath(1);
+
+        assertSame(RAIZ, ruta.getPathComponent(0));
+        assertEquals(3, ruta.getPathCount());
+    }
+
+    @Test
+    public void testPlanGrande() {
+        List<NodoCuentaDto> cuentas = new ArrayList<>();
+        int grupos = 100;
+        int subcuentas = 200;
+        for (int g = 1; g <= grupos; g++) {
+            cuentas.add(nodo(g, NodoCuentaDto.SIN_PADRE, String.valueOf(g)));
+        }
+        long id = grupos + 1;
+        for (int g = 1; g <= grupos; g++) {
+            for (int s = 0; s < subcuentas; s++) {
+                cuentas.add(nodo(id++, g, g + "." + s));
+            }
+        }
+
+        PlanDeCuentasTreeModel grande = new PlanDeCuentasTreeModel(RAIZ, cuentas);
+
+        assertEquals(grupos, grande.getChildCount(RAIZ));
+        NodoCuentaDto ultimoGrupo = (NodoCuentaDto) grande.getChild(RAIZ, grupos - 1);
+        assertEquals(grupos, ultimoGrupo.id());
+        assertEquals(subcuentas, grande.getChildCount(ultimoGrupo));
+        NodoCuentaDto ultima = (NodoCuentaDto) grande.getChild(ultimoGrupo, subcuentas - 1);
+        assertEquals(id - 1, ultima.id());
+        assertEquals(subcuentas - 1, grande.getIndexOfChild(ultimoGrupo, ultima));
+        assertEquals(3, grande.getPath(ultima.id()).getPathCount());
+    }
+
+    private static NodoCuentaDto nodo(long id, long padreId, String codigo) {
+        return new NodoCuentaDto(id, padreId, codigo, "Cuenta " + codigo, NatureOfAccount.DEBTOR);
+    }
+}
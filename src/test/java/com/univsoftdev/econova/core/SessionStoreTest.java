@@ -0,0 +1,100 @@
+package com.univsoftdev.econova.core;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author CNA
+ */
+public class SessionStoreTest {
+
+    private static final SessionStore.Clave<String> TEXTO = SessionStore.Clave.de("texto", String.class);
+    private static final SessionStore.Clave<Marcador> MARCADOR = SessionStore.Clave.de("marcador", Marcador.class);
+
+    @TempDir
+    Path directorio;
+
+    @AfterEach
+    public void tearDown() {
+        UserContext.reset();
+    }
+
+    @Test
+    public void testPrecargarLeeEnElHiloEscritor() throws Exception {
+        try (SessionStore anterior = new SessionStore(directorio)) {
+            anterior.put(MARCADOR, new Marcador());
+        }
+        Marcador.hiloLectura = null;
+
+        try (SessionStore store = new SessionStore(directorio)) {
+            store.precargar().get(5, TimeUnit.SECONDS);
+
+            assertEquals("econova-session-writer", Marcador.hiloLectura);
+            assertTrue(store.get(MARCADOR).isPresent());
+        }
+    }
+
+    @Test
+    public void testGetNoLeeEnElHiloQueLlama() throws Exception {
+        try (SessionStore anterior = new SessionStore(directorio)) {
+            anterior.put(MARCADOR, new Marcador());
+        }
+        Marcador.hiloLectura = null;
+
+        try (SessionStore store = new SessionStore(directorio)) {
+            store.get(MARCADOR);
+            store.precargar().get(5, TimeUnit.SECONDS);
+
+            assertEquals("econova-session-writer", Marcador.hiloLectura);
+            assertTrue(store.get(MARCADOR).isPresent());
+        }
+    }
+
+    @Test
+    public void testLoGuardadoEnEstaEjecucionPrevalece() throws Exception {
+        try (SessionStore anterior = new SessionStore(directorio)) {
+            anterior.put(TEXTO, "anterior");
+        }
+
+        try (SessionStore store = new SessionStore(directorio)) {
+            store.put(TEXTO, "actual");
+            store.precargar().get(5, TimeUnit.SECONDS);
+
+            assertEquals(Optional.of("actual"), store.get(TEXTO));
+        }
+        try (SessionStore siguiente = new SessionStore(directorio)) {
+            siguiente.precargar().get(5, TimeUnit.SECONDS);
+            assertEquals(Optional.of("actual"), siguiente.get(TEXTO));
+        }
+    }
+
+    @Test
+    public void testPrecargarConAlmacenCerrado() throws Exception {
+        SessionStore store = new SessionStore(directorio);
+        store.close();
+
+        assertTrue(store.precargar().isDone());
+        assertEquals(Optional.empty(), store.get(TEXTO));
+    }
+
+    static final class Marcador implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        static volatile String hiloLectura;
+
+        private void readObject(ObjectInputStream entrada) throws IOException, ClassNotFoundException {
+            entrada.defaultReadObject();
+            hiloLectura = Thread.currentThread().getName();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.univsoftdev.econova.core.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author CNA
+ */
+public class LectorTabularTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    public void testCsvConPuntoYComa() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("cuentas.csv"), """
+                \uFEFFcodigo;padre;nombre
+                101; ;Caja
+
+                101.01;101;"Caja; moneda nacional"
+                """);
+
+        List<List<String>> filas = leer(archivo);
+
+        assertEquals(List.of(
+                List.of("codigo", "padre", "nombre"),
+                List.of("101", "", "Caja"),
+                List.of("101.01", "101", "Caja; moneda nacional")), filas);
+    }
+
+    @Test
+    public void testCsvConComa() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("cuentas.csv"), """
+                codigo,nombre
+                101,"Caja, efectivo"
+                """);
+
+        assertEquals(List.of("101", "Caja, efectivo"), leer(archivo).get(1));
+    }
+
+    @Test
+    public void testCsvVacio() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("cuentas.csv"), "");
+
+        assertTrue(leer(archivo).isEmpty());
+    }
+
+    @Test
+    public void testManejadorDetieneLaLectura() throws IOException {
+        Path archivo = Files.writeString(directorio.resolve("cuentas.csv"), "1\n2\n3\n");
+        List<Integer> numeros = new ArrayList<>();
+
+        LectorTabular.leer(archivo, (numero, celdas) -> {
+            numeros.add(numero);
+            return numero < 2;
+        });
+
+        assertEquals(List.of(1, 2), numeros);
+    }
+
+    @Test
+    public void testIsXlsx() {
+        assertTrue(LectorTabular.isXlsx(Path.of("plan.XLSX")));
+        assertFalse(LectorTabular.isXlsx(Path.of("plan.csv")));
+    }
+
+    private static List<List<String>> leer(Path archivo) throws IOException {
+        List<List<String>> filas = new ArrayList<>();
+        LectorTabular.leer(archivo, (numero, celdas) -> filas.add(celdas));
+        return filas;
+    }
+}
@@ -0,0 +1,146 @@
+package com.univsoftdev.econova.db.postgres;
+
+import com.univsoftdev.econova.security.SecureEncryptionUtils;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author CNA
+ */
+public class ArchivoRespaldoTest {
+
+    @TempDir
+    Path temporal;
+
+    private Path volcado;
+    private Path destino;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        // Estructura similar a la de pg_dump -F d
+        volcado = Files.createDirectory(temporal.resolve("volcado"));
+        destino = Files.createDirectory(temporal.resolve("destino"));
+        Files.writeString(volcado.resolve("toc.dat"), "tabla de contenido");
+        Files.write(volcado.resolve("3001.dat.gz"), datos(600 * 1024));
+        Files.write(volcado.resolve("3002.dat.gz"), new byte[0]);
+        Files.createDirectories(volcado.resolve("blobs"));
+        Files.write(volcado.resolve("blobs").resolve("blob_1.dat"), datos(10));
+    }
+
+    @Test
+    public void testEmpaquetarYDesempaquetar() throws IOException {
+        AtomicLong copiados = new AtomicLong();
+        ByteArrayOutputStream paquete = new ByteArrayOutputStream();
+        ArchivoRespaldo.empaquetar(volcado, paquete, copiados::set);
+
+        assertEquals(ArchivoRespaldo.tamano(volcado), copiados.get());
+
+        AtomicLong extraidos = new AtomicLong();
+        ArchivoRespaldo.desempaquetar(new ByteArrayInputStream(paquete.toByteArray()), destino, extraidos::set);
+
+        assertEquals(copiados.get(), extraidos.get());
+        assertIguales(volcado, destino);
+    }
+
+    @Test
+    public void testEmpaquetarCifrado() throws Exception {
+        Path archivo = temporal.resolve("respaldo.backup");
+        try (OutputStream salida = new SecureEncryptionUtils("clave").encryptingStream(Files.newOutputStream(archivo))) {
+            ArchivoRespaldo.empaquetar(volcado, salida, copiados -> {
+            });
+        }
+
+        assertTrue(SecureEncryptionUtils.isEncryptedStream(archivo));
+        assertFalse(ArchivoRespaldo.esPaquete(archivo));
+
+        try (InputStream entrada = SecureEncryptionUtils.decryptingStream(Files.newInputStream(archivo), "clave")) {
+            ArchivoRespaldo.desempaquetar(entrada, destino, extraidos -> {
+            });
+        }
+        assertIguales(volcado, destino);
+    }
+
+    @Test
+    public void testEsPaquete() throws IOException {
+        Path paquete = temporal.resolve("respaldo.backup");
+        try (OutputStream salida = Files.newOutputStream(paquete)) {
+            ArchivoRespaldo.empaquetar(volcado, salida, copiados -> {
+            });
+        }
+        Path otro = Files.writeString(temporal.resolve("otro.sql"), "SELECT 1;");
+
+        assertTrue(ArchivoRespaldo.esPaquete(paquete));
+        assertFalse(ArchivoRespaldo.esPaquete(otro));
+    }
+
+    @Test
+    public void testCabeceraInvalida() {
+        byte[] datos = "NO ES UN RESPALDO DE ECONOVA".getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(IOException.class, () -> ArchivoRespaldo.desempaquetar(new ByteArrayInputStream(datos), destino,
+                extraidos -> {
+                }));
+    }
+
+    @Test
+    public void testPaqueteTruncado() throws IOException {
+        ByteArrayOutputStream paquete = new ByteArrayOutputStream();
+        ArchivoRespaldo.empaquetar(volcado, paquete, copiados -> {
+        });
+        byte[] truncado = Arrays.copyOf(paquete.toByteArray(), paquete.size() / 2);
+
+        assertThrows(IOException.class, () -> ArchivoRespaldo.desempaquetar(new ByteArrayInputStream(truncado),
+                destino, extraidos -> {
+                }));
+    }
+
+    @Test
+    public void testEntradaFueraDelDirectorio() throws IOException {
+        ByteArrayOutputStream paquete = new ByteArrayOutputStream();
+        DataOutputStream datos = new DataOutputStream(paquete);
+        datos.write("ECONOVA_RESPALDO_V1".getBytes(StandardCharsets.US_ASCII));
+        datos.writeBoolean(true);
+        datos.writeUTF("../fuera.dat");
+        datos.writeLong(1);
+        datos.write(0);
+        datos.writeBoolean(false);
+
+        assertThrows(IOException.class, () -> ArchivoRespaldo.desempaquetar(
+                new ByteArrayInputStream(paquete.toByteArray()), destino, extraidos -> {
+                }));
+        assertFalse(Files.exists(temporal.resolve("fuera.dat")));
+    }
+
+    private static void assertIguales(Path esperado, Path actual) throws IOException {
+        for (String nombre : new String[]{"toc.dat", "3001.dat.gz", "3002.dat.gz", "blobs/blob_1.dat"}) {
+            assertArrayEquals(Files.readAllBytes(esperado.resolve(nombre)), Files.readAllBytes(actual.resolve(nombre)),
+                    nombre);
+        }
+        assertEquals(ArchivoRespaldo.tamano(esperado), ArchivoRespaldo.tamano(actual));
+    }
+
+    private static byte[] datos(int tamano) {
+        byte[] datos = new byte[tamano];
+        new Random(tamano).nextBytes(datos);
+        return datos;
+    }
+}
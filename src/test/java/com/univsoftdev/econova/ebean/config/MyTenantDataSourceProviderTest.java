@@ -0,0 +1,126 @@
+package com.univsoftdev.econova.ebean.config;
+
+import io.ebean.datasource.DataSourceConfig;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.sql.DataSource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author CNA
+ */
+public class MyTenantDataSourceProviderTest {
+
+    private MyTenantDataSourceProvider provider;
+
+    @BeforeEach
+    public void setUp() {
+        // Tres conexiones: una partición para el esquema base y dos para las empresas
+        DataSourceConfig config = new DataSourceConfig();
+        config.setDriver("org.h2.Driver");
+        config.setUrl("jdbc:h2:mem:pools;DB_CLOSE_DELAY=-1;INIT="
+                + "CREATE SCHEMA IF NOT EXISTS \"accounting\"\\;CREATE SCHEMA IF NOT EXISTS \"t1\"\\;"
+                + "CREATE SCHEMA IF NOT EXISTS \"t2\"\\;CREATE SCHEMA IF NOT EXISTS \"t3\"");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMinConnections(1);
+        config.setMaxConnections(3);
+        config.setWaitTimeoutMillis(300);
+        config.setAutoCommit(true);
+        provider = new MyTenantDataSourceProvider(config, new MyTenantSchemaProvider(), 1, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        provider.shutdown(false);
+    }
+
+    @Test
+    public void testEsquemaBaseTienePoolPropio() throws SQLException {
+        DataSource base = provider.getDataSourceBase();
+
+        assertSame(base, provider.dataSource(null));
+        assertSame(base, provider.dataSource("accounting"));
+        try (Connection conexion = provider.dataSource("t1").getConnection()) {
+            assertEquals("t1", conexion.getSchema());
+        }
+        try (Connection conexion = base.getConnection()) {
+            assertEquals("accounting", conexion.getSchema());
+        }
+    }
+
+    @Test
+    public void testEsquemaBaseNoCuentaParaLasEmpresas() throws SQLException {
+        try (Connection t1 = provider.dataSource("t1").getConnection();
+                Connection t2 = provider.dataSource("t2").getConnection();
+                Connection base = provider.getDataSourceBase().getConnection()) {
+            assertFalse(base.isClosed());
+            assertEquals("accounting", base.getSchema());
+        }
+    }
+
+    @Test
+    public void testPrestamoEsperaEnLugarDeFallar() throws Exception {
+        Connection t1 = provider.dataSource("t1").getConnection();
+        Connection t2 = provider.dataSource("t2").getConnection();
+        DataSource t3 = provider.dataSource("t3");
+
+        CompletableFuture<String> espera = CompletableFuture.supplyAsync(() -> {
+            try (Connection conexion = t3.getConnection()) {
+                return conexion.getSchema();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThrows(TimeoutException.class, () -> espera.get(100, TimeUnit.MILLISECONDS));
+
+        t1.close();
+        assertEquals("t3", espera.get(5, TimeUnit.SECONDS));
+        t2.close();
+    }
+
+    @Test
+    public void testPrestamoAgotaLaEspera() throws Exception {
+        try (Connection t1 = provider.dataSource("t1").getConnection();
+                Connection t2 = provider.dataSource("t2").getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, () -> provider.dataSource("t3").getConnection());
+        }
+        try (Connection t3 = provider.dataSource("t3").getConnection()) {
+            assertFalse(t3.isClosed());
+        }
+    }
+
+    @Test
+    public void testCerrarDosVecesLiberaUnaSolaConexion() throws Exception {
+        Connection t1 = provider.dataSource("t1").getConnection();
+        t1.close();
+        t1.close();
+        assertTrue(t1.isClosed());
+
+        try (Connection a = provider.dataSource("t1").getConnection();
+                Connection b = provider.dataSource("t2").getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, () -> provider.dataSource("t3").getConnection());
+        }
+    }
+
+    @Test
+    public void testEstadisticasIncluyenElEsquemaBase() throws SQLException {
+        try (Connection t1 = provider.dataSource("t1").getConnection()) {
+            assertTrue(provider.getEstadisticas().stream().anyMatch(e -> e.esquema().equals("accounting")));
+            assertTrue(provider.getEstadisticas().stream().anyMatch(e -> e.esquema().equals("t1") && e.enUso() == 1));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.univsoftdev.econova.finanzas;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author CNA
+ */
+public class EstadoCuentaBancoTest {
+
+    @Test
+    public void testTiposDeCredito() {
+        assertTrue(registro("CR", "-10.00").isCredito());
+        assertTrue(registro("Cr.", "-10.00").isCredito());
+        assertTrue(registro(" abono ", "-10.00").isCredito());
+        assertTrue(registro("Crédito", "-10.00").isCredito());
+        assertTrue(registro("DEPÓSITO", "-10.00").isCredito());
+    }
+
+    @Test
+    public void testTiposDeDebito() {
+        assertFalse(registro("DB", "10.00").isCredito());
+        assertFalse(registro("Déb.", "10.00").isCredito());
+        assertFalse(registro("cargo", "10.00").isCredito());
+        assertFalse(registro("Extracción", "10.00").isCredito());
+    }
+
+    @Test
+    public void testSinTipoSeUsaElSigno() {
+        assertTrue(registro(null, "10.00").isCredito());
+        assertFalse(registro("", "-10.00").isCredito());
+        assertTrue(registro("TRANSF", "10.00").isCredito());
+        assertFalse(registro("TRANSF", "-10.00").isCredito());
+        assertFalse(registro(null, "0").isCredito());
+        assertFalse(registro(null, null).isCredito());
+    }
+
+    @Test
+    public void testFechaOperacion() {
+        EstadoCuentaBanco registro = new EstadoCuentaBanco();
+
+        registro.setFecha("2025-01-31T00:00:00-05:00");
+        assertEquals(LocalDate.of(2025, 1, 31), registro.getFechaOperacion());
+
+        registro.setFecha("5/2/2025 0:00:00");
+        assertEquals(LocalDate.of(2025, 2, 5), registro.getFechaOperacion());
+
+        registro.setFecha("31/12/2025");
+        assertEquals(LocalDate.of(2025, 12, 31), registro.getFechaOperacion());
+
+        registro.setFecha("31-12");
+        assertNull(registro.getFechaOperacion());
+
+        registro.setFecha(" ");
+        assertNull(registro.getFechaOperacion());
+    }
+
+    private static EstadoCuentaBanco registro(String tipo, String importe) {
+        EstadoCuentaBanco registro = new EstadoCuentaBanco();
+        registro.setTipo(tipo);
+        registro.setImporte(importe != null ? new BigDecimal(importe) : null);
+        return registro;
+    }
+}
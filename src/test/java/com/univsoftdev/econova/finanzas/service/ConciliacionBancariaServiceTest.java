@@ -0,0 +1,196 @@
+package com.univsoftdev.econova.finanzas.service;
+
+import com.univsoftdev.econova.contabilidad.TipoTransaccion;
+import com.univsoftdev.econova.contabilidad.dto.MovimientoCuentaDto;
+import com.univsoftdev.econova.contabilidad.model.Account;
+import com.univsoftdev.econova.contabilidad.service.TransaccionService;
+import com.univsoftdev.econova.core.system.TaskManager;
+import com.univsoftdev.econova.finanzas.service.ConciliacionBancariaService.ResultadoConciliacion;
+import com.univsoftdev.econova.finanzas.service.ConciliacionBancariaService.ResumenConciliacion;
+import com.univsoftdev.econova.finanzas.service.ConciliacionBancariaService.TipoCoincidencia;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ *
+ * @author CNA
+ */
+public class ConciliacionBancariaServiceTest {
+
+    private static final long CUENTA_ID = 8L;
+
+    @TempDir
+    Path directorio;
+
+    private final List<MovimientoCuentaDto> movimientos = new ArrayList<>();
+    private ConciliacionBancariaService service;
+    private Account cuenta;
+
+    @BeforeEach
+    public void setUp() {
+        TransaccionService transaccionService = mock(TransaccionService.class);
+        doAnswer(invocacion -> {
+            LocalDate desde = invocacion.getArgument(1);
+            LocalDate hasta = invocacion.getArgument(2);
+            Consumer<MovimientoCuentaDto> consumidor = invocacion.getArgument(3);
+            movimientos.stream()
+                    .filter(m -> !m.fecha().isBefore(desde) && !m.fecha().isAfter(hasta))
+                    .forEach(consumidor);
+            return null;
+        }).when(transaccionService).recorrerMovimientosConciliacion(eq(CUENTA_ID), any(), any(), any());
+        service = new ConciliacionBancariaService(transaccionService);
+        cuenta = new Account("1101", "Banco");
+        cuenta.setId(CUENTA_ID);
+    }
+
+    @Test
+    public void testConciliar() throws Exception {
+        MovimientoCuentaDto deposito = movimiento(1, "2025-01-10", TipoTransaccion.DEBITO, "100.00", "Depósito", 45);
+        MovimientoCuentaDto depositoReferido = movimiento(2, "2025-01-11", TipoTransaccion.DEBITO, "100.00", "Depósito", 123);
+        MovimientoCuentaDto cheque = movimiento(3, "2025-01-15", TipoTransaccion.CREDITO, "50.00", "Pago cheque 7788", 0);
+        movimientos.addAll(List.of(deposito, depositoReferido, cheque));
+
+        Path archivo = Files.writeString(directorio.resolve("estado.xml"), """
+                <?xml version="1.0" standalone="yes"?>
+                <NewDataSet>
+                  <Estado_x0020_de_x0020_Cuenta>
+                    <fecha>2025-01-10T00:00:00-05:00</fecha>
+                    <ref_corrie>000123</ref_corrie>
+                    <observ>Depósito en efectivo</observ>
+                    <importe>100.00</importe>
+                    <tipo>Cr.</tipo>
+                  </Estado_x0020_de_x0020_Cuenta>
+                  <Estado_x0020_de_x0020_Cuenta>
+                    <fecha>10/01/2025</fecha>
+                    <importe>100,00</importe>
+                    <tipo>C</tipo>
+                  </Estado_x0020_de_x0020_Cuenta>
+                  <Estado_x0020_de_x0020_Cuenta>
+                    <fecha>12/01/2025</fecha>
+                    <ref_corrie>7788</ref_corrie>
+                    <importe>50.00</importe>
+                    <tipo>Débito</tipo>
+                  </Estado_x0020_de_x0020_Cuenta>
+                  <Estado_x0020_de_x0020_Cuenta>
+                    <fecha>20/01/2025</fecha>
+                    <importe>999.99</importe>
+                    <tipo>CR</tipo>
+                  </Estado_x0020_de_x0020_Cuenta>
+                  <Estado_x0020_de_x0020_Cuenta>
+                    <fecha>21/01/2025</fecha>
+                    <importe>abc</importe>
+                  </Estado_x0020_de_x0020_Cuenta>
+                </NewDataSet>
+                """);
+        List<ResultadoConciliacion> resultados = new ArrayList<>();
+
+        ResumenConciliacion resumen = service.conciliar(archivo, cuenta, resultados::addAll,
+                mock(TaskManager.Progreso.class));
+
+        assertEquals(5, resultados.size());
+        assertEquals(TipoCoincidencia.REFERENCIA, resultados.get(0).coincidencia());
+        assertSame(depositoReferido, resultados.get(0).movimiento());
+        assertEquals(TipoCoincidencia.IMPORTE_FECHA, resultados.get(1).coincidencia());
+        assertSame(deposito, resultados.get(1).movimiento());
+        assertEquals(TipoCoincidencia.REFERENCIA, resultados.get(2).coincidencia());
+        assertSame(cheque, resultados.get(2).movimiento());
+        assertEquals(TipoCoincidencia.SIN_COINCIDENCIA, resultados.get(3).coincidencia());
+        assertNull(resultados.get(3).movimiento());
+        assertEquals(TipoCoincidencia.SIN_COINCIDENCIA, resultados.get(4).coincidencia());
+        assertNull(resultados.get(4).registro().getImporte());
+
+        assertEquals(5, resumen.registros());
+        assertEquals(2, resumen.porReferencia());
+        assertEquals(1, resumen.porImporteFecha());
+        assertEquals(2, resumen.sinCoincidencia());
+        assertEquals(0, new BigDecimal("999.99").compareTo(resumen.importePendiente()));
+        assertFalse(resumen.cancelada());
+        assertSame(resumen, service.getUltimaConciliacion(CUENTA_ID).orElseThrow());
+    }
+
+    @Test
+    public void testUnMovimientoSoloSeConciliaUnaVez() throws Exception {
+        movimientos.add(movimiento(1, "2025-03-03", TipoTransaccion.CREDITO, "20.00", "Comisión", 0));
+
+        Path archivo = Files.writeString(directorio.resolve("estado.xml"), """
+                <NewDataSet>
+                  <Estado_x0020_de_x0020_Cuenta>
+                    <fecha>3/3/2025</fecha>
+                    <importe>-20.00</importe>
+                  </Estado_x0020_de_x0020_Cuenta>
+                  <Estado_x0020_de_x0020_Cuenta>
+                    <fecha>3/3/2025</fecha>
+                    <importe>-20.00</importe>
+                  </Estado_x0020_de_x0020_Cuenta>
+                </NewDataSet>
+                """);
+        List<ResultadoConciliacion> resultados = new ArrayList<>();
+
+        ResumenConciliacion resumen = service.conciliar(archivo, cuenta, resultados::addAll,
+                mock(TaskManager.Progreso.class));
+
+        assertEquals(TipoCoincidencia.IMPORTE_FECHA, resultados.get(0).coincidencia());
+        assertEquals(TipoCoincidencia.SIN_COINCIDENCIA, resultados.get(1).coincidencia());
+        assertEquals(0, new BigDecimal("20.00").compareTo(resumen.importePendiente()));
+    }
+
+    @Test
+    public void testRegistroFueraDeOrdenRecargaElMesDescartado() throws Exception {
+        MovimientoCuentaDto primero = movimiento(1, "2025-01-10", TipoTransaccion.DEBITO, "100.00", "Depósito", 0);
+        MovimientoCuentaDto segundo = movimiento(2, "2025-01-10", TipoTransaccion.DEBITO, "100.00", "Depósito", 0);
+        movimientos.addAll(List.of(primero, segundo));
+
+        // Enero sale de memoria al llegar a mayo y vuelve a hacer falta al final
+        Path archivo = Files.writeString(directorio.resolve("estado.xml"), "<NewDataSet>"
+                + registro("10/01/2025", "100.00")
+                + registro("10/02/2025", "1.00")
+                + registro("10/03/2025", "1.00")
+                + registro("10/04/2025", "1.00")
+                + registro("10/05/2025", "1.00")
+                + registro("10/01/2025", "100.00")
+                + registro("10/01/2025", "100.00")
+                + "</NewDataSet>");
+        List<ResultadoConciliacion> resultados = new ArrayList<>();
+
+        service.conciliar(archivo, cuenta, resultados::addAll, mock(TaskManager.Progreso.class));
+
+        assertSame(primero, resultados.get(0).movimiento());
+        assertEquals(TipoCoincidencia.IMPORTE_FECHA, resultados.get(5).coincidencia());
+        assertSame(segundo, resultados.get(5).movimiento());
+        assertEquals(TipoCoincidencia.SIN_COINCIDENCIA, resultados.get(6).coincidencia());
+    }
+
+    @Test
+    public void testSinConciliacionesPrevias() {
+        assertTrue(service.getUltimaConciliacion(CUENTA_ID).isEmpty());
+        assertTrue(service.getUltimasConciliaciones().isEmpty());
+    }
+
+    private static String registro(String fecha, String importe) {
+        return "<Estado_x0020_de_x0020_Cuenta><fecha>" + fecha + "</fecha><importe>" + importe
+                + "</importe><tipo>Cr.</tipo></Estado_x0020_de_x0020_Cuenta>";
+    }
+
+    private static MovimientoCuentaDto movimiento(long id, String fecha, TipoTransaccion tipo, String importe,
+            String descripcion, int nroAsiento) {
+        return new MovimientoCuentaDto(id, LocalDate.parse(fecha), tipo, new BigDecimal(importe), descripcion,
+                nroAsiento);
+    }
+}
@@ -0,0 +1,134 @@
+package com.univsoftdev.econova.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * @author CNA
+ */
+public class SecureEncryptionUtilsTest {
+
+    private static final String CLAVE = "clave-de-respaldo";
+    private static final int TAMANO_BLOQUE = 1024 * 1024;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    public void testStreamVariosBloques() throws Exception {
+        // Dos bloques completos y uno parcial
+        byte[] datos = datos(2 * TAMANO_BLOQUE + 12345);
+
+        byte[] cifrado = cifrar(datos);
+
+        assertArrayEquals(datos, descifrar(cifrado, CLAVE));
+    }
+
+    @Test
+    public void testStreamMultiploExactoDelBloque() throws Exception {
+        byte[] datos = datos(TAMANO_BLOQUE);
+
+        assertArrayEquals(datos, descifrar(cifrar(datos), CLAVE));
+    }
+
+    @Test
+    public void testStreamVacio() throws Exception {
+        assertArrayEquals(new byte[0], descifrar(cifrar(new byte[0]), CLAVE));
+    }
+
+    @Test
+    public void testStreamEscrituraPorByte() throws Exception {
+        byte[] datos = datos(5000);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (OutputStream cifrado = new SecureEncryptionUtils(CLAVE).encryptingStream(salida)) {
+            for (byte b : datos) {
+                cifrado.write(b);
+            }
+        }
+
+        try (InputStream entrada = SecureEncryptionUtils.decryptingStream(
+                new ByteArrayInputStream(salida.toByteArray()), CLAVE)) {
+            for (byte b : datos) {
+                assertEquals(b & 0xFF, entrada.read());
+            }
+            assertEquals(-1, entrada.read());
+        }
+    }
+
+    @Test
+    public void testStreamClaveIncorrecta() throws Exception {
+        byte[] cifrado = cifrar(datos(1000));
+
+        assertThrows(IOException.class, () -> descifrar(cifrado, "otra-clave"));
+    }
+
+    @Test
+    public void testStreamAlterado() throws Exception {
+        byte[] cifrado = cifrar(datos(1000));
+        cifrado[cifrado.length - 1] ^= 1;
+
+        assertThrows(IOException.class, () -> descifrar(cifrado, CLAVE));
+    }
+
+    @Test
+    public void testStreamTruncado() throws Exception {
+        byte[] cifrado = cifrar(datos(2 * TAMANO_BLOQUE));
+        // Se pierde el último bloque: el anterior no está marcado como final
+        byte[] truncado = Arrays.copyOf(cifrado, cifrado.length - 100);
+
+        assertThrows(IOException.class, () -> descifrar(truncado, CLAVE));
+    }
+
+    @Test
+    public void testStreamCabeceraInvalida() {
+        byte[] datos = datos(100);
+
+        assertThrows(IOException.class, () -> descifrar(datos, CLAVE));
+    }
+
+    @Test
+    public void testIsEncryptedStream() throws Exception {
+        Path cifrado = Files.write(directorio.resolve("respaldo.enc"), cifrar(datos(10)));
+        Path plano = Files.write(directorio.resolve("respaldo.bin"), datos(10));
+        Path vacio = Files.write(directorio.resolve("vacio.bin"), new byte[0]);
+
+        assertTrue(SecureEncryptionUtils.isEncryptedStream(cifrado));
+        assertFalse(SecureEncryptionUtils.isEncryptedStream(plano));
+        assertFalse(SecureEncryptionUtils.isEncryptedStream(vacio));
+    }
+
+    private static byte[] cifrar(byte[] datos) throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (OutputStream cifrado = new SecureEncryptionUtils(CLAVE).encryptingStream(salida)) {
+            cifrado.write(datos);
+        }
+        return salida.toByteArray();
+    }
+
+    private static byte[] descifrar(byte[] cifrado, String clave) throws IOException {
+        try (InputStream entrada = SecureEncryptionUtils.decryptingStream(new ByteArrayInputStream(cifrado), clave)) {
+            return entrada.readAllBytes();
+        }
+    }
+
+    private static byte[] datos(int tamano) {
+        byte[] datos = new byte[tamano];
+        new Random(tamano).nextBytes(datos);
+        return datos;
+    }
+}
@@ -1,9 +1,14 @@
 package com.univsoftdev.econova.security.argon2;
 
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.SimpleAuthenticationInfo;
 import org.apache.shiro.authc.UsernamePasswordToken;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 
@@ -13,6 +18,9 @@ import org.junit.jupiter.api.Test;
  */
 public class Argon2PasswordHasherTest {
 
+    private static final Argon2PasswordHasher.Parametros ANTERIORES = new Argon2PasswordHasher.Parametros(2, 8192, 1);
+    private static final Argon2PasswordHasher.Parametros NUEVOS = new Argon2PasswordHasher.Parametros(3, 16384, 1);
+
     @Test
     public void testPasswordVerification() {
         Argon2PasswordHasher hasher = new Argon2PasswordHasher();
@@ -29,4 +37,78 @@ public class Argon2PasswordHasherTest {
         AuthenticationInfo info = new SimpleAuthenticationInfo("user", hash, "testRealm");
         assertTrue(matcher.doCredentialsMatch(token, info));
     }
+
+    @Test
+    public void testNeedsRehash() {
+        Argon2PasswordHasher anterior = new Argon2PasswordHasher(ANTERIORES);
+        Argon2PasswordHasher actual = new Argon2PasswordHasher(NUEVOS);
+
+        String hashAnterior = anterior.hash("admin123".toCharArray());
+        String hashActual = actual.hash("admin123".toCharArray());
+
+        assertFalse(actual.needsRehash(hashActual));
+        assertTrue(actual.needsRehash(hashAnterior));
+        assertTrue(actual.needsRehash("$2a$10$formatoDesconocido"));
+        assertFalse(actual.needsRehash(null));
+    }
+
+    @Test
+    public void testHashesAnterioresSiguenVerificandose() {
+        String hashAnterior = new Argon2PasswordHasher(ANTERIORES).hash("admin123".toCharArray());
+        Argon2PasswordHasher actual = new Argon2PasswordHasher(NUEVOS);
+
+        assertTrue(actual.verify(hashAnterior, "admin123".toCharArray()));
+        assertFalse(actual.verify(hashAnterior, "wrongpass".toCharArray()));
+    }
+
+    @Test
+    public void testRegeneraHashConParametrosNuevosAlIniciarSesion() {
+        String hashAnterior = new Argon2PasswordHasher(ANTERIORES).hash("admin123".toCharArray());
+        Argon2PasswordHasher actual = new Argon2PasswordHasher(NUEVOS);
+        Argon2CredentialsMatcher matcher = new Argon2CredentialsMatcher(actual);
+        AtomicReference<String> regenerado = new AtomicReference<>();
+        matcher.setRehashHandler((info, hash) -> regenerado.set(hash));
+
+        AuthenticationInfo info = new SimpleAuthenticationInfo("user", hashAnterior, "testRealm");
+        assertTrue(matcher.doCredentialsMatch(new UsernamePasswordToken("user", "admin123".toCharArray()), info));
+
+        assertNotNull(regenerado.get());
+        assertFalse(actual.needsRehash(regenerado.get()));
+        assertTrue(actual.verify(regenerado.get(), "admin123".toCharArray()));
+    }
+
+    @Test
+    public void testNoRegeneraHashSiLaContrasenaEsIncorrecta() {
+        String hashAnterior = new Argon2PasswordHasher(ANTERIORES).hash("admin123".toCharArray());
+        Argon2CredentialsMatcher matcher = new Argon2CredentialsMatcher(new Argon2PasswordHasher(NUEVOS));
+        AtomicReference<String> regenerado = new AtomicReference<>();
+        matcher.setRehashHandler((info, hash) -> regenerado.set(hash));
+
+        AuthenticationInfo info = new SimpleAuthenticationInfo("user", hashAnterior, "testRealm");
+        assertFalse(matcher.doCredentialsMatch(new UsernamePasswordToken("user", "wrongpass".toCharArray()), info));
+
+        assertNull(regenerado.get());
+    }
+
+    @Test
+    public void testVerifyAsyncLimpiaLaContrasena() {
+        Argon2PasswordHasher hasher = new Argon2PasswordHasher(NUEVOS);
+        String hash = hasher.hash("admin123".toCharArray());
+        char[] password = "admin123".toCharArray();
+
+        assertTrue(hasher.verifyAsync(hash, password).join());
+        assertArrayEquals(new char[password.length], password);
+        assertFalse(hasher.verifyAsync(hash, "wrongpass".toCharArray()).join());
+    }
+
+    @Test
+    public void testCalibrarNoCambiaLosParametros() {
+        Argon2PasswordHasher hasher = new Argon2PasswordHasher(NUEVOS);
+
+        // Un objetivo inalcanzable lleva la memoria al mínimo y deja una iteración
+        Argon2PasswordHasher.Parametros calibrados = hasher.calibrar(0);
+
+        assertEquals(new Argon2PasswordHasher.Parametros(1, 16384, 1), calibrados);
+        assertEquals(NUEVOS, hasher.getParametros());
+    }
 }
@@ -0,0 +1,87 @@
+package com.univsoftdev.econova.security.shiro;
+
+import com.univsoftdev.econova.config.model.User;
+import com.univsoftdev.econova.core.UserContext;
+import io.ebean.Database;
+import io.ebean.Query;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ *
+ * @author CNA
+ */
+public class AutorizacionCacheTest {
+
+    private final List<String> empresasConsultadas = new ArrayList<>();
+    private AutorizacionCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        Query<User> consulta = mock(Query.class, RETURNS_SELF);
+        when(consulta.findOne()).thenReturn(null);
+        Database database = mock(Database.class);
+        when(database.find(User.class)).thenAnswer(invocacion -> {
+            empresasConsultadas.add(UserContext.get().getTenantId());
+            return consulta;
+        });
+        cache = new AutorizacionCache(database);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        UserContext.reset();
+    }
+
+    @Test
+    public void testMismoIdEnDistintasEmpresasNoComparteEntrada() {
+        PermisosCompilados deT1 = cache.getPermisos(usuario(7L, "t1"));
+        PermisosCompilados deT2 = cache.getPermisos(usuario(7L, "t2"));
+        cache.getPermisos(usuario(7L, "t1"));
+
+        assertEquals(List.of("t1", "t2"), empresasConsultadas);
+        assertSame(deT1, cache.getPermisos(usuario(7L, "t1")));
+        assertSame(deT2, cache.getPermisos(usuario(7L, "t2")));
+    }
+
+    @Test
+    public void testCargarRestauraElContextoDeQuienLlama() {
+        UserContext.set("admin", "t9");
+
+        cache.getPermisos(usuario(3L, "t1"));
+
+        assertEquals(List.of("t1"), empresasConsultadas);
+        assertEquals("admin", UserContext.get().getUserId());
+        assertEquals("t9", UserContext.get().getTenantId());
+    }
+
+    @Test
+    public void testInvalidarDescartaElUsuarioEnTodasLasEmpresas() {
+        cache.getPermisos(usuario(7L, "t1"));
+        cache.getPermisos(usuario(7L, "t2"));
+        cache.getPermisos(usuario(8L, "t1"));
+
+        cache.invalidar(7L);
+        cache.getPermisos(usuario(7L, "t1"));
+        cache.getPermisos(usuario(7L, "t2"));
+        cache.getPermisos(usuario(8L, "t1"));
+
+        assertEquals(List.of("t1", "t2", "t1", "t1", "t2"), empresasConsultadas);
+    }
+
+    private static User usuario(Long id, String empresa) {
+        User user = new User("usuario" + id);
+        user.setId(id);
+        user.setTenantId(empresa);
+        return user;
+    }
+}
@@ -0,0 +1,63 @@
+package com.univsoftdev.econova.security.shiro;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author CNA
+ */
+public class LoginAttemptCacheTest {
+
+    @Test
+    public void testHostRemotoEsLaDireccionSsh() {
+        assertEquals("10.0.0.7", LoginAttemptCache.resolverHost("10.0.0.7 52144 22", "servidor", "ana"));
+    }
+
+    @Test
+    public void testHostDeEscritorioUsaEquipoYUsuario() {
+        assertEquals("local:pc-contable/ana", LoginAttemptCache.resolverHost(null, "PC-CONTABLE", "ana"));
+        assertEquals("local:pc-contable", LoginAttemptCache.resolverHost("", "PC-CONTABLE", null));
+    }
+
+    @Test
+    public void testSshConNombreNoSeResuelve() {
+        // Un nombre en SSH_CLIENT obligaría a consultar el DNS: se usa el equipo local
+        assertEquals("local:servidor/ana", LoginAttemptCache.resolverHost("cliente.example 52144 22", "servidor", "ana"));
+    }
+
+    @Test
+    public void testSinEquipoConocidoElHostEsNulo() {
+        assertNull(LoginAttemptCache.resolverHost(null, null, "ana"));
+        assertNull(LoginAttemptCache.resolverHost(null, " ", "ana"));
+    }
+
+    @Test
+    public void testHostNuloSoloCuentaAlUsuario() {
+        String usuario = "sin-host-" + System.nanoTime();
+
+        assertEquals(1, LoginAttemptCache.recordFailedAttempt(usuario, null));
+        assertEquals(0, LoginAttemptCache.retrasoHost(null));
+        assertFalse(LoginAttemptCache.isLocked(usuario, null));
+
+        LoginAttemptCache.recordFailedAttempt(usuario, null);
+        LoginAttemptCache.recordFailedAttempt(usuario, null);
+        assertTrue(LoginAttemptCache.isLocked(usuario, null));
+        LoginAttemptCache.resetAttempts(usuario);
+    }
+
+    @Test
+    public void testHostConFallosEsperaSinBloquearse() {
+        String host = "local:equipo-" + System.nanoTime() + "/ana";
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, LoginAttemptCache.retrasoHost(host));
+            LoginAttemptCache.recordFailedAttempt("usuario-" + i + "-" + host, host);
+        }
+
+        assertEquals(1000, LoginAttemptCache.retrasoHost(host));
+        assertFalse(LoginAttemptCache.isLocked("otro-" + host, host));
+    }
+}